@@ -0,0 +1,23 @@
+package com.library.lms.librario.config;
+
+import com.library.lms.librario.service.mail.SinkMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * app.mail.type=sink replaces the SMTP sender with {@link SinkMailSender}
+ * (Spring Boot's own JavaMailSender backs off when this bean exists).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.mail.type", havingValue = "sink")
+public class MailSinkConfig {
+
+    @Bean
+    public JavaMailSender sinkMailSender(@Value("${app.mail.sink.connect-micros:50000}") long connectMicros,
+                                         @Value("${app.mail.sink.message-micros:2000}") long perMessageMicros) {
+        return new SinkMailSender(connectMicros, perMessageMicros);
+    }
+}
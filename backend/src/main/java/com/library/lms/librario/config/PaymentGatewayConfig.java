@@ -0,0 +1,42 @@
+package com.library.lms.librario.config;
+
+import com.library.lms.librario.service.payment.CircuitBreaker;
+import com.library.lms.librario.service.payment.FakePaymentGateway;
+import com.library.lms.librario.service.payment.PaymentGateway;
+import com.library.lms.librario.service.payment.RazorpayGateway;
+import com.library.lms.librario.service.payment.ResilientPaymentGateway;
+import com.razorpay.RazorpayException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The app's {@link PaymentGateway}: Razorpay, or {@link FakePaymentGateway} with
+ * app.payments.gateway.type=fake, always behind the {@link ResilientPaymentGateway} bulkhead.
+ */
+@Configuration
+public class PaymentGatewayConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ResilientPaymentGateway paymentGateway(
+            @Value("${app.payments.gateway.type:razorpay}") String type,
+            @Value("${razorpay.key_id:}") String keyId,
+            @Value("${razorpay.key_secret:}") String keySecret,
+            @Value("${app.payments.fake.latency-ms:50}") long fakeLatencyMillis,
+            @Value("${app.payments.fake.failure-rate:0}") double fakeFailureRate,
+            @Value("${app.payments.gateway.max-concurrent:10}") int maxConcurrent,
+            @Value("${app.payments.gateway.queue-capacity:10}") int queueCapacity,
+            @Value("${app.payments.gateway.call-timeout:PT5S}") Duration callTimeout,
+            @Value("${app.payments.gateway.failure-threshold:5}") int failureThreshold,
+            @Value("${app.payments.gateway.open-duration:PT30S}") Duration openDuration,
+            MeterRegistry meterRegistry) throws RazorpayException {
+        PaymentGateway gateway = "fake".equalsIgnoreCase(type)
+                ? new FakePaymentGateway(fakeLatencyMillis, fakeFailureRate)
+                : new RazorpayGateway(keyId, keySecret);
+        return new ResilientPaymentGateway(gateway, maxConcurrent, queueCapacity, callTimeout,
+                new CircuitBreaker(failureThreshold, openDuration), meterRegistry);
+    }
+}
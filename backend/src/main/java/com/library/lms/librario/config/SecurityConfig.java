@@ -15,6 +15,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.cors.CorsConfiguration;
@@ -59,6 +60,9 @@ public class SecurityConfig {
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
 
                 .authorizeHttpRequests(auth -> auth
+                        // ✅ Async re-dispatch of an already authorized request (SSE streams)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // ✅ Public endpoints
                         .requestMatchers(
                                 "/api/auth/**",
@@ -72,6 +76,7 @@ public class SecurityConfig {
 
                         // ✅ Role-based secured endpoints
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/librarian/**").hasAnyRole("LIBRARIAN","ADMIN")
                         .requestMatchers("/api/books", "/api/books/**").hasAnyRole("ADMIN","LIBRARIAN","MEMBER")
 
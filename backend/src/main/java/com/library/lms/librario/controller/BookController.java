@@ -1,14 +1,23 @@
 package com.library.lms.librario.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.lms.librario.dto.BookAvailability;
+import com.library.lms.librario.dto.BookSummaryDTO;
+import com.library.lms.librario.dto.CursorPage;
 import com.library.lms.librario.entity.enums.BookCondition;
 import com.library.lms.librario.model.Book;
 import com.library.lms.librario.service.BookService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -17,12 +26,28 @@ import java.util.List;
 public class BookController {
 
     private final BookService service;
+    private final ObjectMapper objectMapper;
 
-    // --- List all books ---
+    /**
+     * --- List all books (deprecated) ---
+     * Same JSON array as before, but streamed page by page instead of built in memory.
+     * New clients should use GET /api/books/page.
+     */
+    @Deprecated
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','MEMBER')")
-    public List<Book> getAll() {
-        return service.listAll();
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        return streamAllBooks(service, objectMapper);
+    }
+
+    // --- Keyset-paginated catalog listing ---
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','MEMBER')")
+    public CursorPage<BookSummaryDTO> getPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "id") String sort) {
+        return service.listPage(cursor, size, sort);
     }
 
     // --- Add a book ---
@@ -46,14 +71,19 @@ public class BookController {
         service.delete(id);
     }
 
-    // --- Search books by title or author ---
+    // --- Search books: ranked full-text (q) or by title / author / genre / publisher ---
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN','MEMBER')")
     public List<Book> searchBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "50") int limit,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String genre,
             @RequestParam(required = false) String publisher) {
+        if (q != null && !q.isBlank()) {
+            return service.search(q, limit);
+        }
         return service.searchBooks(title, author, genre, publisher);
     }
 
@@ -86,4 +116,25 @@ public class BookController {
         return service.getBookAvailability();
     }
 
+    /** Writes every book as one JSON array without holding the whole catalog in memory. */
+    static ResponseEntity<StreamingResponseBody> streamAllBooks(BookService service, ObjectMapper objectMapper) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                service.forEachBook(book -> {
+                    try {
+                        objectMapper.writeValue(json, book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Deprecation", "true")
+                .header("Link", "</api/books/page>; rel=\"successor-version\"")
+                .body(body);
+    }
 }
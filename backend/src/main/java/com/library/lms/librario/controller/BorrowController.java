@@ -10,8 +10,8 @@ import com.library.lms.librario.entity.enums.BorrowStatus;
 import com.library.lms.librario.repository.BorrowRecordRepository;
 import com.library.lms.librario.service.BorrowService;
 import com.library.lms.librario.service.OverdueService;
-import com.library.lms.librario.service.NotificationService;
-import com.library.lms.librario.service.mail.MailService;
+import com.library.lms.librario.service.notification.NotificationDispatcher;
+import com.library.lms.librario.service.inventory.BookInventoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -28,11 +28,10 @@ public class BorrowController {
 
     @Autowired
     private BorrowRecordRepository borrowRecordRepo;
-    @Autowired
-    private MailService mailService;
     private final BorrowService borrowService;
     private final OverdueService overdueService;
-    private final NotificationService notificationService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final BookInventoryService bookInventory;
 
     // --- MEMBER: Request to borrow a book ---
     @PostMapping("/request")
@@ -45,7 +44,7 @@ public class BorrowController {
     @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
     @PostMapping("/approve/{requestId}")
     public BorrowRecord approveBorrow(@PathVariable Long requestId) {
-        return borrowService.approveBorrow(requestId);
+        return bookInventory.withRetry(() -> borrowService.approveBorrow(requestId));
     }
 
     // --- ADMIN/LIBRARIAN: Reject borrow request ---
@@ -61,20 +60,22 @@ public class BorrowController {
     public BorrowRecordDTO returnBook(@PathVariable Long id,
                                       @RequestParam(required = false) String condition) {
 
-        BookCondition bookCondition = null;
-        if (condition != null) {
-            bookCondition = BookCondition.valueOf(condition.toUpperCase());
-        }
+        BookCondition bookCondition = condition != null
+                ? BookCondition.valueOf(condition.toUpperCase())
+                : null;
 
-        BorrowRecord record = borrowService.returnBook(id, bookCondition);
+        BorrowRecord record = bookInventory.withRetry(() -> borrowService.returnBook(id, bookCondition));
         var fine = overdueService.calculateFine(record);
         record.setFineAmount(fine.doubleValue());
 
-        notificationService.create(
-                record.getUser(),
-                "Book Returned",
+        // coalesced with the notifications BorrowService already queued for this return
+        notificationDispatcher.toMember(
+                BorrowService.returnKey(record.getId()),
+                record.getUser().getId(),
+                record.getUser().getEmail(),
                 "Book '" + record.getBook().getTitle() + "' returned successfully. Fine: ₹" + fine,
-                com.library.lms.librario.entity.enums.NotificationType.GENERAL
+                com.library.lms.librario.entity.enums.NotificationType.GENERAL,
+                null
         );
 
         // Map entity -> DTO
@@ -140,11 +141,11 @@ public class BorrowController {
     public ResponseEntity<?> renewBook(@PathVariable Long borrowId) {
         BorrowRecord record = borrowService.renewBook(borrowId);
 
-        // Optional: send email
-        if (mailService != null) {
-            mailService.send(record.getUser().getEmail(), "Book Renewed",
-                    "Your book '" + record.getBook().getTitle() + "' has been renewed until " + record.getDueDate());
-        }
+        // email (coalesced with BorrowService's renewal notice)
+        notificationDispatcher.toMember(BorrowService.renewalKey(record), record.getUser().getId(),
+                record.getUser().getEmail(),
+                "Your book '" + record.getBook().getTitle() + "' has been renewed until " + record.getDueDate(),
+                com.library.lms.librario.entity.enums.NotificationType.GENERAL, "Book Renewed");
 
         return ResponseEntity.ok(Map.of(
                 "status", "success",
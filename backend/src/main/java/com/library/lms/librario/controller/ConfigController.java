@@ -2,8 +2,11 @@ package com.library.lms.librario.controller;
 
 
 import com.library.lms.librario.service.ConfigService;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+
 @RestController
 @RequestMapping("/api/config")
 public class ConfigController {
@@ -20,4 +23,12 @@ public class ConfigController {
         return configService.getFinePerDay().doubleValue();
     }
 
+    // ✅ PUT fine per day (admin); cached lookups pick it up immediately
+    @PutMapping("/fine")
+    @PreAuthorize("hasRole('ADMIN')")
+    public double setFine(@RequestParam BigDecimal value) {
+        configService.setFinePerDay(value);
+        return configService.getFinePerDay().doubleValue();
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.library.lms.librario.controller;
+
+import com.library.lms.librario.service.inventory.InventoryStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryStreamService inventoryStreamService;
+
+    // 🔹 Live availableCopies / status changes (Server-Sent Events, event name "inventory")
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return inventoryStreamService.subscribe();
+    }
+
+    // 🔹 Number of open stream connections
+    @GetMapping("/stream/subscribers")
+    public Map<String, Integer> subscribers() {
+        return Map.of("subscribers", inventoryStreamService.subscriberCount());
+    }
+}
@@ -1,11 +1,15 @@
 package com.library.lms.librario.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.lms.librario.dto.BookSummaryDTO;
+import com.library.lms.librario.dto.CursorPage;
 import com.library.lms.librario.model.Book;
 import com.library.lms.librario.service.BookService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
@@ -14,7 +18,11 @@ import java.util.Map;
 public class LibrarianController {
     // Example endpoint: add a book
     private final BookService bookService;
-    public LibrarianController(BookService bookService){ this.bookService = bookService; }
+    private final ObjectMapper objectMapper;
+    public LibrarianController(BookService bookService, ObjectMapper objectMapper){
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+    }
 
     // Librarian or Admin can add a book (SecurityConfig already enforces role)
     @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
@@ -28,10 +36,19 @@ public class LibrarianController {
         ));
     }
 
-    // Return all books (for librarian dashboard)
+    // Return all books (for librarian dashboard) — deprecated, streamed; prefer /books/page
+    @Deprecated
     @GetMapping("/books")
-    public ResponseEntity<?> listBooks() {
-        return ResponseEntity.ok(bookService.listAll());
+    public ResponseEntity<StreamingResponseBody> listBooks() {
+        return BookController.streamAllBooks(bookService, objectMapper);
+    }
+
+    // Keyset-paginated books for the librarian dashboard
+    @GetMapping("/books/page")
+    public CursorPage<BookSummaryDTO> listBooksPage(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestParam(defaultValue = "id") String sort) {
+        return bookService.listPage(cursor, size, sort);
     }
 
     // Borrowed-books endpoint (dummy for now — replace with real logic later)
@@ -1,12 +1,28 @@
 package com.library.lms.librario.controller;
 
+import com.library.lms.librario.dto.CursorPage;
+import com.library.lms.librario.dto.RetentionRunResult;
 import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.NotificationRepository;
+import com.library.lms.librario.repository.UserRepository;
 import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.notification.AdminMailDigest;
+import com.library.lms.librario.service.notification.NotificationRetentionService;
+import com.library.lms.librario.service.notification.NotificationStreamService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -15,6 +31,32 @@ public class NotificationController {
 
     private final NotificationRepository notificationRepository;
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final UserRepository userRepository;
+    private final AdminMailDigest adminMailDigest;
+    private final NotificationRetentionService retentionService;
+
+    // 🔹 Live notifications for the logged-in user and their role (Server-Sent Events,
+    // event "notification", id = notification id). Browsers resend Last-Event-ID on reconnect;
+    // a fresh page can pass ?since=<last seen id>. Polling endpoints below remain as fallback.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication auth,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             @RequestParam(required = false) Long since) {
+        Long userId = callerId(auth);
+        List<String> roles = callerRoles(auth);
+        Long resumeFrom = since;
+        if (lastEventId != null && lastEventId.matches("\\d+")) {
+            resumeFrom = Long.valueOf(lastEventId);
+        }
+        return notificationStreamService.subscribe(userId, roles, resumeFrom);
+    }
+
+    // 🔹 Number of open notification streams
+    @GetMapping("/stream/subscribers")
+    public Map<String, Integer> streamSubscribers() {
+        return Map.of("subscribers", notificationStreamService.subscriberCount());
+    }
 
     // 🔹 Admin notifications
     @GetMapping("/admin")
@@ -34,19 +76,73 @@ public class NotificationController {
         return notificationRepository.findByUserIdAndReadFalseOrderByCreatedAtDesc(userId);
     }
 
+    // 🔹 User inbox, newest first, one page at a time (pass nextCursor back as cursor)
+    @GetMapping("/user/{userId}/inbox")
+    public CursorPage<Notification> getUserInbox(@PathVariable Long userId,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        return notificationService.getUserInbox(userId, cursor, size, unreadOnly);
+    }
+
+    // 🔹 Unread count for the bell badge (served from memory)
+    @GetMapping("/unread/{userId}/count")
+    public long getUnreadCount(@PathVariable Long userId) {
+        return notificationService.getUnreadCountForUser(userId);
+    }
+
     // 🔹 Mark as read
     @PutMapping("/{id}/read")
     public void markAsRead(@PathVariable Long id) {
-        Notification notif = notificationRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Notification not found"));
-        notif.setRead(true);
-        notificationRepository.save(notif);
+        notificationService.markAsRead(id);
     }
 
     // 🔹 Delete a notification
     @DeleteMapping("/{id}")
     public void deleteNotification(@PathVariable Long id) {
-        notificationRepository.deleteById(id);
+        notificationService.delete(id);
+    }
+
+    // 🔹 Mark all of a user's notifications read (optionally only up to an id or time) in one UPDATE
+    @PutMapping("/user/{userId}/read-all")
+    public Map<String, Integer> markAllReadForUser(Authentication auth,
+                                                   @PathVariable Long userId,
+                                                   @RequestParam(required = false) Long upToId,
+                                                   @RequestParam(required = false)
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        if (!callerRoles(auth).contains("ADMIN") && !userId.equals(callerId(auth))) {
+            throw new AccessDeniedException("You can only mark your own notifications as read");
+        }
+        return Map.of("updated", notificationService.markAllReadForUser(userId, upToId, before));
+    }
+
+    // 🔹 Same for a role inbox (e.g. ADMIN)
+    @PutMapping("/role/{role}/read-all")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    public Map<String, Integer> markAllReadForRole(@PathVariable String role,
+                                                   @RequestParam(required = false) Long upToId,
+                                                   @RequestParam(required = false)
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        return Map.of("updated", notificationService.markAllReadForRole(role.toUpperCase(), upToId, before));
+    }
+
+    // 🔹 Delete the selected notifications in one DELETE (body: [id, id, ...]); except for admins,
+    // only the caller's own and their roles' notifications are deleted, other ids are skipped
+    @PostMapping("/bulk-delete")
+    public Map<String, Integer> deleteNotifications(Authentication auth, @RequestBody List<Long> ids) {
+        List<String> roles = callerRoles(auth);
+        int deleted = roles.contains("ADMIN")
+                ? notificationService.deleteAll(ids)
+                : notificationService.deleteAllOwnedBy(ids, callerId(auth), roles);
+        return Map.of("deleted", deleted);
+    }
+
+    // 🔹 Admin inbox, newest first, one page at a time
+    @GetMapping("/admin/inbox")
+    public CursorPage<Notification> getAdminInbox(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size,
+                                                  @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        return notificationService.getRoleInbox("ADMIN", cursor, size, unreadOnly);
     }
 
     // 🔹 Admin unread notifications
@@ -60,4 +156,37 @@ public class NotificationController {
     public long getAdminUnreadCount() {
         return notificationService.getUnreadCountForAdmins();
     }
+
+    // 🔹 Admin e-mail digest: pending count, and send it now instead of waiting for the interval
+    @GetMapping("/admin/digest")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Integer> getAdminDigestStatus() {
+        return Map.of("pending", adminMailDigest.pendingCount());
+    }
+
+    @PostMapping("/admin/digest/flush")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Integer> flushAdminDigest() {
+        return Map.of("sent", adminMailDigest.flush());
+    }
+
+    // 🔹 Manual trigger for the retention job (archive old read notifications, purge old archive months)
+    @PostMapping("/admin/retention/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public RetentionRunResult runRetention() {
+        return retentionService.run();
+    }
+
+    private Long callerId(Authentication auth) {
+        return userRepository.findByEmail(auth.getName()).map(User::getId).orElse(null);
+    }
+
+    // "ROLE_ADMIN" -> "ADMIN", matching Notification.targetRole
+    private static List<String> callerRoles(Authentication auth) {
+        return auth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(a -> a.startsWith("ROLE_"))
+                .map(a -> a.substring("ROLE_".length()))
+                .toList();
+    }
 }
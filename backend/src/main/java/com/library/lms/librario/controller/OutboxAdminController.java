@@ -0,0 +1,87 @@
+package com.library.lms.librario.controller;
+
+import com.library.lms.librario.entity.OutboxMessage;
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import com.library.lms.librario.service.outbox.OutboxDispatcher;
+import com.library.lms.librario.service.outbox.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/outbox")
+@RequiredArgsConstructor
+public class OutboxAdminController {
+
+    private final OutboxService outboxService;
+    private final OutboxDispatcher outboxDispatcher;
+
+    // 🔹 Message counts per status (PENDING / SENT / DEAD)
+    @GetMapping("/stats")
+    public Map<String, Long> stats() {
+        return outboxService.stats();
+    }
+
+    // 🔹 Queue view, newest first; optional ?status=PENDING|SENT|DEAD
+    @GetMapping
+    public Map<String, Object> list(@RequestParam(required = false) OutboxStatus status,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "50") int size) {
+        return toPage(outboxService.list(status, page, size));
+    }
+
+    @GetMapping("/{id}")
+    public OutboxMessage get(@PathVariable Long id) {
+        return outboxService.get(id);
+    }
+
+    // 🔹 Dead-letter view: messages that ran out of retries, newest first
+    @GetMapping("/dead")
+    public Map<String, Object> deadLetters(@RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "50") int size) {
+        return toPage(outboxService.deadLetters(page, size));
+    }
+
+    // 🔹 Requeue a dead message, or send a pending one now instead of after its backoff
+    @PostMapping("/{id}/retry")
+    public OutboxMessage retry(@PathVariable Long id) {
+        return outboxService.retry(id);
+    }
+
+    // 🔹 Requeue all dead messages
+    @PostMapping("/dead/retry")
+    public Map<String, Integer> retryAllDead() {
+        return Map.of("requeued", outboxService.retryAllDead());
+    }
+
+    // 🔹 Drop one message
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable Long id) {
+        outboxService.delete(id);
+    }
+
+    // 🔹 Drop messages by status and age, e.g. ?status=DEAD&olderThanDays=30
+    @DeleteMapping
+    public Map<String, Integer> purge(@RequestParam OutboxStatus status,
+                                      @RequestParam(defaultValue = "0") int olderThanDays) {
+        return Map.of("purged", outboxService.purge(status, Duration.ofDays(olderThanDays)));
+    }
+
+    // 🔹 Hand due messages to the mail pipeline now instead of waiting for the next poll
+    @PostMapping("/dispatch")
+    public Map<String, Integer> dispatch() {
+        return Map.of("queued", outboxDispatcher.dispatch());
+    }
+
+    private static Map<String, Object> toPage(Page<OutboxMessage> page) {
+        return Map.of(
+                "items", page.getContent(),
+                "page", page.getNumber(),
+                "size", page.getSize(),
+                "total", page.getTotalElements()
+        );
+    }
+}
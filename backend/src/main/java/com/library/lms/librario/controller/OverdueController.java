@@ -1,7 +1,11 @@
 package com.library.lms.librario.controller;
 
+import com.library.lms.librario.dto.FineReminderRunResult;
 import com.library.lms.librario.dto.OverdueDTO;
+import com.library.lms.librario.dto.OverdueRunResult;
 import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.service.DueDateReminderService;
+import com.library.lms.librario.service.FineReminderService;
 import com.library.lms.librario.service.OverdueService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +25,8 @@ import java.util.stream.Collectors;
 public class OverdueController {
 
     private final OverdueService overdueService;
+    private final DueDateReminderService dueDateReminderService;
+    private final FineReminderService fineReminderService;
 
     /**
      * Admin/Librarian: get all overdue records with dynamically calculated fines
@@ -76,9 +82,26 @@ public class OverdueController {
      */
     @PostMapping("/process")
     @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
-    public ResponseEntity<String> runProcessNow() {
-        overdueService.runManualProcess();
-        return ResponseEntity.ok("Processed overdue scan");
+    public ResponseEntity<OverdueRunResult> runProcessNow() {
+        return ResponseEntity.ok(overdueService.runManualProcess());
+    }
+
+    /**
+     * Manual trigger for the due-soon reminder job (already-reminded loans are skipped)
+     */
+    @PostMapping("/due-reminders")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    public Map<String, Integer> runDueRemindersNow() {
+        return Map.of("reminded", dueDateReminderService.sendDueSoonReminders());
+    }
+
+    /**
+     * Manual trigger for the fine reminder digests (one per member with outstanding fines)
+     */
+    @PostMapping("/fine-reminders")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    public FineReminderRunResult runFineRemindersNow() {
+        return fineReminderService.sendFineReminders();
     }
 
     /**
@@ -3,31 +3,40 @@ package com.library.lms.librario.controller;
 import com.library.lms.librario.dto.OfflineFinePaymentRequest;
 import com.library.lms.librario.dto.OfflineMembershipPaymentRequest;
 import com.library.lms.librario.dto.OfflinePaymentDTO;
+import com.library.lms.librario.dto.PaymentLedgerFilter;
 import com.library.lms.librario.entity.*;
-import com.library.lms.librario.entity.enums.MemberStatus;
-import com.library.lms.librario.entity.enums.RequestStatus;
+import com.library.lms.librario.exception.PaymentGatewayUnavailableException;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.BorrowRecordRepository;
-import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.repository.PaymentLedgerRepository;
 import com.library.lms.librario.repository.PaymentRepository;
 import com.library.lms.librario.repository.MembershipRequestRepository;
 import com.library.lms.librario.service.PaymentService;
-import com.library.lms.librario.service.mail.MailService;
-import com.library.lms.librario.service.NotificationService;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
+import com.library.lms.librario.service.payment.MembershipActivationService;
+import com.library.lms.librario.service.payment.PaymentGateway;
+import com.library.lms.librario.service.webhook.WebhookInbox;
 import com.razorpay.Utils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -39,15 +48,13 @@ public class PaymentController {
 
     private final Logger log = LoggerFactory.getLogger(PaymentController.class);
 
-    private final RazorpayClient razorpayClient;
+    private final PaymentGateway paymentGateway;
     private final PaymentRepository paymentRepo;
     private final MembershipRequestRepository requestRepo;
-    private final MailService mailService;
-    private final NotificationService notificationService;
-    private final MemberRepository memberRepository;
+    private final MembershipActivationService membershipActivationService;
     private final BorrowRecordRepository borrowRecordRepo;
     private final PaymentService paymentService;
-
+    private final WebhookInbox webhookInbox;
 
     @Value("${razorpay.key_id}")     private String keyId;
     @Value("${razorpay.key_secret}") private String keySecret;
@@ -56,24 +63,23 @@ public class PaymentController {
                              @Value("${razorpay.key_secret}") String keySecret,
                              PaymentRepository paymentRepo,
                              MembershipRequestRepository requestRepo,
-                             MemberRepository memberRepository,
                              BorrowRecordRepository borrowRecordRepo,
-                             MailService mailService,
-                             NotificationService notificationService,
-                             PaymentService paymentService) throws Exception {
+                             PaymentService paymentService,
+                             WebhookInbox webhookInbox,
+                             PaymentGateway paymentGateway,
+                             MembershipActivationService membershipActivationService) {
         this.keyId = keyId;
         this.keySecret = keySecret;
-        this.razorpayClient = new RazorpayClient(keyId, keySecret);
+        this.paymentGateway = paymentGateway;
         this.paymentRepo = paymentRepo;
         this.requestRepo = requestRepo;
-        this.memberRepository = memberRepository;
         this.borrowRecordRepo = borrowRecordRepo;
-        this.mailService = mailService;
-        this.notificationService = notificationService;
         this.paymentService = paymentService;
+        this.webhookInbox = webhookInbox;
+        this.membershipActivationService = membershipActivationService;
     }
 
-    @Transactional
+    // Not @Transactional: the gateway call must not hold a DB connection while it waits
     @PostMapping("/order")
     public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> data) {
         log.info("POST /api/payments/order payload: {}", data);
@@ -87,13 +93,8 @@ public class PaymentController {
             double amountInRupees = Double.parseDouble(data.get("amount").toString()); // rupees
             int amountInPaise = (int) Math.round(amountInRupees * 100);
 
-            JSONObject orderRequest = new JSONObject();
-            orderRequest.put("amount", amountInPaise);
-            orderRequest.put("currency", "INR");
-            orderRequest.put("payment_capture", 1);
-
-            Order order = razorpayClient.Orders.create(orderRequest);
-            String orderId = order.get("id").toString();
+            PaymentGateway.GatewayOrder order = paymentGateway.createOrder(amountInPaise, "INR", null);
+            String orderId = order.id();
             log.info("Razorpay order created: {}", orderId);
 
             // 🔹 Load MembershipRequest & User so we can store member name/email in Payment row
@@ -120,10 +121,12 @@ public class PaymentController {
 
             return ResponseEntity.ok(Map.of(
                     "orderId", orderId,
-                    "currency", order.get("currency"),
+                    "currency", order.currency(),
                     "amount", amountInPaise,
                     "key", keyId
             ));
+        } catch (PaymentGatewayUnavailableException e) {
+            throw e; // 503 via GlobalExceptionHandler
         } catch (Exception e) {
             log.error("Error in createOrder", e);
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -147,22 +150,21 @@ public class PaymentController {
             log.info("Verifying signature for order {}", razorpayOrderId);
             Utils.verifyPaymentSignature(attributes, keySecret);
 
-            // 1️⃣ Load payment
+            // 1️⃣ Complete the payment row; only the first callback for this order gets past here
+            int completed = paymentRepo.completeByOrderId(razorpayOrderId, razorpayPaymentId,
+                    PaymentStatus.SUCCESS, java.time.LocalDateTime.now());
             Payment payment = paymentRepo.findByOrderId(razorpayOrderId)
                     .orElseThrow(() -> new RuntimeException("Payment not found for orderId: " + razorpayOrderId));
+            if (completed == 0) {
+                return duplicateCallback(payment, razorpayPaymentId);
+            }
 
-            // 2️⃣ Load related membership request & user BEFORE using them
+            // 2️⃣ Fill in the rest of the payment row
             MembershipRequest req = requestRepo.findById(payment.getMembershipRequestId())
                     .orElseThrow(() -> new RuntimeException("Membership Request not found"));
-
             User user = req.getUser(); // com.library.lms.librario.model.User
 
-            // 3️⃣ Update payment row with final info
-            payment.setStatus(PaymentStatus.SUCCESS);
-            payment.setPaymentId(razorpayPaymentId);
-            payment.setPaymentDate(java.time.LocalDateTime.now());
             payment.setType(PaymentType.ONLINE); // membership payments are ONLINE
-
             if (user != null) {
                 payment.setMemberName(user.getName());
                 payment.setMemberEmail(user.getEmail());
@@ -170,55 +172,26 @@ public class PaymentController {
             paymentRepo.save(payment);
             log.info("Payment updated to SUCCESS for payment id: {}", payment.getId());
 
-            // 4️⃣ Mark membership request as paid/completed
-            req.setPaid(true);
-            req.setStatus(RequestStatus.COMPLETED);
-            req.setCompletedDate(java.time.LocalDateTime.now());
-            requestRepo.save(req);
-            log.info("MembershipRequest {} marked paid", req.getId());
-
-            // 5️⃣ Update latest membership instead of creating a new one
-            Member member = memberRepository.findTopByUser_IdOrderByEndDateDesc(user.getId())
-                    .orElseThrow(() -> new RuntimeException("Member not found for user: " + user.getId()));
-
-            member.setMembershipPlan(req.getPlan());
-            member.setStartDate(LocalDate.now());
-            member.setEndDate(LocalDate.now().plusMonths(req.getPlan().getDurationMonths()));
-            member.setStatus(MemberStatus.ACTIVE);
-
-            memberRepository.save(member);
-            log.info("User {} assigned new plan {}", user.getId(), req.getPlan().getType());
-
-            // 6️⃣ Send mail & notifications
-            try {
-                mailService.send(
-                        user.getEmail(),
-                        "Membership Activated",
-                        "Your membership for " + req.getPlan().getType() + " is now active!"
-                );
-                notificationService.create(
-                        user,
-                        "Membership Activated",
-                        "Your membership for " + req.getPlan().getType() + " is now active!",
-                        com.library.lms.librario.entity.enums.NotificationType.GENERAL
-                );
-            } catch (Exception e) {
-                log.warn("Notification/mail sending failed", e);
-            }
+            // 3️⃣ Activate the membership and notify the user (the webhook does the same when it wins)
+            membershipActivationService.activate(payment);
 
             return ResponseEntity.ok(Map.of("status", "ok"));
+        } catch (DataIntegrityViolationException e) {
+            throw e; // payment id already recorded on another order: 409 via handleDataIntegrity
         } catch (Exception e) {
+            // undo the SUCCESS update too, so the client's retry (or the webhook) can activate again
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             log.error("paymentSuccess error", e);
             return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
         }
     }
 
-    @Transactional
+    // Verifies, stores and acks; the event is applied by WebhookWorker (see WebhookInbox)
     @PostMapping("/webhook")
     public ResponseEntity<String> handleWebhook(@RequestBody String payload,
                                                 @RequestHeader("X-Razorpay-Signature") String signature,
+                                                @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId,
                                                 @Value("${razorpay.webhook_secret}") String webhookSecret) {
-        log.info("Razorpay webhook received");
         try {
             boolean isValid = Utils.verifyWebhookSignature(payload, signature, webhookSecret);
             if (!isValid) {
@@ -226,54 +199,13 @@ public class PaymentController {
                 return ResponseEntity.status(400).body("Invalid signature");
             }
 
-            JSONObject event = new JSONObject(payload);
-            String eventType = event.getString("event");
-
-            JSONObject paymentEntity = event.getJSONObject("payload").getJSONObject("payment").getJSONObject("entity");
-            String orderId = paymentEntity.getString("order_id");
-            String paymentId = paymentEntity.getString("id");
-            String status = paymentEntity.getString("status"); // captured/failed
-
-            log.info("Webhook event: {}, orderId={}, paymentId={}, status={}", eventType, orderId, paymentId, status);
-
-            Payment payment = paymentRepo.findByOrderId(orderId)
-                    .orElseThrow(() -> new RuntimeException("Payment not found for orderId: " + orderId));
-
-            if ("captured".equals(status)) {
-                payment.setStatus(PaymentStatus.SUCCESS);
-                payment.setPaymentId(paymentId);
-            } else if ("failed".equals(status)) {
-                payment.setStatus(PaymentStatus.FAILED);
-                payment.setPaymentId(paymentId);
-            }
-            paymentRepo.save(payment);
-
-            if ("captured".equals(status)) {
-                var req = requestRepo.findById(payment.getMembershipRequestId()).orElse(null);
-                if (req != null) {
-                    req.setPaid(true);
-                    req.setStatus(RequestStatus.COMPLETED);
-                    req.setCompletedDate(java.time.LocalDateTime.now());
-                    requestRepo.save(req);
-
-                    // 🔹 Update latest membership
-                    var user = req.getUser();
-                    Member member = memberRepository.findTopByUser_IdOrderByEndDateDesc(user.getId())
-                            .orElseThrow(() -> new RuntimeException("Member not found for user: " + user.getId()));
-
-                    member.setMembershipPlan(req.getPlan());
-                    member.setStartDate(LocalDate.now());
-                    member.setEndDate(LocalDate.now().plusMonths(req.getPlan().getDurationMonths()));
-                    member.setStatus(MemberStatus.ACTIVE);
-
-                    memberRepository.save(member);
-                    log.info("User {} updated to new plan {}", user.getId(), req.getPlan().getType());
-                }
-            }
-
-            return ResponseEntity.ok("Webhook processed");
+            WebhookInbox.Receipt receipt = webhookInbox.receive(eventId, payload);
+            log.info("Razorpay webhook {} stored as #{}{}", receipt.eventId(), receipt.id(),
+                    receipt.duplicate() ? " (duplicate)" : "");
+            return ResponseEntity.ok(receipt.duplicate() ? "Duplicate event" : "Webhook queued");
         } catch (Exception e) {
-            log.error("Webhook processing failed", e);
+            // not stored: a non-2xx makes Razorpay deliver it again
+            log.error("Webhook intake failed", e);
             return ResponseEntity.status(500).body("Webhook error: " + e.getMessage());
         }
     }
@@ -292,6 +224,8 @@ public class PaymentController {
             Map<String, Object> orderData = createRazorpayFineOrder(record.getFineAmount(), borrowId);
             orderData.put("borrowId", borrowId);
             return ResponseEntity.ok(orderData);
+        } catch (PaymentGatewayUnavailableException e) {
+            throw e; // 503 via GlobalExceptionHandler
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Error creating fine order: " + e.getMessage()));
         }
@@ -313,6 +247,8 @@ public class PaymentController {
             orderData.put("borrowId", borrowId);
             return ResponseEntity.ok(orderData);
 
+        } catch (PaymentGatewayUnavailableException e) {
+            throw e; // 503 via GlobalExceptionHandler
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to create fine order: " + e.getMessage()));
@@ -342,59 +278,55 @@ public class PaymentController {
             attributes.put("razorpay_signature", razorpaySignature);
             Utils.verifyPaymentSignature(attributes, keySecret);
 
-            // ✅ Mark fine as paid in BorrowRecord (existing logic)
+            // ✅ A repeated callback finds its payment row through the unique payment_id index
+            Payment existing = paymentRepo.findByPaymentId(razorpayPaymentId).orElse(null);
+            if (existing != null) {
+                return duplicateCallback(existing, razorpayPaymentId);
+            }
+
+            // ✅ Mark fine as paid in BorrowRecord; only the first callback for this fine gets past here
             markFineAsPaid(userId, borrowId, amount, razorpayOrderId, razorpayPaymentId, razorpaySignature);
 
-            // ✅ Also record this fine payment in payments table
-            //    - Avoid duplicate if a row already exists with this paymentId
-            Payment payment = paymentRepo.findByPaymentId(razorpayPaymentId).orElse(null);
-
-            if (payment == null) {
-                BorrowRecord record = borrowRecordRepo.findById(borrowId)
-                        .orElseThrow(() -> new RuntimeException("Borrow record not found"));
-
-                payment = Payment.builder()
-                        .userId(userId)
-                        .borrowRecordId(borrowId)                      // 🔹 link to borrow record
-                        .amount(BigDecimal.valueOf(amount))
-                        .currency("INR")
-                        .status(PaymentStatus.SUCCESS)
-                        .orderId(razorpayOrderId)
-                        .paymentId(razorpayPaymentId)
-                        .paymentDate(java.time.LocalDateTime.now())
-                        .type(PaymentType.ONLINE)                      // 🔹 online fine payment
-                        .memberName(record.getUser().getName())
-                        .memberEmail(record.getUser().getEmail())
-                        .bookTitle(record.getBook().getTitle())
-                        .build();
-            } else {
-                // If it exists, just ensure status is SUCCESS and time is updated
-                payment.setStatus(PaymentStatus.SUCCESS);
-                payment.setPaymentDate(java.time.LocalDateTime.now());
-            }
+            // ✅ Also record this fine payment in payments table (uk_payments_* reject a racing duplicate)
+            BorrowRecord record = borrowRecordRepo.findById(borrowId)
+                    .orElseThrow(() -> new RuntimeException("Borrow record not found"));
 
-            paymentRepo.save(payment);
+            Payment payment = Payment.builder()
+                    .userId(userId)
+                    .borrowRecordId(borrowId)                      // 🔹 link to borrow record
+                    .amount(BigDecimal.valueOf(amount))
+                    .currency("INR")
+                    .status(PaymentStatus.SUCCESS)
+                    .orderId(razorpayOrderId)
+                    .paymentId(razorpayPaymentId)
+                    .paymentDate(java.time.LocalDateTime.now())
+                    .type(PaymentType.ONLINE)                      // 🔹 online fine payment
+                    .memberName(record.getUser().getName())
+                    .memberEmail(record.getUser().getEmail())
+                    .bookTitle(record.getBook().getTitle())
+                    .build();
+
+            paymentRepo.saveAndFlush(payment);
 
             return ResponseEntity.ok(Map.of("status", "ok"));
+        } catch (DataIntegrityViolationException e) {
+            throw e; // concurrent duplicate lost the race on the unique index: 409 via handleDataIntegrity
         } catch (Exception e) {
+            // don't leave the fine marked paid without its payments row
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
         }
     }
 
     /** 🔹 Helper: Create Razorpay order for fine */
-    public Map<String, Object> createRazorpayFineOrder(Double amount, Long borrowId) throws RazorpayException {
-        JSONObject options = new JSONObject();
-        options.put("amount", (int)(amount * 100)); // in paise
-        options.put("currency", "INR");
-        options.put("receipt", "fine_" + borrowId);
-
-        Order order = razorpayClient.Orders.create(options);
+    public Map<String, Object> createRazorpayFineOrder(Double amount, Long borrowId) {
+        PaymentGateway.GatewayOrder order = paymentGateway.createOrder((long) (amount * 100), "INR", "fine_" + borrowId); // in paise
 
         Map<String, Object> response = new HashMap<>();
-        response.put("orderId", order.get("id"));
-        response.put("amount", order.get("amount"));
-        response.put("currency", order.get("currency"));
+        response.put("orderId", order.id());
+        response.put("amount", order.amount());
+        response.put("currency", order.currency());
         response.put("key", keyId);
         return response;
     }
@@ -403,18 +335,51 @@ public class PaymentController {
     public void markFineAsPaid(Long userId, Long borrowId, Double amount,
                                String razorpayOrderId, String razorpayPaymentId, String razorpaySignature) {
 
+        if (borrowRecordRepo.markFinePaidOnce(borrowId, userId, razorpayPaymentId) == 1) return;
+
+        // nothing updated: say why
         BorrowRecord record = borrowRecordRepo.findById(borrowId)
                 .orElseThrow(() -> new RuntimeException("Borrow record not found"));
-
         if (!record.getUser().getId().equals(userId)) {
             throw new RuntimeException("User ID mismatch");
         }
+        throw new IllegalStateException("Fine for borrow record " + borrowId + " is already paid");
+    }
+
+    /**
+     * Answer for a callback whose payment is already recorded: 200 with duplicate=true when it is
+     * the same gateway payment (client retry, or the webhook got there first), 409 otherwise.
+     */
+    private ResponseEntity<?> duplicateCallback(Payment payment, String razorpayPaymentId) {
+        if (razorpayPaymentId.equals(payment.getPaymentId())) {
+            log.info("Duplicate success callback for payment {} ignored", razorpayPaymentId);
+            return ResponseEntity.ok(Map.of("status", "ok", "duplicate", true));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Order " + payment.getOrderId() + " is already paid by " + payment.getPaymentId()));
+    }
 
-        record.setFinePaid(true);
-        record.setFineAmount(0.0);
-        record.setPaymentId(razorpayPaymentId);
+    /**
+     * A gateway order or payment id that is already recorded (uk_payments_*) is a duplicate: 409.
+     * Any other constraint violation keeps the generic 400.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<?> handleDataIntegrity(DataIntegrityViolationException ex) {
+        if (isDuplicateGatewayId(ex)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Already recorded: this gateway payment is on another record"));
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
 
-        borrowRecordRepo.save(record);
+    private static boolean isDuplicateGatewayId(DataIntegrityViolationException ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof org.hibernate.exception.ConstraintViolationException cve && cve.getConstraintName() != null) {
+                String constraint = cve.getConstraintName().toLowerCase();
+                return constraint.contains(Payment.UK_ORDER_ID) || constraint.contains(Payment.UK_PAYMENT_ID);
+            }
+        }
+        return false;
     }
 
     @PostMapping("/fine-payment/success")
@@ -457,10 +422,67 @@ public class PaymentController {
         return paymentService.getAllPayments();
     }
 
-    // 💵 Get only offline payments
+    // 💵 Get only offline payments (unpaged; superseded by /offline/ledger)
     @GetMapping("/offline")
-    public List<OfflinePaymentDTO> getOfflinePayments() {
-        return paymentService.getOfflinePaymentsCombined();
+    public ResponseEntity<List<OfflinePaymentDTO>> getOfflinePayments() {
+        return ResponseEntity.ok()
+                .header("Deprecation", "true")
+                .header("Link", "</api/payments/offline/ledger>; rel=\"successor-version\"")
+                .body(paymentService.getOfflinePaymentsCombined());
+    }
+
+    // 💵 Offline payment ledger: paged, sorted and filtered in the database
+    @GetMapping("/offline/ledger")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    public Map<String, Object> getOfflineLedger(
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String dir,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return paymentService.getOfflineLedger(ledgerFilter(source, status, from, to, q), sort,
+                "asc".equalsIgnoreCase(dir), page, size);
+    }
+
+    // 💵 Same rows as CSV, streamed (no page limit)
+    @GetMapping("/offline/ledger.csv")
+    @PreAuthorize("hasAnyRole('ADMIN','LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> exportOfflineLedger(
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String dir) {
+        if (!PaymentLedgerRepository.SORT_COLUMNS.containsKey(sort)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        PaymentLedgerFilter filter = ledgerFilter(source, status, from, to, q);
+        boolean ascending = "asc".equalsIgnoreCase(dir);
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            paymentService.writeOfflineLedgerCsv(filter, sort, ascending, writer);
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"offline-payments-" + LocalDate.now() + ".csv\"")
+                .body(body);
+    }
+
+    // Dates are whole days: to is inclusive for the caller, exclusive in the query
+    private static PaymentLedgerFilter ledgerFilter(String source, String status, LocalDate from, LocalDate to, String q) {
+        return new PaymentLedgerFilter(
+                source == null || source.isBlank() ? null : source,
+                status == null || status.isBlank() ? null : status,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                q);
     }
 
     // ✅ Mark as received (for manual/offline payments)
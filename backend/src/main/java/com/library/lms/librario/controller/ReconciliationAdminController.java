@@ -0,0 +1,85 @@
+package com.library.lms.librario.controller;
+
+import com.library.lms.librario.dto.ReconciliationReport;
+import com.library.lms.librario.service.reconciliation.PaymentReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/payments/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationAdminController {
+
+    private final PaymentReconciliationService reconciliationService;
+
+    // 🔹 Upload a settlement CSV; returns counts per mismatch kind and the first few mismatches.
+    //    from/to (inclusive days) bound which SUCCESS payments are expected in the report; unit=paise if amounts are in paise
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ReconciliationReport reconcile(@RequestParam("file") MultipartFile file,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                          @RequestParam(defaultValue = "rupees") String unit) throws IOException {
+        PaymentReconciliationService.Options options = options(from, to, unit);
+        Path settlement = spool(file);
+        try {
+            return reconciliationService.reconcile(settlement, options);
+        } finally {
+            Files.deleteIfExists(settlement);
+        }
+    }
+
+    // 🔹 Same run, every mismatch streamed back as CSV
+    @PostMapping(value = "/mismatches.csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> mismatchesCsv(@RequestParam("file") MultipartFile file,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                               @RequestParam(defaultValue = "rupees") String unit) throws IOException {
+        PaymentReconciliationService.Options options = options(from, to, unit);
+        Path settlement = spool(file); // the upload may be gone once the response goes async
+        StreamingResponseBody body = out -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                reconciliationService.writeMismatchesCsv(settlement, options, writer);
+            } finally {
+                Files.deleteIfExists(settlement);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"reconciliation-" + LocalDate.now() + ".csv\"")
+                .body(body);
+    }
+
+    private static PaymentReconciliationService.Options options(LocalDate from, LocalDate to, String unit) {
+        if (!"rupees".equalsIgnoreCase(unit) && !"paise".equalsIgnoreCase(unit)) {
+            throw new IllegalArgumentException("Unsupported unit: " + unit + " (use rupees or paise)");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return new PaymentReconciliationService.Options(from, to, "paise".equalsIgnoreCase(unit));
+    }
+
+    private static Path spool(MultipartFile file) throws IOException {
+        if (file.isEmpty()) throw new IllegalArgumentException("Settlement file is empty");
+        Path settlement = Files.createTempFile("settlement-", ".csv");
+        file.transferTo(settlement);
+        return settlement;
+    }
+}
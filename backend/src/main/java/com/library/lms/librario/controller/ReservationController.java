@@ -3,6 +3,7 @@ package com.library.lms.librario.controller;
 import com.library.lms.librario.dto.ReservationRequestDTO;
 import com.library.lms.librario.entity.Reservation;
 import com.library.lms.librario.service.ReservationService;
+import com.library.lms.librario.service.inventory.BookInventoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,17 +16,19 @@ import java.util.Map;
 public class ReservationController {
 
     private final ReservationService reservationService;
+    private final BookInventoryService bookInventory;
 
     // ✅ Reserve a book (POST JSON)
     @PostMapping
     public Reservation reserveBook(@RequestBody ReservationRequestDTO request) {
-        return reservationService.reserveBookByEmail(request.getUserEmail(), request.getBookId());
+        return bookInventory.withRetry(() ->
+                reservationService.reserveBookByEmail(request.getUserEmail(), request.getBookId()));
     }
 
     // ✅ Cancel a reservation
     @DeleteMapping("/{reservationId}")
     public void cancelReservation(@PathVariable Long reservationId) {
-        reservationService.cancelReservation(reservationId);
+        bookInventory.withRetry(() -> reservationService.cancelReservation(reservationId));
     }
 
     // ✅ Get reservations for a specific user
@@ -0,0 +1,68 @@
+package com.library.lms.librario.controller;
+
+import com.library.lms.librario.entity.WebhookEvent;
+import com.library.lms.librario.entity.enums.WebhookEventStatus;
+import com.library.lms.librario.service.webhook.WebhookInbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/webhooks")
+@RequiredArgsConstructor
+public class WebhookAdminController {
+
+    private final WebhookInbox webhookInbox;
+
+    // 🔹 Counts per status plus events waiting in the worker lanes
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return webhookInbox.stats();
+    }
+
+    // 🔹 Stored events, newest first; optional ?status=RECEIVED|PROCESSED|IGNORED|FAILED
+    @GetMapping
+    public Map<String, Object> list(@RequestParam(required = false) WebhookEventStatus status,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "50") int size) {
+        Page<WebhookEvent> events = webhookInbox.list(status, page, size);
+        return Map.of(
+                "items", events.getContent(),
+                "page", events.getNumber(),
+                "size", events.getSize(),
+                "total", events.getTotalElements()
+        );
+    }
+
+    @GetMapping("/{id}")
+    public WebhookEvent get(@PathVariable Long id) {
+        return webhookInbox.get(id);
+    }
+
+    // 🔹 Every event for one Razorpay order, in arrival order
+    @GetMapping("/order/{orderId}")
+    public List<WebhookEvent> forOrder(@PathVariable String orderId) {
+        return webhookInbox.forOrder(orderId);
+    }
+
+    // 🔹 Apply one event again (safe: applying is idempotent)
+    @PostMapping("/{id}/replay")
+    public WebhookEvent replay(@PathVariable Long id) {
+        return webhookInbox.replay(id);
+    }
+
+    // 🔹 Replay by status and receive time, e.g. ?status=FAILED&from=2025-01-01T00:00:00
+    @PostMapping("/replay")
+    public Map<String, Integer> replayAll(@RequestParam WebhookEventStatus status,
+                                          @RequestParam(required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                          @RequestParam(required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return Map.of("replayed", webhookInbox.replay(status, from, to));
+    }
+}
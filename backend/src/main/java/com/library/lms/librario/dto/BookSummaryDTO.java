@@ -0,0 +1,21 @@
+package com.library.lms.librario.dto;
+
+import com.library.lms.librario.entity.enums.BookStatus;
+
+/**
+ * Lightweight catalog row for paginated listings (no audit / version / condition columns).
+ */
+public record BookSummaryDTO(
+        Long id,
+        String title,
+        String author,
+        String genre,
+        String publisher,
+        Integer year,
+        String isbn,
+        String shelf,
+        int totalCopies,
+        int availableCopies,
+        BookStatus status,
+        String imageUrl
+) { }
@@ -0,0 +1,13 @@
+package com.library.lms.librario.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * Pass {@code nextCursor} back as {@code cursor} to fetch the following page; it is null on the last page.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore
+) { }
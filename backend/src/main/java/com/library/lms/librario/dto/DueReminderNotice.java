@@ -0,0 +1,16 @@
+package com.library.lms.librario.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the due-soon reminder needs about one active loan, without loading entities.
+ */
+public record DueReminderNotice(
+        Long recordId,
+        Long userId,
+        String userName,
+        String email,
+        String bookTitle,
+        LocalDateTime dueDate
+) {
+}
@@ -0,0 +1,13 @@
+package com.library.lms.librario.dto;
+
+/**
+ * One member's outstanding fines, aggregated in the database for the daily fine digest.
+ */
+public record FineDigestSummary(
+        Long userId,
+        String userName,
+        String email,
+        Long fineCount,
+        Double totalFine
+) {
+}
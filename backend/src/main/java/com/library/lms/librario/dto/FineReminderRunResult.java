@@ -0,0 +1,34 @@
+package com.library.lms.librario.dto;
+
+import com.library.lms.librario.service.batch.PartitionResult;
+
+import java.util.List;
+
+/**
+ * Summary of one fine reminder run.
+ *
+ * @param chunks           member chunks committed (one transaction each)
+ * @param fines            overdue records with a fine covered by the digests
+ * @param digests          members reminded (one notification + one e-mail each)
+ * @param failedPartitions partitions that stopped on an error (their earlier chunks stay committed)
+ * @param elapsedMs        wall time of the run
+ * @param partitions       per user-id-range breakdown with timings
+ */
+public record FineReminderRunResult(
+        int chunks,
+        long fines,
+        long digests,
+        int failedPartitions,
+        long elapsedMs,
+        List<PartitionResult> partitions
+) {
+    public static FineReminderRunResult of(List<PartitionResult> partitions, long elapsedMs) {
+        return new FineReminderRunResult(
+                partitions.stream().mapToInt(PartitionResult::chunks).sum(),
+                partitions.stream().mapToLong(PartitionResult::rows).sum(),
+                partitions.stream().mapToLong(PartitionResult::notified).sum(),
+                (int) partitions.stream().filter(PartitionResult::failed).count(),
+                elapsedMs,
+                partitions);
+    }
+}
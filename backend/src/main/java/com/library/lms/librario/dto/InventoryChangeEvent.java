@@ -0,0 +1,25 @@
+package com.library.lms.librario.dto;
+
+import com.library.lms.librario.entity.enums.BookStatus;
+import com.library.lms.librario.model.Book;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copy-count / status change of one book, published after the changing transaction commits
+ * and pushed to /api/inventory/stream subscribers.
+ */
+public record InventoryChangeEvent(
+        Long bookId,
+        int availableCopies,
+        int totalCopies,
+        BookStatus status,
+        LocalDateTime changedAt
+) {
+    public static InventoryChangeEvent of(Book book) {
+        // status is normally derived in Book's @PreUpdate, which may not have run yet
+        BookStatus status = book.getAvailableCopies() > 0 ? BookStatus.AVAILABLE : BookStatus.UNAVAILABLE;
+        return new InventoryChangeEvent(book.getId(), book.getAvailableCopies(), book.getTotalCopies(),
+                status, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.lms.librario.dto;
+
+import com.library.lms.librario.entity.enums.BorrowStatus;
+
+/**
+ * Keyset row for the overdue sweep: id plus the status before the sweep touched it.
+ */
+public record OverdueCandidate(Long id, BorrowStatus status) {
+}
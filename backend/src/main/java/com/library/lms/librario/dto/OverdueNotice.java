@@ -0,0 +1,14 @@
+package com.library.lms.librario.dto;
+
+/**
+ * What the overdue notification needs about one borrow record, without loading entities.
+ */
+public record OverdueNotice(
+        Long recordId,
+        Long userId,
+        String userName,
+        String email,
+        String bookTitle,
+        double fineAmount
+) {
+}
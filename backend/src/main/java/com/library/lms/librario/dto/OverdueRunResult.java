@@ -0,0 +1,34 @@
+package com.library.lms.librario.dto;
+
+import com.library.lms.librario.service.batch.PartitionResult;
+
+import java.util.List;
+
+/**
+ * Summary of one overdue sweep.
+ *
+ * @param chunks           keyset chunks committed (one transaction each)
+ * @param overdueRows      rows marked OVERDUE / re-fined
+ * @param newlyOverdue     rows that went BORROWED -> OVERDUE in this run (these get notified)
+ * @param failedPartitions partitions that stopped on an error (their earlier chunks stay committed)
+ * @param elapsedMs        wall time of the run
+ * @param partitions       per user-id-range breakdown with timings
+ */
+public record OverdueRunResult(
+        int chunks,
+        long overdueRows,
+        long newlyOverdue,
+        int failedPartitions,
+        long elapsedMs,
+        List<PartitionResult> partitions
+) {
+    public static OverdueRunResult of(List<PartitionResult> partitions, long elapsedMs) {
+        return new OverdueRunResult(
+                partitions.stream().mapToInt(PartitionResult::chunks).sum(),
+                partitions.stream().mapToLong(PartitionResult::rows).sum(),
+                partitions.stream().mapToLong(PartitionResult::notified).sum(),
+                (int) partitions.stream().filter(PartitionResult::failed).count(),
+                elapsedMs,
+                partitions);
+    }
+}
@@ -0,0 +1,21 @@
+package com.library.lms.librario.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for the offline payment ledger; every field is optional.
+ *
+ * @param source "MEMBERSHIP" (offline payments rows) or "BORROW" (paid fines on borrow records)
+ * @param status payment status, e.g. INITIATED or SUCCESS (paid fines are always SUCCESS)
+ * @param from   createdAt lower bound, inclusive
+ * @param to     createdAt upper bound, exclusive
+ * @param search substring of member name, e-mail or book title
+ */
+public record PaymentLedgerFilter(
+        String source,
+        String status,
+        LocalDateTime from,
+        LocalDateTime to,
+        String search
+) {
+}
@@ -0,0 +1,45 @@
+package com.library.lms.librario.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One difference found by payment reconciliation.
+ *
+ * @param kind           what disagrees
+ * @param paymentId      gateway payment id (null for fine checks on desk payments)
+ * @param orderId        gateway order id, when known
+ * @param settledAmount  amount in the settlement report, if the payment is in it
+ * @param ledgerAmount   amount in the payments table, if the payment is in it
+ * @param paymentRowId   payments.id, if there is a row
+ * @param borrowRecordId linked borrow record, for fine checks
+ * @param detail         human-readable explanation
+ */
+public record ReconciliationMismatch(
+        Kind kind,
+        String paymentId,
+        String orderId,
+        BigDecimal settledAmount,
+        BigDecimal ledgerAmount,
+        Long paymentRowId,
+        Long borrowRecordId,
+        String detail
+) {
+    public enum Kind {
+        /** Settled by the gateway, no payments row (e.g. /fine-success never arrived). */
+        MISSING_IN_LEDGER,
+        /** SUCCESS in the payments table, absent from the settlement report. */
+        MISSING_IN_SETTLEMENT,
+        /** Present on both sides with different amounts. */
+        AMOUNT_MISMATCH,
+        /** Settled, but the payments row is not SUCCESS. */
+        STATUS_MISMATCH,
+        /** The same payment id appears more than once in the settlement report. */
+        DUPLICATE_SETTLEMENT,
+        /** More than one payment captured for the same order. */
+        DUPLICATE_CAPTURE,
+        /** A successful fine payment whose borrow record is not marked fine-paid. */
+        FINE_NOT_MARKED_PAID,
+        /** A borrow record marked paid online with no payments row for its payment id. */
+        FINE_PAYMENT_MISSING
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.lms.librario.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of one reconciliation run.
+ *
+ * @param settlementRows payment rows read from the settlement report
+ * @param skippedRows    report rows that are not payments (refunds, adjustments, blank ids)
+ * @param ledgerRows     payments rows with a gateway payment id that were compared
+ * @param matched        payments present on both sides with equal amount and SUCCESS status
+ * @param settledAmount  sum of the settlement payment rows
+ * @param mismatches     count per kind
+ * @param sortRuns       sorted runs spilled to disk (0 when the report fit in one run)
+ * @param elapsedMs      wall time of the run
+ * @param samples        the first mismatches found, capped by app.payments.reconciliation.sample-size
+ */
+public record ReconciliationReport(
+        long settlementRows,
+        long skippedRows,
+        long ledgerRows,
+        long matched,
+        BigDecimal settledAmount,
+        Map<ReconciliationMismatch.Kind, Long> mismatches,
+        int sortRuns,
+        long elapsedMs,
+        List<ReconciliationMismatch> samples
+) {
+    public long mismatchTotal() {
+        return mismatches.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
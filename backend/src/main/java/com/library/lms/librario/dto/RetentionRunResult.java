@@ -0,0 +1,19 @@
+package com.library.lms.librario.dto;
+
+/**
+ * Summary of one notification retention run.
+ *
+ * @param archived  read notifications moved to notifications_archive
+ * @param purged    archived rows deleted for being past the archive retention
+ * @param batches   batches committed (one transaction each)
+ * @param complete  false if the run stopped at its batch limit with work left for the next run
+ * @param elapsedMs wall time of the run
+ */
+public record RetentionRunResult(
+        long archived,
+        long purged,
+        int batches,
+        boolean complete,
+        long elapsedMs
+) {
+}
@@ -0,0 +1,58 @@
+package com.library.lms.librario.entity;
+
+import com.library.lms.librario.entity.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A read notification moved out of {@code notifications} by the retention job. Keeps its original id.
+ *
+ * {@code archive_month} (yyyyMM of created_at) is the partition key: purges drop whole months,
+ * and on MySQL the table can be RANGE-partitioned on it without touching the code.
+ */
+@Entity
+@Table(
+        name = "notifications_archive",
+        indexes = {
+                @Index(name = "idx_archive_month", columnList = "archive_month")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedNotification {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = true)
+    private Long userId;
+
+    @Column(length = 150, nullable = false)
+    private String title;
+
+    @Column(length = 1000, nullable = false)
+    private String message;
+
+    @Column(name = "target_role", length = 50, nullable = false)
+    private String targetRole;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 50, nullable = false)
+    private NotificationType type;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "`read`", nullable = false)
+    private boolean read;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "archive_month", nullable = false)
+    private Integer archiveMonth;
+}
@@ -10,7 +10,13 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "borrow_record")
+@Table(
+        name = "borrow_record",
+        indexes = {
+                // due-soon reminders and the overdue sweep range-scan active loans by due date
+                @Index(name = "idx_borrow_status_due", columnList = "status, due_date")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -65,4 +71,9 @@ public class BorrowRecord {
 
     @Column(name = "recorded_by")
     private String recordedBy;    // Name of the librarian/admin who recorded payment
+
+    // 🔹 Due date the due-soon reminder was last sent for (null = never). A renewal moves
+    // dueDate past this watermark, so the new due date gets its own reminder.
+    @Column(name = "due_reminder_for")
+    private LocalDateTime dueReminderFor;
 }
@@ -2,6 +2,7 @@ package com.library.lms.librario.entity;
 
 import com.library.lms.librario.entity.enums.MemberStatus;
 import com.library.lms.librario.model.User;
+import com.library.lms.librario.service.fine.MemberPlanCacheListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -10,6 +11,7 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "members")
+@EntityListeners(MemberPlanCacheListener.class) // 🔹 evicts FineRateResolver's user -> plan entry
 @Getter
 @Setter
 @NoArgsConstructor
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
         name = "notifications",
         indexes = {
                 @Index(name = "idx_user_read", columnList = "user_id, `read`"),
-                @Index(name = "idx_targetRole_createdAt", columnList = "target_role, created_at")
+                @Index(name = "idx_targetRole_createdAt", columnList = "target_role, created_at"),
+                @Index(name = "idx_read_createdAt", columnList = "`read`, created_at") // retention scan
         }
 )
 @Getter
@@ -20,6 +21,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Notification {
 
+    public static final int MESSAGE_MAX_LENGTH = 1000;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,7 +33,7 @@ public class Notification {
     @Column(length = 150, nullable = false)
     private String title;
 
-    @Column(length = 1000, nullable = false)
+    @Column(length = MESSAGE_MAX_LENGTH, nullable = false)
     private String message;
 
     @Column(name = "target_role", length = 50, nullable = false)
@@ -0,0 +1,80 @@
+package com.library.lms.librario.entity;
+
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import com.library.lms.librario.entity.enums.OutboxType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect (e-mail) recorded in the same transaction as the business change and
+ * delivered by {@link com.library.lms.librario.service.outbox.OutboxDispatcher} after commit.
+ */
+@Entity
+@Table(
+        name = "outbox_messages",
+        indexes = {
+                @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at, id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private OutboxType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Lob
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    // when the dispatcher may (re)try; also acts as the claim lease while a batch is in flight
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // set while a dispatcher holds the message (claimed, result not recorded yet); null otherwise
+    @Column(name = "leased_until")
+    private LocalDateTime leasedUntil;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @PrePersist
+    private void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
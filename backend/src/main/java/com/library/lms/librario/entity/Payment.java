@@ -6,8 +6,29 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * A membership or fine payment, online (Razorpay) or recorded at the desk.
+ *
+ * Gateway callbacks look rows up by order_id / payment_id, which are unique: a repeated callback
+ * finds the row it already completed instead of creating or applying a second one. Existing
+ * databases get these indexes from db/payments-indexes.sql (ddl-auto=update skips a unique
+ * constraint that existing duplicates violate).
+ */
 @Entity
-@Table(name = "payments")
+@Table(
+        name = "payments",
+        uniqueConstraints = {
+                @UniqueConstraint(name = Payment.UK_ORDER_ID, columnNames = "order_id"),
+                @UniqueConstraint(name = Payment.UK_PAYMENT_ID, columnNames = "payment_id")
+        },
+        indexes = {
+                @Index(name = "idx_payments_user", columnList = "user_id, created_at"),
+                @Index(name = "idx_payments_membership_request", columnList = "membership_request_id"),
+                @Index(name = "idx_payments_borrow_record", columnList = "borrow_record_id"),
+                // offline ledger: type = 'OFFLINE' filtered and sorted by created_at
+                @Index(name = "idx_payments_type_created", columnList = "type, created_at")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,6 +36,10 @@ import java.time.LocalDateTime;
 @Builder
 public class Payment {
 
+    public static final String UK_ORDER_ID = "uk_payments_order_id";
+    public static final String UK_PAYMENT_ID = "uk_payments_payment_id";
+
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
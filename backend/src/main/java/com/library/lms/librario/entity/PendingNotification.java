@@ -0,0 +1,70 @@
+package com.library.lms.librario.entity;
+
+import com.library.lms.librario.entity.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification waiting in {@link com.library.lms.librario.service.notification.NotificationDispatcher}'s
+ * coalescing window. Written in the producer's transaction and deleted in the transaction that
+ * creates the merged notification, so a failed send or a restart loses nothing. A group whose send
+ * keeps failing is parked once {@code attempts} reaches the dispatcher's limit.
+ */
+@Entity
+@Table(
+        name = "pending_notifications",
+        indexes = {
+                @Index(name = "idx_pending_notifications_group", columnList = "group_key, created_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // correlation key + recipient: rows with the same key are merged into one notification
+    @Column(name = "group_key", nullable = false, length = 300)
+    private String groupKey;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "target_role", length = 50)
+    private String targetRole;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30, nullable = false)
+    private NotificationType type;
+
+    private String email;
+
+    @Column(name = "mail_subject", length = 500)
+    private String mailSubject;
+
+    @Lob
+    @Column(name = "message_html", nullable = false)
+    private String messageHtml;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // failed sends of this row's group
+    @Builder.Default
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @PrePersist
+    private void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.lms.librario.entity;
+
+import com.library.lms.librario.entity.enums.WebhookEventStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A verified payment-gateway webhook, stored before it is acknowledged and applied later by
+ * {@link com.library.lms.librario.service.webhook.WebhookWorker}. The unique event id makes a
+ * gateway retry of the same event a no-op.
+ */
+@Entity
+@Table(
+        name = "webhook_events",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_webhook_event_id", columnNames = "event_id")
+        },
+        indexes = {
+                @Index(name = "idx_webhook_status_id", columnList = "status, id"),
+                @Index(name = "idx_webhook_order_id", columnList = "order_id, id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // gateway event id (X-Razorpay-Event-Id), or a hash of the payload when the header is missing
+    @Column(name = "event_id", length = 100, nullable = false)
+    private String eventId;
+
+    @Column(name = "event_type", length = 100)
+    private String eventType;
+
+    // events for the same order are applied one at a time, in arrival order
+    @Column(name = "order_id", length = 100)
+    private String orderId;
+
+    @Column(name = "payment_id", length = 100)
+    private String paymentId;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    @Builder.Default
+    private WebhookEventStatus status = WebhookEventStatus.RECEIVED;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    private void prePersist() {
+        if (receivedAt == null) {
+            receivedAt = LocalDateTime.now();
+        }
+    }
+}
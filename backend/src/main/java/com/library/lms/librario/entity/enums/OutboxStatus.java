@@ -0,0 +1,7 @@
+package com.library.lms.librario.entity.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,5 @@
+package com.library.lms.librario.entity.enums;
+
+public enum OutboxType {
+    EMAIL
+}
@@ -0,0 +1,8 @@
+package com.library.lms.librario.entity.enums;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    PROCESSED,
+    IGNORED,
+    FAILED
+}
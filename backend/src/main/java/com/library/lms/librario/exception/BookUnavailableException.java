@@ -0,0 +1,7 @@
+package com.library.lms.librario.exception;
+
+public class BookUnavailableException extends RuntimeException {
+    public BookUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,11 @@
 package com.library.lms.librario.exception;
 
 import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -14,6 +17,9 @@ import java.util.NoSuchElementException;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final String CONCURRENT_UPDATE =
+            "This record was changed by another request at the same time. Please reload and try again.";
+
     // Handle NoSuchElementException (e.g., when member/user not found)
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<String> handleNoSuchElement(NoSuchElementException ex) {
@@ -26,6 +32,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
+    // Handle ownership checks in controllers and @PreAuthorize denials (otherwise caught as a 400 above)
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException ex) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", ex.getMessage()));
+    }
+
     // Handle validation errors with multiple fields
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidation(MethodArgumentNotValidException ex) {
@@ -41,8 +53,40 @@ public class GlobalExceptionHandler {
     // Handle optimistic lock conflicts (concurrent updates)
     @ExceptionHandler(OptimisticLockException.class)
     public ResponseEntity<String> handleOptimisticLock(OptimisticLockException ex) {
-        return ResponseEntity.status(HttpStatus.CONFLICT)
-                .body("Book was updated by another user. Please try again.");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(CONCURRENT_UPDATE);
+    }
+
+    // Handle lock conflicts that survived the retries (deadlock, lock timeout, stale version);
+    // any entity can hit these, so the message does not name one
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<String> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(CONCURRENT_UPDATE);
+    }
+
+    // Handle last copy taken by a concurrent borrow/reservation
+    @ExceptionHandler(BookUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleBookUnavailable(BookUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    // Handle an outbox retry of a message that is in flight or already sent
+    @ExceptionHandler(OutboxRetryConflictException.class)
+    public ResponseEntity<Map<String, String>> handleOutboxRetryConflict(OutboxRetryConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    // Handle payment gateway fast-fail (circuit open, bulkhead full, timeout)
+    @ExceptionHandler(PaymentGatewayUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleGatewayUnavailable(PaymentGatewayUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // Handle a listing cursor that was tampered with or belongs to another listing
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursor(InvalidCursorException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
 
     // Handle ResourceNotFoundException
@@ -0,0 +1,7 @@
+package com.library.lms.librario.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.lms.librario.exception;
+
+public class OutboxRetryConflictException extends RuntimeException {
+    public OutboxRetryConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package com.library.lms.librario.exception;
+
+import java.time.Duration;
+
+/**
+ * The payment gateway could not be called right now (circuit open, bulkhead full or timed out).
+ * Mapped to 503 so clients retry later instead of holding a request thread; {@link #getRetryAfter()}
+ * becomes the Retry-After header.
+ */
+public class PaymentGatewayUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PaymentGatewayUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public PaymentGatewayUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /** Whole seconds for the Retry-After header, rounded up and at least 1. */
+    public long getRetryAfterSeconds() {
+        long millis = retryAfter == null ? 0 : retryAfter.toMillis();
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
@@ -11,7 +11,12 @@ import com.library.lms.librario.entity.enums.BookCondition;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "books")
+@Table(
+        name = "books",
+        indexes = {
+                @Index(name = "idx_books_title_id", columnList = "title, id") // keyset paging by title
+        }
+)
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
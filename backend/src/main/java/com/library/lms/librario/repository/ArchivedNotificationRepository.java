@@ -0,0 +1,33 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.entity.ArchivedNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedNotificationRepository extends JpaRepository<ArchivedNotification, Long> {
+
+    // Copies the given notifications as-is (same ids); archive_month is yyyyMM of created_at
+    @Modifying
+    @Query(value = "INSERT INTO notifications_archive " +
+            "(id, user_id, title, message, target_role, type, created_at, `read`, archived_at, archive_month) " +
+            "SELECT n.id, n.user_id, n.title, n.message, n.target_role, n.type, n.created_at, n.`read`, :archivedAt, " +
+            "EXTRACT(YEAR FROM n.created_at) * 100 + EXTRACT(MONTH FROM n.created_at) " +
+            "FROM notifications n WHERE n.id IN (:ids)", nativeQuery = true)
+    int copyFromNotifications(@Param("ids") Collection<Long> ids,
+                              @Param("archivedAt") LocalDateTime archivedAt);
+
+    // one purge batch: idx_archive_month
+    @Query("SELECT a.id FROM ArchivedNotification a WHERE a.archiveMonth < :beforeMonth ORDER BY a.id")
+    List<Long> findIdsBeforeMonth(@Param("beforeMonth") int beforeMonth, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedNotification a WHERE a.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,13 @@
 package com.library.lms.librario.repository;
 
 
+import com.library.lms.librario.dto.BookSummaryDTO;
 import com.library.lms.librario.model.Book;
+import com.library.lms.librario.service.search.BookSearchDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -29,5 +33,51 @@ public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificat
 
     @Query("SELECT COALESCE(SUM(b.availableCopies), 0) FROM Book b")
     Long sumAvailableCopies();
-}
 
+    // Keyset pagination (catalog listing): summary projection ordered by id ...
+    @Query("SELECT new com.library.lms.librario.dto.BookSummaryDTO(" +
+            "b.id, b.title, b.author, b.genre, b.publisher, b.year, b.isbn, b.shelf, " +
+            "b.totalCopies, b.availableCopies, b.status, b.imageUrl) " +
+            "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<BookSummaryDTO> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // ... or by (title, id), backed by idx_books_title_id
+    @Query("SELECT new com.library.lms.librario.dto.BookSummaryDTO(" +
+            "b.id, b.title, b.author, b.genre, b.publisher, b.year, b.isbn, b.shelf, " +
+            "b.totalCopies, b.availableCopies, b.status, b.imageUrl) " +
+            "FROM Book b WHERE b.title > :afterTitle OR (b.title = :afterTitle AND b.id > :afterId) " +
+            "ORDER BY b.title, b.id")
+    List<BookSummaryDTO> findSummariesAfterTitle(@Param("afterTitle") String afterTitle,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    // Full entities in id order, used by the deprecated streaming list endpoint
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Search index loader: searchable columns only, keyset-paged by id
+    @Query("SELECT new com.library.lms.librario.service.search.BookSearchDocument(" +
+            "b.id, b.title, b.author, b.genre, b.publisher, b.isbn) " +
+            "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<BookSearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // ✅ Atomic copy allocation: takes one copy only if one is left (returns affected rows, 0 = none left).
+    // status is assigned first so it sees the pre-decrement count on every database.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET " +
+            "b.status = CASE WHEN b.availableCopies > 1 " +
+            "   THEN com.library.lms.librario.entity.enums.BookStatus.AVAILABLE " +
+            "   ELSE com.library.lms.librario.entity.enums.BookStatus.UNAVAILABLE END, " +
+            "b.availableCopies = b.availableCopies - 1, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.availableCopies > 0")
+    int allocateCopy(@Param("id") Long id);
+
+    // ✅ Atomic copy release: never goes above totalCopies
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET " +
+            "b.status = com.library.lms.librario.entity.enums.BookStatus.AVAILABLE, " +
+            "b.availableCopies = b.availableCopies + 1, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int releaseCopy(@Param("id") Long id);
+}
@@ -1,12 +1,24 @@
 package com.library.lms.librario.repository;
 
+import com.library.lms.librario.dto.DueReminderNotice;
+import com.library.lms.librario.dto.FineDigestSummary;
+import com.library.lms.librario.dto.OverdueCandidate;
+import com.library.lms.librario.dto.OverdueNotice;
 import com.library.lms.librario.entity.BorrowRecord;
 import com.library.lms.librario.entity.PaymentType;
 import com.library.lms.librario.entity.enums.BorrowStatus;
 import com.library.lms.librario.model.User;
+import com.library.lms.librario.service.batch.IdRange;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
@@ -19,4 +31,108 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     List<BorrowRecord> findByFinePaidTrue();
     List<BorrowRecord> findByPaymentType(PaymentType paymentType);
     List<BorrowRecord> findByFineAmountGreaterThanAndFinePaidFalse(Double fineAmount);
+
+    // ----------------------------
+    // Overdue sweep (set-based)
+    // ----------------------------
+
+    // User-id bounds of the rows the overdue sweep may touch (for partitioning)
+    @Query("SELECT new com.library.lms.librario.service.batch.IdRange(MIN(r.user.id), MAX(r.user.id)) " +
+            "FROM BorrowRecord r WHERE r.status IN :statuses AND r.returnDate IS NULL")
+    IdRange findOpenLoanUserRange(@Param("statuses") Collection<BorrowStatus> statuses);
+
+    // Next chunk of not-returned, past-due BORROWED/OVERDUE rows of one user range, keyset-paged by id
+    @Query("SELECT new com.library.lms.librario.dto.OverdueCandidate(r.id, r.status) FROM BorrowRecord r " +
+            "WHERE r.id > :afterId AND r.user.id BETWEEN :userFrom AND :userTo " +
+            "AND r.status IN :statuses AND r.returnDate IS NULL AND r.dueDate < :now " +
+            "ORDER BY r.id")
+    List<OverdueCandidate> findOverdueCandidatesAfter(@Param("afterId") Long afterId,
+                                                      @Param("userFrom") Long userFrom,
+                                                      @Param("userTo") Long userTo,
+                                                      @Param("statuses") Collection<BorrowStatus> statuses,
+                                                      @Param("now") LocalDateTime now,
+                                                      Pageable pageable);
+
+    // Marks the given rows OVERDUE and sets days/fine in one statement. Fine per day comes from the
+    // member's plan, falling back to the global default (same rule as OverdueService.calculateFine).
+    // Rows are addressed by primary key so concurrent partitions never lock each other's rows.
+    // HQL rather than native SQL, so the day difference is rendered for whichever dialect runs it.
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET " +
+            "br.status = com.library.lms.librario.entity.enums.BorrowStatus.OVERDUE, " +
+            "br.daysOverdue = (:today - cast(br.dueDate as LocalDate)) by day, " +
+            "br.fineAmount = COALESCE((SELECT MAX(p.finePerDay) FROM Member m JOIN m.membershipPlan p " +
+            "                          WHERE m.user = br.user), :defaultFinePerDay) " +
+            "                * ((:today - cast(br.dueDate as LocalDate)) by day) " +
+            "WHERE br.id IN :ids " +
+            "AND br.status IN (com.library.lms.librario.entity.enums.BorrowStatus.BORROWED, " +
+            "                  com.library.lms.librario.entity.enums.BorrowStatus.OVERDUE) " +
+            "AND br.returnDate IS NULL " +
+            "AND br.dueDate < :now")
+    int markOverdueAndFine(@Param("ids") Collection<Long> ids,
+                           @Param("now") LocalDateTime now,
+                           @Param("today") LocalDate today,
+                           @Param("defaultFinePerDay") BigDecimal defaultFinePerDay);
+
+    @Query("SELECT new com.library.lms.librario.dto.OverdueNotice(" +
+            "r.id, u.id, u.name, u.email, b.title, r.fineAmount) " +
+            "FROM BorrowRecord r JOIN r.user u JOIN r.book b WHERE r.id IN :ids")
+    List<OverdueNotice> findOverdueNotices(@Param("ids") Collection<Long> ids);
+
+    // Fine digests: one row per member with outstanding fines in a user range, keyset-paged by user id
+    @Query("SELECT new com.library.lms.librario.dto.FineDigestSummary(" +
+            "u.id, u.name, u.email, COUNT(r), SUM(r.fineAmount)) " +
+            "FROM BorrowRecord r JOIN r.user u " +
+            "WHERE u.id > :afterUserId AND u.id <= :userTo " +
+            "AND r.status = com.library.lms.librario.entity.enums.BorrowStatus.OVERDUE AND r.fineAmount > 0 " +
+            "GROUP BY u.id, u.name, u.email ORDER BY u.id")
+    List<FineDigestSummary> findFineDigestsAfter(@Param("afterUserId") Long afterUserId,
+                                                 @Param("userTo") Long userTo,
+                                                 Pageable pageable);
+
+    // The fined records behind one chunk of digests, grouped by member
+    @Query("SELECT new com.library.lms.librario.dto.OverdueNotice(" +
+            "r.id, u.id, u.name, u.email, b.title, r.fineAmount) " +
+            "FROM BorrowRecord r JOIN r.user u JOIN r.book b " +
+            "WHERE u.id IN :userIds " +
+            "AND r.status = com.library.lms.librario.entity.enums.BorrowStatus.OVERDUE AND r.fineAmount > 0 " +
+            "ORDER BY u.id, r.id")
+    List<OverdueNotice> findFineReminderNoticesForUsers(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT new com.library.lms.librario.service.batch.IdRange(MIN(r.user.id), MAX(r.user.id)) " +
+            "FROM BorrowRecord r WHERE r.status = com.library.lms.librario.entity.enums.BorrowStatus.OVERDUE " +
+            "AND r.fineAmount > 0")
+    IdRange findFineReminderUserRange();
+
+    // ----------------------------
+    // Due-soon reminders
+    // ----------------------------
+
+    // BORROWED loans due in (from, to] not yet reminded for their current due date. Walks the
+    // (status, due_date) index in (dueDate, id) keyset order.
+    @Query("SELECT new com.library.lms.librario.dto.DueReminderNotice(" +
+            "r.id, u.id, u.name, u.email, b.title, r.dueDate) " +
+            "FROM BorrowRecord r JOIN r.user u JOIN r.book b " +
+            "WHERE r.status = com.library.lms.librario.entity.enums.BorrowStatus.BORROWED " +
+            "AND r.dueDate > :from AND r.dueDate <= :to " +
+            "AND (r.dueDate > :afterDue OR (r.dueDate = :afterDue AND r.id > :afterId)) " +
+            "AND r.returnDate IS NULL " +
+            "AND (r.dueReminderFor IS NULL OR r.dueReminderFor <> r.dueDate) " +
+            "ORDER BY r.dueDate, r.id")
+    List<DueReminderNotice> findDueSoonNoticesAfter(@Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("afterDue") LocalDateTime afterDue,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    // Sets the watermark to the due date each row was reminded for
+    @Modifying
+    @Query("UPDATE BorrowRecord r SET r.dueReminderFor = r.dueDate WHERE r.id IN :ids")
+    int markDueReminded(@Param("ids") Collection<Long> ids);
+
+    // 🔹 Marks the member's fine paid once; 0 when it was already paid (duplicate callback) or not theirs
+    @Modifying
+    @Query("UPDATE BorrowRecord r SET r.finePaid = true, r.fineAmount = 0, r.paymentId = :paymentId " +
+            "WHERE r.id = :id AND r.user.id = :userId AND (r.finePaid = false OR r.finePaid IS NULL)")
+    int markFinePaidOnce(@Param("id") Long id, @Param("userId") Long userId, @Param("paymentId") String paymentId);
 }
@@ -0,0 +1,74 @@
+package com.library.lms.librario.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multi-row INSERTs through JDBC batches.
+ *
+ * Our entities use IDENTITY ids, which makes Hibernate insert one row per round-trip. This
+ * sends {@code app.jdbc.batch-size} rows per executeBatch on the connection of the current
+ * transaction and still returns the generated ids (in row order). On MySQL, set
+ * rewriteBatchedStatements=true so each batch goes out as one multi-row statement.
+ */
+@Component
+public class JdbcBatchInserter {
+
+    @FunctionalInterface
+    public interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public JdbcBatchInserter(JdbcTemplate jdbcTemplate,
+                             @Value("${app.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Inserts all rows; returns their generated ids in the same order. */
+    public <T> List<Long> insert(String sql, List<T> rows, RowBinder<T> binder) {
+        if (rows.isEmpty()) return List.of();
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            List<Long> ids = new ArrayList<>(rows.size());
+            try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int pending = 0;
+                for (T row : rows) {
+                    binder.bind(ps, row);
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        flush(ps, ids);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) flush(ps, ids);
+            }
+            if (ids.size() != rows.size()) {
+                throw new IllegalStateException("Expected " + rows.size() + " generated ids, got " + ids.size());
+            }
+            return ids;
+        });
+    }
+
+    private static void flush(PreparedStatement ps, List<Long> ids) throws SQLException {
+        ps.executeBatch();
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) ids.add(keys.getLong(1));
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -1,11 +1,13 @@
 package com.library.lms.librario.repository;
 
 import com.library.lms.librario.entity.Member;
+import com.library.lms.librario.service.fine.MemberPlanRef;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +29,9 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
 
     @Query("SELECT m FROM Member m LEFT JOIN FETCH m.membershipPlan WHERE m.user.id = :userId")
     Optional<Member> findByUserIdWithPlan(@Param("userId") Long userId);
+
+    // 🔹 user -> plan id only, for FineRateResolver's bulk preload
+    @Query("SELECT new com.library.lms.librario.service.fine.MemberPlanRef(m.user.id, p.id) " +
+            "FROM Member m LEFT JOIN m.membershipPlan p WHERE m.user.id IN :userIds")
+    List<MemberPlanRef> findPlanRefsByUserIds(@Param("userIds") Collection<Long> userIds);
 }
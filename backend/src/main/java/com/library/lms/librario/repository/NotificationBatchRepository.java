@@ -0,0 +1,45 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.entity.Notification;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk INSERT path for {@link Notification} (fan-out jobs); single rows keep using NotificationRepository.
+ */
+@Repository
+public class NotificationBatchRepository {
+
+    static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, title, message, target_role, type, created_at, `read`) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcBatchInserter inserter;
+
+    public NotificationBatchRepository(JdbcBatchInserter inserter) {
+        this.inserter = inserter;
+    }
+
+    /** Inserts the notifications and sets their generated ids (and createdAt when missing). */
+    public List<Notification> insertAll(List<Notification> notifications) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = inserter.insert(INSERT_SQL, notifications, (ps, n) -> {
+            if (n.getCreatedAt() == null) n.setCreatedAt(now);
+            if (n.getUserId() != null) ps.setLong(1, n.getUserId()); else ps.setNull(1, Types.BIGINT);
+            ps.setString(2, n.getTitle());
+            ps.setString(3, n.getMessage());
+            ps.setString(4, n.getTargetRole());
+            ps.setString(5, n.getType().name());
+            ps.setTimestamp(6, Timestamp.valueOf(n.getCreatedAt()));
+            ps.setBoolean(7, n.isRead());
+        });
+        for (int i = 0; i < ids.size(); i++) {
+            notifications.get(i).setId(ids.get(i));
+        }
+        return notifications;
+    }
+}
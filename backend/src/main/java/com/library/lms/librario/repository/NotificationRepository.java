@@ -1,8 +1,15 @@
 package com.library.lms.librario.repository;
 
 import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.service.notification.UnreadGroup;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -19,4 +26,108 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.targetRole = 'ADMIN' AND n.read = false")
     long countUnreadForAdmins();
+
+    long countByUserIdAndReadFalse(Long userId);
+
+    // ----------------------------
+    // Keyset-paginated inboxes (newest first)
+    // ----------------------------
+
+    // user inbox: idx_user_read (user_id, read) + implicit id
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.id < :beforeId ORDER BY n.id DESC")
+    List<Notification> findUserInboxBefore(@Param("userId") Long userId,
+                                           @Param("beforeId") Long beforeId,
+                                           Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.read = false AND n.id < :beforeId " +
+            "ORDER BY n.id DESC")
+    List<Notification> findUserUnreadBefore(@Param("userId") Long userId,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+
+    // role inbox: idx_targetRole_createdAt (target_role, created_at) + implicit id
+    @Query("SELECT n FROM Notification n WHERE n.targetRole = :role " +
+            "AND (n.createdAt < :beforeCreatedAt OR (n.createdAt = :beforeCreatedAt AND n.id < :beforeId)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findRoleInboxBefore(@Param("role") String role,
+                                           @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                           @Param("beforeId") Long beforeId,
+                                           Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.targetRole = :role AND n.read = false " +
+            "AND (n.createdAt < :beforeCreatedAt OR (n.createdAt = :beforeCreatedAt AND n.id < :beforeId)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findRoleUnreadBefore(@Param("role") String role,
+                                            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+
+    // Stream resume: what a subscriber (its user inbox + role inboxes) missed after lastId, oldest first.
+    // Mirrors NotificationStreamService.topicsFor.
+    @Query("SELECT n FROM Notification n WHERE n.id > :afterId " +
+            "AND (n.userId = :userId OR (n.targetRole IN :roles " +
+            "     AND (n.userId IS NULL OR n.targetRole = 'ADMIN'))) " +
+            "ORDER BY n.id")
+    List<Notification> findStreamReplay(@Param("afterId") Long afterId,
+                                        @Param("userId") Long userId,
+                                        @Param("roles") Collection<String> roles,
+                                        Pageable pageable);
+
+    // Flips read only if it was unread, so the caller knows whether the unread count changed
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id AND n.read = false")
+    int markRead(@Param("id") Long id);
+
+    // ----------------------------
+    // Bulk read/delete: one GROUP BY to learn what changes per inbox, then one set-based statement
+    // ----------------------------
+    @Query("SELECT new com.library.lms.librario.service.notification.UnreadGroup(n.userId, n.targetRole, COUNT(n), MAX(n.id)) " +
+            "FROM Notification n WHERE n.userId = :userId AND n.read = false " +
+            "AND n.id <= :upToId AND n.createdAt <= :upTo GROUP BY n.userId, n.targetRole")
+    List<UnreadGroup> countUserUnreadUpTo(@Param("userId") Long userId,
+                                          @Param("upToId") Long upToId,
+                                          @Param("upTo") LocalDateTime upTo);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.userId = :userId AND n.read = false " +
+            "AND n.id <= :upToId AND n.createdAt <= :upTo")
+    int markUserReadUpTo(@Param("userId") Long userId,
+                         @Param("upToId") Long upToId,
+                         @Param("upTo") LocalDateTime upTo);
+
+    @Query("SELECT new com.library.lms.librario.service.notification.UnreadGroup(n.userId, n.targetRole, COUNT(n), MAX(n.id)) " +
+            "FROM Notification n WHERE n.targetRole = :role AND n.read = false " +
+            "AND n.id <= :upToId AND n.createdAt <= :upTo GROUP BY n.userId, n.targetRole")
+    List<UnreadGroup> countRoleUnreadUpTo(@Param("role") String role,
+                                          @Param("upToId") Long upToId,
+                                          @Param("upTo") LocalDateTime upTo);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.targetRole = :role AND n.read = false " +
+            "AND n.id <= :upToId AND n.createdAt <= :upTo")
+    int markRoleReadUpTo(@Param("role") String role,
+                         @Param("upToId") Long upToId,
+                         @Param("upTo") LocalDateTime upTo);
+
+    @Query("SELECT new com.library.lms.librario.service.notification.UnreadGroup(n.userId, n.targetRole, COUNT(n), MAX(n.id)) " +
+            "FROM Notification n WHERE n.id IN :ids AND n.read = false GROUP BY n.userId, n.targetRole")
+    List<UnreadGroup> countUnreadByIds(@Param("ids") Collection<Long> ids);
+
+    // The ids a caller may delete: their own notifications and role-wide ones for their roles
+    @Query("SELECT n.id FROM Notification n WHERE n.id IN :ids " +
+            "AND (n.userId = :userId OR (n.userId IS NULL AND n.targetRole IN :roles))")
+    List<Long> findIdsOwnedBy(@Param("ids") Collection<Long> ids,
+                              @Param("userId") Long userId,
+                              @Param("roles") Collection<String> roles);
+
+    // ----------------------------
+    // Retention (read rows older than the cutoff move to notifications_archive)
+    // ----------------------------
+    @Query("SELECT n.id FROM Notification n WHERE n.read = true AND n.createdAt < :cutoff ORDER BY n.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // also used by bulk delete
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
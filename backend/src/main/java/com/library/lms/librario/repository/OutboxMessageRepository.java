@@ -0,0 +1,70 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.entity.OutboxMessage;
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Due messages, locked with SKIP LOCKED so concurrent dispatchers claim disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m " +
+            "WHERE m.status = com.library.lms.librario.entity.enums.OutboxStatus.PENDING " +
+            "AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<OutboxMessage> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    Page<OutboxMessage> findByStatusOrderByIdDesc(OutboxStatus status, Pageable pageable);
+
+    Page<OutboxMessage> findAllByOrderByIdDesc(Pageable pageable);
+
+    long countByStatus(OutboxStatus status);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = com.library.lms.librario.entity.enums.OutboxStatus.SENT, " +
+            "m.attempts = m.attempts + 1, m.sentAt = :now, m.lastError = NULL, m.leasedUntil = NULL WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Give back a lease without counting an attempt (work was claimed but never handed off)
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :now, m.leasedUntil = NULL WHERE m.id IN :ids " +
+            "AND m.status = com.library.lms.librario.entity.enums.OutboxStatus.PENDING")
+    int releaseLease(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Admin retry of one message: a dead one gets a fresh attempt budget, a pending one skips its
+    // backoff. Matches nothing while a dispatcher holds an unexpired lease on it (or once it is sent).
+    // attempts is assigned first: MySQL evaluates SET left to right with the new values.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE OutboxMessage m SET " +
+            "m.attempts = CASE WHEN m.status = com.library.lms.librario.entity.enums.OutboxStatus.DEAD THEN 0 ELSE m.attempts END, " +
+            "m.status = com.library.lms.librario.entity.enums.OutboxStatus.PENDING, " +
+            "m.nextAttemptAt = :now, m.leasedUntil = NULL " +
+            "WHERE m.id = :id AND (m.status = com.library.lms.librario.entity.enums.OutboxStatus.DEAD " +
+            "OR (m.status = com.library.lms.librario.entity.enums.OutboxStatus.PENDING " +
+            "AND (m.leasedUntil IS NULL OR m.leasedUntil <= :now)))")
+    int retryUnlessLeased(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Admin bulk retry: every dead message back to PENDING with a fresh attempt budget
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = com.library.lms.librario.entity.enums.OutboxStatus.PENDING, " +
+            "m.attempts = 0, m.nextAttemptAt = :now " +
+            "WHERE m.status = com.library.lms.librario.entity.enums.OutboxStatus.DEAD")
+    int requeueDead(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = :status AND m.createdAt < :before")
+    int deleteByStatusCreatedBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
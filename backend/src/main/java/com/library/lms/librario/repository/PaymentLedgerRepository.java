@@ -0,0 +1,172 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.dto.OfflinePaymentDTO;
+import com.library.lms.librario.dto.PaymentLedgerFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Offline payment ledger: offline membership payments (payments table) and paid fines
+ * (borrow_record) as one UNION ALL query, filtered, sorted and paged in the database.
+ *
+ * Filters are pushed into each branch so the indexes on either table can be used, and a source
+ * filter drops the other branch entirely. Sort keys are whitelisted (see {@link #SORT_COLUMNS}).
+ */
+@Repository
+public class PaymentLedgerRepository {
+
+    /** API sort key -> ledger column. */
+    public static final Map<String, String> SORT_COLUMNS = Map.of(
+            "createdAt", "created_at",
+            "receivedAt", "received_at",
+            "amount", "amount",
+            "memberName", "member_name",
+            "status", "status",
+            "source", "source");
+
+    public static final String MEMBERSHIP = "MEMBERSHIP";
+    public static final String BORROW = "BORROW";
+
+    // status/type may be ENUM columns; cast so the string literals of the fine branch union cleanly
+    private static final String MEMBERSHIP_BRANCH =
+            "SELECT p.id AS source_id, 'MEMBERSHIP' AS source, p.id AS payment_id, p.member_name, p.member_email, " +
+            "p.book_title, p.amount, CAST(p.status AS CHAR(20)) AS status, CAST(p.type AS CHAR(20)) AS type, " +
+            "p.received_by, p.received_at, p.created_at " +
+            "FROM payments p WHERE p.type = 'OFFLINE' AND p.membership_request_id IS NOT NULL";
+
+    private static final String BORROW_BRANCH =
+            "SELECT br.id AS source_id, 'BORROW' AS source, NULL AS payment_id, u.name AS member_name, " +
+            "u.email AS member_email, b.title AS book_title, CAST(br.fine_amount AS DECIMAL(10,2)) AS amount, " +
+            "'SUCCESS' AS status, 'FINE' AS type, br.recorded_by AS received_by, NULL AS received_at, " +
+            "COALESCE(br.return_date, br.borrow_date) AS created_at " +
+            "FROM borrow_record br LEFT JOIN users u ON u.id = br.user_id LEFT JOIN books b ON b.id = br.book_id " +
+            "WHERE br.fine_paid = TRUE";
+
+    private static final RowMapper<OfflinePaymentDTO> ROW_MAPPER = (rs, i) -> new OfflinePaymentDTO(
+            rs.getLong("source_id"),
+            rs.getString("source"),
+            rs.getObject("payment_id") != null ? rs.getLong("payment_id") : null,
+            rs.getString("member_name"),
+            rs.getString("member_email"),
+            rs.getString("book_title"),
+            rs.getBigDecimal("amount"),
+            rs.getString("status"),
+            rs.getString("type"),
+            rs.getString("received_by"),
+            toLocalDateTime(rs.getTimestamp("received_at")),
+            toLocalDateTime(rs.getTimestamp("created_at")));
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate exportJdbc;
+
+    public PaymentLedgerRepository(JdbcTemplate jdbcTemplate,
+                                   @Value("${app.payments.ledger.export-fetch-size:500}") int exportFetchSize) {
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(exportFetchSize);
+        this.exportJdbc = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /** Count and amount total over every row that matches. */
+    public record Totals(long count, BigDecimal amount) {}
+
+    public List<OfflinePaymentDTO> findPage(PaymentLedgerFilter filter, String sort, boolean ascending,
+                                            int offset, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT * FROM (" + union(filter, params) + ") ledger" + orderBy(sort, ascending) +
+                " LIMIT :limit OFFSET :offset";
+        params.addValue("limit", limit).addValue("offset", offset);
+        return jdbc.query(sql, params, ROW_MAPPER);
+    }
+
+    public Totals totals(PaymentLedgerFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT COUNT(*) AS n, COALESCE(SUM(amount), 0) AS total FROM (" + union(filter, params) + ") ledger";
+        return jdbc.queryForObject(sql, params, (rs, i) -> new Totals(rs.getLong("n"), rs.getBigDecimal("total")));
+    }
+
+    /** Every matching row in order, as one list (small result sets only: no paging, no cursor). */
+    public List<OfflinePaymentDTO> findAll(PaymentLedgerFilter filter, String sort, boolean ascending) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT * FROM (" + union(filter, params) + ") ledger" + orderBy(sort, ascending);
+        return jdbc.query(sql, params, ROW_MAPPER);
+    }
+
+    /**
+     * Every matching row in order, one at a time, without building a list. Rows come through a
+     * server-side cursor {@code app.payments.ledger.export-fetch-size} rows at a time; on MySQL that
+     * relies on useCursorFetch=true (set through spring.datasource.hikari.data-source-properties),
+     * otherwise Connector/J buffers the whole result before the first row is handed over.
+     */
+    public void forEach(PaymentLedgerFilter filter, String sort, boolean ascending, Consumer<OfflinePaymentDTO> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT * FROM (" + union(filter, params) + ") ledger" + orderBy(sort, ascending);
+        exportJdbc.query(sql, params, rs -> {
+            consumer.accept(ROW_MAPPER.mapRow(rs, 0));
+        });
+    }
+
+    private static String union(PaymentLedgerFilter filter, MapSqlParameterSource params) {
+        String source = filter.source() == null ? null : filter.source().toUpperCase();
+        String status = filter.status() == null ? null : filter.status().toUpperCase();
+        if (source != null && !MEMBERSHIP.equals(source) && !BORROW.equals(source)) {
+            throw new IllegalArgumentException("Unsupported source: " + filter.source() + " (use MEMBERSHIP or BORROW)");
+        }
+        if (filter.from() != null) params.addValue("from", Timestamp.valueOf(filter.from()));
+        if (filter.to() != null) params.addValue("to", Timestamp.valueOf(filter.to()));
+        if (status != null) params.addValue("status", status);
+        boolean searching = filter.search() != null && !filter.search().isBlank();
+        if (searching) params.addValue("search", "%" + escapeLike(filter.search().trim().toLowerCase()) + "%");
+
+        List<String> branches = new ArrayList<>(2);
+        if (source == null || MEMBERSHIP.equals(source)) {
+            StringBuilder sql = new StringBuilder(MEMBERSHIP_BRANCH);
+            if (filter.from() != null) sql.append(" AND p.created_at >= :from");
+            if (filter.to() != null) sql.append(" AND p.created_at < :to");
+            if (status != null) sql.append(" AND p.status = :status");
+            if (searching) sql.append(" AND (LOWER(p.member_name) LIKE :search OR LOWER(p.member_email) LIKE :search" +
+                    " OR LOWER(p.book_title) LIKE :search)");
+            branches.add(sql.toString());
+        }
+        if ((source == null || BORROW.equals(source)) && (status == null || "SUCCESS".equals(status))) {
+            StringBuilder sql = new StringBuilder(BORROW_BRANCH);
+            if (filter.from() != null) sql.append(" AND COALESCE(br.return_date, br.borrow_date) >= :from");
+            if (filter.to() != null) sql.append(" AND COALESCE(br.return_date, br.borrow_date) < :to");
+            if (searching) sql.append(" AND (LOWER(u.name) LIKE :search OR LOWER(u.email) LIKE :search" +
+                    " OR LOWER(b.title) LIKE :search)");
+            branches.add(sql.toString());
+        }
+        // nothing can match (e.g. source=BORROW&status=INITIATED): keep the shape, return no rows
+        if (branches.isEmpty()) branches.add(MEMBERSHIP_BRANCH + " AND 1 = 0");
+        return String.join(" UNION ALL ", branches);
+    }
+
+    private static String orderBy(String sort, boolean ascending) {
+        String column = SORT_COLUMNS.get(sort);
+        if (column == null) throw new IllegalArgumentException("Unsupported sort: " + sort + " (use " + SORT_COLUMNS.keySet() + ")");
+        String dir = ascending ? " ASC" : " DESC";
+        // nulls last either way; source + id make the order total, so pages never overlap
+        return " ORDER BY CASE WHEN " + column + " IS NULL THEN 1 ELSE 0 END, " + column + dir +
+                ", source" + dir + ", source_id" + dir;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+}
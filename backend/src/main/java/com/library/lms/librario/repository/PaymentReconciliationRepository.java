@@ -0,0 +1,82 @@
+package com.library.lms.librario.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reads for payment reconciliation. Every method walks its rows through a server-side
+ * cursor, {@code app.payments.reconciliation.fetch-size} rows per round trip, and hands them to the
+ * consumer one by one, so nothing is collected. On MySQL this needs useCursorFetch=true (set in
+ * application.properties through spring.datasource.hikari.data-source-properties); without it
+ * Connector/J ignores the fetch size and buffers the whole result set.
+ */
+@Repository
+public class PaymentReconciliationRepository {
+
+    /** A payments row as reconciliation sees it. */
+    public record LedgerRow(long id, String paymentId, String orderId, BigDecimal amount, String status,
+                            LocalDateTime paymentDate, Long borrowRecordId) {}
+
+    /** A borrow record whose fine is marked paid with a gateway payment id. */
+    public record PaidFine(long borrowRecordId, String paymentId) {}
+
+    private static final String LEDGER_COLUMNS =
+            "SELECT p.id, p.payment_id, p.order_id, p.amount, p.status, p.payment_date, p.borrow_record_id FROM payments p ";
+
+    private static final RowMapper<LedgerRow> LEDGER_ROW = (rs, i) -> {
+        Timestamp paymentDate = rs.getTimestamp("payment_date");
+        long borrowRecordId = rs.getLong("borrow_record_id");
+        return new LedgerRow(
+                rs.getLong("id"),
+                rs.getString("payment_id"),
+                rs.getString("order_id"),
+                rs.getBigDecimal("amount"),
+                rs.getString("status"),
+                paymentDate == null ? null : paymentDate.toLocalDateTime(),
+                rs.wasNull() ? null : borrowRecordId);
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public PaymentReconciliationRepository(JdbcTemplate jdbcTemplate,
+                                           @Value("${app.payments.reconciliation.fetch-size:1000}") int fetchSize) {
+        this.jdbc = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbc.setFetchSize(fetchSize);
+    }
+
+    /** Every payment with a gateway id, ordered by it (an ordered scan of uk_payments_payment_id). */
+    public void forEachByPaymentId(Consumer<LedgerRow> consumer) {
+        jdbc.query(LEDGER_COLUMNS + "WHERE p.payment_id IS NOT NULL ORDER BY p.payment_id",
+                rs -> {
+                    consumer.accept(LEDGER_ROW.mapRow(rs, 0));
+                });
+    }
+
+    /** Successful fine payments (online or at the desk) whose borrow record is not marked fine-paid. */
+    public void forEachUnmarkedFinePayment(Consumer<LedgerRow> consumer) {
+        jdbc.query(LEDGER_COLUMNS +
+                        "JOIN borrow_record br ON br.id = p.borrow_record_id " +
+                        "WHERE p.status = 'SUCCESS' AND (br.fine_paid IS NULL OR br.fine_paid = FALSE) ORDER BY p.id",
+                rs -> {
+                    consumer.accept(LEDGER_ROW.mapRow(rs, 0));
+                });
+    }
+
+    /** Fines marked paid with a gateway payment id that has no payments row (waivers excluded). */
+    public void forEachPaidFineWithoutPayment(Consumer<PaidFine> consumer) {
+        jdbc.query("SELECT br.id, br.payment_id FROM borrow_record br " +
+                        "LEFT JOIN payments p ON p.payment_id = br.payment_id " +
+                        "WHERE br.fine_paid = TRUE AND br.payment_id IS NOT NULL " +
+                        "AND br.payment_id NOT LIKE 'WAIVED-%' AND p.id IS NULL ORDER BY br.id",
+                rs -> {
+                    consumer.accept(new PaidFine(rs.getLong("id"), rs.getString("payment_id")));
+                });
+    }
+}
@@ -1,9 +1,14 @@
 package com.library.lms.librario.repository;
 
 import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.PaymentStatus;
 import com.library.lms.librario.entity.PaymentType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,12 +16,36 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserId(Long userId);
     List<Payment> findByMembershipRequestId(Long membershipRequestId);
 
-    // For Razorpay order id
+    // For Razorpay order id (unique index uk_payments_order_id)
     Optional<Payment> findByOrderId(String orderId);
 
-    // For Razorpay payment id
+    // For Razorpay payment id (unique index uk_payments_payment_id)
     Optional<Payment> findByPaymentId(String paymentId);
 
+    /**
+     * Completes the order's payment unless it already succeeded. Returns 1 for the caller that
+     * completed it and 0 for every later callback, so only one of them applies the side effects.
+     * The row lock on uk_payments_order_id serialises concurrent callbacks for the same order.
+     * Does not clear the persistence context (callers may hold locked entities), so a Payment
+     * loaded earlier in the same transaction keeps its old state.
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :success, p.paymentId = :paymentId, p.paymentDate = :now " +
+            "WHERE p.orderId = :orderId AND p.status <> :success")
+    int completeByOrderId(@Param("orderId") String orderId,
+                          @Param("paymentId") String paymentId,
+                          @Param("success") PaymentStatus success,
+                          @Param("now") LocalDateTime now);
+
+    // "failed" webhook: never overwrites a SUCCESS, even one committed after the caller read the row
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :failed, p.paymentId = :paymentId " +
+            "WHERE p.orderId = :orderId AND p.status <> :success")
+    int failByOrderId(@Param("orderId") String orderId,
+                      @Param("paymentId") String paymentId,
+                      @Param("failed") PaymentStatus failed,
+                      @Param("success") PaymentStatus success);
+
     // ✅ New method to get all payments by type (ONLINE / OFFLINE)
     List<Payment> findByType(PaymentType type);
 }
@@ -0,0 +1,51 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.entity.PendingNotification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PendingNotificationRepository extends JpaRepository<PendingNotification, Long> {
+
+    // Groups whose first notification arrived before the cutoff (their coalescing window is over);
+    // parked groups (maxAttempts failed sends) are skipped
+    @Query("SELECT p.groupKey FROM PendingNotification p GROUP BY p.groupKey " +
+            "HAVING MIN(p.createdAt) < :openedBefore AND MAX(p.attempts) < :maxAttempts ORDER BY MIN(p.id)")
+    List<String> findDueGroupKeys(@Param("openedBefore") LocalDateTime openedBefore,
+                                  @Param("maxAttempts") int maxAttempts,
+                                  Pageable pageable);
+
+    @Query("SELECT p.groupKey FROM PendingNotification p GROUP BY p.groupKey " +
+            "HAVING MAX(p.attempts) < :maxAttempts ORDER BY MIN(p.id)")
+    List<String> findGroupKeys(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT p.groupKey) FROM PendingNotification p")
+    long countGroups();
+
+    @Query("SELECT COUNT(DISTINCT p.groupKey) FROM PendingNotification p WHERE p.attempts >= :maxAttempts")
+    long countParkedGroups(@Param("maxAttempts") int maxAttempts);
+
+    // One more failed send for every row of the group
+    @Modifying
+    @Query("UPDATE PendingNotification p SET p.attempts = p.attempts + 1 WHERE p.groupKey = :groupKey")
+    int incrementAttempts(@Param("groupKey") String groupKey);
+
+    @Query("SELECT MAX(p.attempts) FROM PendingNotification p WHERE p.groupKey = :groupKey")
+    Integer findAttempts(@Param("groupKey") String groupKey);
+
+    // Locked with SKIP LOCKED so two instances never send the same group
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM PendingNotification p WHERE p.groupKey IN :groupKeys ORDER BY p.id")
+    List<PendingNotification> findByGroupKeysForUpdate(@Param("groupKeys") Collection<String> groupKeys);
+}
@@ -0,0 +1,50 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.entity.WebhookEvent;
+import com.library.lms.librario.entity.enums.WebhookEventStatus;
+import com.library.lms.librario.service.webhook.WebhookEventRef;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    Optional<WebhookEvent> findByEventId(String eventId);
+
+    // Row lock while an event is applied, so two workers (or instances) never apply it twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM WebhookEvent e WHERE e.id = :id")
+    Optional<WebhookEvent> findByIdForUpdate(@Param("id") Long id);
+
+    // Unapplied events in arrival order, for the recovery poll
+    @Query("SELECT new com.library.lms.librario.service.webhook.WebhookEventRef(e.id, e.orderId) FROM WebhookEvent e " +
+            "WHERE e.status = com.library.lms.librario.entity.enums.WebhookEventStatus.RECEIVED " +
+            "AND e.id > :afterId ORDER BY e.id")
+    List<WebhookEventRef> findPendingAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    Page<WebhookEvent> findByStatusOrderByIdDesc(WebhookEventStatus status, Pageable pageable);
+
+    Page<WebhookEvent> findAllByOrderByIdDesc(Pageable pageable);
+
+    List<WebhookEvent> findByOrderIdOrderById(String orderId);
+
+    long countByStatus(WebhookEventStatus status);
+
+    // Replay: back to RECEIVED with a fresh attempt budget
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.library.lms.librario.entity.enums.WebhookEventStatus.RECEIVED, " +
+            "e.attempts = 0, e.lastError = NULL, e.processedAt = NULL " +
+            "WHERE e.status = :status AND e.receivedAt >= :from AND e.receivedAt < :to")
+    int resetForReplay(@Param("status") WebhookEventStatus status,
+                       @Param("from") LocalDateTime from,
+                       @Param("to") LocalDateTime to);
+}
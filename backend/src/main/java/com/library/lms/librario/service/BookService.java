@@ -1,15 +1,28 @@
 package com.library.lms.librario.service;
 
 import com.library.lms.librario.dto.BookAvailability;
+import com.library.lms.librario.dto.BookSummaryDTO;
+import com.library.lms.librario.dto.CursorPage;
+import com.library.lms.librario.dto.InventoryChangeEvent;
 import com.library.lms.librario.model.Book;
 import com.library.lms.librario.entity.enums.BookCondition;
 import com.library.lms.librario.entity.enums.NotificationType;
 import com.library.lms.librario.repository.BookRepository;
+import com.library.lms.librario.service.search.BookSearchIndex;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -17,11 +30,26 @@ public class BookService {
 
     private final BookRepository bookRepository;
     private final NotificationService notificationService;
+    private final BookSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.search.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${app.books.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.books.max-page-size:500}")
+    private int maxPageSize;
 
     public BookService(BookRepository bookRepository,
-                       NotificationService notificationService) {
+                       NotificationService notificationService,
+                       BookSearchIndex searchIndex,
+                       ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
         this.notificationService = notificationService;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     // ----------------------------
@@ -29,13 +57,73 @@ public class BookService {
     // ----------------------------
     public Book addBook(Book book) {
         validateCopies(book);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        searchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     public List<Book> listAll() {
         return bookRepository.findAll();
     }
 
+    // ----------------------------
+    // Keyset-paginated listing
+    // ----------------------------
+
+    /**
+     * One page of the catalog as summary rows.
+     *
+     * @param cursor opaque cursor from the previous page, or null for the first page
+     * @param size   page size; null uses app.books.page-size, capped at app.books.max-page-size
+     * @param sort   "id" (default) or "title"
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookSummaryDTO> listPage(String cursor, Integer size, String sort) {
+        int pageSize = Math.max(1, Math.min(size != null ? size : defaultPageSize, maxPageSize));
+        boolean byTitle = "title".equalsIgnoreCase(sort);
+        // fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<BookSummaryDTO> rows;
+        if (byTitle) {
+            // cursor = {afterTitle, afterId}; a missing cursor starts from the beginning
+            CursorCodec.Key key = CursorCodec.decode(cursor, 2);
+            rows = key == null
+                    ? bookRepository.findSummariesAfterTitle("", 0L, limit)
+                    : bookRepository.findSummariesAfterTitle(key.text(0), key.longValue(1), limit);
+        } else {
+            CursorCodec.Key key = CursorCodec.decode(cursor, 1);
+            rows = bookRepository.findSummariesAfterId(key == null ? 0L : key.longValue(0), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<BookSummaryDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String next = null;
+        if (hasMore) {
+            BookSummaryDTO last = items.get(items.size() - 1);
+            next = byTitle ? CursorCodec.encode(last.title(), last.id()) : CursorCodec.encode(last.id());
+        }
+        return new CursorPage<>(List.copyOf(items), next, hasMore);
+    }
+
+    /**
+     * Feeds every book to the consumer in id order, one page at a time.
+     * Runs outside a transaction so each page is loaded, handed over and released
+     * instead of piling the whole catalog into one persistence context.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void forEachBook(Consumer<Book> consumer) {
+        long afterId = 0L;
+        List<Book> page;
+        do {
+            page = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, maxPageSize));
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == maxPageSize);
+    }
+
     public Book getById(Long id) {
         return bookRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with id " + id));
@@ -57,16 +145,22 @@ public class BookService {
         existing.setImageUrl(book.getImageUrl());
 
         validateCopies(existing);
-        return bookRepository.save(existing);
+        Book saved = bookRepository.save(existing);
+        searchIndex.indexAfterCommit(saved);
+        eventPublisher.publishEvent(InventoryChangeEvent.of(saved));
+        return saved;
     }
 
     public void delete(Long id) {
         bookRepository.deleteById(id);
+        searchIndex.removeAfterCommit(id);
     }
 
     public Book save(Book book) {
         validateCopies(book);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        searchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     // ----------------------------
@@ -161,4 +255,29 @@ public class BookService {
             return bookRepository.searchAdvanced(title, genre, publisher);
         }
     }
+
+    /**
+     * Ranked full-text search over title, author, genre, publisher and isbn.
+     * Served from the in-memory index; falls back to the LIKE query while the index is still loading.
+     */
+    @Transactional(readOnly = true)
+    public List<Book> search(String query, int limit) {
+        int capped = Math.max(1, Math.min(limit, maxSearchResults));
+        if (!searchIndex.isReady()) {
+            return bookRepository.searchAdvanced(query, null, null).stream()
+                    .limit(capped)
+                    .toList();
+        }
+
+        List<Long> ids = searchIndex.search(query, capped);
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, Book> byId = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        // keep the index's ranking order
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
@@ -10,6 +10,8 @@ import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.BookRepository;
 import com.library.lms.librario.repository.BorrowRequestRepository;
 import com.library.lms.librario.repository.UserRepository;
+import com.library.lms.librario.service.inventory.BookInventoryService;
+import com.library.lms.librario.service.notification.NotificationDispatcher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -26,6 +28,8 @@ public class BorrowRequestService {
     private final UserRepository userRepo;
     private final BorrowService borrowService;
     private final NotificationService notificationService;
+    private final BookInventoryService bookInventory;
+    private final NotificationDispatcher notificationDispatcher;
 
     /** Member creates a borrow request */
     public BorrowRequest requestBorrow(Long userId, Long bookId) {
@@ -76,33 +80,37 @@ public class BorrowRequestService {
 
     /** Admin approves a borrow request */
     public BorrowRecord approveBorrow(Long requestId) {
-        BorrowRecord record = borrowService.approveBorrow(requestId);
+        BorrowRecord record = bookInventory.withRetry(() -> borrowService.approveBorrow(requestId));
 
         // 🔔 Notify member
+        // (coalesced with BorrowService's own notifications for this approval)
         String bodyUser = "<p>Your borrow request for '<b>" + record.getBook().getTitle() + "</b>' has been approved.</p>";
-        notificationService.createForMember(record.getUser().getId(), bodyUser);
+        notificationDispatcher.toMember(BorrowService.approvalKey(requestId), record.getUser().getId(),
+                record.getUser().getEmail(), bodyUser, NotificationType.GENERAL, null);
 
         // 🔔 Notify admin about approval
         String bodyAdmin = "<p>Borrow request approved for user <b>" + record.getUser().getName() + "</b> for book '<b>"
                 + record.getBook().getTitle() + "</b>'.</p>";
-        notificationService.createForAdmin(bodyAdmin, NotificationType.GENERAL);
+        notificationDispatcher.toAdmin(BorrowService.approvalKey(requestId), bodyAdmin, NotificationType.GENERAL);
 
         return record;
     }
 
     /** Member returns a borrowed book */
     public BorrowRecord returnBook(Long requestId, BookCondition condition) {
-        BorrowRecord record = borrowService.returnBook(requestId, condition);
+        BorrowRecord record = bookInventory.withRetry(() -> borrowService.returnBook(requestId, condition));
 
         // 🔔 Notify member
+        // (coalesced with BorrowService's own notifications for this return)
         String bodyUser = "<p>Book '<b>" + record.getBook().getTitle() + "</b>' returned successfully.</p>";
-        notificationService.createForMember(record.getUser().getId(), bodyUser);
+        notificationDispatcher.toMember(BorrowService.returnKey(record.getId()), record.getUser().getId(),
+                record.getUser().getEmail(), bodyUser, NotificationType.GENERAL, null);
 
         // 🔔 Notify admin if damaged or needs repair
         if (condition == BookCondition.BAD || condition == BookCondition.NEEDS_REPAIR || condition == BookCondition.DAMAGED || condition == BookCondition.LOST) {
             String bodyAdmin = "<p>Book '<b>" + record.getBook().getTitle() + "</b>' returned in condition <b>" + condition.name() +
                     "</b> by <b>" + record.getUser().getName() + "</b>.</p>";
-            notificationService.createForAdmin(bodyAdmin, NotificationType.GENERAL);
+            notificationDispatcher.toAdmin(BorrowService.returnKey(record.getId()), bodyAdmin, NotificationType.GENERAL);
         }
 
         return record;
@@ -115,12 +123,13 @@ public class BorrowRequestService {
         // 🔔 Notify member
         String bodyUser = "<p>Book '<b>" + record.getBook().getTitle() + "</b>' has been renewed.</p>"
                 + "<p>New due date: " + record.getDueDate() + "</p>";
-        notificationService.createForMember(record.getUser().getId(), bodyUser);
+        notificationDispatcher.toMember(BorrowService.renewalKey(record), record.getUser().getId(),
+                record.getUser().getEmail(), bodyUser, NotificationType.GENERAL, null);
 
         // 🔔 Notify admin about renewal
         String bodyAdmin = "<p>User <b>" + record.getUser().getName() + "</b> renewed book '<b>"
                 + record.getBook().getTitle() + "</b>'.</p>";
-        notificationService.createForAdmin(bodyAdmin, NotificationType.GENERAL);
+        notificationDispatcher.toAdmin(BorrowService.renewalKey(record), bodyAdmin, NotificationType.GENERAL);
 
         return record;
     }
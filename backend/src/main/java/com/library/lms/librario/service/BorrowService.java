@@ -12,7 +12,8 @@ import com.library.lms.librario.entity.enums.NotificationType;
 import com.library.lms.librario.model.Book;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.*;
-import com.library.lms.librario.service.mail.MailService;
+import com.library.lms.librario.service.inventory.BookInventoryService;
+import com.library.lms.librario.service.notification.NotificationDispatcher;
 import com.library.lms.librario.repository.PaymentRepository;
 import com.library.lms.librario.entity.Payment;
 import com.library.lms.librario.entity.PaymentStatus;
@@ -37,11 +38,26 @@ public class BorrowService {
     private final UserRepository userRepo;
     private final MemberService memberService;
     private final ReservationRepository reservationRepo;
-    private final MailService mailService;
-    private final NotificationService notificationService;
     // 🔹 NEW: to store offline fine payments in payments table
     private final PaymentRepository paymentRepo;
     private final MemberRepository memberRepo;
+    private final BookInventoryService bookInventory;
+    private final NotificationDispatcher notificationDispatcher;
+
+    // ----------------------------
+    // Correlation keys: everything one borrow event notifies is sent as one notification per recipient
+    // ----------------------------
+    public static String approvalKey(Long requestId) {
+        return "approve:" + requestId;
+    }
+
+    public static String returnKey(Long recordId) {
+        return "return:" + recordId;
+    }
+
+    public static String renewalKey(BorrowRecord record) {
+        return "renew:" + record.getId() + ":" + record.getRenewCount();
+    }
 
     /** ADMIN: Approve borrow request */
     public BorrowRecord approveBorrow(Long requestId) {
@@ -73,23 +89,23 @@ public class BorrowService {
                 .fineAmount(0.0)
                 .build();
 
-        // update entities
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
+        // take the copy atomically (throws BookUnavailableException if another approval got it first)
+        bookInventory.allocate(book.getId());
+
         req.setStatus(RequestStatus.APPROVED);
         req.setIssueDate(LocalDateTime.now());
 
         // persist changes
-        bookRepo.save(book);
         requestRepo.save(req);
         BorrowRecord saved = recordRepo.save(record);
 
         // notifications
         String message = "Your borrow request for '" + book.getTitle() + "' has been approved.";
-        notificationService.create(req.getUser(), "MEMBER", message, NotificationType.GENERAL);
-        mailService.send(req.getUser().getEmail(), "Borrow Request Approved", message);
+        notificationDispatcher.toMember(approvalKey(requestId), req.getUser().getId(), req.getUser().getEmail(),
+                message, NotificationType.GENERAL, "Borrow Request Approved");
 
         // 🔔 Notify Admin
-        notificationService.createForAdmin(
+        notificationDispatcher.toAdmin(approvalKey(requestId),
                 "Borrow request approved for user " + req.getUser().getName() + " for book '" + book.getTitle() + "'",
                 NotificationType.GENERAL
         );
@@ -121,7 +137,7 @@ public class BorrowService {
         }
 
         if (condition == BookCondition.DAMAGED || condition == BookCondition.LOST) {
-            notificationService.createForAdmin(
+            notificationDispatcher.toAdmin(returnKey(recordId),
                     "Book '" + record.getBook().getTitle() + "' returned in condition " + condition.name() +
                             " by " + record.getUser().getName(),
                     NotificationType.GENERAL
@@ -132,8 +148,7 @@ public class BorrowService {
 
         Book book = record.getBook();
         if (condition != BookCondition.LOST) {
-            book.setAvailableCopies(book.getAvailableCopies() + 1);
-            bookRepo.save(book);
+            bookInventory.release(book.getId());
 
             // auto-assign if reserved
             List<Reservation> reservations = reservationRepo.findByBook_IdAndNotifiedFalse(book.getId());
@@ -158,17 +173,15 @@ public class BorrowService {
                                 .fineAmount(0.0)
                                 .build();
 
+                        bookInventory.allocate(book.getId());
                         recordRepo.save(autoRecord);
 
-                        book.setAvailableCopies(book.getAvailableCopies() - 1);
-                        bookRepo.save(book);
-
                         firstReservation.setNotified(true);
                         reservationRepo.save(firstReservation);
 
                         String autoMsg = "The book '" + book.getTitle() + "' you reserved is now available and has been assigned to you.";
-                        notificationService.create(firstReservation.getUser(), "MEMBER", autoMsg, NotificationType.GENERAL);
-                        mailService.send(firstReservation.getUser().getEmail(), "Book Auto-Assigned", autoMsg);
+                        notificationDispatcher.toMember(returnKey(recordId), firstReservation.getUser().getId(),
+                                firstReservation.getUser().getEmail(), autoMsg, NotificationType.GENERAL, "Book Auto-Assigned");
                     }
                 } catch (Exception e) {
                     System.err.println("Auto-assignment failed: " + e.getMessage());
@@ -194,8 +207,8 @@ public class BorrowService {
         // notifications
         String msg = "You have returned '" + record.getBook().getTitle() +
                 "'. Fine: " + record.getFineAmount();
-        notificationService.create(record.getUser(), "MEMBER", msg, NotificationType.GENERAL);
-        mailService.send(record.getUser().getEmail(), "Book Returned", msg);
+        notificationDispatcher.toMember(returnKey(recordId), record.getUser().getId(), record.getUser().getEmail(),
+                msg, NotificationType.GENERAL, "Book Returned");
 
         return saved;
     }
@@ -221,8 +234,8 @@ public class BorrowService {
 
         String msg = "Your borrow for '" + record.getBook().getTitle() +
                 "' has been renewed. New due date: " + record.getDueDate();
-        notificationService.create(record.getUser(), "MEMBER", msg, NotificationType.GENERAL);
-        mailService.send(record.getUser().getEmail(), "Book Renewed", msg);
+        notificationDispatcher.toMember(renewalKey(saved), record.getUser().getId(), record.getUser().getEmail(),
+                msg, NotificationType.GENERAL, "Book Renewed");
 
         return saved;
     }
@@ -302,8 +315,8 @@ public class BorrowService {
         BorrowRequest saved = requestRepo.save(request);
 
         String msg = "Your borrow request for '" + book.getTitle() + "' has been submitted.";
-        notificationService.create(user, "MEMBER", msg, NotificationType.GENERAL);
-        mailService.send(user.getEmail(), "Borrow Request Submitted", msg);
+        notificationDispatcher.toMember("request:" + saved.getId(), user.getId(), user.getEmail(),
+                msg, NotificationType.GENERAL, "Borrow Request Submitted");
 
         return saved;
     }
@@ -317,8 +330,8 @@ public class BorrowService {
         requestRepo.save(request);
 
         String msg = "Your borrow request for '" + request.getBook().getTitle() + "' has been rejected.";
-        notificationService.create(request.getUser(), "MEMBER", msg, NotificationType.GENERAL);
-        mailService.send(request.getUser().getEmail(), "Borrow Request Rejected", msg);
+        notificationDispatcher.toMember("reject:" + requestId, request.getUser().getId(), request.getUser().getEmail(),
+                msg, NotificationType.GENERAL, "Borrow Request Rejected");
     }
 
     /** MEMBER: Report damage/loss */
@@ -359,8 +372,8 @@ public class BorrowService {
 
         String msg = "You reported '" + record.getBook().getTitle() + "' as " +
                 newStatus.name() + ". Fine: " + fine;
-        notificationService.create(record.getUser(), "MEMBER", msg, NotificationType.GENERAL);
-        mailService.send(record.getUser().getEmail(), "Book Reported " + newStatus.name(), msg);
+        notificationDispatcher.toMember(returnKey(borrowId), record.getUser().getId(), record.getUser().getEmail(),
+                msg, NotificationType.GENERAL, "Book Reported " + newStatus.name());
 
         return saved;
     }
@@ -3,22 +3,58 @@ package com.library.lms.librario.service;
 import com.library.lms.librario.entity.Config;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.ConfigRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-@RequiredArgsConstructor
 public class ConfigService {
 
+    private record Cached(Optional<String> value, long loadedAt) {}
+
     private final ConfigRepository configRepository;
+    private final long cacheTtlNanos;
+
+    // 🔹 Read-through cache: fine lookups run per borrow record, config rows almost never change.
+    // Writes through setConfigValue evict; the TTL covers rows edited directly in the DB.
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+
+    public ConfigService(ConfigRepository configRepository,
+                         @Value("${app.config.cache-ttl:PT5M}") Duration cacheTtl) {
+        this.configRepository = configRepository;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+    }
 
     /** Get generic config value by key, return default if missing */
     public String getConfigValue(String key, String defaultValue) {
-        return configRepository.findById(key)
-                .orElse(new Config(key, defaultValue))
-                .getValue();
+        long now = System.nanoTime();
+        Cached cached = cache.get(key);
+        if (cached == null || now - cached.loadedAt() >= cacheTtlNanos) {
+            cached = new Cached(configRepository.findById(key).map(Config::getValue), now);
+            cache.put(key, cached);
+        }
+        return cached.value().orElse(defaultValue);
+    }
+
+    /** Create or overwrite a config value (save commits on its own, then the cached entry is dropped) */
+    public void setConfigValue(String key, String value) {
+        configRepository.save(new Config(key, value));
+        cache.remove(key);
+    }
+
+    public void setFinePerDay(BigDecimal finePerDay) {
+        if (finePerDay == null || finePerDay.signum() < 0) {
+            throw new IllegalArgumentException("finePerDay must be zero or positive");
+        }
+        setConfigValue("finePerDay", finePerDay.toPlainString());
+    }
+
+    public void evictCache() {
+        cache.clear();
     }
 
     /** Fine per day for overdue books */
@@ -0,0 +1,26 @@
+package com.library.lms.librario.service;
+
+/**
+ * One CSV line for the streaming exports (offline ledger, reconciliation mismatches).
+ *
+ * Every non-null value is quoted; null leaves the field empty. Text starting with = + - or @ is
+ * prefixed with a quote so spreadsheets show it instead of evaluating it as a formula: member
+ * names and uploaded gateway ids are user-controlled.
+ */
+public final class CsvRows {
+
+    private CsvRows() {
+    }
+
+    public static String row(Object... values) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) row.append(',');
+            if (values[i] == null) continue;
+            String v = values[i].toString();
+            if (!v.isEmpty() && "=+-@".indexOf(v.charAt(0)) >= 0 && !(values[i] instanceof Number)) v = "'" + v;
+            row.append('"').append(v.replace("\"", "\"\"")).append('"');
+        }
+        return row.append('\n').toString();
+    }
+}
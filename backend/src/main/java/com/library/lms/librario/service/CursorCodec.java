@@ -0,0 +1,74 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors for {@link com.library.lms.librario.dto.CursorPage} listings.
+ *
+ * A cursor is the last row's sort key, NUL-joined and base64url-encoded. Anything a client sends
+ * back that does not decode to the expected key (wrong encoding, wrong number of parts, a part that
+ * does not parse) is rejected with {@link InvalidCursorException}, which answers 400.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "\u0000";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Object... parts) {
+        String[] values = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = String.valueOf(parts[i]);
+        String raw = String.join(SEPARATOR, values);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes a cursor of {@code expectedParts} parts; a missing cursor (first page) yields null. */
+    public static Key decode(String cursor, int expectedParts) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+        if (parts.length != expectedParts) throw new InvalidCursorException(cursor);
+        return new Key(cursor, parts);
+    }
+
+    /** The decoded parts of one cursor; typed accessors reject parts that do not parse. */
+    public static final class Key {
+        private final String cursor;
+        private final String[] parts;
+
+        private Key(String cursor, String[] parts) {
+            this.cursor = cursor;
+            this.parts = parts;
+        }
+
+        public String text(int i) {
+            return parts[i];
+        }
+
+        public long longValue(int i) {
+            try {
+                return Long.parseLong(parts[i]);
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+
+        public LocalDateTime dateTime(int i) {
+            try {
+                return LocalDateTime.parse(parts[i]);
+            } catch (DateTimeParseException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+    }
+}
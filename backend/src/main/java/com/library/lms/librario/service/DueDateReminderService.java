@@ -0,0 +1,86 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.dto.DueReminderNotice;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.repository.BorrowRecordRepository;
+import com.library.lms.librario.service.notification.NotificationDraft;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Due-soon reminders for active loans.
+ *
+ * Reads only BORROWED rows whose due date falls in the reminder window, through the
+ * (status, due_date) index, in keyset chunks. Each chunk's notifications, outbox mails and
+ * "reminded for this due date" watermark commit together, so a rerun skips what was sent and
+ * a renewed loan is reminded again for its new due date.
+ */
+@Service
+@RequiredArgsConstructor
+public class DueDateReminderService {
+
+    private static final Logger log = LoggerFactory.getLogger(DueDateReminderService.class);
+
+    private final BorrowRecordRepository borrowRepo;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.due-reminder.window:P3D}")
+    private Duration window;
+
+    @Value("${app.due-reminder.chunk-size:500}")
+    private int chunkSize;
+
+    // Run every day at 8 AM
+    @Scheduled(cron = "${app.due-reminder.cron:0 0 8 * * *}")
+    public int sendDueSoonReminders() {
+        long started = System.currentTimeMillis();
+        LocalDateTime from = LocalDateTime.now();
+        LocalDateTime to = from.plus(window);
+
+        int reminded = 0;
+        int chunks = 0;
+        LocalDateTime afterDue = from;
+        long afterId = 0L;
+        while (true) {
+            final LocalDateTime cursorDue = afterDue;
+            final long cursorId = afterId;
+            List<DueReminderNotice> chunk = transactionTemplate.execute(status -> {
+                List<DueReminderNotice> notices = borrowRepo.findDueSoonNoticesAfter(
+                        from, to, cursorDue, cursorId, PageRequest.of(0, chunkSize));
+                if (notices.isEmpty()) return notices;
+                notificationService.createAll(notices.stream().map(this::reminder).toList());
+                borrowRepo.markDueReminded(notices.stream().map(DueReminderNotice::recordId).toList());
+                return notices;
+            });
+            if (chunk == null || chunk.isEmpty()) break;
+            reminded += chunk.size();
+            chunks++;
+            DueReminderNotice last = chunk.get(chunk.size() - 1);
+            afterDue = last.dueDate();
+            afterId = last.recordId();
+        }
+
+        log.info("Due-soon reminders: {} sent in {} chunk(s), due before {}, {} ms",
+                reminded, chunks, to, System.currentTimeMillis() - started);
+        return reminded;
+    }
+
+    private NotificationDraft reminder(DueReminderNotice n) {
+        String messageHtml = "<p>Reminder: Book '<b>" + n.bookTitle() +
+                "</b>' is due on <b>" + n.dueDate() + "</b>.</p>";
+
+        // ✅ In-app notification + email (via outbox)
+        return NotificationDraft.forMember(n.userId(), n.email(), messageHtml, NotificationType.DUE_DATE);
+    }
+}
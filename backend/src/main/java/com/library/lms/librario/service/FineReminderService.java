@@ -1,47 +1,119 @@
 package com.library.lms.librario.service;
 
-import com.library.lms.librario.entity.BorrowRecord;
-import com.library.lms.librario.entity.enums.BorrowStatus;
+import com.library.lms.librario.dto.FineDigestSummary;
+import com.library.lms.librario.dto.FineReminderRunResult;
+import com.library.lms.librario.dto.OverdueNotice;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.service.batch.IdRange;
+import com.library.lms.librario.service.batch.PartitionResult;
+import com.library.lms.librario.service.batch.PartitionedJobRunner;
 import com.library.lms.librario.service.mail.MailService;
+import com.library.lms.librario.service.mail.template.MailTemplateEngine;
+import com.library.lms.librario.service.notification.NotificationDraft;
 import com.library.lms.librario.repository.BorrowRecordRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import static com.library.lms.librario.service.mail.template.MailTemplateEngine.params;
+
+/**
+ * Daily fine reminders, one digest per member.
+ *
+ * Members with outstanding fines come from one GROUP BY query (count and total per member),
+ * keyset-paged by user id inside each user-range partition; the records behind a chunk are read
+ * with one more query to list the books. Each member gets one in-app notification and one e-mail
+ * (through the outbox) no matter how many books are overdue, and each chunk commits on its own.
+ */
 @Service
 @RequiredArgsConstructor
 public class FineReminderService {
 
+    private static final Logger log = LoggerFactory.getLogger(FineReminderService.class);
+
     private final BorrowRecordRepository borrowRepo;
     private final NotificationService notificationService;
     private final MailService mailService;
+    private final MailTemplateEngine templates;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionedJobRunner jobRunner;
+
+    @Value("${app.fine-reminder.chunk-size:500}")
+    private int chunkSize;
 
     // Run every day at 9 AM
-    @Scheduled(cron = "0 0 9 * * *")
-    public void sendFineReminders() {
-        List<BorrowRecord> overdue = borrowRepo.findByStatus(BorrowStatus.OVERDUE);
-
-        for (BorrowRecord r : overdue) {
-            if (r.getFineAmount() > 0) {
-                String message = "Reminder: Your fine for book '" + r.getBook().getTitle()
-                        + "' is ₹" + r.getFineAmount() + ". Please pay it soon.";
-
-                // ✅ In-app notification (fixed)
-                notificationService.createForMember(r.getUser().getId(), message);
-
-                // ✅ Email reminder
-                String subject = "Library Fine Reminder: " + r.getBook().getTitle();
-                String body = "<div style='font-family:Arial,sans-serif;color:#333;'>" +
-                        "<h2>📚 Fine Reminder</h2>" +
-                        "<p>Hi " + r.getUser().getName() + ",</p>" +
-                        "<p>Your fine for the book <b>" + r.getBook().getTitle() + "</b> " +
-                        "is <b>₹" + r.getFineAmount() + "</b>. Please pay it at your earliest convenience.</p>" +
-                        "<p>Thank you,<br/>Library Team</p></div>";
-
-                mailService.send(r.getUser().getEmail(), subject, body);
-            }
+    // Partitioned by user-id range; each chunk of members commits on its own.
+    @Scheduled(cron = "${app.fine-reminder.cron:0 0 9 * * *}")
+    public FineReminderRunResult sendFineReminders() {
+        long started = System.currentTimeMillis();
+        IdRange users = borrowRepo.findFineReminderUserRange();
+        List<PartitionResult> partitions = jobRunner.run("fine-reminders", users, this::remindUsers);
+
+        FineReminderRunResult result = FineReminderRunResult.of(partitions, System.currentTimeMillis() - started);
+        log.info("Fine reminders: {} digest(s) covering {} fine(s), {} partition(s), {} failed, {} ms",
+                result.digests(), result.fines(), partitions.size(), result.failedPartitions(), result.elapsedMs());
+        partitions.forEach(p -> log.debug("Fine reminders partition {}", p));
+        return result;
+    }
+
+    private void remindUsers(IdRange users, PartitionedJobRunner.Progress progress) {
+        long afterUserId = users.from() - 1;
+        while (true) {
+            final long cursor = afterUserId;
+            List<FineDigestSummary> chunk = transactionTemplate.execute(status -> {
+                List<FineDigestSummary> digests = borrowRepo.findFineDigestsAfter(
+                        cursor, users.to(), PageRequest.of(0, chunkSize));
+                if (digests.isEmpty()) return digests;
+
+                Map<Long, List<OverdueNotice>> fines = borrowRepo.findFineReminderNoticesForUsers(
+                                digests.stream().map(FineDigestSummary::userId).toList())
+                        .stream().collect(Collectors.groupingBy(OverdueNotice::userId));
+                List<NotificationDraft> drafts = new ArrayList<>(digests.size());
+                digests.forEach(d -> drafts.add(remind(d, fines.getOrDefault(d.userId(), List.of()))));
+                notificationService.createAll(drafts); // 🔹 one batched INSERT per chunk
+                return digests;
+            });
+            if (chunk == null || chunk.isEmpty()) return;
+            progress.chunkCommitted(chunk.stream().mapToLong(FineDigestSummary::fineCount).sum(), chunk.size());
+            afterUserId = chunk.get(chunk.size() - 1).userId();
         }
     }
+
+    // Queues the digest e-mail and returns the in-app notification to create with the rest of the chunk
+    private NotificationDraft remind(FineDigestSummary d, List<OverdueNotice> fines) {
+        String total = money(d.totalFine());
+        String message = "Reminder: You have " + d.fineCount() + " overdue book(s) with fines totalling ₹"
+                + total + ". Please pay them soon.";
+
+        // ✅ Email digest: one row per fined book
+        StringBuilder rows = new StringBuilder();
+        for (OverdueNotice f : fines) {
+            rows.append(templates.render("fine-digest-row", params(
+                    "bookTitle", f.bookTitle(),
+                    "fineAmount", money(f.fineAmount()))));
+        }
+        mailService.sendTemplate(d.email(), "Library Fine Reminder: ₹" + total + " outstanding", "fine-digest", params(
+                "userName", d.userName(),
+                "fineCount", d.fineCount(),
+                "totalFine", total,
+                "rows", rows));
+
+        // ✅ In-app notification (mail already queued above)
+        return NotificationDraft.forMember(d.userId(), null, message, NotificationType.GENERAL);
+    }
+
+    private static String money(double amount) {
+        return String.format(Locale.ROOT, "%.2f", amount);
+    }
 }
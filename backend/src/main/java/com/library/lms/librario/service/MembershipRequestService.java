@@ -15,6 +15,8 @@ import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static com.library.lms.librario.service.mail.template.MailTemplateEngine.params;
+
 @Service
 @RequiredArgsConstructor
 public class MembershipRequestService {
@@ -41,21 +43,14 @@ public class MembershipRequestService {
         MembershipRequest saved = requestRepo.save(req);
 
         // ✅ Email to user
-        String subject = "Membership Request Submitted";
-        String body = "<div style='font-family:Arial,sans-serif;color:#333;'>" +
-                "<h2 style='color:#2E86C1;'>📋 Membership Request Submitted</h2>" +
-                "<p>Hi <b>" + user.getName() + "</b>,</p>" +
-                "<p>We have received your membership request for the plan <b>" + plan.getType() + "</b>.</p>" +
-                "<p>Your request is currently <span style='color:orange;font-weight:bold;'>PENDING</span>.</p>" +
-                "<p>We will notify you once it is approved or rejected.</p>" +
-                "<p><b>Request ID:</b> " + saved.getId() + "</p>" +
-                "<br><p>Regards,<br/>Library Team</p></div>";
-
-        mailService.send(user.getEmail(), subject, body);
+        mailService.sendTemplate(user.getEmail(), "Membership Request Submitted", "membership-request-submitted", params(
+                "userName", user.getName(),
+                "planType", plan.getType(),
+                "requestId", saved.getId()));
 
         // ✅ Notify Admin via email
-        mailService.send("admin@library.com", "New Membership Request",
-                "User <b>" + user.getName() + "</b> has requested plan: <b>" + plan.getType() + "</b>.");
+        mailService.sendTemplate("admin@library.com", "New Membership Request", "membership-request-admin",
+                params("userName", user.getName(), "planType", plan.getType()));
 
         // ✅ In-app notifications
         notificationService.createForMember(user.getId(), "Your membership request has been submitted.");
@@ -79,11 +74,8 @@ public class MembershipRequestService {
         requestRepo.save(req);
 
         // ✅ Email to user
-        String subject = "Membership Request Approved";
-        String body = "<h3>Your membership request for <b>" + req.getPlan().getType() +
-                "</b> has been approved.</h3>" +
-                "<p>Please proceed with payment.</p>";
-        mailService.send(req.getUser().getEmail(), subject, body);
+        mailService.sendTemplate(req.getUser().getEmail(), "Membership Request Approved", "membership-request-approved",
+                params("planType", req.getPlan().getType()));
 
         // ✅ Notifications
         notificationService.createForMember(req.getUser().getId(),
@@ -107,17 +99,10 @@ public class MembershipRequestService {
         requestRepo.save(req);
 
         // ✅ Email to user
-        String subject = "Membership Request Rejected";
-        String body = "<div style='font-family:Arial,sans-serif;color:#333;'>" +
-                "<h2 style='color:#C0392B;'>❌ Membership Request Rejected</h2>" +
-                "<p>Hi <b>" + req.getUser().getName() + "</b>,</p>" +
-                "<p>Your membership request for the plan <b>" + req.getPlan().getType() + "</b> has been " +
-                "<span style='color:red;font-weight:bold;'>REJECTED</span>.</p>" +
-                "<p>Reason: " + reason + "</p>" +
-                "<p>Please contact the library for more details.</p>" +
-                "<br><p>Regards,<br/>Library Team</p></div>";
-
-        mailService.send(req.getUser().getEmail(), subject, body);
+        mailService.sendTemplate(req.getUser().getEmail(), "Membership Request Rejected", "membership-request-rejected", params(
+                "userName", req.getUser().getName(),
+                "planType", req.getPlan().getType(),
+                "reason", reason));
 
         // ✅ Notification
         notificationService.createForMember(req.getUser().getId(),
@@ -169,8 +154,8 @@ public class MembershipRequestService {
         requestRepo.save(req);
 
         // ✅ Notify via email
-        mailService.send(req.getUser().getEmail(), "Membership Activated",
-                "Your membership plan " + req.getPlan().getType() + " is now active.");
+        mailService.sendTemplate(req.getUser().getEmail(), "Membership Activated", "membership-activated",
+                params("planType", req.getPlan().getType()));
 
         // ✅ Notifications
         notificationService.createForMember(req.getUser().getId(),
@@ -1,45 +1,77 @@
 package com.library.lms.librario.service;
 
-import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.dto.CursorPage;
 import com.library.lms.librario.entity.Notification;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.entity.enums.NotificationType;
 import com.library.lms.librario.model.Book;
 import com.library.lms.librario.repository.BookRepository;
-import com.library.lms.librario.repository.BorrowRecordRepository;
+import com.library.lms.librario.repository.NotificationBatchRepository;
 import com.library.lms.librario.repository.NotificationRepository;
 import com.library.lms.librario.repository.UserRepository;
 import com.library.lms.librario.service.mail.MailService;
+import com.library.lms.librario.service.notification.AdminMailDigest;
+import com.library.lms.librario.service.notification.NotificationDraft;
+import com.library.lms.librario.service.notification.NotificationsCreatedEvent;
+import com.library.lms.librario.service.notification.UnreadCounter;
+import com.library.lms.librario.service.notification.UnreadGroup;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 @Transactional
 public class NotificationService {
 
-    private final BorrowRecordRepository borrowRepo;
     private final MailService mailService;
     private final BookRepository bookRepo;
     private final NotificationRepository notificationRepository;
+    private final NotificationBatchRepository notificationBatchRepository;
     private final UserRepository userRepo;
+    private final UnreadCounter unreadCounter;
+    private final AdminMailDigest adminDigest;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${library.admin.email:admin@library.com}")
     private String adminEmail;
 
-    public NotificationService(BorrowRecordRepository borrowRepo,
-                               MailService mailService,
+    @Value("${app.notifications.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.notifications.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.notifications.bulk-delete-max:1000}")
+    private int maxBulkIds;
+
+    private static final LocalDateTime FAR_FUTURE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    public NotificationService(MailService mailService,
                                BookRepository bookRepo,
                                NotificationRepository notificationRepository,
-                               UserRepository userRepo) {
-        this.borrowRepo = borrowRepo;
+                               NotificationBatchRepository notificationBatchRepository,
+                               UserRepository userRepo,
+                               UnreadCounter unreadCounter,
+                               AdminMailDigest adminDigest,
+                               ApplicationEventPublisher eventPublisher) {
         this.mailService = mailService;
         this.bookRepo = bookRepo;
         this.notificationRepository = notificationRepository;
+        this.notificationBatchRepository = notificationBatchRepository;
         this.userRepo = userRepo;
+        this.unreadCounter = unreadCounter;
+        this.adminDigest = adminDigest;
+        this.eventPublisher = eventPublisher;
     }
 
     // ----------------------------
@@ -47,6 +79,46 @@ public class NotificationService {
     // ----------------------------
     private Notification buildAndNotify(Long userId, String role, String email,
                                         NotificationType type, String messageHtml) {
+        Notification saved = notificationRepository.save(newNotification(userId, role, type, messageHtml));
+        afterInsert(List.of(saved));
+
+        // Send email if email exists
+        if (email != null) {
+            sendMail(role, email, type.getDefaultTitle(), messageHtml);
+        }
+
+        return saved;
+    }
+
+    // Staff (admin/librarian) mail goes into the periodic digest; everyone else is mailed directly
+    private void sendMail(String role, String email, String subject, String messageHtml) {
+        if (!adminDigest.add(role, email, subject, messageHtml)) {
+            mailService.send(email, subject, messageHtml);
+        }
+    }
+
+    /**
+     * Batch version of buildAndNotify for fan-out jobs: the rows go out as JDBC batches
+     * (IDENTITY ids rule out Hibernate batching) instead of one INSERT round-trip each.
+     */
+    public List<Notification> createAll(List<NotificationDraft> drafts) {
+        if (drafts.isEmpty()) return List.of();
+        List<Notification> rows = new ArrayList<>(drafts.size());
+        for (NotificationDraft d : drafts) {
+            rows.add(newNotification(d.userId(), d.targetRole(), d.type(), d.messageHtml()));
+        }
+        notificationBatchRepository.insertAll(rows);
+        afterInsert(rows);
+
+        for (NotificationDraft d : drafts) {
+            if (d.email() != null) {
+                sendMail(d.targetRole(), d.email(), d.type().getDefaultTitle(), d.messageHtml());
+            }
+        }
+        return rows;
+    }
+
+    private static Notification newNotification(Long userId, String role, NotificationType type, String messageHtml) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setTargetRole(role); // important for admin/librarian/member filtering
@@ -55,16 +127,12 @@ public class NotificationService {
         notification.setMessage(messageHtml);
         notification.setRead(false);
         notification.setCreatedAt(LocalDateTime.now());
+        return notification;
+    }
 
-        Notification saved = notificationRepository.save(notification);
-
-        // Send email if email exists
-        if (email != null) {
-            String subject = type.getDefaultTitle();
-            mailService.send(email, subject, messageHtml);
-        }
-
-        return saved;
+    private void afterInsert(List<Notification> saved) {
+        adjustUnread(saved, 1);
+        eventPublisher.publishEvent(new NotificationsCreatedEvent(saved)); // 🔹 pushed to open streams after commit
     }
 
     // ----------------------------
@@ -96,35 +164,17 @@ public class NotificationService {
         return buildAndNotify(user.getId(), role, user.getEmail(), type, messageHtml);
     }
 
+    // For batch jobs that already have the recipient's id and email (no user lookup)
+    public Notification createForMember(Long userId, String email, String messageHtml, NotificationType type) {
+        return buildAndNotify(userId, "MEMBER", email, type, messageHtml);
+    }
+
     public Notification createUser(Long userId, String messageHtml, NotificationType type) {
         User user = userRepo.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         return buildAndNotify(userId, "MEMBER", user.getEmail(), type, messageHtml);
     }
 
-    // ----------------------------
-    // Due-date reminders for members
-    // ----------------------------
-    public void notifyDueDateApproaching() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime threeDaysLater = now.plusDays(3);
-
-        List<BorrowRecord> records = borrowRepo.findAll();
-        for (BorrowRecord record : records) {
-            if (record.getDueDate() != null &&
-                    record.getDueDate().isAfter(now) &&
-                    record.getDueDate().isBefore(threeDaysLater)) {
-
-                String messageHtml = "<p>Reminder: Book '<b>" + record.getBook().getTitle() +
-                        "</b>' is due on <b>" + record.getDueDate() + "</b>.</p>";
-
-                buildAndNotify(record.getUser().getId(), "MEMBER",
-                        record.getUser().getEmail(),
-                        NotificationType.DUE_DATE, messageHtml);
-            }
-        }
-    }
-
     // ----------------------------
     // Low stock alerts for admin
     // ----------------------------
@@ -133,11 +183,13 @@ public class NotificationService {
                 .filter(book -> book.getAvailableCopies() < 5)
                 .toList();
 
+        List<NotificationDraft> drafts = new ArrayList<>(lowStock.size());
         for (Book book : lowStock) {
             String messageHtml = "<p>Low stock alert for book: '<b>" + book.getTitle() + "</b>'.</p>";
-            buildAndNotify(null, "ADMIN", adminEmail,
-                    NotificationType.LOW_STOCK, messageHtml);
+            drafts.add(new NotificationDraft(null, "ADMIN", adminEmail,
+                    NotificationType.LOW_STOCK, messageHtml));
         }
+        createAll(drafts);
     }
 
     // ----------------------------
@@ -148,6 +200,151 @@ public class NotificationService {
     }
 
     public long getUnreadCountForAdmins() {
-        return notificationRepository.countUnreadForAdmins();
+        return unreadCounter.get(UnreadCounter.roleKey("ADMIN"), notificationRepository::countUnreadForAdmins);
+    }
+
+    // ----------------------------
+    // Read state (keeps the unread counters in step)
+    // ----------------------------
+    public void markAsRead(Long id) {
+        Notification notification = notificationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Notification not found"));
+        if (notificationRepository.markRead(id) > 0) {
+            adjustUnread(List.of(notification), -1);
+        }
+    }
+
+    public void delete(Long id) {
+        notificationRepository.findById(id).ifPresent(notification -> {
+            notificationRepository.delete(notification);
+            if (!notification.isRead()) adjustUnread(List.of(notification), -1);
+        });
+    }
+
+    // ----------------------------
+    // Bulk read/delete (one set-based statement each)
+    // ----------------------------
+
+    /** Marks a user's unread notifications read, optionally only up to an id and/or a creation time. */
+    public int markAllReadForUser(Long userId, Long upToId, LocalDateTime upTo) {
+        long maxId = upToId != null ? upToId : Long.MAX_VALUE;
+        LocalDateTime until = upTo != null ? upTo : FAR_FUTURE;
+        List<UnreadGroup> groups = notificationRepository.countUserUnreadUpTo(userId, maxId, until);
+        if (groups.isEmpty()) return 0;
+        // bound by the newest row counted, so rows arriving meanwhile stay unread and uncounted
+        int updated = notificationRepository.markUserReadUpTo(userId, newestId(groups), until);
+        applyUnreadDrop(groups, updated);
+        return updated;
+    }
+
+    /** Marks a role inbox's unread notifications read, optionally only up to an id and/or a creation time. */
+    public int markAllReadForRole(String role, Long upToId, LocalDateTime upTo) {
+        long maxId = upToId != null ? upToId : Long.MAX_VALUE;
+        LocalDateTime until = upTo != null ? upTo : FAR_FUTURE;
+        List<UnreadGroup> groups = notificationRepository.countRoleUnreadUpTo(role, maxId, until);
+        if (groups.isEmpty()) return 0;
+        int updated = notificationRepository.markRoleReadUpTo(role, newestId(groups), until);
+        applyUnreadDrop(groups, updated);
+        return updated;
+    }
+
+    public int deleteAll(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return 0;
+        if (ids.size() > maxBulkIds) {
+            throw new IllegalArgumentException("At most " + maxBulkIds + " notifications can be deleted at once");
+        }
+        List<UnreadGroup> unread = notificationRepository.countUnreadByIds(ids);
+        int deleted = notificationRepository.deleteByIds(ids);
+        applyUnreadDrop(unread, unread.stream().mapToLong(UnreadGroup::count).sum());
+        return deleted;
+    }
+
+    /** Like {@link #deleteAll}, but skips ids that are not the user's own or a role-wide notification for their roles. */
+    public int deleteAllOwnedBy(Collection<Long> ids, Long userId, Collection<String> roles) {
+        if (ids == null || ids.isEmpty()) return 0;
+        if (ids.size() > maxBulkIds) {
+            throw new IllegalArgumentException("At most " + maxBulkIds + " notifications can be deleted at once");
+        }
+        Collection<String> inboxes = roles.isEmpty() ? List.of("") : roles; // IN () is not valid SQL
+        return deleteAll(notificationRepository.findIdsOwnedBy(ids, userId, inboxes));
+    }
+
+    private static long newestId(List<UnreadGroup> groups) {
+        return groups.stream().mapToLong(UnreadGroup::maxId).max().orElse(0L);
+    }
+
+    // Counted rows stopped being unread: subtract per inbox after commit. If the statement changed
+    // a different number (a concurrent single mark-read), drop those inboxes so they reload instead.
+    private void applyUnreadDrop(List<UnreadGroup> groups, long changed) {
+        Map<String, Long> deltas = new HashMap<>();
+        long expected = 0;
+        for (UnreadGroup g : groups) {
+            expected += g.count();
+            if (g.userId() != null) deltas.merge(UnreadCounter.userKey(g.userId()), -g.count(), Long::sum);
+            if (g.targetRole() != null) deltas.merge(UnreadCounter.roleKey(g.targetRole()), -g.count(), Long::sum);
+        }
+        if (changed == expected) deltas.forEach(unreadCounter::adjustAfterCommit);
+        else deltas.keySet().forEach(unreadCounter::evictAfterCommit);
+    }
+
+    // A notification counts in its user's inbox (if any) and in its target role's inbox
+    private void adjustUnread(Collection<Notification> notifications, long delta) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (Notification n : notifications) {
+            if (n.getUserId() != null) deltas.merge(UnreadCounter.userKey(n.getUserId()), delta, Long::sum);
+            if (n.getTargetRole() != null) deltas.merge(UnreadCounter.roleKey(n.getTargetRole()), delta, Long::sum);
+        }
+        deltas.forEach(unreadCounter::adjustAfterCommit);
+    }
+
+    public long getUnreadCountForUser(Long userId) {
+        return unreadCounter.get(UnreadCounter.userKey(userId),
+                () -> notificationRepository.countByUserIdAndReadFalse(userId));
+    }
+
+    // ----------------------------
+    // Keyset-paginated inboxes
+    // ----------------------------
+
+    /** One page of a user's inbox, newest first. */
+    public CursorPage<Notification> getUserInbox(Long userId, String cursor, Integer size, boolean unreadOnly) {
+        int pageSize = pageSize(size);
+        CursorCodec.Key key = CursorCodec.decode(cursor, 1);
+        long beforeId = key == null ? Long.MAX_VALUE : key.longValue(0);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Notification> rows = unreadOnly
+                ? notificationRepository.findUserUnreadBefore(userId, beforeId, limit)
+                : notificationRepository.findUserInboxBefore(userId, beforeId, limit);
+        return toPage(rows, pageSize, last -> CursorCodec.encode(last.getId()));
+    }
+
+    /** One page of a role's inbox (e.g. ADMIN), newest first. */
+    public CursorPage<Notification> getRoleInbox(String role, String cursor, Integer size, boolean unreadOnly) {
+        int pageSize = pageSize(size);
+        LocalDateTime beforeCreatedAt = FAR_FUTURE;
+        long beforeId = Long.MAX_VALUE;
+        CursorCodec.Key key = CursorCodec.decode(cursor, 2);
+        if (key != null) {
+            beforeCreatedAt = key.dateTime(0);
+            beforeId = key.longValue(1);
+        }
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Notification> rows = unreadOnly
+                ? notificationRepository.findRoleUnreadBefore(role, beforeCreatedAt, beforeId, limit)
+                : notificationRepository.findRoleInboxBefore(role, beforeCreatedAt, beforeId, limit);
+        return toPage(rows, pageSize, last -> CursorCodec.encode(last.getCreatedAt(), last.getId()));
+    }
+
+    private int pageSize(Integer size) {
+        return Math.max(1, Math.min(size != null ? size : defaultPageSize, maxPageSize));
+    }
+
+    // rows were fetched with one extra to know whether another page exists
+    private static CursorPage<Notification> toPage(List<Notification> rows, int pageSize,
+                                                   Function<Notification, String> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Notification> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String next = hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(List.copyOf(items), next, hasMore);
     }
 }
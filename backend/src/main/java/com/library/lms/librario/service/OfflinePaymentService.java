@@ -96,6 +96,7 @@ public class OfflinePaymentService {
 
         Payment payment = Payment.builder()
                 .userId(record.getUser().getId())
+                .borrowRecordId(record.getId())          // 🔹 lets reconciliation check the fine flag
                 .amount(BigDecimal.valueOf(dto.getAmount()))
                 .currency("INR")
                 .status(PaymentStatus.SUCCESS)
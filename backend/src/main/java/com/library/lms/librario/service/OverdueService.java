@@ -1,24 +1,37 @@
 package com.library.lms.librario.service;
 
+import com.library.lms.librario.dto.OverdueCandidate;
+import com.library.lms.librario.dto.OverdueNotice;
+import com.library.lms.librario.dto.OverdueRunResult;
 import com.library.lms.librario.entity.BorrowRecord;
-import com.library.lms.librario.entity.Member;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.entity.enums.BorrowStatus;
 import com.library.lms.librario.entity.enums.NotificationType;
 import com.library.lms.librario.repository.BorrowRecordRepository;
-import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.service.batch.IdRange;
+import com.library.lms.librario.service.batch.PartitionResult;
+import com.library.lms.librario.service.batch.PartitionedJobRunner;
+import com.library.lms.librario.service.fine.FineRateResolver;
+import com.library.lms.librario.service.notification.NotificationDraft;
 import com.library.lms.librario.service.mail.MailService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,13 +39,21 @@ import java.util.stream.Collectors;
 @Transactional
 public class OverdueService {
 
+    private static final Logger log = LoggerFactory.getLogger(OverdueService.class);
+    private static final Set<BorrowStatus> OVERDUE_SWEEP_STATUSES = EnumSet.of(BorrowStatus.BORROWED, BorrowStatus.OVERDUE);
+
     private final BorrowRecordRepository borrowRepo;
-    private final MemberRepository memberRepo;
     private final ConfigService configService;
+    private final FineRateResolver fineRates;
 
     // ✅ Services for notifications + email
     private final NotificationService notificationService;
     private final MailService mailService;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionedJobRunner jobRunner;
+
+    @Value("${app.overdue.chunk-size:1000}")
+    private int overdueChunkSize;
 
     public List<com.library.lms.librario.dto.OverdueDTO> getOverdueDTOsForAll() {
         return getAllCurrentlyOverdue().stream().map(r -> {
@@ -55,14 +76,12 @@ public class OverdueService {
                 .filter(r -> r.getDueDate() != null
                         && r.getReturnDate() == null
                         && r.getDueDate().isBefore(now))
-                .peek(this::calculateFine) // recalc fines
                 .collect(Collectors.toList());
 
         // Already marked OVERDUE — but ensure not returned (returnDate == null)
         List<BorrowRecord> alreadyOverdue = borrowRepo.findByStatus(BorrowStatus.OVERDUE)
                 .stream()
                 .filter(r -> r.getReturnDate() == null) // <-- exclude any records that have been returned
-                .peek(this::calculateFine)
                 .collect(Collectors.toList());
 
         var combined = borrowedPastDue.stream()
@@ -70,6 +89,13 @@ public class OverdueService {
         for (BorrowRecord br : alreadyOverdue) {
             combined.putIfAbsent(br.getId(), br);
         }
+
+        // 🔹 One bulk plan lookup for every member involved, then recalc fines from cache
+        fineRates.preload(combined.values().stream()
+                .filter(r -> r.getUser() != null)
+                .map(r -> r.getUser().getId())
+                .collect(Collectors.toSet()));
+        combined.values().forEach(this::calculateFine);
         return combined.values().stream().collect(Collectors.toList());
     }
 
@@ -77,15 +103,8 @@ public class OverdueService {
         if (record == null || record.getDueDate() == null) return BigDecimal.ZERO;
 
         // ✅ Use LocalDate instead of LocalDateTime to avoid time truncation errors
-        LocalDate dueDate = record.getDueDate().toLocalDate();
-        LocalDate now = LocalDate.now();
-
         // If returned, calculate until return date; else until today
-        LocalDate until = (record.getReturnDate() != null)
-                ? record.getReturnDate().toLocalDate()
-                : now;
-
-        long daysLate = ChronoUnit.DAYS.between(dueDate, until);
+        long daysLate = FineRateResolver.daysLate(record.getDueDate(), record.getReturnDate(), LocalDate.now());
 
         if (daysLate <= 0) return BigDecimal.ZERO;
 
@@ -94,12 +113,8 @@ public class OverdueService {
             return BigDecimal.ZERO;
         }
 
-        Member member = memberRepo.findByUser_Id(record.getUser().getId()).orElse(null);
-
-        BigDecimal finePerDay = (member != null && member.getMembershipPlan() != null
-                && member.getMembershipPlan().getFinePerDay() != null)
-                ? member.getMembershipPlan().getFinePerDay()
-                : configService.getFinePerDay();
+        // 🔹 Plan / default rate comes from the resolver's caches, not a member lookup per record
+        BigDecimal finePerDay = fineRates.finePerDay(record.getUser().getId());
 
         BigDecimal fine = finePerDay.multiply(BigDecimal.valueOf(daysLate));
 
@@ -171,42 +186,91 @@ public class OverdueService {
     /**
      * Scheduled job to mark overdue and compute fines.
      * Runs daily at 02:00 by default.
+     *
+     * Set-based: walks past-due rows in keyset chunks by id; each chunk is one transaction with
+     * one UPDATE (joined to members / membership_plans for the fine rate). Only rows that went
+     * BORROWED -> OVERDUE in this run are notified; ongoing fines are reminded by FineReminderService.
+     * Split by user-id range across PartitionedJobRunner's pool; a failing partition is reported
+     * and does not undo the others.
      */
     @Scheduled(cron = "0 0 2 * * *")
-    @Transactional
-    public void processOverdues() {
-        var overdue = getAllCurrentlyOverdue();
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public OverdueRunResult processOverdues() {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal defaultFinePerDay = configService.getFinePerDay();
+
+        IdRange users = borrowRepo.findOpenLoanUserRange(OVERDUE_SWEEP_STATUSES);
+        List<PartitionResult> partitions = jobRunner.run("overdue-sweep", users,
+                (range, progress) -> sweepUsers(range, now, defaultFinePerDay, progress));
+
+        OverdueRunResult result = OverdueRunResult.of(partitions, System.currentTimeMillis() - started);
+        log.info("Overdue sweep: {} rows ({} newly overdue) in {} chunk(s), {} partition(s), {} failed, {} ms",
+                result.overdueRows(), result.newlyOverdue(), result.chunks(), partitions.size(),
+                result.failedPartitions(), result.elapsedMs());
+        return result;
+    }
+
+    private void sweepUsers(IdRange users, LocalDateTime now, BigDecimal defaultFinePerDay,
+                            PartitionedJobRunner.Progress progress) {
+        long afterId = 0L;
+        while (true) {
+            final long cursor = afterId;
+            ChunkResult chunk = transactionTemplate.execute(status ->
+                    sweepChunk(users, cursor, now, defaultFinePerDay));
+            if (chunk == null) return;
+            progress.chunkCommitted(chunk.updated(), chunk.newlyOverdue());
+            afterId = chunk.lastId();
+        }
+    }
 
-        for (BorrowRecord r : overdue) {
-            var fine = calculateFine(r);
-            r.setFineAmount(fine.doubleValue());
-            r.setStatus(BorrowStatus.OVERDUE);
-            borrowRepo.save(r);
+    private record ChunkResult(long lastId, int updated, int newlyOverdue) {}
+
+    private ChunkResult sweepChunk(IdRange users, long afterId, LocalDateTime now, BigDecimal defaultFinePerDay) {
+        List<OverdueCandidate> candidates = borrowRepo.findOverdueCandidatesAfter(
+                afterId, users.from(), users.to(), OVERDUE_SWEEP_STATUSES, now, PageRequest.of(0, overdueChunkSize));
+        if (candidates.isEmpty()) return null;
+
+        List<Long> ids = candidates.stream().map(OverdueCandidate::id).collect(Collectors.toList());
+        int updated = borrowRepo.markOverdueAndFine(ids, now, now.toLocalDate(), defaultFinePerDay);
+
+        List<Long> changedIds = candidates.stream()
+                .filter(c -> c.status() == BorrowStatus.BORROWED)
+                .map(OverdueCandidate::id)
+                .collect(Collectors.toList());
+        if (!changedIds.isEmpty()) {
+            notifyNewlyOverdue(borrowRepo.findOverdueNotices(changedIds));
+        }
+        return new ChunkResult(ids.get(ids.size() - 1), updated, changedIds.size());
+    }
+
+    private void notifyNewlyOverdue(List<OverdueNotice> notices) {
+        List<NotificationDraft> drafts = new ArrayList<>(notices.size());
+        for (OverdueNotice n : notices) {
+            BigDecimal fine = BigDecimal.valueOf(n.fineAmount());
 
             // ✅ Send notification + email for overdue
-            User user = r.getUser();
-            if (user != null) {
-                notificationService.create(
-                        user,
-                        "MEMBER",
-                        "The book '" + r.getBook().getTitle() + "' is overdue. Fine so far: " + fine + ".",
-                        NotificationType.GENERAL
-                );
-
-                mailService.send(
-                        user.getEmail(),
-                        "Book Overdue - Action Required",
-                        "Hello " + user.getName() + ",\n\nThe book '" + r.getBook().getTitle() +
-                                "' is overdue.\nFine so far: " + fine +
-                                ". Please return it as soon as possible.\n\nLibrary Team"
-                );
-            }
+            drafts.add(NotificationDraft.forMember(
+                    n.userId(),
+                    n.email(),
+                    "The book '" + n.bookTitle() + "' is overdue. Fine so far: " + fine + ".",
+                    NotificationType.GENERAL
+            ));
+
+            mailService.send(
+                    n.email(),
+                    "Book Overdue - Action Required",
+                    "Hello " + n.userName() + ",\n\nThe book '" + n.bookTitle() +
+                            "' is overdue.\nFine so far: " + fine +
+                            ". Please return it as soon as possible.\n\nLibrary Team"
+            );
         }
+        notificationService.createAll(drafts); // 🔹 one batched INSERT per chunk
     }
 
-    @Transactional
-    public void runManualProcess() {
-        processOverdues();
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public OverdueRunResult runManualProcess() {
+        return processOverdues();
     }
 
     /**
@@ -3,11 +3,13 @@ package com.library.lms.librario.service;
 import com.library.lms.librario.dto.OfflineFinePaymentRequest;
 import com.library.lms.librario.dto.OfflineMembershipPaymentRequest;
 import com.library.lms.librario.dto.OfflinePaymentDTO;
+import com.library.lms.librario.dto.PaymentLedgerFilter;
 import com.library.lms.librario.entity.*;
 import com.library.lms.librario.entity.enums.RequestStatus;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.BorrowRecordRepository;
 import com.library.lms.librario.repository.MembershipRequestRepository;
+import com.library.lms.librario.repository.PaymentLedgerRepository;
 import com.library.lms.librario.repository.PaymentRepository;
 import com.library.lms.librario.repository.UserRepository;
 import com.library.lms.librario.service.mail.MailService;
@@ -16,6 +18,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -32,6 +37,7 @@ public class PaymentService {
     private final MailService mailService;
     private final BorrowRecordRepository borrowRepo;
     private final MembershipRequestRepository membershipRequestRepo;
+    private final PaymentLedgerRepository ledgerRepo;
 
     // =====================================================
     // 1️⃣ GENERIC MEMBERSHIP PAYMENT HELPERS (dummy / non-Razorpay)
@@ -185,6 +191,15 @@ public class PaymentService {
     // =====================================================
 
     public Payment markFinePaymentSuccess(Long borrowRecordId, String razorpayPaymentId) {
+        // repeated callback: the unique payment_id index finds the row already recorded
+        Payment recorded = paymentRepo.findByPaymentId(razorpayPaymentId).orElse(null);
+        if (recorded != null) {
+            if (!borrowRecordId.equals(recorded.getBorrowRecordId())) {
+                throw new IllegalStateException("Payment " + razorpayPaymentId + " is already recorded for another payment");
+            }
+            return recorded;
+        }
+
         BorrowRecord record = borrowRepo.findById(borrowRecordId)
                 .orElseThrow(() -> new IllegalArgumentException("Borrow record not found: " + borrowRecordId));
 
@@ -367,76 +382,52 @@ public class PaymentService {
      * ✅ Combined offline payments for frontend table:
      *  - MEMBERSHIP: from payments table (type=OFFLINE & membershipRequestId != null)
      *  - BORROW/FINE: from BorrowRecord (finePaid=true) mainly for legacy / extra info
+     * Unpaged, newest first; the ledger endpoints page, filter and export the same rows.
      */
+    @Transactional(readOnly = true)
     public List<OfflinePaymentDTO> getOfflinePaymentsCombined() {
+        // the response is one list anyway: a plain query, not the export cursor
+        return ledgerRepo.findAll(ALL_OFFLINE, "createdAt", false);
+    }
 
-        // 1) Membership-related OFFLINE payments (from payments table)
-        List<Payment> offlinePayments = paymentRepo.findByType(PaymentType.OFFLINE);
-
-        List<Payment> membershipOffline = offlinePayments.stream()
-                .filter(p -> p.getMembershipRequestId() != null)     // ✅ only membership
-                .collect(Collectors.toList());
-
-        List<OfflinePaymentDTO> membershipDtos = membershipOffline.stream()
-                .map(p -> new OfflinePaymentDTO(
-                        p.getId(),                                // sourceId
-                        "MEMBERSHIP",                             // source
-                        p.getId(),                                // paymentId
-                        p.getMemberName(),
-                        p.getMemberEmail(),
-                        p.getBookTitle(),                         // usually null for membership
-                        p.getAmount(),
-                        p.getStatus() != null ? p.getStatus().name() : null,
-                        p.getType() != null ? p.getType().name() : null,
-                        p.getReceivedBy(),
-                        p.getReceivedAt(),
-                        p.getCreatedAt()
-                ))
-                .collect(Collectors.toList());
-
-        // 2) Borrow records where finePaid = true (for FINE history)
-        List<BorrowRecord> paidBorrows = borrowRepo.findByFinePaidTrue();
-
-        List<OfflinePaymentDTO> borrowDtos = paidBorrows.stream().map(br -> {
-            String memberName = br.getUser() != null ? br.getUser().getName() : null;
-            String memberEmail = br.getUser() != null ? br.getUser().getEmail() : null;
-            String bookTitle = br.getBook() != null ? br.getBook().getTitle() : null;
-            BigDecimal amount = BigDecimal.valueOf(br.getFineAmount());
-            String status = (br.getFinePaid() != null && br.getFinePaid()) ? "SUCCESS" : "INITIATED";
-            LocalDateTime createdAt = br.getReturnDate() != null ? br.getReturnDate() : br.getBorrowDate();
-            String receivedBy = br.getRecordedBy();                // ✅ use recordedBy, not paymentId
-
-            return new OfflinePaymentDTO(
-                    br.getId(),               // sourceId
-                    "BORROW",                // source
-                    null,                    // paymentId (not from payments table)
-                    memberName,
-                    memberEmail,
-                    bookTitle,
-                    amount,
-                    status,
-                    "FINE",                  // type label for UI
-                    receivedBy,
-                    null,                    // receivedAt unknown from BorrowRecord
-                    createdAt
-            );
-        }).collect(Collectors.toList());
-
-        // 3) Merge & sort by createdAt desc
-        List<OfflinePaymentDTO> combined = new ArrayList<>();
-        combined.addAll(membershipDtos);
-        combined.addAll(borrowDtos);
-
-        combined.sort((a, b) -> {
-            LocalDateTime at = a.getCreatedAt();
-            LocalDateTime bt = b.getCreatedAt();
-            if (at == null && bt == null) return 0;
-            if (at == null) return 1;
-            if (bt == null) return -1;
-            return bt.compareTo(at); // descending
-        });
-
-        return combined;
+    // =====================================================
+    // 💵 OFFLINE PAYMENT LEDGER (paged / CSV)
+    // =====================================================
+
+    private static final PaymentLedgerFilter ALL_OFFLINE = new PaymentLedgerFilter(null, null, null, null, null);
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getOfflineLedger(PaymentLedgerFilter filter, String sort, boolean ascending,
+                                                int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        int pageIndex = Math.max(page, 0);
+        List<OfflinePaymentDTO> items = ledgerRepo.findPage(filter, sort, ascending, pageIndex * pageSize, pageSize);
+        PaymentLedgerRepository.Totals totals = ledgerRepo.totals(filter);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", items);
+        result.put("page", pageIndex);
+        result.put("size", pageSize);
+        result.put("total", totals.count());
+        result.put("totalAmount", totals.amount());
+        return result;
     }
 
+    /** Writes every matching ledger row as CSV, row by row as the database returns them. */
+    public void writeOfflineLedgerCsv(PaymentLedgerFilter filter, String sort, boolean ascending, Writer out) throws IOException {
+        out.write("Source,Source ID,Payment ID,Member,Email,Book,Amount,Status,Type,Received By,Received At,Created At\n");
+        try {
+            ledgerRepo.forEach(filter, sort, ascending, p -> {
+                try {
+                    out.write(CsvRows.row(p.getSource(), p.getSourceId(), p.getPaymentId(), p.getMemberName(),
+                            p.getMemberEmail(), p.getBookTitle(), p.getAmount(), p.getStatus(), p.getType(),
+                            p.getReceivedBy(), p.getReceivedAt(), p.getCreatedAt()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
 }
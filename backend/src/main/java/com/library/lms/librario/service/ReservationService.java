@@ -7,6 +7,7 @@ import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.ReservationRepository;
 import com.library.lms.librario.repository.BookRepository;
 import com.library.lms.librario.repository.UserRepository;
+import com.library.lms.librario.service.inventory.BookInventoryService;
 import com.library.lms.librario.service.mail.MailService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,8 @@ import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static com.library.lms.librario.service.mail.template.MailTemplateEngine.params;
+
 @Service
 @RequiredArgsConstructor
 public class ReservationService {
@@ -23,6 +26,7 @@ public class ReservationService {
     private final UserRepository userRepo;
     private final BookRepository bookRepo;
     private final MailService mailService;
+    private final BookInventoryService bookInventory;
 
     @Transactional
     public Reservation reserveBook(Long userId, Long bookId) {
@@ -51,22 +55,14 @@ public class ReservationService {
                 .status(ReservationStatus.ACTIVE)
                 .build();
 
-        Reservation saved = reservationRepo.save(res);
+        // ✅ Reduce available copies temporarily (atomic, fails if the last copy is gone)
+        bookInventory.allocate(book.getId());
 
-        // ✅ Reduce available copies temporarily
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepo.save(book);
+        Reservation saved = reservationRepo.save(res);
 
         // ✅ Notify user by email
-        String subject = "Book Reservation Confirmed";
-        String body = "<div style='font-family:Arial,sans-serif;color:#333;'>" +
-                "<h2>📚 Reservation Confirmed</h2>" +
-                "<p>Hi <b>" + user.getName() + "</b>,</p>" +
-                "<p>You have successfully reserved the book <b>" + book.getTitle() + "</b>.</p>" +
-                "<p>Please collect it within 2 days.</p>" +
-                "<br><p>Regards,<br/>Library Team</p></div>";
-
-        mailService.send(user.getEmail(), subject, body);
+        mailService.sendTemplate(user.getEmail(), "Book Reservation Confirmed", "reservation-confirmed",
+                params("userName", user.getName(), "bookTitle", book.getTitle()));
 
         return saved;
     }
@@ -85,13 +81,11 @@ public class ReservationService {
 
         // ✅ Restore book copy
         Book book = res.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepo.save(book);
+        bookInventory.release(book.getId());
 
         // ✅ Notify user
-        mailService.send(res.getUser().getEmail(),
-                "Reservation Cancelled",
-                "Your reservation for book " + book.getTitle() + " has been cancelled.");
+        mailService.sendTemplate(res.getUser().getEmail(), "Reservation Cancelled", "reservation-cancelled",
+                params("bookTitle", book.getTitle()));
     }
 
     public List<Reservation> getUserReservations(Long userId) {
@@ -0,0 +1,11 @@
+package com.library.lms.librario.service.batch;
+
+/**
+ * Inclusive id range; {@code from} / {@code to} are null when the source set is empty.
+ */
+public record IdRange(Long from, Long to) {
+
+    public boolean isEmpty() {
+        return from == null || to == null || from > to;
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.lms.librario.service.batch;
+
+/**
+ * Outcome of one partition of a partitioned batch run. {@code error} is null on success;
+ * a failed partition keeps whatever its already-committed chunks did.
+ */
+public record PartitionResult(
+        int index,
+        long userFrom,
+        long userTo,
+        int chunks,
+        long rows,
+        long notified,
+        long elapsedMs,
+        String error
+) {
+    public boolean failed() {
+        return error != null;
+    }
+}
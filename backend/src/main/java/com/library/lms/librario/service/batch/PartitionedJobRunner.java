@@ -0,0 +1,150 @@
+package com.library.lms.librario.service.batch;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs a batch job split into contiguous user-id ranges on a bounded worker pool.
+ *
+ * Partitions never share users, so they touch disjoint borrow rows and can commit
+ * independently (the work function owns its transactions). A partition that throws is
+ * reported as failed; the others still run and keep their results.
+ */
+@Component
+public class PartitionedJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedJobRunner.class);
+
+    /** Per-partition counters; the work function records each committed chunk. */
+    public static final class Progress {
+        private int chunks;
+        private long rows;
+        private long notified;
+
+        public void chunkCommitted(long chunkRows, long chunkNotified) {
+            chunks++;
+            rows += chunkRows;
+            notified += chunkNotified;
+        }
+
+        public int chunks() {
+            return chunks;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public long notified() {
+            return notified;
+        }
+    }
+
+    private final boolean parallel;
+    private final int partitions;
+    private final ExecutorService pool;
+
+    public PartitionedJobRunner(@Value("${app.batch.parallel:true}") boolean parallel,
+                                @Value("${app.batch.workers:4}") int workers,
+                                @Value("${app.batch.partitions:16}") int partitions) {
+        this.parallel = parallel;
+        this.partitions = Math.max(1, partitions);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, "batch-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Splits {@code users} into equal-width ranges and runs {@code work} for each.
+     * In sequential mode (app.batch.parallel=false) the whole range is one partition
+     * on the calling thread.
+     */
+    public List<PartitionResult> run(String job, IdRange users, BiConsumer<IdRange, Progress> work) {
+        if (users.isEmpty()) return List.of();
+        List<IdRange> ranges = parallel ? split(users, partitions) : List.of(users);
+
+        List<PartitionResult> results = new ArrayList<>(ranges.size());
+        if (ranges.size() == 1) {
+            results.add(runPartition(job, 0, ranges.get(0), work));
+            return results;
+        }
+
+        List<Future<PartitionResult>> futures = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            int index = i;
+            IdRange range = ranges.get(i);
+            futures.add(pool.submit(() -> runPartition(job, index, range, work)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException(job + " interrupted", e);
+            } catch (ExecutionException e) {
+                // runPartition catches everything; only reachable on Errors
+                IdRange range = ranges.get(i);
+                results.add(new PartitionResult(i, range.from(), range.to(), 0, 0, 0, 0,
+                        String.valueOf(e.getCause())));
+            }
+        }
+        return results;
+    }
+
+    private PartitionResult runPartition(String job, int index, IdRange range, BiConsumer<IdRange, Progress> work) {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        String error = null;
+        try {
+            work.accept(range, progress);
+        } catch (RuntimeException e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error("{} partition {} users [{}..{}] failed after {} committed chunk(s)",
+                    job, index, range.from(), range.to(), progress.chunks(), e);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.debug("{} partition {} users [{}..{}]: {} rows in {} ms",
+                job, index, range.from(), range.to(), progress.rows(), elapsed);
+        return new PartitionResult(index, range.from(), range.to(), progress.chunks(), progress.rows(),
+                progress.notified(), elapsed, error);
+    }
+
+    static List<IdRange> split(IdRange range, int parts) {
+        long from = range.from();
+        long to = range.to();
+        long span = to - from + 1;
+        int n = (int) Math.max(1, Math.min(parts, span));
+        long width = span / n;
+        long remainder = span % n;
+
+        List<IdRange> ranges = new ArrayList<>(n);
+        long lo = from;
+        for (int i = 0; i < n; i++) {
+            long hi = lo + width - 1 + (i < remainder ? 1 : 0);
+            ranges.add(new IdRange(lo, hi));
+            lo = hi + 1;
+        }
+        return ranges;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,147 @@
+package com.library.lms.librario.service.fine;
+
+import com.library.lms.librario.entity.MembershipPlan;
+import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.repository.MembershipPlanRepository;
+import com.library.lms.librario.service.ConfigService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fine-per-day lookup without per-record DB round-trips.
+ *
+ * Plan rates (a handful of rows) are loaded together and kept until a plan changes.
+ * The user -> plan mapping is cached per user, filled in bulk by {@link #preload} and
+ * dropped when the member row is written; a TTL bounds staleness for writes that bypass
+ * JPA. The global default comes from ConfigService, which caches it as well.
+ */
+@Service
+public class FineRateResolver {
+
+    private static final int PRELOAD_CHUNK = 1000;
+
+    private record PlanRef(Long planId, long loadedAt) {}
+
+    private final MemberRepository memberRepository;
+    private final MembershipPlanRepository planRepository;
+    private final ConfigService configService;
+    private final long memberTtlNanos;
+
+    private final ConcurrentHashMap<Long, PlanRef> userPlans = new ConcurrentHashMap<>();
+    private volatile Map<Long, BigDecimal> planRates; // null = reload on next use
+
+    public FineRateResolver(MemberRepository memberRepository,
+                            MembershipPlanRepository planRepository,
+                            ConfigService configService,
+                            @Value("${app.fines.member-cache-ttl:PT10M}") Duration memberTtl) {
+        this.memberRepository = memberRepository;
+        this.planRepository = planRepository;
+        this.configService = configService;
+        this.memberTtlNanos = memberTtl.toNanos();
+    }
+
+    /** Fine per day for this user: plan rate if set, otherwise the library default. */
+    public BigDecimal finePerDay(Long userId) {
+        if (userId != null) {
+            Long planId = planIdFor(userId);
+            if (planId != null) {
+                BigDecimal rate = planRates().get(planId);
+                if (rate != null) return rate;
+            }
+        }
+        return configService.getFinePerDay();
+    }
+
+    /** Fine for a loan as of {@code today}: counted up to the return date if returned. */
+    public BigDecimal calculate(LocalDateTime dueDate, LocalDateTime returnDate, Long userId, LocalDate today) {
+        long days = daysLate(dueDate, returnDate, today);
+        return days <= 0 ? BigDecimal.ZERO : finePerDay(userId).multiply(BigDecimal.valueOf(days));
+    }
+
+    public static long daysLate(LocalDateTime dueDate, LocalDateTime returnDate, LocalDate today) {
+        if (dueDate == null) return 0;
+        LocalDate until = returnDate != null ? returnDate.toLocalDate() : today;
+        return ChronoUnit.DAYS.between(dueDate.toLocalDate(), until);
+    }
+
+    /** Loads the plan of every not-yet-cached user in a few IN queries. */
+    public void preload(Collection<Long> userIds) {
+        long now = System.nanoTime();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new HashSet<>(userIds)) {
+            if (id != null && !isFresh(userPlans.get(id), now)) missing.add(id);
+        }
+        for (int i = 0; i < missing.size(); i += PRELOAD_CHUNK) {
+            List<Long> chunk = missing.subList(i, Math.min(i + PRELOAD_CHUNK, missing.size()));
+            Set<Long> unseen = new HashSet<>(chunk);
+            for (MemberPlanRef ref : memberRepository.findPlanRefsByUserIds(chunk)) {
+                userPlans.put(ref.userId(), new PlanRef(ref.planId(), now));
+                unseen.remove(ref.userId());
+            }
+            unseen.forEach(id -> userPlans.put(id, new PlanRef(null, now))); // not a member
+        }
+    }
+
+    private Long planIdFor(Long userId) {
+        long now = System.nanoTime();
+        PlanRef ref = userPlans.get(userId);
+        if (!isFresh(ref, now)) {
+            Long planId = memberRepository.findPlanRefsByUserIds(List.of(userId)).stream()
+                    .findFirst().map(MemberPlanRef::planId).orElse(null);
+            ref = new PlanRef(planId, now);
+            userPlans.put(userId, ref);
+        }
+        return ref.planId();
+    }
+
+    private boolean isFresh(PlanRef ref, long now) {
+        return ref != null && now - ref.loadedAt() < memberTtlNanos;
+    }
+
+    private Map<Long, BigDecimal> planRates() {
+        Map<Long, BigDecimal> rates = planRates;
+        if (rates == null) {
+            Map<Long, BigDecimal> loaded = new HashMap<>();
+            for (MembershipPlan plan : planRepository.findAll()) {
+                if (plan.getFinePerDay() != null) loaded.put(plan.getId(), plan.getFinePerDay());
+            }
+            planRates = rates = Map.copyOf(loaded);
+        }
+        return rates;
+    }
+
+    // ----------------------------
+    // Invalidation
+    // ----------------------------
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFineRatesChanged(FineRatesChangedEvent event) {
+        planRates = null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberPlanChanged(MemberPlanChangedEvent event) {
+        userPlans.remove(event.userId());
+    }
+
+    public void invalidateAll() {
+        planRates = null;
+        userPlans.clear();
+    }
+}
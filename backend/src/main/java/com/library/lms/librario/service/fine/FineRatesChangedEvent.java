@@ -0,0 +1,7 @@
+package com.library.lms.librario.service.fine;
+
+/**
+ * A membership plan was created, updated or deleted: cached per-plan fine rates are stale.
+ */
+public record FineRatesChangedEvent(Long planId) {
+}
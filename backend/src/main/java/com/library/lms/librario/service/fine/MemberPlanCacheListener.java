@@ -0,0 +1,32 @@
+package com.library.lms.librario.service.fine;
+
+import com.library.lms.librario.entity.Member;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link Member}: any write publishes a {@link MemberPlanChangedEvent}, which
+ * {@link FineRateResolver} applies after commit. Only the event publisher is injected, so the
+ * listener does not pull repositories into EntityManagerFactory startup.
+ */
+@Component
+public class MemberPlanCacheListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MemberPlanCacheListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void memberChanged(Member member) {
+        if (member.getUser() != null) {
+            eventPublisher.publishEvent(new MemberPlanChangedEvent(member.getUser().getId()));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.lms.librario.service.fine;
+
+/**
+ * A member row was written: the cached user -> plan mapping for this user is stale.
+ */
+public record MemberPlanChangedEvent(Long userId) {
+}
@@ -0,0 +1,7 @@
+package com.library.lms.librario.service.fine;
+
+/**
+ * user id -> membership plan id (planId null when the member has no plan).
+ */
+public record MemberPlanRef(Long userId, Long planId) {
+}
@@ -4,6 +4,8 @@ import com.library.lms.librario.entity.MembershipPlan;
 import com.library.lms.librario.model.User;
 import com.library.lms.librario.repository.MembershipPlanRepository;
 import com.library.lms.librario.service.MembershipPlanService;
+import com.library.lms.librario.service.fine.FineRatesChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -13,14 +15,19 @@ import java.util.List;
 public class MembershipPlanServiceImpl implements MembershipPlanService {
 
     private final MembershipPlanRepository membershipPlanRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MembershipPlanServiceImpl(MembershipPlanRepository membershipPlanRepository) {
+    public MembershipPlanServiceImpl(MembershipPlanRepository membershipPlanRepository,
+                                     ApplicationEventPublisher eventPublisher) {
         this.membershipPlanRepository = membershipPlanRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public MembershipPlan createPlan(MembershipPlan plan) {
-        return membershipPlanRepository.save(plan);
+        MembershipPlan saved = membershipPlanRepository.save(plan);
+        eventPublisher.publishEvent(new FineRatesChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -37,7 +44,10 @@ public class MembershipPlanServiceImpl implements MembershipPlanService {
                     existing.setRenewalDays(plan.getRenewalDays());
                     existing.setFinePerDay(plan.getFinePerDay());
 
-                    return membershipPlanRepository.save(existing);
+                    MembershipPlan saved = membershipPlanRepository.save(existing);
+                    // 🔹 cached fine rates are dropped once this commits
+                    eventPublisher.publishEvent(new FineRatesChangedEvent(id));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Plan not found with id " + id));
     }
@@ -45,6 +55,7 @@ public class MembershipPlanServiceImpl implements MembershipPlanService {
     @Override
     public void deletePlan(Long id) {
         membershipPlanRepository.deleteById(id);
+        eventPublisher.publishEvent(new FineRatesChangedEvent(id));
     }
 
     @Override
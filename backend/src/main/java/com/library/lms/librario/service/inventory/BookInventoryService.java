@@ -0,0 +1,123 @@
+package com.library.lms.librario.service.inventory;
+
+import com.library.lms.librario.dto.InventoryChangeEvent;
+import com.library.lms.librario.exception.BookUnavailableException;
+import com.library.lms.librario.exception.ResourceNotFoundException;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Book copy allocation without read-modify-write.
+ *
+ * Copies are taken and given back with a single conditional UPDATE, so concurrent
+ * approvals of the same title serialize on the row lock in the database instead of
+ * racing on the @Version check. The managed Book is refreshed afterwards so the caller
+ * sees the new count and version and never flushes a stale copy of it.
+ */
+@Service
+public class BookInventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookInventoryService.class);
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.inventory.retry.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${app.inventory.retry.backoff-ms:20}")
+    private long backoffMs = 20;
+
+    public BookInventoryService(BookRepository bookRepository,
+                                EntityManager entityManager,
+                                ApplicationEventPublisher eventPublisher) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Takes one copy of the book, or throws {@link BookUnavailableException} if none is left. */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = BookUnavailableException.class)
+    public Book allocate(Long bookId) {
+        int updated = bookRepository.allocateCopy(bookId);
+        Book book = reload(bookId);
+        if (updated == 0) {
+            throw new BookUnavailableException("No copies of '" + book.getTitle() + "' are available");
+        }
+        eventPublisher.publishEvent(InventoryChangeEvent.of(book));
+        return book;
+    }
+
+    /** Gives one copy back. Returns false (and changes nothing) if all copies are already on the shelf. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean release(Long bookId) {
+        int updated = bookRepository.releaseCopy(bookId);
+        Book book = reload(bookId);
+        if (updated == 0) {
+            log.warn("Release of book {} ignored: available copies already at total ({})",
+                    bookId, book.getTotalCopies());
+            return false;
+        }
+        eventPublisher.publishEvent(InventoryChangeEvent.of(book));
+        return true;
+    }
+
+    /**
+     * Runs a transactional operation, retrying it on lock conflicts (deadlock, lock timeout,
+     * optimistic version clash) with jittered exponential backoff. Each attempt must start
+     * its own transaction, so inside an existing transaction the action runs once.
+     */
+    public <T> T withRetry(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) throw e;
+                long delay = backoffMs << (attempt - 1);
+                log.debug("Inventory update conflict (attempt {}/{}), retrying in ~{}ms: {}",
+                        attempt, maxAttempts, delay, e.getMessage());
+                sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+            }
+        }
+    }
+
+    public void withRetry(Runnable action) {
+        withRetry(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private Book reload(Long bookId) {
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found: " + bookId));
+        entityManager.refresh(book);
+        return book;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying inventory update", e);
+        }
+    }
+}
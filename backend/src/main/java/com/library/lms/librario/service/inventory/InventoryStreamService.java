@@ -0,0 +1,56 @@
+package com.library.lms.librario.service.inventory;
+
+import com.library.lms.librario.dto.InventoryChangeEvent;
+import com.library.lms.librario.service.sse.SseHub;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes {@link InventoryChangeEvent}s to every open /api/inventory/stream connection.
+ * Events are only forwarded once the transaction that changed the book has committed.
+ */
+@Service
+public class InventoryStreamService {
+
+    private static final String TOPIC = "inventory";
+
+    private final SseHub hub;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public InventoryStreamService(@Value("${app.sse.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                  @Value("${app.sse.sender-threads:4}") int senderThreads,
+                                  @Value("${app.sse.max-queued-events:256}") int maxQueued,
+                                  @Value("${app.sse.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.hub = new SseHub("inventory", emitterTimeoutMs, senderThreads, maxQueued, sendTimeoutMs);
+    }
+
+    public SseEmitter subscribe() {
+        return hub.subscribe(TOPIC);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChange(InventoryChangeEvent event) {
+        hub.publish(TOPIC, "inventory", String.valueOf(sequence.incrementAndGet()), event);
+    }
+
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    public int subscriberCount() {
+        return hub.subscriberCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+}
@@ -0,0 +1,224 @@
+package com.library.lms.librario.service.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, multi-worker mail delivery.
+ *
+ * Producers {@link #offer} jobs into a fixed-size queue (full queue = backpressure, the
+ * caller keeps the job and tries later). Each worker drains up to batchSize jobs and hands
+ * them to {@code JavaMailSender.send(MimeMessage...)}, which opens one SMTP connection for
+ * the whole batch instead of one per message. Per-message outcomes come back through the
+ * job's {@link Callback}.
+ *
+ * Sending is throttled by a shared {@link TokenBucket} (app.mail.rate.per-second / burst) so
+ * bursts such as the overdue run stay under the provider's limits; while workers wait the queue
+ * fills and the outbox dispatcher stops claiming, so the backlog waits in the database.
+ *
+ * Metrics: mail.pipeline.queue.depth, mail.pipeline.send.latency (per batch),
+ * mail.pipeline.batch.size, mail.pipeline.messages{result=sent|failed}, mail.pipeline.rejected,
+ * mail.pipeline.throttle.wait.
+ */
+@Component
+public class MailPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(MailPipeline.class);
+
+    /** One message to deliver; {@code id} is the caller's key (outbox id). */
+    public record MailJob(Long id, String to, String subject, String body) {}
+
+    /** Delivery outcome, called on a worker thread. */
+    public interface Callback {
+        void sent(List<Long> ids);
+
+        void failed(Long id, Exception error);
+    }
+
+    private record Queued(MailJob job, Callback callback) {}
+
+    private final JavaMailSender mailSender;
+    private final MailService mailService;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<Queued> queue;
+    private final int workers;
+    private final int batchSize;
+    private final TokenBucket rateLimit;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private Timer sendLatency;
+    private DistributionSummary batchSizes;
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter rejectedCounter;
+    private Timer throttleWait;
+
+    public MailPipeline(JavaMailSender mailSender,
+                        MailService mailService,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.mail.pipeline.queue-capacity:500}") int queueCapacity,
+                        @Value("${app.mail.pipeline.workers:2}") int workers,
+                        @Value("${app.mail.pipeline.batch-size:50}") int batchSize,
+                        @Value("${app.mail.rate.per-second:0}") double ratePerSecond,
+                        @Value("${app.mail.rate.burst:20}") int burst) {
+        this.mailSender = mailSender;
+        this.mailService = mailService;
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.rateLimit = new TokenBucket(ratePerSecond, burst);
+    }
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("mail.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Mail jobs waiting for a worker")
+                .register(meterRegistry);
+        sendLatency = Timer.builder("mail.pipeline.send.latency")
+                .description("Time to deliver one batch over a single SMTP connection")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("mail.pipeline.batch.size").register(meterRegistry);
+        sentCounter = Counter.builder("mail.pipeline.messages").tag("result", "sent").register(meterRegistry);
+        failedCounter = Counter.builder("mail.pipeline.messages").tag("result", "failed").register(meterRegistry);
+        rejectedCounter = Counter.builder("mail.pipeline.rejected").register(meterRegistry);
+        throttleWait = Timer.builder("mail.pipeline.throttle.wait")
+                .description("Time workers waited for the send-rate limiter")
+                .register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::workLoop, "mail-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    /** Enqueues a job without blocking. Returns false if the queue is full. */
+    public boolean offer(MailJob job, Callback callback) {
+        boolean accepted = running && queue.offer(new Queued(job, callback));
+        if (!accepted) rejectedCounter.increment();
+        return accepted;
+    }
+
+    /** Free slots; producers use it to avoid taking on more work than the pipeline can hold. */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void workLoop() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Queued first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                long waited = rateLimit.acquire(batch.size());
+                if (waited > 0) throttleWait.record(waited, TimeUnit.NANOSECONDS);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Mail worker error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<Queued> batch) {
+        Map<MimeMessage, Queued> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (Queued q : batch) {
+            try {
+                MimeMessage message = mailService.compose(q.job().to(), q.job().subject(), q.job().body());
+                byMessage.put(message, q);
+                messages.add(message);
+            } catch (RuntimeException e) {
+                fail(q, e);
+            }
+        }
+        if (messages.isEmpty()) return;
+
+        batchSizes.record(messages.size());
+        Map<Object, Exception> failed = Map.of();
+        long start = System.nanoTime();
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0])); // one connection for the batch
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+        } catch (MailException e) {
+            // connect / auth failure: nothing in the batch went out
+            failed = new IdentityHashMap<>();
+            for (MimeMessage m : messages) failed.put(m, e);
+        } finally {
+            sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        Map<Callback, List<Long>> sent = new IdentityHashMap<>();
+        for (MimeMessage m : messages) {
+            Queued q = byMessage.get(m);
+            Exception error = failed.get(m);
+            if (error != null) {
+                fail(q, error);
+            } else {
+                sentCounter.increment();
+                sent.computeIfAbsent(q.callback(), k -> new ArrayList<>()).add(q.job().id());
+            }
+        }
+        sent.forEach((callback, ids) -> {
+            try {
+                callback.sent(ids);
+            } catch (RuntimeException e) {
+                log.error("Mail sent callback failed for {}", ids, e);
+            }
+        });
+    }
+
+    private void fail(Queued q, Exception error) {
+        failedCounter.increment();
+        try {
+            q.callback().failed(q.job().id(), error);
+        } catch (RuntimeException e) {
+            log.error("Mail failure callback failed for {}", q.job().id(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        // whatever is still queued stays leased in the outbox and is retried after the lease expires
+        queue.clear();
+    }
+}
@@ -5,29 +5,58 @@ import jakarta.mail.internet.MimeMessage;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import com.library.lms.librario.exception.MailSendException;
+import com.library.lms.librario.service.mail.template.MailTemplateEngine;
+import com.library.lms.librario.service.outbox.OutboxService;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
+import java.util.Map;
 
 @Service
 public class MailService {
 
     private final JavaMailSender mailSender;
+    private final OutboxService outboxService;
+    private final MailTemplateEngine templates;
     private static final String FROM_EMAIL = "noreply@librario.com";   // ✅ your sender email
     private static final String FROM_NAME = "Librario Team";          // ✅ branding
 
-    public MailService(JavaMailSender mailSender) {
+    public MailService(JavaMailSender mailSender, OutboxService outboxService, MailTemplateEngine templates) {
         this.mailSender = mailSender;
+        this.outboxService = outboxService;
+        this.templates = templates;
     }
 
     /**
-     * Sends a styled HTML email
+     * Queues a styled HTML email in the outbox (same transaction as the caller).
+     * Delivered by OutboxDispatcher after commit, so SMTP never runs inside a DB transaction.
      */
-    @Async   // ✅ optional async (enable with @EnableAsync in a config class)
     public void send(String to, String subject, String bodyContent) {
+        outboxService.enqueueEmail(to, subject, bodyContent);
+    }
+
+    /**
+     * Queues an email whose body is the named template (resources/mail-templates) rendered with
+     * {@code params}; parameter values are HTML-escaped by the template.
+     */
+    public void sendTemplate(String to, String subject, String template, Map<String, ?> params) {
+        send(to, subject, templates.render(template, params));
+    }
+
+    /**
+     * Sends a styled HTML email right away (one SMTP session per call).
+     * Bulk delivery goes through {@link MailPipeline}, which reuses the connection.
+     */
+    public void deliver(String to, String subject, String bodyContent) {
+        mailSender.send(compose(to, subject, bodyContent));
+    }
+
+    /**
+     * Builds the styled HTML message without sending it.
+     */
+    public MimeMessage compose(String to, String subject, String bodyContent) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -38,48 +67,13 @@ public class MailService {
             helper.setTo(to);
             helper.setSubject(subject);
 
-            // ✅ HTML template wrapper
-            String htmlTemplate =
-                    "<!DOCTYPE html>" +
-                            "<html>" +
-                            "<head>" +
-                            "  <meta charset='UTF-8'>" +
-                            "  <style>" +
-                            "    body { font-family: Arial, sans-serif; background:#f9f9f9; color:#333; }" +
-                            "    .container { max-width:600px; margin:20px auto; background:#fff; padding:20px;" +
-                            "                 border-radius:10px; box-shadow:0 2px 5px rgba(0,0,0,0.1); }" +
-                            "    .header { text-align:center; padding-bottom:15px; border-bottom:2px solid #eee; }" +
-                            "    .footer { margin-top:20px; font-size:12px; text-align:center; color:#888;" +
-                            "               border-top:1px solid #eee; padding-top:10px; }" +
-                            "    .btn { display:inline-block; margin-top:10px; padding:10px 15px;" +
-                            "            background:#2E86C1; color:#fff; text-decoration:none;" +
-                            "            border-radius:5px; font-weight:bold; }" +
-                            "    .btn:hover { background:#1B4F72; }" +
-                            "  </style>" +
-                            "</head>" +
-                            "<body>" +
-                            "  <div class='container'>" +
-                            "    <div class='header'>" +
-                            "      <img src='https://img.icons8.com/fluency/96/books.png' alt='Library Logo'/>" +
-                            "      <h2 style='color:#2E86C1;'>📚 Librario</h2>" +
-                            "    </div>" +
-                            "    <div class='content'>" +
-                            bodyContent +  // user-provided content (already HTML)
-                            "    </div>" +
-                            "    <div class='footer'>" +
-                            "      <p>&copy; 2025 Librario. All rights reserved.</p>" +
-                            "      <p><a href='http://your-frontend-url' style='color:#2E86C1;'>Visit Librario</a></p>" +
-                            "    </div>" +
-                            "  </div>" +
-                            "</body>" +
-                            "</html>";
-
-            helper.setText(htmlTemplate, true); // ✅ true = enable HTML
+            // ✅ layout template wrapper (user-provided content is already HTML)
+            helper.setText(templates.wrap(bodyContent), true); // ✅ true = enable HTML
 
-            mailSender.send(message);
+            return message;
 
         } catch (MessagingException | UnsupportedEncodingException e) {
-            throw new MailSendException("❌ Failed to send email to " + to, e);
+            throw new MailSendException("❌ Failed to build email to " + to, e);
         }
     }
 
@@ -0,0 +1,58 @@
+package com.library.lms.librario.service.mail;
+
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for an SMTP server (app.mail.type=sink): accepts every message, simulates
+ * connection setup and per-message latency, and counts what it saw. Used for load and
+ * throughput testing of the mail pipeline without sending real e-mail.
+ */
+public class SinkMailSender extends JavaMailSenderImpl {
+
+    private static final Logger log = LoggerFactory.getLogger(SinkMailSender.class);
+
+    private final long connectMicros;
+    private final long perMessageMicros;
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+
+    public SinkMailSender(long connectMicros, long perMessageMicros) {
+        this.connectMicros = connectMicros;
+        this.perMessageMicros = perMessageMicros;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        connections.incrementAndGet();
+        pause(connectMicros);
+        for (MimeMessage ignored : mimeMessages) {
+            pause(perMessageMicros);
+            messages.incrementAndGet();
+        }
+        log.debug("Mail sink accepted {} message(s) on one connection", mimeMessages.length);
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    public long getMessages() {
+        return messages.get();
+    }
+
+    private static void pause(long micros) {
+        if (micros <= 0) return;
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
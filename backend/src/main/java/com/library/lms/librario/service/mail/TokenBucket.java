@@ -0,0 +1,50 @@
+package com.library.lms.librario.service.mail;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter shared by the mail workers.
+ *
+ * Holds up to {@code burst} tokens and refills at {@code ratePerSecond}. A caller that takes more
+ * tokens than are available goes into debt and sleeps until the debt is paid off, so large batches
+ * are allowed but the long-run rate never exceeds the configured one. A rate of 0 means unlimited.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public static TokenBucket unlimited() {
+        return new TokenBucket(0, 1);
+    }
+
+    public boolean isUnlimited() {
+        return tokensPerNano <= 0;
+    }
+
+    /** Takes {@code permits} tokens, sleeping as long as needed. Returns the nanoseconds slept. */
+    public long acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+        return waitNanos;
+    }
+
+    // takes the tokens now (possibly going negative) and says how long until the balance is back to zero
+    synchronized long reserve(int permits) {
+        if (isUnlimited()) return 0;
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.lms.librario.service.mail.template;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A parsed e-mail template: literal chunks with parameter slots between them.
+ *
+ * Syntax: {@code {{name}}} inserts a parameter HTML-escaped, {@code {{{name}}}} inserts it as is
+ * (for fragments that are already HTML, such as the layout's content). Parsing happens once;
+ * rendering only appends to the caller's buffer.
+ */
+public final class MailTemplate {
+
+    private final String name;
+    private final String[] literals; // one more than slots: literal, slot, literal, ..., literal
+    private final String[] slots;
+    private final boolean[] raw;
+
+    private MailTemplate(String name, List<String> literals, List<String> slots, List<Boolean> raw) {
+        this.name = name;
+        this.literals = literals.toArray(String[]::new);
+        this.slots = slots.toArray(String[]::new);
+        this.raw = new boolean[slots.size()];
+        for (int i = 0; i < this.raw.length; i++) this.raw[i] = raw.get(i);
+    }
+
+    public static MailTemplate parse(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) break;
+            boolean isRaw = source.startsWith("{{{", open);
+            String closeToken = isRaw ? "}}}" : "}}";
+            int start = open + (isRaw ? 3 : 2);
+            int close = source.indexOf(closeToken, start);
+            if (close < 0) {
+                throw new IllegalStateException("Mail template '" + name + "': unclosed parameter at offset " + open);
+            }
+            String slot = source.substring(start, close).trim();
+            if (!slot.matches("[A-Za-z][A-Za-z0-9_]*")) {
+                throw new IllegalStateException("Mail template '" + name + "': bad parameter name '" + slot + "'");
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(slot);
+            raw.add(isRaw);
+            pos = close + closeToken.length();
+        }
+        literals.add(source.substring(pos));
+        return new MailTemplate(name, literals, slots, raw);
+    }
+
+    /**
+     * Appends the rendered template to {@code out}. Null values render as empty.
+     *
+     * @throws IllegalArgumentException if a parameter the template uses is missing from {@code params}
+     */
+    public void render(Map<String, ?> params, StringBuilder out) {
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            if (!params.containsKey(slots[i])) {
+                throw new IllegalArgumentException("Mail template '" + name + "' needs parameter '" + slots[i] + "'");
+            }
+            Object value = params.get(slots[i]);
+            if (value != null) {
+                CharSequence text = value instanceof CharSequence cs ? cs : value.toString();
+                if (raw[i]) out.append(text);
+                else escapeHtml(text, out);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Set<String> parameters() {
+        return new LinkedHashSet<>(List.of(slots));
+    }
+
+    static void escapeHtml(CharSequence text, StringBuilder out) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
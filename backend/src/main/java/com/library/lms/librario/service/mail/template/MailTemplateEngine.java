@@ -0,0 +1,110 @@
+package com.library.lms.librario.service.mail.template;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Named e-mail templates (resources/mail-templates/NAME.html), parsed once at startup.
+ *
+ * Rendering writes into a per-thread StringBuilder that is reused across e-mails, so a render
+ * costs the final String and nothing else. Output is plain text, testable without SMTP.
+ */
+@Component
+public class MailTemplateEngine {
+
+    /** Wraps every e-mail body; its {@code {{{content}}}} slot takes the rendered body. */
+    public static final String LAYOUT = "layout";
+
+    public static final String DEFAULT_LOCATION = "classpath*:mail-templates/*.html";
+
+    private static final int INITIAL_BUFFER = 8 * 1024;
+    private static final int MAX_POOLED_BUFFER = 64 * 1024; // bigger ones are dropped after use
+
+    // null while the thread's buffer is in use (nested render gets its own)
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<>();
+
+    private final Map<String, MailTemplate> templates;
+
+    public MailTemplateEngine(@Value("${app.mail.templates:" + DEFAULT_LOCATION + "}") String location) {
+        this.templates = load(location);
+        if (!templates.containsKey(LAYOUT)) {
+            throw new IllegalStateException("No '" + LAYOUT + "' mail template found at " + location);
+        }
+    }
+
+    private static Map<String, MailTemplate> load(String location) {
+        Map<String, MailTemplate> loaded = new TreeMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                String file = resource.getFilename();
+                if (file == null) continue;
+                String name = file.endsWith(".html") ? file.substring(0, file.length() - 5) : file;
+                String source = resource.getContentAsString(StandardCharsets.UTF_8).stripTrailing();
+                loaded.put(name, MailTemplate.parse(name, source));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load mail templates from " + location, e);
+        }
+        return Map.copyOf(loaded);
+    }
+
+    public MailTemplate get(String name) {
+        MailTemplate template = templates.get(name);
+        if (template == null) throw new IllegalArgumentException("Unknown mail template: " + name);
+        return template;
+    }
+
+    public Set<String> names() {
+        return templates.keySet();
+    }
+
+    /** Renders a body template (without the layout). */
+    public String render(String name, Map<String, ?> params) {
+        MailTemplate template = get(name);
+        StringBuilder buffer = acquire();
+        try {
+            template.render(params, buffer);
+            return buffer.toString();
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /** Puts an already-rendered body into the layout. */
+    public String wrap(String bodyHtml) {
+        return render(LAYOUT, Map.of("content", bodyHtml));
+    }
+
+    /** Parameter map from alternating names and values; unlike Map.of, values may be null. */
+    public static Map<String, Object> params(Object... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) throw new IllegalArgumentException("Names and values must pair up");
+        Map<String, Object> params = new HashMap<>(namesAndValues.length);
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            params.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    private static StringBuilder acquire() {
+        StringBuilder buffer = BUFFER.get();
+        if (buffer == null) return new StringBuilder(INITIAL_BUFFER);
+        BUFFER.remove();
+        return buffer;
+    }
+
+    private static void release(StringBuilder buffer) {
+        if (buffer.capacity() > MAX_POOLED_BUFFER) return;
+        buffer.setLength(0);
+        BUFFER.set(buffer);
+    }
+}
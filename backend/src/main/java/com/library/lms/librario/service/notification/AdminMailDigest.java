@@ -0,0 +1,144 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.service.mail.MailService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Digest mode for staff e-mail: ADMIN and LIBRARIAN notifications are collected here instead of
+ * being mailed one by one, and each recipient gets one summary e-mail per interval.
+ *
+ * The in-app notifications are still written immediately; only the e-mail is deferred. Pending
+ * items live in memory (flushed on shutdown), so a crash loses at most one interval of staff
+ * e-mail, never the notifications themselves.
+ */
+@Component
+public class AdminMailDigest {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminMailDigest.class);
+    private static final Set<String> STAFF_ROLES = Set.of("ADMIN", "LIBRARIAN");
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("dd MMM HH:mm");
+
+    private record Item(LocalDateTime at, String subject, String messageHtml) {}
+
+    private static final class Batch {
+        final LocalDateTime since = LocalDateTime.now();
+        final List<Item> items = new ArrayList<>();
+        final Map<String, Integer> countBySubject = new LinkedHashMap<>();
+        int total;
+    }
+
+    private final MailService mailService;
+    private final boolean enabled;
+    private final int maxItems;
+    private final ConcurrentHashMap<String, Batch> pending = new ConcurrentHashMap<>();
+
+    public AdminMailDigest(MailService mailService,
+                           @Value("${app.notifications.admin-digest.enabled:true}") boolean enabled,
+                           @Value("${app.notifications.admin-digest.max-items:200}") int maxItems) {
+        this.mailService = mailService;
+        this.enabled = enabled;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Takes a staff e-mail into the next digest (after the current transaction commits).
+     *
+     * @return false if digest mode is off or the role is not a staff role; the caller mails it directly
+     */
+    public boolean add(String role, String to, String subject, String messageHtml) {
+        if (!enabled || to == null || role == null || !STAFF_ROLES.contains(role)) return false;
+
+        Item item = new Item(LocalDateTime.now(), subject, messageHtml);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(to, item);
+                }
+            });
+        } else {
+            append(to, item);
+        }
+        return true;
+    }
+
+    private void append(String to, Item item) {
+        pending.compute(to, (k, batch) -> {
+            if (batch == null) batch = new Batch();
+            batch.total++;
+            batch.countBySubject.merge(item.subject(), 1, Integer::sum);
+            if (batch.items.size() < maxItems) batch.items.add(item); // the rest only show up in the counts
+            return batch;
+        });
+    }
+
+    // ----------------------------
+    // Flush: one summary mail per recipient
+    // ----------------------------
+    @Scheduled(fixedDelayString = "${app.notifications.admin-digest.interval-ms:900000}",
+            initialDelayString = "${app.notifications.admin-digest.interval-ms:900000}")
+    public int flush() {
+        int sent = 0;
+        for (String to : pending.keySet()) {
+            Batch batch = pending.remove(to);
+            if (batch == null) continue;
+            try {
+                mailService.send(to, subject(batch), body(batch));
+                sent++;
+            } catch (RuntimeException e) {
+                log.error("Admin digest for {} ({} notifications) could not be queued", to, batch.total, e);
+            }
+        }
+        return sent;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    public int pendingCount() {
+        return pending.values().stream().mapToInt(b -> b.total).sum();
+    }
+
+    private static String subject(Batch batch) {
+        return "Librario digest: " + batch.total + (batch.total == 1 ? " notification" : " notifications");
+    }
+
+    private static String body(Batch batch) {
+        StringBuilder html = new StringBuilder();
+        html.append("<p><b>").append(batch.total).append("</b> notification(s) since ")
+                .append(batch.since.format(TIME)).append(".</p><ul>");
+        batch.countBySubject.forEach((subject, count) ->
+                html.append("<li>").append(subject).append(": <b>").append(count).append("</b></li>"));
+        html.append("</ul><hr/>");
+
+        for (Item item : batch.items) {
+            html.append("<div style='margin-bottom:10px;'><small style='color:#888;'>")
+                    .append(item.at().format(TIME)).append(" &middot; ").append(item.subject())
+                    .append("</small>").append(item.messageHtml().startsWith("<") ? "" : "<br/>")
+                    .append(item.messageHtml()).append("</div>");
+        }
+        int omitted = batch.total - batch.items.size();
+        if (omitted > 0) {
+            html.append("<p>…and ").append(omitted).append(" more. See the admin inbox for the full list.</p>");
+        }
+        return html.toString();
+    }
+}
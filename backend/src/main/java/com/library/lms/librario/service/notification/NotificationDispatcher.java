@@ -0,0 +1,266 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.entity.PendingNotification;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.repository.PendingNotificationRepository;
+import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.mail.MailService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the notifications one domain event produces (e.g. a book return) into a single
+ * in-app notification and a single e-mail per recipient.
+ *
+ * Callers tag each notification with a correlation key ("return:42"). Notifications with the same
+ * key and recipient (user id, or role for role-wide ones) that arrive within the coalescing window
+ * are merged: identical messages are dropped, the rest are joined into one body.
+ *
+ * The buffer is the pending_notifications table: a notification is written in the caller's
+ * transaction (so rolled-back work sends nothing) and deleted in the same transaction that creates
+ * the merged notification and queues its mail. A failed send leaves the group buffered for the
+ * next flush, and a restart picks up where the last run stopped.
+ *
+ * A flush sends its batch of groups in one transaction; if that fails, the groups are retried one
+ * per transaction so a single bad group cannot hold back the rest. Each failure counts against the
+ * group, and after {@code coalesce-max-attempts} it is parked: left in the table, logged, and no
+ * longer picked up. The in-app copy of a merged body is capped at the notifications column length;
+ * the e-mail carries it in full.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final class Group {
+        final Long userId;
+        final String targetRole;
+        final NotificationType type;
+        final Set<String> messages = new LinkedHashSet<>();
+        String email;
+        String mailSubject;
+
+        Group(PendingNotification first) {
+            this.userId = first.getUserId();
+            this.targetRole = first.getTargetRole();
+            this.type = first.getType();
+        }
+    }
+
+    private final NotificationService notificationService;
+    private final MailService mailService;
+    private final AdminMailDigest adminDigest;
+    private final PendingNotificationRepository pendingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration window;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+
+    @Value("${library.admin.email:admin@library.com}")
+    private String adminEmail;
+
+    public NotificationDispatcher(NotificationService notificationService,
+                                  MailService mailService,
+                                  AdminMailDigest adminDigest,
+                                  PendingNotificationRepository pendingRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.notifications.coalesce-window:PT2S}") Duration window,
+                                  @Value("${app.notifications.coalesce-batch:500}") int batchSize,
+                                  @Value("${app.notifications.coalesce-max-attempts:5}") int maxAttempts) {
+        this.notificationService = notificationService;
+        this.mailService = mailService;
+        this.adminDigest = adminDigest;
+        this.pendingRepository = pendingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    // ----------------------------
+    // Producers
+    // ----------------------------
+    public void toMember(String correlationKey, Long userId, String email,
+                         String message, NotificationType type, String mailSubject) {
+        dispatch(correlationKey, NotificationDraft.forMember(userId, email, message, type), mailSubject);
+    }
+
+    public void toAdmin(String correlationKey, String message, NotificationType type) {
+        dispatch(correlationKey, new NotificationDraft(null, "ADMIN", adminEmail, type, message), null);
+    }
+
+    /**
+     * Buffers {@code draft} under {@code correlationKey}, in the current transaction if there is one.
+     * A draft with an e-mail also mails its recipient, with {@code mailSubject} or the type's
+     * default title.
+     */
+    public void dispatch(String correlationKey, NotificationDraft draft, String mailSubject) {
+        String recipient = draft.userId() != null ? "user:" + draft.userId() : "role:" + draft.targetRole();
+        pendingRepository.save(PendingNotification.builder()
+                .groupKey(correlationKey + "|" + recipient)
+                .userId(draft.userId())
+                .targetRole(draft.targetRole())
+                .type(draft.type())
+                .email(draft.email())
+                .mailSubject(mailSubject)
+                .messageHtml(draft.messageHtml())
+                .build());
+        received.incrementAndGet();
+    }
+
+    // ----------------------------
+    // Flush
+    // ----------------------------
+    @Scheduled(fixedDelayString = "${app.notifications.coalesce-flush-ms:500}")
+    public void flushDue() {
+        LocalDateTime openedBefore = LocalDateTime.now().minus(window);
+        flush(() -> pendingRepository.findDueGroupKeys(openedBefore, maxAttempts, PageRequest.of(0, batchSize)));
+    }
+
+    /** Sends everything still buffered, regardless of age. */
+    @PreDestroy
+    public void flushAll() {
+        while (flush(() -> pendingRepository.findGroupKeys(maxAttempts, PageRequest.of(0, batchSize))) == batchSize) {
+            // next batch
+        }
+    }
+
+    // @return groups sent; failed groups stay buffered (up to maxAttempts) for the next flush
+    private int flush(Supplier<List<String>> dueGroupKeys) {
+        List<String> keys;
+        try {
+            keys = dueGroupKeys.get();
+        } catch (RuntimeException e) {
+            log.error("Failed to read buffered notifications; trying again on the next flush", e);
+            return 0;
+        }
+        if (keys.isEmpty()) return 0;
+
+        try {
+            return sendGroups(keys); // 🔹 whole batch in one transaction
+        } catch (RuntimeException e) {
+            if (keys.size() == 1) {
+                recordFailure(keys.get(0), e);
+                return 0;
+            }
+            log.warn("Failed to send {} coalesced notification groups together; sending them one by one", keys.size(), e);
+        }
+
+        int sent = 0;
+        for (String key : keys) {
+            try {
+                sent += sendGroups(List.of(key));
+            } catch (RuntimeException e) {
+                recordFailure(key, e);
+            }
+        }
+        return sent;
+    }
+
+    private int sendGroups(List<String> keys) {
+        Integer sent = transactionTemplate.execute(status -> {
+            List<PendingNotification> rows = pendingRepository.findByGroupKeysForUpdate(keys);
+            if (rows.isEmpty()) return 0; // another instance is sending them
+            int groups = send(rows);
+            pendingRepository.deleteAllInBatch(rows);
+            return groups;
+        });
+        return sent == null ? 0 : sent;
+    }
+
+    private void recordFailure(String groupKey, RuntimeException cause) {
+        try {
+            Integer attempts = transactionTemplate.execute(status -> {
+                pendingRepository.incrementAttempts(groupKey);
+                return pendingRepository.findAttempts(groupKey);
+            });
+            if (attempts != null && attempts >= maxAttempts) {
+                log.error("Parking coalesced notification group {} after {} failed sends; it stays in pending_notifications",
+                        groupKey, attempts, cause);
+            } else {
+                log.error("Failed to send coalesced notification group {} (attempt {}); it stays buffered for the next flush",
+                        groupKey, attempts, cause);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to send coalesced notification group {}; it stays buffered for the next flush", groupKey, cause);
+        }
+    }
+
+    private int send(List<PendingNotification> rows) {
+        Map<String, Group> groups = new LinkedHashMap<>();
+        for (PendingNotification row : rows) {
+            Group group = groups.computeIfAbsent(row.getGroupKey(), k -> new Group(row));
+            group.messages.add(row.getMessageHtml());
+            if (group.email == null) group.email = row.getEmail();
+            if (group.mailSubject == null) group.mailSubject = row.getMailSubject();
+        }
+
+        List<NotificationDraft> drafts = new ArrayList<>(groups.size());
+        for (Group group : groups.values()) {
+            String message = merge(group.messages, Integer.MAX_VALUE);
+            // e-mail goes out below with its own subject, not through createAll
+            drafts.add(new NotificationDraft(group.userId, group.targetRole, null, group.type,
+                    merge(group.messages, Notification.MESSAGE_MAX_LENGTH)));
+            if (group.email != null) {
+                String subject = group.mailSubject != null ? group.mailSubject : group.type.getDefaultTitle();
+                if (!adminDigest.add(group.targetRole, group.email, subject, message)) {
+                    mailService.send(group.email, subject, message);
+                }
+            }
+        }
+        notificationService.createAll(drafts); // 🔹 one batched INSERT per flush
+        log.debug("Coalesced notifications: {} received, {} sent so far",
+                received.get(), emitted.addAndGet(groups.size()));
+        return groups.size();
+    }
+
+    // Joins the messages as paragraphs; whole messages that do not fit in maxLength become "(+N more)"
+    private static String merge(Set<String> messages, int maxLength) {
+        if (messages.size() == 1) return abbreviate(messages.iterator().next(), maxLength);
+        StringBuilder merged = new StringBuilder();
+        int added = 0;
+        for (String m : messages) {
+            String paragraph = m.startsWith("<") ? m : "<p>" + m + "</p>";
+            String more = added + 1 < messages.size() ? moreNote(messages.size() - added - 1) : "";
+            if (merged.length() + paragraph.length() + more.length() > maxLength) break;
+            merged.append(paragraph);
+            added++;
+        }
+        if (added == 0) return abbreviate(messages.iterator().next(), maxLength);
+        if (added < messages.size()) merged.append(moreNote(messages.size() - added));
+        return merged.toString();
+    }
+
+    private static String moreNote(int more) {
+        return "<p>(+" + more + " more)</p>";
+    }
+
+    private static String abbreviate(String message, int maxLength) {
+        return message.length() <= maxLength ? message : message.substring(0, maxLength - 1) + "…";
+    }
+
+    /** Groups still waiting to be sent. */
+    public long pendingCount() {
+        return pendingRepository.countGroups();
+    }
+}
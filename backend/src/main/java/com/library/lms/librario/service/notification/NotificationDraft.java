@@ -0,0 +1,19 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.entity.enums.NotificationType;
+
+/**
+ * One notification to create in a batch: recipient (user id and/or role), optional e-mail, content.
+ */
+public record NotificationDraft(
+        Long userId,
+        String targetRole,
+        String email,
+        NotificationType type,
+        String messageHtml
+) {
+
+    public static NotificationDraft forMember(Long userId, String email, String messageHtml, NotificationType type) {
+        return new NotificationDraft(userId, "MEMBER", email, type, messageHtml);
+    }
+}
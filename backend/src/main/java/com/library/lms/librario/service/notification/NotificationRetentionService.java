@@ -0,0 +1,133 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.dto.RetentionRunResult;
+import com.library.lms.librario.repository.ArchivedNotificationRepository;
+import com.library.lms.librario.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps the live notifications table small.
+ *
+ * Read notifications older than {@code app.notifications.retention.archive-after-days} move to
+ * notifications_archive (copy + delete in one transaction per batch), and archived months older
+ * than {@code purge-after-months} are deleted. Each run is bounded by {@code max-batches} per phase, so a
+ * large backlog drains over several runs instead of holding locks for one long one. Unread rows
+ * never move, so the unread counters are unaffected.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    private final NotificationRepository notificationRepository;
+    private final ArchivedNotificationRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter archivedCounter;
+    private final Counter purgedCounter;
+    private final Timer runTimer;
+
+    @Value("${app.notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.notifications.retention.archive-after-days:90}")
+    private int archiveAfterDays;
+
+    @Value("${app.notifications.retention.purge-after-months:12}")
+    private int purgeAfterMonths;
+
+    @Value("${app.notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.notifications.retention.max-batches:50}")
+    private int maxBatches;
+
+    public NotificationRetentionService(NotificationRepository notificationRepository,
+                                        ArchivedNotificationRepository archiveRepository,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.archivedCounter = Counter.builder("notifications.retention.archived")
+                .description("Notifications moved to the archive table").register(meterRegistry);
+        this.purgedCounter = Counter.builder("notifications.retention.purged")
+                .description("Archived notifications deleted").register(meterRegistry);
+        this.runTimer = Timer.builder("notifications.retention.run")
+                .description("Notification retention run time").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.notifications.retention.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (enabled) run();
+    }
+
+    /** One bounded archive + purge pass. Returns an empty result if a run is already in progress. */
+    public RetentionRunResult run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Notification retention already running, skipped");
+            return new RetentionRunResult(0, 0, 0, false, 0);
+        }
+        long started = System.nanoTime();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime cutoff = now.minusDays(archiveAfterDays);
+            YearMonth keepFrom = YearMonth.from(now).minusMonths(purgeAfterMonths);
+            int beforeMonth = keepFrom.getYear() * 100 + keepFrom.getMonthValue();
+
+            Phase archived = drain(archivedCounter, () -> {
+                List<Long> ids = notificationRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) return 0;
+                archiveRepository.copyFromNotifications(ids, now);
+                return notificationRepository.deleteByIds(ids);
+            });
+            Phase purged = drain(purgedCounter, () -> {
+                List<Long> ids = archiveRepository.findIdsBeforeMonth(beforeMonth, PageRequest.of(0, batchSize));
+                return ids.isEmpty() ? 0 : archiveRepository.deleteByIds(ids);
+            });
+
+            long elapsedNanos = System.nanoTime() - started;
+            runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            RetentionRunResult result = new RetentionRunResult(archived.rows(), purged.rows(),
+                    archived.batches() + purged.batches(), archived.done() && purged.done(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            log.info("Notification retention: {} archived, {} purged, {} batches, complete={}, {} ms",
+                    result.archived(), result.purged(), result.batches(), result.complete(), result.elapsedMs());
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private record Phase(long rows, int batches, boolean done) {}
+
+    // Runs batch after batch (one transaction each) until one comes back short or max-batches is hit
+    private Phase drain(Counter counter, IntSupplier batch) {
+        long rows = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            Integer n = transactionTemplate.execute(status -> batch.getAsInt());
+            if (n == null || n == 0) return new Phase(rows, i, true);
+            rows += n;
+            counter.increment(n);
+            if (n < batchSize) return new Phase(rows, i + 1, true);
+        }
+        return new Phase(rows, maxBatches, false);
+    }
+}
@@ -0,0 +1,108 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.repository.NotificationRepository;
+import com.library.lms.librario.service.sse.SseHub;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pushes new notifications to /api/notifications/stream connections.
+ *
+ * Topics match the inboxes: "user:ID" for a user's own notifications and "role:ROLE" for
+ * role-wide ones (and every ADMIN-targeted row, which the admin inbox lists for all admins).
+ * Event ids are notification ids, so a reconnecting client (Last-Event-ID) gets what it missed
+ * replayed from the database ahead of the live feed.
+ */
+@Service
+public class NotificationStreamService {
+
+    static final String EVENT_NOTIFICATION = "notification";
+    static final String EVENT_RESYNC = "resync";
+
+    private final SseHub hub;
+    private final NotificationRepository notificationRepository;
+    private final int replayMax;
+
+    public NotificationStreamService(NotificationRepository notificationRepository,
+                                     @Value("${app.sse.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                     @Value("${app.sse.sender-threads:4}") int senderThreads,
+                                     @Value("${app.sse.max-queued-events:256}") int maxQueued,
+                                     @Value("${app.sse.send-timeout-ms:10000}") long sendTimeoutMs,
+                                     @Value("${app.notifications.stream.replay-max:100}") int replayMax) {
+        this.hub = new SseHub("notifications", emitterTimeoutMs, senderThreads, maxQueued, sendTimeoutMs);
+        this.notificationRepository = notificationRepository;
+        this.replayMax = replayMax;
+    }
+
+    /**
+     * Opens a stream for a user and their roles.
+     *
+     * @param lastEventId id of the last notification the client saw, or null for live events only
+     */
+    public SseEmitter subscribe(Long userId, Collection<String> roles, Long lastEventId) {
+        List<String> topics = new ArrayList<>();
+        if (userId != null) topics.add(UnreadCounter.userKey(userId));
+        roles.forEach(role -> topics.add(UnreadCounter.roleKey(role)));
+
+        return hub.subscribe(topics, () -> replay(userId, roles, lastEventId));
+    }
+
+    // runs on the request thread, after the subscriber has joined its topics
+    List<SseHub.Event> replay(Long userId, Collection<String> roles, Long lastEventId) {
+        if (lastEventId == null || roles.isEmpty()) return List.of();
+        List<Notification> missed = notificationRepository.findStreamReplay(
+                lastEventId, userId, roles, PageRequest.of(0, replayMax + 1));
+        if (missed.size() > replayMax) {
+            // too far behind: tell the client to reload its inbox instead
+            return List.of(new SseHub.Event(EVENT_RESYNC, null, lastEventId));
+        }
+        return missed.stream().map(NotificationStreamService::event).toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsCreated(NotificationsCreatedEvent event) {
+        for (Notification n : event.notifications()) {
+            for (String topic : topicsFor(n)) {
+                hub.publish(topic, EVENT_NOTIFICATION, String.valueOf(n.getId()), n);
+            }
+        }
+    }
+
+    static List<String> topicsFor(Notification n) {
+        List<String> topics = new ArrayList<>(2);
+        if (n.getUserId() != null) topics.add(UnreadCounter.userKey(n.getUserId()));
+        if (n.getTargetRole() != null && (n.getUserId() == null || "ADMIN".equals(n.getTargetRole()))) {
+            topics.add(UnreadCounter.roleKey(n.getTargetRole()));
+        }
+        return topics;
+    }
+
+    private static SseHub.Event event(Notification n) {
+        return new SseHub.Event(EVENT_NOTIFICATION, String.valueOf(n.getId()), n);
+    }
+
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        hub.heartbeat();
+    }
+
+    public int subscriberCount() {
+        return hub.subscriberCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+}
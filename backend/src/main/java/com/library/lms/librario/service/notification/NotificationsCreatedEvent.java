@@ -0,0 +1,12 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.entity.Notification;
+
+import java.util.List;
+
+/**
+ * Notification rows were saved (one, or a batch); pushed to open notification streams once
+ * their transaction commits.
+ */
+public record NotificationsCreatedEvent(List<Notification> notifications) {
+}
@@ -0,0 +1,97 @@
+package com.library.lms.librario.service.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory unread-notification counts, keyed by inbox ("user:42", "role:ADMIN").
+ *
+ * A count is loaded from the database the first time an inbox is asked for and then kept current
+ * by the writers (new notification, mark-as-read, delete) once their transaction commits. Inboxes
+ * nobody has asked for are not tracked. Entries are reloaded after a TTL, which also heals drift
+ * from writes that bypass NotificationService.
+ */
+@Component
+public class UnreadCounter {
+
+    private record Entry(AtomicLong count, long loadedAt) {}
+
+    private final ConcurrentHashMap<String, Entry> counts = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public UnreadCounter(@Value("${app.notifications.unread-ttl:PT5M}") Duration ttl,
+                         @Value("${app.notifications.unread-max-entries:100000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public static String userKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    public static String roleKey(String role) {
+        return "role:" + role;
+    }
+
+    /** Inbox a notification is counted in: its user when set, otherwise its target role. */
+    public static String keyFor(Long userId, String targetRole) {
+        return userId != null ? userKey(userId) : roleKey(targetRole);
+    }
+
+    /** Current count, loading it with {@code loader} if the inbox is not tracked (or stale). */
+    public long get(String key, LongSupplier loader) {
+        long now = System.nanoTime();
+        Entry entry = counts.get(key);
+        if (entry == null || now - entry.loadedAt() >= ttlNanos) {
+            if (counts.size() >= maxEntries) counts.clear();
+            entry = new Entry(new AtomicLong(loader.getAsLong()), now);
+            counts.put(key, entry);
+        }
+        return Math.max(0, entry.count().get());
+    }
+
+    /** Applies {@code delta} after the surrounding transaction commits (immediately without one). */
+    public void adjustAfterCommit(String key, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adjust(key, delta);
+                }
+            });
+        } else {
+            adjust(key, delta);
+        }
+    }
+
+    private void adjust(String key, long delta) {
+        Entry entry = counts.get(key);
+        if (entry != null) entry.count().addAndGet(delta); // untracked: loaded fresh on first read
+    }
+
+    public void evict(String key) {
+        counts.remove(key);
+    }
+
+    /** Drops the entry after the surrounding transaction commits, so the next read reloads it. */
+    public void evictAfterCommit(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(key);
+                }
+            });
+        } else {
+            evict(key);
+        }
+    }
+}
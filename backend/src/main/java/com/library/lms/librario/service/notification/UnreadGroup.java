@@ -0,0 +1,8 @@
+package com.library.lms.librario.service.notification;
+
+/**
+ * Unread notifications matched by a bulk operation, per (user, role) inbox pair:
+ * how many, and the highest id among them.
+ */
+public record UnreadGroup(Long userId, String targetRole, Long count, Long maxId) {
+}
@@ -0,0 +1,190 @@
+package com.library.lms.librario.service.outbox;
+
+import com.library.lms.librario.entity.OutboxMessage;
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import com.library.lms.librario.repository.OutboxMessageRepository;
+import com.library.lms.librario.service.mail.MailPipeline;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers outbox messages outside any business transaction.
+ *
+ * A batch is claimed in a short transaction (rows locked with SKIP LOCKED and leased by
+ * pushing nextAttemptAt forward) and handed to the {@link MailPipeline}; results are
+ * recorded in short transactions from the pipeline's workers. Never claims more than the
+ * pipeline has room for, so a slow mail server throttles claiming instead of piling up
+ * leased rows. Failures back off exponentially; after maxAttempts the message is marked
+ * DEAD and shows up in the admin dead-letter view. A crash mid-batch only means the lease
+ * expires and the message is sent again.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxMessageRepository outboxRepository;
+    private final MailPipeline mailPipeline;
+    private final TransactionTemplate tx;
+    private final ReentrantLock running = new ReentrantLock();
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+    private final ExecutorService wakeUpExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-dispatch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.backoff-initial:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${app.outbox.backoff-max:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${app.outbox.lease:PT5M}")
+    private Duration lease;
+
+    public OutboxDispatcher(OutboxMessageRepository outboxRepository,
+                            MailPipeline mailPipeline,
+                            PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.mailPipeline = mailPipeline;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /** Something was queued and committed: drain now instead of waiting for the poll. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEnqueued(OutboxService.OutboxEnqueuedEvent event) {
+        if (wakeUpQueued.compareAndSet(false, true)) {
+            wakeUpExecutor.execute(() -> {
+                wakeUpQueued.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:5000}")
+    public void poll() {
+        dispatch();
+    }
+
+    /** Hands due messages to the mail pipeline while it has room. Returns the number queued. */
+    public int dispatch() {
+        if (!running.tryLock()) return 0; // another thread is already draining
+        try {
+            int queued = 0;
+            int room;
+            while ((room = Math.min(batchSize, mailPipeline.remainingCapacity())) > 0) {
+                List<OutboxMessage> batch = claimBatch(room);
+                List<Long> rejected = new ArrayList<>();
+                for (OutboxMessage message : batch) {
+                    if (handOff(message)) queued++;
+                    else rejected.add(message.getId());
+                }
+                if (!rejected.isEmpty()) {
+                    tx.executeWithoutResult(status -> outboxRepository.releaseLease(rejected, LocalDateTime.now()));
+                    break;
+                }
+                if (batch.size() < room) break;
+            }
+            return queued;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private List<OutboxMessage> claimBatch(int limit) {
+        return tx.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+            LocalDateTime leasedUntil = now.plus(lease);
+            due.forEach(m -> {
+                m.setNextAttemptAt(leasedUntil);
+                m.setLeasedUntil(leasedUntil);
+            });
+            return due;
+        });
+    }
+
+    private boolean handOff(OutboxMessage message) {
+        return switch (message.getType()) {
+            case EMAIL -> mailPipeline.offer(new MailPipeline.MailJob(message.getId(), message.getRecipient(),
+                    message.getSubject(), message.getBody()), results);
+        };
+    }
+
+    private final MailPipeline.Callback results = new MailPipeline.Callback() {
+        @Override
+        public void sent(List<Long> ids) {
+            tx.executeWithoutResult(status -> outboxRepository.markSent(ids, LocalDateTime.now()));
+        }
+
+        @Override
+        public void failed(Long id, Exception error) {
+            markFailed(id, error);
+        }
+    };
+
+    private void markFailed(Long id, Exception error) {
+        tx.executeWithoutResult(status -> outboxRepository.findById(id).ifPresent(m -> {
+            int attempts = m.getAttempts() + 1;
+            m.setAttempts(attempts);
+            m.setLeasedUntil(null);
+            m.setLastError(truncate(rootMessage(error), 1000));
+            if (attempts >= maxAttempts) {
+                m.setStatus(OutboxStatus.DEAD);
+                log.error("Outbox message {} to {} is dead after {} attempts: {}",
+                        id, m.getRecipient(), attempts, m.getLastError());
+            } else {
+                m.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                log.warn("Outbox message {} failed (attempt {}/{}), retrying at {}: {}",
+                        id, attempts, maxAttempts, m.getNextAttemptAt(), m.getLastError());
+            }
+        }));
+    }
+
+    // 30s, 1m, 2m, 4m ... capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+        String msg = e.getMessage();
+        return root == e ? msg : msg + " (" + root.getClass().getSimpleName() + ": " + root.getMessage() + ")";
+    }
+
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wakeUpExecutor.shutdownNow();
+    }
+}
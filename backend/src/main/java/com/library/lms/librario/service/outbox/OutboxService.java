@@ -0,0 +1,153 @@
+package com.library.lms.librario.service.outbox;
+
+import com.library.lms.librario.entity.OutboxMessage;
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import com.library.lms.librario.entity.enums.OutboxType;
+import com.library.lms.librario.exception.OutboxRetryConflictException;
+import com.library.lms.librario.exception.ResourceNotFoundException;
+import com.library.lms.librario.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes side effects to the outbox table. Joins the caller's transaction, so the
+ * message exists if and only if the business change committed.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private final OutboxMessageRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.outbox.sent-retention:P7D}")
+    private Duration sentRetention;
+
+    public OutboxService(OutboxMessageRepository outboxRepository,
+                         ApplicationEventPublisher eventPublisher) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public OutboxMessage enqueueEmail(String to, String subject, String body) {
+        OutboxMessage saved = outboxRepository.save(OutboxMessage.builder()
+                .type(OutboxType.EMAIL)
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .build());
+        // picked up by OutboxDispatcher after commit, so delivery doesn't wait for the next poll
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(saved.getId()));
+        return saved;
+    }
+
+    // ----------------------------
+    // Queue inspection and dead-letter view (admin)
+    // ----------------------------
+
+    @Transactional(readOnly = true)
+    public Page<OutboxMessage> deadLetters(int page, int size) {
+        return list(OutboxStatus.DEAD, page, size);
+    }
+
+    /** Messages newest first, optionally filtered by status. */
+    @Transactional(readOnly = true)
+    public Page<OutboxMessage> list(OutboxStatus status, int page, int size) {
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200));
+        return status == null
+                ? outboxRepository.findAllByOrderByIdDesc(pageable)
+                : outboxRepository.findByStatusOrderByIdDesc(status, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public OutboxMessage get(Long id) {
+        return find(id);
+    }
+
+    /**
+     * Dead message: back in the queue with a fresh attempt budget.
+     * Pending message: skips the rest of its backoff and goes out on the next dispatch.
+     * A message a dispatcher is sending right now (unexpired lease) or has sent is a conflict.
+     */
+    @Transactional
+    public OutboxMessage retry(Long id) {
+        if (outboxRepository.retryUnlessLeased(id, LocalDateTime.now()) == 0) {
+            OutboxMessage message = find(id);
+            throw new OutboxRetryConflictException(message.getStatus() == OutboxStatus.SENT
+                    ? "Message was already sent"
+                    : "Message is being sent (leased until " + message.getLeasedUntil() + ")");
+        }
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(id));
+        return find(id);
+    }
+
+    /** Requeues every dead message in one statement. */
+    @Transactional
+    public int retryAllDead() {
+        int requeued = outboxRepository.requeueDead(LocalDateTime.now());
+        if (requeued > 0) eventPublisher.publishEvent(new OutboxEnqueuedEvent(null));
+        return requeued;
+    }
+
+    // ----------------------------
+    // Purge
+    // ----------------------------
+
+    @Transactional
+    public void delete(Long id) {
+        outboxRepository.delete(find(id));
+    }
+
+    /** Deletes messages in {@code status} created more than {@code olderThan} ago. */
+    @Transactional
+    public int purge(OutboxStatus status, Duration olderThan) {
+        if (status == null) throw new IllegalArgumentException("status is required");
+        if (olderThan == null || olderThan.isNegative()) {
+            throw new IllegalArgumentException("olderThan must not be negative");
+        }
+        return outboxRepository.deleteByStatusCreatedBefore(status, LocalDateTime.now().minus(olderThan));
+    }
+
+    /** Delivered messages are only kept for {@code app.outbox.sent-retention}. */
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 15 3 * * *}")
+    @Transactional
+    public void purgeSent() {
+        int purged = outboxRepository.deleteByStatusCreatedBefore(OutboxStatus.SENT,
+                LocalDateTime.now().minus(sentRetention));
+        if (purged > 0) log.info("Outbox cleanup: {} sent messages purged", purged);
+    }
+
+    private OutboxMessage find(Long id) {
+        return outboxRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Outbox message not found: " + id));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (OutboxStatus status : OutboxStatus.values()) {
+            stats.put(status.name(), outboxRepository.countByStatus(status));
+        }
+        return stats;
+    }
+
+    /**
+     * Published when a message is (re)queued; see {@link OutboxDispatcher#onEnqueued}.
+     * messageId is null for bulk requeues.
+     */
+    public record OutboxEnqueuedEvent(Long messageId) {}
+}
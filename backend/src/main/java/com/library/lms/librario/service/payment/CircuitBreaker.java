@@ -0,0 +1,106 @@
+package com.library.lms.librario.service.payment;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * CLOSED lets every call through; {@code failureThreshold} failures in a row open it. OPEN rejects
+ * calls until {@code openFor} has passed, then HALF_OPEN lets exactly one probe through: success
+ * closes the circuit, failure opens it for another {@code openFor}.
+ *
+ * Every state change starts a new generation and each {@link Permit} remembers the one it was
+ * granted in. Results of calls admitted in an earlier generation are ignored: a slow success from
+ * before the circuit opened cannot close it (only the half-open probe can), and a slow failure
+ * cannot reopen a circuit the probe has just closed.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** Admission to make one call; {@code probe} marks the single half-open trial call. */
+    public record Permit(long generation, boolean probe) {}
+
+    private final int failureThreshold;
+    private final long openForNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long generation;
+
+    public CircuitBreaker(int failureThreshold, Duration openFor) {
+        this(failureThreshold, openFor, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openFor, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openForNanos = openFor.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * A permit if the caller may make the call, else null; every permit must be handed back to
+     * onSuccess, onFailure or release.
+     */
+    public synchronized Permit tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return new Permit(generation, false);
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openForNanos) return null;
+                moveTo(State.HALF_OPEN);
+                probeInFlight = true;
+                return new Permit(generation, true);
+            default: // HALF_OPEN: one probe at a time
+                if (probeInFlight) return null;
+                probeInFlight = true;
+                return new Permit(generation, true);
+        }
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit.generation() != generation) return; // admitted before the last state change
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) moveTo(State.CLOSED);
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit.generation() != generation) return;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            moveTo(State.OPEN);
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /** A permit that was granted but never used (e.g. the bulkhead rejected the call). */
+    public synchronized void release(Permit permit) {
+        if (permit.probe() && permit.generation() == generation) probeInFlight = false;
+    }
+
+    /**
+     * How long until a call may get through: the rest of the open period while OPEN, a full
+     * {@code openFor} while a half-open probe is out (it may reopen the circuit), zero while CLOSED.
+     */
+    public synchronized Duration retryAfter() {
+        return switch (state) {
+            case OPEN -> Duration.ofNanos(Math.max(0, openForNanos - (clock.getAsLong() - openedAt)));
+            case HALF_OPEN -> Duration.ofNanos(openForNanos);
+            case CLOSED -> Duration.ZERO;
+        };
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void moveTo(State next) {
+        state = next;
+        generation++;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.lms.librario.service.payment;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the gateway (app.payments.gateway.type=fake): no network, fixed latency and
+ * an optional failure rate, both adjustable at runtime to rehearse a slow or failing gateway.
+ */
+public class FakePaymentGateway implements PaymentGateway {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private volatile long latencyMillis;
+    private volatile double failureRate;
+
+    public FakePaymentGateway(long latencyMillis, double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        calls.incrementAndGet();
+        try {
+            if (latencyMillis > 0) TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fake gateway call interrupted", e);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException("Fake gateway failure");
+        }
+        return new GatewayOrder("order_fake_" + sequence.incrementAndGet(), amountPaise, currency);
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /** Calls that reached the fake (short-circuited and rejected calls never do). */
+    public long getCalls() {
+        return calls.get();
+    }
+}
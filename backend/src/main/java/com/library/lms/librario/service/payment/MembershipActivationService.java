@@ -0,0 +1,88 @@
+package com.library.lms.librario.service.payment;
+
+import com.library.lms.librario.entity.Member;
+import com.library.lms.librario.entity.MembershipRequest;
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.enums.MemberStatus;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.entity.enums.RequestStatus;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.repository.MembershipRequestRepository;
+import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.mail.MailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Activates the membership a captured payment was for and tells the user.
+ *
+ * Called by whichever of /api/payments/success and the Razorpay webhook completes the payment
+ * (PaymentRepository.completeByOrderId), inside that caller's transaction: the mail goes through
+ * the outbox and the notification is a row, so both commit or roll back with the activation.
+ */
+@Service
+public class MembershipActivationService {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipActivationService.class);
+
+    private final MembershipRequestRepository requestRepo;
+    private final MemberRepository memberRepository;
+    private final MailService mailService;
+    private final NotificationService notificationService;
+
+    public MembershipActivationService(MembershipRequestRepository requestRepo,
+                                       MemberRepository memberRepository,
+                                       MailService mailService,
+                                       NotificationService notificationService) {
+        this.requestRepo = requestRepo;
+        this.memberRepository = memberRepository;
+        this.mailService = mailService;
+        this.notificationService = notificationService;
+    }
+
+    /** @return the activated request, or null when the payment is not for an unpaid membership request */
+    public MembershipRequest activate(Payment payment) {
+        if (payment.getMembershipRequestId() == null) return null;
+        MembershipRequest req = requestRepo.findById(payment.getMembershipRequestId()).orElse(null);
+        if (req == null || req.isPaid()) return null; // already activated by the other path
+
+        // 1️⃣ Mark membership request as paid/completed
+        req.setPaid(true);
+        req.setStatus(RequestStatus.COMPLETED);
+        req.setCompletedDate(LocalDateTime.now());
+        requestRepo.save(req);
+        log.info("MembershipRequest {} marked paid", req.getId());
+
+        // 2️⃣ Update latest membership instead of creating a new one
+        User user = req.getUser();
+        Member member = memberRepository.findTopByUser_IdOrderByEndDateDesc(user.getId())
+                .orElseThrow(() -> new RuntimeException("Member not found for user: " + user.getId()));
+
+        member.setMembershipPlan(req.getPlan());
+        member.setStartDate(LocalDate.now());
+        member.setEndDate(LocalDate.now().plusMonths(req.getPlan().getDurationMonths()));
+        member.setStatus(MemberStatus.ACTIVE);
+
+        memberRepository.save(member);
+        log.info("User {} assigned new plan {}", user.getId(), req.getPlan().getType());
+
+        // 3️⃣ Send mail & notifications
+        mailService.send(
+                user.getEmail(),
+                "Membership Activated",
+                "Your membership for " + req.getPlan().getType() + " is now active!"
+        );
+        notificationService.create(
+                user,
+                "Membership Activated",
+                "Your membership for " + req.getPlan().getType() + " is now active!",
+                NotificationType.GENERAL
+        );
+        return req;
+    }
+}
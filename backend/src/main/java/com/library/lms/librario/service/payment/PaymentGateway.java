@@ -0,0 +1,19 @@
+package com.library.lms.librario.service.payment;
+
+/**
+ * Outbound calls to the payment gateway. The bean the app injects is a
+ * {@link ResilientPaymentGateway} around the real (or fake) client.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Creates a gateway order.
+     *
+     * @param amountPaise amount in the smallest currency unit
+     * @param receipt     optional merchant reference (e.g. "fine_42"), may be null
+     */
+    GatewayOrder createOrder(long amountPaise, String currency, String receipt);
+
+    /** The parts of a created order the API hands to the checkout form. */
+    record GatewayOrder(String id, long amount, String currency) {}
+}
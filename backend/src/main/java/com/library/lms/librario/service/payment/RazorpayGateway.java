@@ -0,0 +1,36 @@
+package com.library.lms.librario.service.payment;
+
+import com.razorpay.Order;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import org.json.JSONObject;
+
+/**
+ * {@link PaymentGateway} backed by the Razorpay SDK. Blocking; only called from the
+ * {@link ResilientPaymentGateway} pool, never directly from a request thread.
+ */
+public class RazorpayGateway implements PaymentGateway {
+
+    private final RazorpayClient client;
+
+    public RazorpayGateway(String keyId, String keySecret) throws RazorpayException {
+        this.client = new RazorpayClient(keyId, keySecret);
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        JSONObject request = new JSONObject();
+        request.put("amount", amountPaise);
+        request.put("currency", currency);
+        request.put("payment_capture", 1);
+        if (receipt != null) request.put("receipt", receipt);
+        try {
+            Order order = client.Orders.create(request);
+            return new GatewayOrder(order.get("id").toString(),
+                    ((Number) order.get("amount")).longValue(),
+                    order.get("currency").toString());
+        } catch (RazorpayException e) {
+            throw new IllegalStateException("Razorpay order creation failed: " + e.getMessage(), e);
+        }
+    }
+}
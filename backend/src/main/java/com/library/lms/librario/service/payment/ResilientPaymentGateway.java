@@ -0,0 +1,123 @@
+package com.library.lms.librario.service.payment;
+
+import com.library.lms.librario.exception.PaymentGatewayUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead + timeout + circuit breaker around the real gateway.
+ *
+ * Calls run on a small dedicated pool (max-concurrent threads, queue-capacity waiting); when both
+ * are full the call is rejected at once. The request thread waits at most call-timeout, so a slow
+ * gateway can tie up this pool but never Tomcat's threads, and catalog search etc. keep working.
+ * Failures and timeouts feed the {@link CircuitBreaker}; while it is open calls fail fast with
+ * {@link PaymentGatewayUnavailableException} (503) without touching the gateway; its Retry-After is
+ * the rest of the breaker's open-duration, or call-timeout when the circuit is closed.
+ *
+ * Metrics: payments.gateway.call{outcome=success|failure|timeout|rejected|open},
+ * payments.gateway.circuit.state (0 closed, 1 half-open, 2 open), payments.gateway.active.
+ */
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    private final PaymentGateway delegate;
+    private final ThreadPoolExecutor pool;
+    private final Duration callTimeout;
+    private final CircuitBreaker breaker;
+    private final MeterRegistry meterRegistry;
+
+    public ResilientPaymentGateway(PaymentGateway delegate, int maxConcurrent, int queueCapacity,
+                                   Duration callTimeout, CircuitBreaker breaker, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.callTimeout = callTimeout;
+        this.breaker = breaker;
+        this.meterRegistry = meterRegistry;
+
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, queue, r -> {
+            Thread t = new Thread(r, "payment-gateway-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("payments.gateway.circuit.state", breaker, b -> b.state().ordinal())
+                .description("0 closed, 1 half-open, 2 open").register(meterRegistry);
+        Gauge.builder("payments.gateway.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Gateway calls in flight").register(meterRegistry);
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        long started = System.nanoTime();
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == null) {
+            record("open", started);
+            throw new PaymentGatewayUnavailableException("Payment gateway is unavailable, please try again shortly", retryAfter());
+        }
+
+        Future<GatewayOrder> call;
+        try {
+            call = pool.submit(() -> delegate.createOrder(amountPaise, currency, receipt));
+        } catch (RejectedExecutionException e) {
+            breaker.release(permit); // never reached the gateway: says nothing about its health
+            record("rejected", started);
+            throw new PaymentGatewayUnavailableException("Payment gateway is busy, please try again shortly", retryAfter(), e);
+        }
+
+        try {
+            GatewayOrder order = call.get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            breaker.onSuccess(permit);
+            record("success", started);
+            return order;
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            breaker.onFailure(permit);
+            record("timeout", started);
+            throw new PaymentGatewayUnavailableException("Payment gateway timed out", retryAfter(), e);
+        } catch (ExecutionException e) {
+            breaker.onFailure(permit);
+            record("failure", started);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Payment gateway call failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.cancel(true);
+            breaker.release(permit);
+            throw new PaymentGatewayUnavailableException("Interrupted while waiting for the payment gateway", retryAfter(), e);
+        }
+    }
+
+    // The breaker's remaining open wait; while it is closed a busy slot frees up within one call timeout
+    private Duration retryAfter() {
+        Duration open = breaker.retryAfter();
+        return open.compareTo(callTimeout) > 0 ? open : callTimeout;
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    private void record(String outcome, long startedNanos) {
+        Timer.builder("payments.gateway.call").tag("outcome", outcome).register(meterRegistry)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,123 @@
+package com.library.lms.librario.service.reconciliation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts settlement rows that may not fit in memory.
+ *
+ * Rows are buffered up to {@code runSize}; each full buffer is sorted and written to a temp file
+ * (a "run"). {@link #sorted()} then k-way merges the runs, holding one row per run, so memory is
+ * bounded by the run size however large the report is. A report that fits in one run never
+ * touches the disk. {@link #close()} deletes the run files.
+ */
+public class ExternalSorter implements Closeable {
+
+    private final Comparator<SettlementRow> order;
+    private final int runSize;
+    private final Path tempDir;
+    private final List<SettlementRow> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private final List<DataInputStream> readers = new ArrayList<>();
+
+    public ExternalSorter(Comparator<SettlementRow> order, int runSize, Path tempDir) {
+        if (runSize < 1) throw new IllegalArgumentException("runSize must be positive");
+        this.order = order;
+        this.runSize = runSize;
+        this.tempDir = tempDir;
+    }
+
+    public void add(SettlementRow row) throws IOException {
+        buffer.add(row);
+        if (buffer.size() >= runSize) spill();
+    }
+
+    /** Runs written to disk so far. */
+    public int runs() {
+        return runs.size();
+    }
+
+    /** Every added row in order. Call once, after the last {@link #add}. */
+    public Iterator<SettlementRow> sorted() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(order);
+            return buffer.iterator();
+        }
+        if (!buffer.isEmpty()) spill();
+
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> order.compare(a.row, b.row));
+        for (Path run : runs) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 64 * 1024));
+            readers.add(in);
+            SettlementRow first = read(in);
+            if (first != null) heads.add(new Head(first, in));
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public SettlementRow next() {
+                Head head = heads.poll();
+                if (head == null) throw new NoSuchElementException();
+                try {
+                    SettlementRow following = read(head.in);
+                    if (following != null) heads.add(new Head(following, head.in));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return head.row;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataInputStream in : readers) in.close();
+        for (Path run : runs) Files.deleteIfExists(run);
+        buffer.clear();
+    }
+
+    private record Head(SettlementRow row, DataInputStream in) {}
+
+    private void spill() throws IOException {
+        buffer.sort(order);
+        Path run = Files.createTempFile(tempDir, "reconcile-run-", ".bin");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 64 * 1024))) {
+            for (SettlementRow row : buffer) {
+                out.writeBoolean(true);
+                out.writeUTF(row.paymentId());
+                out.writeBoolean(row.orderId() != null);
+                if (row.orderId() != null) out.writeUTF(row.orderId());
+                out.writeUTF(row.amount().toPlainString());
+                out.writeLong(row.line());
+            }
+            out.writeBoolean(false); // end of run
+        }
+        buffer.clear();
+    }
+
+    private static SettlementRow read(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        String paymentId = in.readUTF();
+        String orderId = in.readBoolean() ? in.readUTF() : null;
+        return new SettlementRow(paymentId, orderId, new BigDecimal(in.readUTF()), in.readLong());
+    }
+}
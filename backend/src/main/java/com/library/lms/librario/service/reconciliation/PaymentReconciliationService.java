@@ -0,0 +1,304 @@
+package com.library.lms.librario.service.reconciliation;
+
+import com.library.lms.librario.dto.ReconciliationMismatch;
+import com.library.lms.librario.dto.ReconciliationMismatch.Kind;
+import com.library.lms.librario.dto.ReconciliationReport;
+import com.library.lms.librario.repository.PaymentReconciliationRepository;
+import com.library.lms.librario.repository.PaymentReconciliationRepository.LedgerRow;
+import com.library.lms.librario.service.CsvRows;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Reconciles the payments table against a gateway settlement report, plus the fine flags on
+ * borrow_record, in bounded memory.
+ *
+ * The report is external-sorted by payment id ({@link ExternalSorter}, runs of
+ * {@code app.payments.reconciliation.run-size}) while the payments table is streamed in the same
+ * order from its unique payment_id index; the two sorted streams are merge-joined row by row. A
+ * second sort by order id finds orders captured more than once. Mismatches go to the caller's
+ * consumer as they are found; only the counts and the first {@code sample-size} are kept.
+ *
+ * Ids compare case-insensitively to match MySQL's default _ci collation; if the database returns
+ * payment ids in a different order the run fails instead of reporting false mismatches.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    static final Comparator<String> ID_ORDER = String.CASE_INSENSITIVE_ORDER;
+    private static final Comparator<SettlementRow> BY_PAYMENT =
+            Comparator.comparing(SettlementRow::paymentId, ID_ORDER).thenComparingLong(SettlementRow::line);
+    private static final Comparator<SettlementRow> BY_ORDER =
+            Comparator.comparing(SettlementRow::orderId, ID_ORDER).thenComparing(BY_PAYMENT);
+
+    /**
+     * What to reconcile.
+     *
+     * @param from           first payment day the report covers (null: no lower bound)
+     * @param to             last payment day the report covers, inclusive (null: no upper bound)
+     * @param amountsInPaise true if the report's amounts are in paise rather than rupees
+     */
+    public record Options(LocalDate from, LocalDate to, boolean amountsInPaise) {}
+
+    private final PaymentReconciliationRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final int runSize;
+    private final int sampleSize;
+    private final Path tempDir;
+
+    public PaymentReconciliationService(PaymentReconciliationRepository repository,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.payments.reconciliation.run-size:100000}") int runSize,
+                                        @Value("${app.payments.reconciliation.sample-size:100}") int sampleSize,
+                                        @Value("${app.payments.reconciliation.temp-dir:${java.io.tmpdir}}") String tempDir) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.runSize = runSize;
+        this.sampleSize = sampleSize;
+        this.tempDir = Path.of(tempDir);
+        this.runTimer = Timer.builder("payments.reconciliation.run")
+                .description("Payment reconciliation run time").register(meterRegistry);
+    }
+
+    public ReconciliationReport reconcile(Path settlementCsv, Options options) {
+        return reconcile(settlementCsv, options, mismatch -> {});
+    }
+
+    /** Reconciles and writes every mismatch as CSV, as it is found. */
+    public ReconciliationReport writeMismatchesCsv(Path settlementCsv, Options options, Writer out) throws IOException {
+        out.write("Kind,Payment ID,Order ID,Settled Amount,Ledger Amount,Payment Row,Borrow Record,Detail\n");
+        ReconciliationReport report;
+        try {
+            report = reconcile(settlementCsv, options, m -> {
+                try {
+                    out.write(CsvRows.row(m.kind(), m.paymentId(), m.orderId(), m.settledAmount(), m.ledgerAmount(),
+                            m.paymentRowId(), m.borrowRecordId(), m.detail()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        return report;
+    }
+
+    /**
+     * One full reconciliation. Mismatches are passed to {@code sink} as they are found.
+     *
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public ReconciliationReport reconcile(Path settlementCsv, Options options, Consumer<ReconciliationMismatch> sink) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A payment reconciliation is already running");
+        }
+        long started = System.nanoTime();
+        Tally tally = new Tally(sink);
+        try (Reader reader = Files.newBufferedReader(settlementCsv, StandardCharsets.UTF_8);
+             ExternalSorter byPayment = new ExternalSorter(BY_PAYMENT, runSize, tempDir);
+             ExternalSorter byOrder = new ExternalSorter(BY_ORDER, runSize, tempDir)) {
+
+            // 1️⃣ Read the report once, feeding both sorts
+            SettlementCsvReader csv = new SettlementCsvReader(reader, options.amountsInPaise());
+            long settlementRows = 0;
+            BigDecimal settledAmount = BigDecimal.ZERO;
+            for (SettlementRow row; (row = csv.next()) != null; ) {
+                settlementRows++;
+                settledAmount = settledAmount.add(row.amount());
+                byPayment.add(row);
+                if (row.orderId() != null) byOrder.add(row);
+            }
+
+            // 2️⃣ Merge-join with the payments table, both in payment id order
+            MergeJoin join = new MergeJoin(byPayment.sorted(), tally, options);
+            repository.forEachByPaymentId(join);
+            join.finish();
+
+            // 3️⃣ Orders captured by more than one payment
+            findDuplicateCaptures(byOrder.sorted(), tally);
+
+            // 4️⃣ Fine flags on borrow_record against the payments table
+            repository.forEachUnmarkedFinePayment(p -> tally.report(new ReconciliationMismatch(Kind.FINE_NOT_MARKED_PAID,
+                    p.paymentId(), p.orderId(), null, p.amount(), p.id(), p.borrowRecordId(),
+                    "Fine payment recorded but borrow record " + p.borrowRecordId() + " is not marked paid")));
+            repository.forEachPaidFineWithoutPayment(f -> tally.report(new ReconciliationMismatch(Kind.FINE_PAYMENT_MISSING,
+                    f.paymentId(), null, null, null, null, f.borrowRecordId(),
+                    "Borrow record marked paid by " + f.paymentId() + " but no payment row exists")));
+
+            long elapsedNanos = System.nanoTime() - started;
+            runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            ReconciliationReport report = new ReconciliationReport(settlementRows, csv.skipped(), join.ledgerRows,
+                    join.matched, settledAmount, tally.counts(), byPayment.runs() + byOrder.runs(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), tally.samples);
+            log.info("Payment reconciliation: {} settled, {} ledger rows, {} matched, {} mismatches {}, {} runs, {} ms",
+                    report.settlementRows(), report.ledgerRows(), report.matched(), report.mismatchTotal(),
+                    report.mismatches(), report.sortRuns(), report.elapsedMs());
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reconciliation failed reading " + settlementCsv, e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Consumes the payments stream; pulls settlement rows up to each ledger row's id
+    private static final class MergeJoin implements Consumer<LedgerRow> {
+
+        private final Iterator<SettlementRow> settled;
+        private final Tally tally;
+        private final Options options;
+        private SettlementRow next;
+        private String lastLedgerId;
+        long ledgerRows;
+        long matched;
+
+        MergeJoin(Iterator<SettlementRow> settled, Tally tally, Options options) {
+            this.settled = settled;
+            this.tally = tally;
+            this.options = options;
+            this.next = settled.hasNext() ? settled.next() : null;
+        }
+
+        @Override
+        public void accept(LedgerRow ledger) {
+            ledgerRows++;
+            if (lastLedgerId != null && ID_ORDER.compare(lastLedgerId, ledger.paymentId()) > 0) {
+                throw new IllegalStateException("payments.payment_id came back out of order ('" + lastLedgerId
+                        + "' before '" + ledger.paymentId() + "'); check the column collation");
+            }
+            lastLedgerId = ledger.paymentId();
+
+            while (next != null && ID_ORDER.compare(next.paymentId(), ledger.paymentId()) < 0) {
+                SettlementRow orphan = takeGroup();
+                tally.report(new ReconciliationMismatch(Kind.MISSING_IN_LEDGER, orphan.paymentId(), orphan.orderId(),
+                        orphan.amount(), null, null, null, "Settled (line " + orphan.line() + ") but not in payments"));
+            }
+            if (next != null && ID_ORDER.compare(next.paymentId(), ledger.paymentId()) == 0) {
+                compare(takeGroup(), ledger);
+            } else if ("SUCCESS".equals(ledger.status()) && inWindow(ledger)) {
+                tally.report(new ReconciliationMismatch(Kind.MISSING_IN_SETTLEMENT, ledger.paymentId(), ledger.orderId(),
+                        null, ledger.amount(), ledger.id(), ledger.borrowRecordId(), "SUCCESS in payments but not settled"));
+            }
+        }
+
+        // Settlement rows left after the last payment: none of them are in the table
+        void finish() {
+            while (next != null) {
+                SettlementRow orphan = takeGroup();
+                tally.report(new ReconciliationMismatch(Kind.MISSING_IN_LEDGER, orphan.paymentId(), orphan.orderId(),
+                        orphan.amount(), null, null, null, "Settled (line " + orphan.line() + ") but not in payments"));
+            }
+        }
+
+        private void compare(SettlementRow settlement, LedgerRow ledger) {
+            boolean ok = true;
+            if (ledger.amount() == null || settlement.amount().compareTo(ledger.amount()) != 0) {
+                ok = false;
+                tally.report(new ReconciliationMismatch(Kind.AMOUNT_MISMATCH, ledger.paymentId(), ledger.orderId(),
+                        settlement.amount(), ledger.amount(), ledger.id(), ledger.borrowRecordId(),
+                        "Settled " + settlement.amount() + ", recorded " + ledger.amount()));
+            }
+            if (!"SUCCESS".equals(ledger.status())) {
+                ok = false;
+                tally.report(new ReconciliationMismatch(Kind.STATUS_MISMATCH, ledger.paymentId(), ledger.orderId(),
+                        settlement.amount(), ledger.amount(), ledger.id(), ledger.borrowRecordId(),
+                        "Settled but recorded as " + ledger.status()));
+            }
+            if (ok) matched++;
+        }
+
+        // The next settlement row; further rows with the same id are reported as duplicates
+        private SettlementRow takeGroup() {
+            SettlementRow first = next;
+            next = settled.hasNext() ? settled.next() : null;
+            while (next != null && ID_ORDER.compare(next.paymentId(), first.paymentId()) == 0) {
+                tally.report(new ReconciliationMismatch(Kind.DUPLICATE_SETTLEMENT, next.paymentId(), next.orderId(),
+                        next.amount(), null, null, null,
+                        "Settled again on line " + next.line() + " (first on line " + first.line() + ")"));
+                next = settled.hasNext() ? settled.next() : null;
+            }
+            return first;
+        }
+
+        private boolean inWindow(LedgerRow ledger) {
+            if (options.from() == null && options.to() == null) return true;
+            if (ledger.paymentDate() == null) return false;
+            LocalDate day = ledger.paymentDate().toLocalDate();
+            return (options.from() == null || !day.isBefore(options.from()))
+                    && (options.to() == null || !day.isAfter(options.to()));
+        }
+    }
+
+    // Rows arrive grouped by order id, then payment id: a second distinct payment in a group is a duplicate capture
+    private static void findDuplicateCaptures(Iterator<SettlementRow> byOrder, Tally tally) {
+        String orderId = null;
+        String firstPayment = null;
+        String lastPayment = null;
+        while (byOrder.hasNext()) {
+            SettlementRow row = byOrder.next();
+            if (orderId == null || ID_ORDER.compare(orderId, row.orderId()) != 0) {
+                orderId = row.orderId();
+                firstPayment = lastPayment = row.paymentId();
+                continue;
+            }
+            if (ID_ORDER.compare(lastPayment, row.paymentId()) != 0) {
+                tally.report(new ReconciliationMismatch(Kind.DUPLICATE_CAPTURE, row.paymentId(), orderId,
+                        row.amount(), null, null, null, "Order " + orderId + " was also captured by " + firstPayment));
+            }
+            lastPayment = row.paymentId();
+        }
+    }
+
+    // Counts per kind and the first few samples; everything else goes straight to the sink
+    private final class Tally {
+        private final Consumer<ReconciliationMismatch> sink;
+        private final Map<Kind, Long> counts = new EnumMap<>(Kind.class);
+        private final List<ReconciliationMismatch> samples = new ArrayList<>();
+
+        Tally(Consumer<ReconciliationMismatch> sink) {
+            this.sink = sink;
+        }
+
+        void report(ReconciliationMismatch mismatch) {
+            counts.merge(mismatch.kind(), 1L, Long::sum);
+            meterRegistry.counter("payments.reconciliation.mismatches", "kind", mismatch.kind().name()).increment();
+            if (samples.size() < sampleSize) samples.add(mismatch);
+            sink.accept(mismatch);
+        }
+
+        Map<Kind, Long> counts() {
+            Map<Kind, Long> all = new EnumMap<>(Kind.class);
+            for (Kind kind : Kind.values()) all.put(kind, counts.getOrDefault(kind, 0L));
+            return Collections.unmodifiableMap(all);
+        }
+    }
+}
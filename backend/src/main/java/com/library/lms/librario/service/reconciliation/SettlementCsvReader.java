@@ -0,0 +1,130 @@
+package com.library.lms.librario.service.reconciliation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a settlement CSV one record at a time (RFC 4180 quoting, quoted newlines allowed).
+ *
+ * Columns are found by header name, so the Razorpay dashboard export works as is: the payment id
+ * comes from entity_id, payment_id or id (first present), the amount from amount, and order_id
+ * is optional. With a type / entity_type column, rows that are not "payment" (refunds,
+ * adjustments) are skipped and counted.
+ */
+public class SettlementCsvReader {
+
+    private final BufferedReader in;
+    private final boolean amountsInPaise;
+    private final int idColumn;
+    private final int amountColumn;
+    private final int orderColumn;
+    private final int typeColumn;
+
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private long line;        // physical lines read so far
+    private long recordLine;  // line the current record starts on
+    private long skipped;
+
+    public SettlementCsvReader(Reader reader, boolean amountsInPaise) throws IOException {
+        this.in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.amountsInPaise = amountsInPaise;
+        if (!readRecord()) throw new IllegalArgumentException("Settlement file is empty");
+
+        List<String> header = new ArrayList<>(fields.size());
+        for (String name : fields) header.add(name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+        this.idColumn = firstIndex(header, "entity_id", "payment_id", "id");
+        this.amountColumn = firstIndex(header, "amount");
+        this.orderColumn = firstIndex(header, "order_id");
+        this.typeColumn = firstIndex(header, "type", "entity_type");
+        if (idColumn < 0 || amountColumn < 0) {
+            throw new IllegalArgumentException("Settlement file needs a payment id (entity_id, payment_id or id) "
+                    + "and an amount column; header was " + header);
+        }
+    }
+
+    /** The next payment row, or null at the end of the file. */
+    public SettlementRow next() throws IOException {
+        while (readRecord()) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue; // blank line
+            String type = value(typeColumn);
+            String paymentId = value(idColumn);
+            if ((type != null && !"payment".equalsIgnoreCase(type)) || paymentId == null) {
+                skipped++;
+                continue;
+            }
+            return new SettlementRow(paymentId, value(orderColumn), amount(value(amountColumn)), recordLine);
+        }
+        return null;
+    }
+
+    public long skipped() {
+        return skipped;
+    }
+
+    private BigDecimal amount(String text) {
+        if (text == null) throw new IllegalArgumentException("Missing amount at line " + recordLine);
+        try {
+            BigDecimal amount = new BigDecimal(text.replace(",", "").replace(" ", ""));
+            return amountsInPaise ? amount.movePointLeft(2) : amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad amount '" + text + "' at line " + recordLine);
+        }
+    }
+
+    private String value(int column) {
+        if (column < 0 || column >= fields.size()) return null;
+        String v = fields.get(column).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    // Fills fields with the next record; false at end of input
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = in.read();
+        if (c < 0) return false;
+        recordLine = ++line;
+        boolean quoted = false;
+        for (; ; c = in.read()) {
+            if (quoted) {
+                if (c < 0) throw new IllegalArgumentException("Unclosed quote in record starting at line " + recordLine);
+                if (c == '"') {
+                    in.mark(1);
+                    if (in.read() == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        in.reset();
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c < 0) {
+                fields.add(field.toString());
+                return true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private static int firstIndex(List<String> header, String... names) {
+        for (String name : names) {
+            int i = header.indexOf(name);
+            if (i >= 0) return i;
+        }
+        return -1;
+    }
+}
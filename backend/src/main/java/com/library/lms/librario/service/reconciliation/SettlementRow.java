@@ -0,0 +1,7 @@
+package com.library.lms.librario.service.reconciliation;
+
+import java.math.BigDecimal;
+
+/** One payment line of a gateway settlement report; {@code line} is where it starts in the file. */
+public record SettlementRow(String paymentId, String orderId, BigDecimal amount, long line) {
+}
@@ -0,0 +1,14 @@
+package com.library.lms.librario.service.search;
+
+/**
+ * Searchable fields of a book as held by {@link BookSearchIndex}.
+ * Loaded through a projection query so building the index never hydrates full entities.
+ */
+public record BookSearchDocument(
+        Long id,
+        String title,
+        String author,
+        String genre,
+        String publisher,
+        String isbn
+) { }
@@ -0,0 +1,525 @@
+package com.library.lms.librario.service.search;
+
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over title / author / genre / publisher / isbn.
+ *
+ * Ranking is BM25 with per-field weights folded into the term frequency (BM25F-lite).
+ * Every query token must match (AND semantics); the last token is also matched as a
+ * prefix so the catalog can be searched as the member types.
+ *
+ * Deletes only tombstone a document; postings are compacted once enough of them pile up.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Field weights (a title hit counts three times a genre hit)
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float GENRE_WEIGHT = 1.0f;
+    private static final float PUBLISHER_WEIGHT = 1.0f;
+    private static final float ISBN_WEIGHT = 1.0f;
+
+    // Prefix matches on the last token are worth a little less than exact ones
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final int LOAD_PAGE_SIZE = 5_000;
+    private static final int COMPACT_MIN_DELETED = 1_024;
+
+    // At most this many idle scratch buffers are kept; more concurrent queries allocate and drop theirs
+    private static final int SCRATCH_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docNoByBookId = new HashMap<>();
+    private final ArrayList<Doc> docs = new ArrayList<>(); // docNo -> doc, null once deleted
+    private final ArrayBlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(SCRATCH_POOL_SIZE);
+    private int liveDocs;
+    private int deletedDocs;
+    private double totalLength;
+
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    // ----------------------------
+    // Loading
+    // ----------------------------
+
+    /** Builds the index once the application (and the seeders) are up. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        long afterId = 0L;
+        int loaded = 0;
+        List<BookSearchDocument> page;
+        do {
+            page = bookRepository.findSearchDocumentsAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (BookSearchDocument d : page) {
+                    // a live update that already landed is newer than this snapshot
+                    if (!docNoByBookId.containsKey(d.id())) {
+                        add(d);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).id();
+                loaded += page.size();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        ready = true;
+        log.info("Book search index built: {} books, {} terms in {} ms",
+                loaded, termCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ----------------------------
+    // Updates (applied after commit)
+    // ----------------------------
+
+    /** Indexes (or re-indexes) a book once the surrounding transaction commits. */
+    public void indexAfterCommit(Book book) {
+        BookSearchDocument doc = new BookSearchDocument(book.getId(), book.getTitle(), book.getAuthor(),
+                book.getGenre(), book.getPublisher(), book.getIsbn());
+        afterCommit(() -> index(doc));
+    }
+
+    /** Drops a book from the index once the surrounding transaction commits. */
+    public void removeAfterCommit(Long bookId) {
+        afterCommit(() -> remove(bookId));
+    }
+
+    public void index(BookSearchDocument doc) {
+        if (doc.id() == null) return;
+        lock.writeLock().lock();
+        try {
+            delete(doc.id());
+            add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // ----------------------------
+    // Search
+    // ----------------------------
+
+    /**
+     * Returns the ids of the best matching books, highest score first.
+     * An empty query (or one with no indexable characters) yields no results.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        Scratch scratch = null;
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) return List.of();
+            float avgLength = (float) (totalLength / liveDocs);
+
+            // Resolve each token to the terms it matches
+            List<List<TermMatch>> matches = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                List<TermMatch> expansions = expand(tokens.get(i), i == tokens.size() - 1);
+                if (expansions.isEmpty()) return List.of(); // AND: one token matches nothing
+                matches.add(expansions);
+            }
+
+            // Cheapest token first: it bounds the candidate set for the others
+            matches.sort(Comparator.comparingLong(BookSearchIndex::cost));
+
+            scratch = borrowScratch(docs.size());
+            int epoch = scratch.nextEpoch();
+            int candidates = 0;
+
+            for (int t = 0; t < matches.size(); t++) {
+                List<TermMatch> token = matches.get(t);
+                if (t > 0 && candidates * (long) token.size() < cost(token)) {
+                    // few candidates left: probe them instead of walking long postings
+                    candidates = probe(scratch, token, t, avgLength);
+                } else {
+                    candidates = accumulate(scratch, epoch, token, t, avgLength);
+                }
+                if (candidates == 0) return List.of();
+            }
+
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 1, ScoredDoc.WORST_FIRST);
+            int required = matches.size();
+            for (int i = 0; i < scratch.touchedSize; i++) {
+                int docNo = scratch.touched[i];
+                if (scratch.matched[docNo] != required) continue;
+                float score = scratch.score[docNo];
+                if (top.size() == limit && score < top.peek().score) continue;
+                top.offer(new ScoredDoc(docs.get(docNo).bookId, score));
+                if (top.size() > limit) top.poll();
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort(ScoredDoc.WORST_FIRST.reversed());
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (ScoredDoc d : ranked) ids.add(d.bookId);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+            if (scratch != null) scratchPool.offer(scratch); // dropped when the pool is full
+        }
+    }
+
+    /** Takes a pooled scratch buffer that fits the current docNo range, or allocates one. */
+    private Scratch borrowScratch(int docCount) {
+        Scratch sc = scratchPool.poll();
+        // too small after inserts, or far too big after deletes and compaction
+        if (sc == null || !sc.fits(docCount)) sc = new Scratch(docCount);
+        return sc;
+    }
+
+    /** Capacities of the idle scratch buffers, for tests. */
+    List<Integer> pooledScratchCapacities() {
+        List<Integer> capacities = new ArrayList<>();
+        for (Scratch sc : scratchPool) capacities.add(sc.stamp.length);
+        return capacities;
+    }
+
+    /** Walks the postings of one query token; returns how many documents match every token so far. */
+    private int accumulate(Scratch sc, int epoch, List<TermMatch> token, int t, float avgLength) {
+        int matched = 0;
+        for (TermMatch m : token) {
+            Postings p = m.postings;
+            for (int j = 0; j < p.size; j++) {
+                int docNo = p.docNos[j];
+                Doc doc = docs.get(docNo);
+                if (doc == null) continue;
+                if (sc.stamp[docNo] != epoch) {
+                    if (t > 0) continue; // missed an earlier token
+                    sc.stamp[docNo] = epoch;
+                    sc.score[docNo] = 0f;
+                    sc.matched[docNo] = 0;
+                    sc.touched[sc.touchedSize++] = docNo;
+                }
+                float s = m.weight * bm25(m.idf, p.tfs[j], doc.length, avgLength);
+                if (sc.matched[docNo] == t) {
+                    sc.matched[docNo] = t + 1;
+                    sc.best[docNo] = s;
+                    sc.score[docNo] += s;
+                    matched++;
+                } else if (sc.matched[docNo] == t + 1 && s > sc.best[docNo]) {
+                    sc.score[docNo] += s - sc.best[docNo];
+                    sc.best[docNo] = s;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /** Scores one query token against the surviving candidates via their sorted term lists. */
+    private int probe(Scratch sc, List<TermMatch> token, int t, float avgLength) {
+        int matched = 0;
+        for (int i = 0; i < sc.touchedSize; i++) {
+            int docNo = sc.touched[i];
+            if (sc.matched[docNo] != t) continue;
+            Doc doc = docs.get(docNo);
+            float best = 0f;
+            for (TermMatch m : token) {
+                float tf = doc.tf(m.term);
+                if (tf > 0f) best = Math.max(best, m.weight * bm25(m.idf, tf, doc.length, avgLength));
+            }
+            if (best > 0f) {
+                sc.matched[docNo] = t + 1;
+                sc.score[docNo] += best;
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TermMatch> expand(String token, boolean prefix) {
+        List<TermMatch> out = new ArrayList<>();
+        Postings exact = terms.get(token);
+        if (exact != null && exact.df > 0) {
+            out.add(new TermMatch(token, exact, idf(exact.df), 1.0f));
+        }
+        if (prefix) {
+            int added = 0;
+            for (Map.Entry<String, Postings> e : terms.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                if (e.getValue().df == 0) continue;
+                out.add(new TermMatch(e.getKey(), e.getValue(), idf(e.getValue().df), PREFIX_WEIGHT));
+                if (++added >= MAX_PREFIX_EXPANSIONS) break;
+            }
+        }
+        return out;
+    }
+
+    private static long cost(List<TermMatch> matches) {
+        long c = 0;
+        for (TermMatch m : matches) c += m.postings.size;
+        return c;
+    }
+
+    private float idf(int df) {
+        return (float) Math.log(1.0 + (liveDocs - df + 0.5) / (df + 0.5));
+    }
+
+    private static float bm25(float idf, float tf, float length, float avgLength) {
+        return idf * (tf * (K1 + 1f)) / (tf + K1 * (1f - B + B * length / avgLength));
+    }
+
+    // ----------------------------
+    // Internals (callers hold the write lock)
+    // ----------------------------
+
+    private void add(BookSearchDocument d) {
+        TreeMap<String, Float> tf = new TreeMap<>();
+        float length = 0f;
+        length += addField(tf, d.title(), TITLE_WEIGHT);
+        length += addField(tf, d.author(), AUTHOR_WEIGHT);
+        length += addField(tf, d.genre(), GENRE_WEIGHT);
+        length += addField(tf, d.publisher(), PUBLISHER_WEIGHT);
+        String isbn = normalizeIsbn(d.isbn());
+        if (!isbn.isEmpty()) {
+            tf.merge(isbn, ISBN_WEIGHT, Float::sum);
+            length += ISBN_WEIGHT;
+        }
+
+        String[] docTerms = tf.keySet().toArray(new String[0]);
+        float[] docTfs = new float[docTerms.length];
+        for (int i = 0; i < docTerms.length; i++) docTfs[i] = tf.get(docTerms[i]);
+
+        int docNo = docs.size();
+        docs.add(new Doc(d.id(), docTerms, docTfs, length));
+        docNoByBookId.put(d.id(), docNo);
+        for (int i = 0; i < docTerms.length; i++) {
+            terms.computeIfAbsent(docTerms[i], k -> new Postings()).add(docNo, docTfs[i]);
+        }
+        liveDocs++;
+        totalLength += length;
+    }
+
+    private void delete(Long bookId) {
+        Integer docNo = docNoByBookId.remove(bookId);
+        if (docNo == null) return;
+        Doc doc = docs.set(docNo, null);
+        for (String term : doc.terms) {
+            Postings p = terms.get(term);
+            if (p != null && --p.df == 0) terms.remove(term);
+        }
+        liveDocs--;
+        deletedDocs++;
+        totalLength -= doc.length;
+        if (deletedDocs >= COMPACT_MIN_DELETED && deletedDocs > liveDocs / 4) {
+            compact();
+        }
+    }
+
+    /** Renumbers live documents and rebuilds postings without tombstones. */
+    private void compact() {
+        List<Doc> live = new ArrayList<>(liveDocs);
+        for (Doc d : docs) if (d != null) live.add(d);
+
+        docs.clear();
+        docs.ensureCapacity(live.size());
+        docNoByBookId.clear();
+        terms.clear();
+        for (Doc d : live) {
+            int docNo = docs.size();
+            docs.add(d);
+            docNoByBookId.put(d.bookId, docNo);
+            for (int i = 0; i < d.terms.length; i++) {
+                terms.computeIfAbsent(d.terms[i], k -> new Postings()).add(docNo, d.tfs[i]);
+            }
+        }
+        deletedDocs = 0;
+    }
+
+    private static float addField(Map<String, Float> tf, String value, float weight) {
+        float length = 0f;
+        for (String token : tokenize(value)) {
+            tf.merge(token, weight, Float::sum);
+            length += weight;
+        }
+        return length;
+    }
+
+    /** Lower-cases, strips accents and splits on anything that is not a letter or digit. */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        LinkedHashSet<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /** ISBNs are indexed as one token without separators, so "978-0-262" and "9780262" line up. */
+    private static String normalizeIsbn(String isbn) {
+        if (isbn == null) return "";
+        StringBuilder sb = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isLetterOrDigit(c)) sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    // ----------------------------
+    // Data structures
+    // ----------------------------
+
+    private static final class Postings {
+        int[] docNos = new int[4];
+        float[] tfs = new float[4];
+        int size;
+        int df; // live documents only
+
+        void add(int docNo, float tf) {
+            if (size == docNos.length) {
+                docNos = Arrays.copyOf(docNos, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docNos[size] = docNo;
+            tfs[size] = tf;
+            size++;
+            df++;
+        }
+    }
+
+    private record Doc(Long bookId, String[] terms, float[] tfs, float length) {
+        /** Terms are sorted, so a per-document lookup is a binary search. */
+        float tf(String term) {
+            int i = Arrays.binarySearch(terms, term);
+            return i >= 0 ? tfs[i] : 0f;
+        }
+    }
+
+    /**
+     * Score accumulators indexed by docNo, borrowed from a bounded pool for one query. Entries are
+     * only trusted when their stamp equals the current query's epoch, so nothing has to be cleared
+     * between queries. Buffers are sized to the docNo range when allocated and discarded once it
+     * outgrows them or shrinks well below them, so memory follows the index instead of its peak.
+     */
+    private static final class Scratch {
+        private static final int MIN_CAPACITY = 64;
+
+        final int[] stamp;
+        final float[] score;
+        final float[] best;
+        final int[] matched;
+        final int[] touched;
+        int touchedSize;
+        int epoch;
+
+        Scratch(int docCount) {
+            int capacity = Math.max(MIN_CAPACITY, docCount + docCount / 8); // headroom for new books
+            stamp = new int[capacity];
+            score = new float[capacity];
+            best = new float[capacity];
+            matched = new int[capacity];
+            touched = new int[capacity];
+        }
+
+        boolean fits(int docCount) {
+            return stamp.length >= docCount && stamp.length <= Math.max(MIN_CAPACITY, docCount * 2);
+        }
+
+        int nextEpoch() {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+            touchedSize = 0;
+            return epoch;
+        }
+    }
+
+    private record TermMatch(String term, Postings postings, float idf, float weight) { }
+
+    private record ScoredDoc(Long bookId, float score) {
+        static final Comparator<ScoredDoc> WORST_FIRST = Comparator
+                .comparingDouble((ScoredDoc d) -> d.score)
+                .thenComparing(ScoredDoc::bookId, Comparator.reverseOrder());
+    }
+}
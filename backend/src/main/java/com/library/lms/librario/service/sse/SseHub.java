@@ -0,0 +1,262 @@
+package com.library.lms.librario.service.sse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Topic-based fan-out of Server-Sent Events.
+ *
+ * Emitters are async servlet requests, so an idle subscriber costs a socket and an
+ * entry here, not a Tomcat worker thread. Each subscriber has its own bounded queue, drained
+ * by one task at a time on a small sender pool: publishers never block, every subscriber
+ * sees events in publish order, and a slow client only delays itself. A subscriber whose
+ * queue fills up, or whose current write has been stuck longer than the send timeout, is
+ * evicted (the client reconnects and resumes).
+ */
+public class SseHub {
+
+    private static final Logger log = LoggerFactory.getLogger(SseHub.class);
+
+    public static final int DEFAULT_SENDER_THREADS = 4;
+    public static final int DEFAULT_MAX_QUEUED = 256;
+    public static final long DEFAULT_SEND_TIMEOUT_MS = 10_000;
+
+    private final String name;
+    private final long emitterTimeoutMs;
+    private final int maxQueued;
+    private final long sendTimeoutNanos;
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+
+    public SseHub(String name, long emitterTimeoutMs) {
+        this(name, emitterTimeoutMs, DEFAULT_SENDER_THREADS, DEFAULT_MAX_QUEUED, DEFAULT_SEND_TIMEOUT_MS);
+    }
+
+    public SseHub(String name, long emitterTimeoutMs, int senderThreads, int maxQueued, long sendTimeoutMs) {
+        this.name = name;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxQueued = maxQueued;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "sse-" + name + "-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Registers a new subscriber on the given topic. */
+    public SseEmitter subscribe(String topic) {
+        return subscribe(List.of(topic), List::of);
+    }
+
+    /**
+     * Registers one subscriber on several topics. The subscriber joins its topics before
+     * {@code replay} runs, on the calling thread, to load events the client missed; live events
+     * published meanwhile are held back and sent after the replayed ones, minus any the replay
+     * already contained (matched by event id), so nothing is lost or sent twice.
+     */
+    public SseEmitter subscribe(Collection<String> topicNames, Supplier<List<Event>> replay) {
+        SseEmitter emitter = newEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        for (String topic : topicNames) {
+            topics.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        List<Event> missed;
+        try {
+            missed = replay.get();
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
+        }
+        subscriber.open(missed);
+        return emitter;
+    }
+
+    /** Queues an event for every subscriber of the topic. */
+    public void publish(String topic, String eventName, String id, Object data) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null) return;
+        Event event = new Event(eventName, id, data);
+        for (Subscriber subscriber : subscribers) subscriber.offer(event);
+    }
+
+    /**
+     * Sends a comment line to every subscriber, which keeps idle connections open and reaps
+     * dead ones, and evicts subscribers whose current write has outlived the send timeout.
+     */
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : distinctSubscribers()) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                subscriber.evict("write blocked for more than " + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms");
+            } else {
+                subscriber.offer(Event.HEARTBEAT);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return topics.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : distinctSubscribers()) subscriber.emitter.complete();
+        topics.clear();
+    }
+
+
+    /** Creates the emitter for a new subscriber; tests override it to observe writes. */
+    protected SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private Set<Subscriber> distinctSubscribers() {
+        Set<Subscriber> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        topics.values().forEach(all::addAll);
+        return all;
+    }
+
+    private void remove(Subscriber subscriber) {
+        for (String topic : List.copyOf(topics.keySet())) {
+            topics.computeIfPresent(topic, (k, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    /** One event for a subscriber; a null name makes it a comment line. */
+    public record Event(String name, String id, Object data) {
+        static final Event CONNECTED = new Event(null, null, "connected");
+        static final Event HEARTBEAT = new Event(null, null, "hb");
+
+        SseEmitter.SseEventBuilder toBuilder() {
+            if (name == null) return SseEmitter.event().comment(String.valueOf(data));
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(name).data(data);
+            if (id != null) builder.id(id);
+            return builder;
+        }
+    }
+
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        private final ArrayDeque<Event> queue = new ArrayDeque<>();
+        private boolean joining = true;  // live events are held back until open()
+        private boolean draining;
+        private boolean closed;
+        private boolean completeWhenIdle; // evicted while a write was in flight
+        volatile long sendingSince;       // System.nanoTime() when the current write started, 0 when idle
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Queues "connected" (which makes proxies flush headers), the replay, then held-back live events
+        void open(List<Event> missed) {
+            synchronized (this) {
+                if (closed) return;
+                Set<String> replayedIds = new HashSet<>();
+                missed.forEach(e -> replayedIds.add(e.id()));
+                List<Event> live = List.copyOf(queue);
+                queue.clear();
+                queue.add(Event.CONNECTED);
+                queue.addAll(missed);
+                for (Event event : live) {
+                    if (event.id() == null || !replayedIds.contains(event.id())) queue.add(event);
+                }
+                joining = false;
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        void offer(Event event) {
+            synchronized (this) {
+                if (closed) return;
+                if (queue.size() < maxQueued) {
+                    queue.add(event);
+                    if (draining || joining) return;
+                    draining = true;
+                } else {
+                    event = null;
+                }
+            }
+            if (event == null) evict("more than " + maxQueued + " events queued");
+            else senders.execute(this::drain);
+        }
+
+        // One drain task per subscriber at a time, so its events go out in order
+        private void drain() {
+            while (true) {
+                Event next;
+                synchronized (this) {
+                    next = closed ? null : queue.poll();
+                    if (next == null) {
+                        draining = false;
+                        if (completeWhenIdle) emitter.complete();
+                        return;
+                    }
+                }
+                sendingSince = System.nanoTime();
+                try {
+                    emitter.send(next.toBuilder());
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Dropping {} subscriber: {}", name, e.getMessage());
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        void evict(String reason) {
+            boolean completeNow;
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                queue.clear();
+                // a stuck write holds the emitter's lock; the drain task completes it once the write returns
+                completeNow = !draining;
+                completeWhenIdle = draining;
+            }
+            log.info("Evicting slow {} subscriber: {}", name, reason);
+            remove(this);
+            if (completeNow) emitter.complete();
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            remove(this);
+        }
+    }
+}
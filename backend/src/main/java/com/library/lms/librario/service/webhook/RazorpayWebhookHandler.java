@@ -0,0 +1,91 @@
+package com.library.lms.librario.service.webhook;
+
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.PaymentStatus;
+import com.library.lms.librario.entity.WebhookEvent;
+import com.library.lms.librario.repository.PaymentRepository;
+import com.library.lms.librario.service.payment.MembershipActivationService;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Applies one Razorpay payment webhook to payments, membership requests and members.
+ *
+ * Idempotent, so duplicates and admin replays are harmless: a SUCCESS payment is never downgraded
+ * by a later "failed" event, and a membership request that is already paid is not activated again.
+ * Runs inside the worker's transaction; throwing rolls the event back for a retry.
+ */
+@Component
+public class RazorpayWebhookHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(RazorpayWebhookHandler.class);
+
+    private final PaymentRepository paymentRepo;
+    private final MembershipActivationService membershipActivationService;
+
+    public RazorpayWebhookHandler(PaymentRepository paymentRepo,
+                                  MembershipActivationService membershipActivationService) {
+        this.paymentRepo = paymentRepo;
+        this.membershipActivationService = membershipActivationService;
+    }
+
+    /** Outcome of applying an event; {@code note} says why it was ignored. */
+    public record Result(boolean applied, String note) {
+        static Result ok() {
+            return new Result(true, null);
+        }
+
+        static Result ignored(String note) {
+            return new Result(false, note);
+        }
+    }
+
+    public Result apply(WebhookEvent event) {
+        JSONObject paymentEntity = paymentEntity(new JSONObject(event.getPayload()));
+        if (paymentEntity == null) return Result.ignored("No payment entity in " + event.getEventType());
+
+        String orderId = paymentEntity.optString("order_id", null);
+        String paymentId = paymentEntity.optString("id", null);
+        String status = paymentEntity.optString("status", ""); // captured/failed
+        log.info("Webhook event: {}, orderId={}, paymentId={}, status={}", event.getEventType(), orderId, paymentId, status);
+
+        // fine orders only get a payments row from /fine-success, so there may be nothing to update
+        Payment payment = orderId == null ? null : paymentRepo.findByOrderId(orderId).orElse(null);
+        if (payment == null) return Result.ignored("No payment for order " + orderId);
+
+        switch (status) {
+            case "captured" -> {
+                // same conditional update as /success: whichever arrives first activates the membership and notifies
+                if (paymentRepo.completeByOrderId(orderId, paymentId, PaymentStatus.SUCCESS, LocalDateTime.now()) == 0) {
+                    // replay/redelivery of the capture that completed it is a no-op; anything else is reported
+                    return paymentId != null && paymentId.equals(payment.getPaymentId())
+                            ? Result.ok()
+                            : Result.ignored("Payment already completed");
+                }
+                membershipActivationService.activate(payment);
+                return Result.ok();
+            }
+            case "failed" -> {
+                // conditional update, not save(): the row read above may be stale if /success committed since
+                if (paymentRepo.failByOrderId(orderId, paymentId, PaymentStatus.FAILED, PaymentStatus.SUCCESS) == 0) {
+                    return Result.ignored("Payment already succeeded"); // an earlier attempt on the same order
+                }
+                return Result.ok();
+            }
+            default -> {
+                return Result.ignored("Payment status " + status);
+            }
+        }
+    }
+
+    // payload.payment.entity, or null for events that carry no payment (e.g. refunds, orders only)
+    static JSONObject paymentEntity(JSONObject event) {
+        JSONObject payload = event.optJSONObject("payload");
+        JSONObject payment = payload == null ? null : payload.optJSONObject("payment");
+        return payment == null ? null : payment.optJSONObject("entity");
+    }
+}
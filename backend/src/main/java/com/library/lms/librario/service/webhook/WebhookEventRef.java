@@ -0,0 +1,7 @@
+package com.library.lms.librario.service.webhook;
+
+/**
+ * What the worker needs to schedule a stored webhook event: its row id and the order it belongs to.
+ */
+public record WebhookEventRef(Long id, String orderId) {
+}
@@ -0,0 +1,153 @@
+package com.library.lms.librario.service.webhook;
+
+import com.library.lms.librario.entity.WebhookEvent;
+import com.library.lms.librario.entity.enums.WebhookEventStatus;
+import com.library.lms.librario.exception.ResourceNotFoundException;
+import com.library.lms.librario.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.json.JSONObject;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable intake for verified webhooks plus the admin inspect/replay operations.
+ *
+ * {@link #receive} only inserts the event (unique on event id) and hands it to the
+ * {@link WebhookWorker}, so the gateway gets its 200 in a few milliseconds and a retried delivery
+ * of the same event is recognised as a duplicate instead of being applied again.
+ */
+@Service
+public class WebhookInbox {
+
+    private final WebhookEventRepository eventRepository;
+    private final WebhookWorker worker;
+    private final TransactionTemplate tx;
+    private final MeterRegistry meterRegistry;
+
+    public WebhookInbox(WebhookEventRepository eventRepository,
+                        WebhookWorker worker,
+                        TransactionTemplate transactionTemplate,
+                        MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.worker = worker;
+        this.tx = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public record Receipt(Long id, String eventId, boolean duplicate) {}
+
+    /**
+     * Stores a verified webhook. {@code eventId} is the gateway's event id header; without one the
+     * payload hash stands in (a retried delivery resends the same body).
+     */
+    public Receipt receive(String eventId, String payload) {
+        String key = eventId == null || eventId.isBlank() ? "sha256:" + sha256(payload) : eventId;
+        WebhookEvent existing = eventRepository.findByEventId(key).orElse(null);
+        if (existing != null) return duplicate(existing);
+
+        JSONObject json = new JSONObject(payload);
+        JSONObject payment = RazorpayWebhookHandler.paymentEntity(json);
+        WebhookEvent event = WebhookEvent.builder()
+                .eventId(key)
+                .eventType(json.optString("event", null))
+                .orderId(payment == null ? null : payment.optString("order_id", null))
+                .paymentId(payment == null ? null : payment.optString("id", null))
+                .payload(payload)
+                .build();
+        try {
+            tx.executeWithoutResult(status -> eventRepository.saveAndFlush(event));
+        } catch (DataIntegrityViolationException e) {
+            // the same event arrived concurrently and won the insert
+            return duplicate(eventRepository.findByEventId(key).orElseThrow(() -> e));
+        }
+        meterRegistry.counter("webhooks.received", "duplicate", "false").increment();
+        worker.submit(new WebhookEventRef(event.getId(), event.getOrderId()));
+        return new Receipt(event.getId(), key, false);
+    }
+
+    private Receipt duplicate(WebhookEvent existing) {
+        meterRegistry.counter("webhooks.received", "duplicate", "true").increment();
+        return new Receipt(existing.getId(), existing.getEventId(), true);
+    }
+
+    // ----------------------------
+    // Admin: inspect and replay
+    // ----------------------------
+
+    public Page<WebhookEvent> list(WebhookEventStatus status, int page, int size) {
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200));
+        return status == null
+                ? eventRepository.findAllByOrderByIdDesc(pageable)
+                : eventRepository.findByStatusOrderByIdDesc(status, pageable);
+    }
+
+    public WebhookEvent get(Long id) {
+        return eventRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Webhook event not found: " + id));
+    }
+
+    public List<WebhookEvent> forOrder(String orderId) {
+        return eventRepository.findByOrderIdOrderById(orderId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (WebhookEventStatus status : WebhookEventStatus.values()) {
+            stats.put(status.name(), eventRepository.countByStatus(status));
+        }
+        stats.put("queued", worker.queuedCount());
+        return stats;
+    }
+
+    /** Applies one event again, whatever its status (applying is idempotent). */
+    public WebhookEvent replay(Long id) {
+        WebhookEvent event = tx.execute(status -> {
+            WebhookEvent e = get(id);
+            resetForReplay(e);
+            return eventRepository.save(e);
+        });
+        worker.submit(new WebhookEventRef(event.getId(), event.getOrderId()));
+        return event;
+    }
+
+    /** Replays every event in {@code status} received in [from, to), in arrival order. */
+    public int replay(WebhookEventStatus status, LocalDateTime from, LocalDateTime to) {
+        if (status == null) throw new IllegalArgumentException("status is required");
+        if (status == WebhookEventStatus.RECEIVED) {
+            return worker.submitPending();
+        }
+        Integer reset = tx.execute(s -> eventRepository.resetForReplay(status,
+                from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0),
+                to != null ? to : LocalDateTime.now().plusMinutes(1)));
+        if (reset != null && reset > 0) worker.submitPending();
+        return reset == null ? 0 : reset;
+    }
+
+    private static void resetForReplay(WebhookEvent event) {
+        event.setStatus(WebhookEventStatus.RECEIVED);
+        event.setAttempts(0);
+        event.setLastError(null);
+        event.setProcessedAt(null);
+    }
+
+    private static String sha256(String payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.library.lms.librario.service.webhook;
+
+import com.library.lms.librario.entity.WebhookEvent;
+import com.library.lms.librario.entity.enums.WebhookEventStatus;
+import com.library.lms.librario.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Applies stored webhook events off the request thread.
+ *
+ * Events are striped over single-threaded lanes by order id, so events for one order are applied
+ * one at a time in the order they were submitted while different orders run in parallel. Each event
+ * is applied in its own transaction under a row lock and only while still RECEIVED, so a duplicate
+ * submission (or a second instance) is a no-op. A failure rolls the event back and leaves it
+ * RECEIVED for the recovery poll, which also picks up anything left over from a restart; after
+ * {@code app.webhooks.max-attempts} it is marked FAILED for the admin replay view.
+ */
+@Component
+public class WebhookWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookWorker.class);
+
+    private final WebhookEventRepository eventRepository;
+    private final RazorpayWebhookHandler handler;
+    private final TransactionTemplate tx;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService[] lanes;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet(); // submitted, not yet finished
+
+    @Value("${app.webhooks.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.webhooks.poll-batch-size:200}")
+    private int pollBatchSize;
+
+    public WebhookWorker(WebhookEventRepository eventRepository,
+                         RazorpayWebhookHandler handler,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.webhooks.workers:4}") int workers) {
+        this.eventRepository = eventRepository;
+        this.handler = handler;
+        this.tx = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.lanes = new ExecutorService[Math.max(1, workers)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "webhook-worker-" + (i + 1);
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** Queues a stored event on its order's lane. Already-queued events are skipped. */
+    public void submit(WebhookEventRef ref) {
+        if (!queued.add(ref.id())) return;
+        try {
+            lanes[lane(ref.orderId())].execute(() -> {
+                try {
+                    process(ref.id());
+                } finally {
+                    queued.remove(ref.id());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(ref.id()); // shutting down; the poll picks it up after restart
+        }
+    }
+
+    /** Recovery: submits every RECEIVED event in arrival order. Returns how many were found. */
+    @Scheduled(fixedDelayString = "${app.webhooks.poll-ms:10000}")
+    public int submitPending() {
+        int found = 0;
+        long afterId = 0L;
+        while (true) {
+            List<WebhookEventRef> page = eventRepository.findPendingAfter(afterId, PageRequest.of(0, pollBatchSize));
+            page.forEach(this::submit);
+            found += page.size();
+            if (page.size() < pollBatchSize) return found;
+            afterId = page.get(page.size() - 1).id();
+        }
+    }
+
+    public int queuedCount() {
+        return queued.size();
+    }
+
+    private int lane(String orderId) {
+        return orderId == null ? 0 : Math.floorMod(orderId.hashCode(), lanes.length);
+    }
+
+    void process(Long id) {
+        try {
+            String outcome = tx.execute(status -> {
+                WebhookEvent event = eventRepository.findByIdForUpdate(id).orElse(null);
+                if (event == null || event.getStatus() != WebhookEventStatus.RECEIVED) return "skipped";
+                RazorpayWebhookHandler.Result result = handler.apply(event);
+                event.setStatus(result.applied() ? WebhookEventStatus.PROCESSED : WebhookEventStatus.IGNORED);
+                event.setAttempts(event.getAttempts() + 1);
+                event.setLastError(result.note());
+                event.setProcessedAt(LocalDateTime.now());
+                return result.applied() ? "processed" : "ignored";
+            });
+            meterRegistry.counter("webhooks.events", "result", outcome).increment();
+        } catch (RuntimeException e) {
+            log.warn("Webhook event {} failed: {}", id, e.toString());
+            recordFailure(id, e);
+        }
+    }
+
+    // separate transaction: the failed one rolled back everything, including the event row
+    private void recordFailure(Long id, RuntimeException error) {
+        Boolean dead = tx.execute(status -> {
+            WebhookEvent event = eventRepository.findByIdForUpdate(id).orElse(null);
+            if (event == null || event.getStatus() != WebhookEventStatus.RECEIVED) return false;
+            event.setAttempts(event.getAttempts() + 1);
+            String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+            event.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(WebhookEventStatus.FAILED);
+                return true;
+            }
+            return false;
+        });
+        meterRegistry.counter("webhooks.events", "result", Boolean.TRUE.equals(dead) ? "failed" : "retry").increment();
+        if (Boolean.TRUE.equals(dead)) log.error("Webhook event {} marked FAILED after {} attempts", id, maxAttempts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) lane.shutdownNow();
+    }
+}
@@ -0,0 +1,36 @@
+-- =====================================================================
+-- payments: indexes and unique gateway identifiers (MySQL 8)
+--
+-- New databases get these from the @Table mapping on Payment through
+-- spring.jpa.hibernate.ddl-auto=update. On an existing database Hibernate
+-- silently skips a unique constraint that current rows violate, so run
+-- this once, by hand, after resolving any duplicates reported by step 1.
+-- Online DDL: reads and writes continue while the indexes build.
+-- =====================================================================
+
+-- 1. Duplicates that would block the unique constraints (expect no rows)
+SELECT 'order_id' AS col, order_id AS value, COUNT(*) AS n
+FROM payments WHERE order_id IS NOT NULL
+GROUP BY order_id HAVING COUNT(*) > 1
+UNION ALL
+SELECT 'payment_id', payment_id, COUNT(*)
+FROM payments WHERE payment_id IS NOT NULL
+GROUP BY payment_id HAVING COUNT(*) > 1;
+
+-- 2. Unique gateway identifiers (NULLs are allowed repeatedly: offline rows have neither)
+ALTER TABLE payments
+    ADD CONSTRAINT uk_payments_order_id UNIQUE (order_id),
+    ADD CONSTRAINT uk_payments_payment_id UNIQUE (payment_id),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 3. Lookup indexes
+ALTER TABLE payments
+    ADD INDEX idx_payments_user (user_id, created_at),
+    ADD INDEX idx_payments_membership_request (membership_request_id),
+    ADD INDEX idx_payments_borrow_record (borrow_record_id),
+    ADD INDEX idx_payments_type_created (type, created_at),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- 4. Check: both lookups should show key = uk_payments_*, type = const
+EXPLAIN SELECT * FROM payments WHERE order_id = 'order_check';
+EXPLAIN SELECT * FROM payments WHERE payment_id = 'pay_check';
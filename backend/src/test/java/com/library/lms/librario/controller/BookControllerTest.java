@@ -0,0 +1,66 @@
+package com.library.lms.librario.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.lms.librario.exception.GlobalExceptionHandler;
+import com.library.lms.librario.repository.BookRepository;
+import com.library.lms.librario.service.BookService;
+import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.search.BookSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BookControllerTest {
+
+	private final BookRepository bookRepository = mock(BookRepository.class);
+	private final BookService bookService = new BookService(bookRepository,
+			mock(NotificationService.class), mock(BookSearchIndex.class), mock(ApplicationEventPublisher.class));
+	private final MockMvc mockMvc = MockMvcBuilders
+			.standaloneSetup(new BookController(bookService, new ObjectMapper()))
+			.setControllerAdvice(new GlobalExceptionHandler())
+			.build();
+
+	@Test
+	void malformedCursorIsABadRequest() throws Exception {
+		mockMvc.perform(get("/api/books/page").param("cursor", "%%%"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Invalid cursor: %%%"));
+	}
+
+	@Test
+	void nonNumericCursorKeyIsABadRequest() throws Exception {
+		String cursor = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("Dune\u0000abc".getBytes(StandardCharsets.UTF_8));
+
+		mockMvc.perform(get("/api/books/page").param("cursor", cursor).param("sort", "title"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Invalid cursor: " + cursor));
+	}
+
+	@Test
+	void lockConflictIsAConflictWithoutNamingAnEntity() throws Exception {
+		when(bookRepository.findSummariesAfterId(anyLong(), any(Pageable.class)))
+				.thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+		mockMvc.perform(get("/api/books/page"))
+				.andExpect(status().isConflict())
+				.andExpect(content().string(not(containsString("Book"))));
+	}
+}
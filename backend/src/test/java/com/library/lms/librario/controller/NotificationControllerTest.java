@@ -0,0 +1,85 @@
+package com.library.lms.librario.controller;
+
+import com.library.lms.librario.exception.GlobalExceptionHandler;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.NotificationRepository;
+import com.library.lms.librario.repository.UserRepository;
+import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.notification.AdminMailDigest;
+import com.library.lms.librario.service.notification.NotificationRetentionService;
+import com.library.lms.librario.service.notification.NotificationStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class NotificationControllerTest {
+
+	private final NotificationService notificationService = mock(NotificationService.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new NotificationController(
+					mock(NotificationRepository.class), notificationService, mock(NotificationStreamService.class),
+					userRepository, mock(AdminMailDigest.class), mock(NotificationRetentionService.class)))
+			.setControllerAdvice(new GlobalExceptionHandler())
+			.build();
+
+	@BeforeEach
+	void setUp() {
+		User member = new User();
+		member.setId(7L);
+		when(userRepository.findByEmail("m@x.com")).thenReturn(Optional.of(member));
+	}
+
+	@Test
+	void membersCanOnlyMarkTheirOwnInboxRead() throws Exception {
+		mockMvc.perform(put("/api/notifications/user/8/read-all").principal(caller("m@x.com", "MEMBER")))
+				.andExpect(status().isForbidden());
+		verify(notificationService, never()).markAllReadForUser(anyLong(), any(), any());
+
+		mockMvc.perform(put("/api/notifications/user/7/read-all").principal(caller("m@x.com", "MEMBER")))
+				.andExpect(status().isOk());
+		verify(notificationService).markAllReadForUser(7L, null, null);
+
+		mockMvc.perform(put("/api/notifications/user/8/read-all").principal(caller("admin@x.com", "ADMIN")))
+				.andExpect(status().isOk());
+		verify(notificationService).markAllReadForUser(8L, null, null);
+	}
+
+	@Test
+	void bulkDeleteIsLimitedToTheCallersInboxesUnlessAdmin() throws Exception {
+		when(notificationService.deleteAllOwnedBy(List.of(1L, 2L), 7L, List.of("MEMBER"))).thenReturn(1);
+		mockMvc.perform(post("/api/notifications/bulk-delete").principal(caller("m@x.com", "MEMBER"))
+						.contentType(MediaType.APPLICATION_JSON).content("[1, 2]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.deleted").value(1));
+		verify(notificationService, never()).deleteAll(anyList());
+
+		mockMvc.perform(post("/api/notifications/bulk-delete").principal(caller("admin@x.com", "ADMIN"))
+						.contentType(MediaType.APPLICATION_JSON).content("[1, 2]"))
+				.andExpect(status().isOk());
+		verify(notificationService).deleteAll(List.of(1L, 2L));
+	}
+
+	private static Authentication caller(String email, String role) {
+		return new UsernamePasswordAuthenticationToken(email, null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+	}
+}
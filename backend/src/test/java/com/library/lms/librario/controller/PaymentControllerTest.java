@@ -0,0 +1,59 @@
+package com.library.lms.librario.controller;
+
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.repository.BorrowRecordRepository;
+import com.library.lms.librario.repository.MembershipRequestRepository;
+import com.library.lms.librario.repository.PaymentRepository;
+import com.library.lms.librario.service.PaymentService;
+import com.library.lms.librario.service.payment.MembershipActivationService;
+import com.library.lms.librario.service.payment.PaymentGateway;
+import com.library.lms.librario.service.webhook.WebhookInbox;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.SQLException;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PaymentControllerTest {
+
+	private final PaymentService paymentService = mock(PaymentService.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PaymentController(
+			"key", "secret",
+			mock(PaymentRepository.class), mock(MembershipRequestRepository.class), mock(BorrowRecordRepository.class),
+			paymentService, mock(WebhookInbox.class), mock(PaymentGateway.class),
+			mock(MembershipActivationService.class))).build();
+
+	@Test
+	void duplicateGatewayPaymentIdIsAConflict() throws Exception {
+		when(paymentService.markFinePaymentSuccess(anyLong(), anyString()))
+				.thenThrow(violation("payments." + Payment.UK_PAYMENT_ID));
+
+		mockMvc.perform(post("/api/payments/fine-payment/success")
+						.param("borrowRecordId", "1").param("razorpayPaymentId", "pay_1"))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	void otherConstraintViolationsStayBadRequests() throws Exception {
+		when(paymentService.markFinePaymentSuccess(anyLong(), anyString()))
+				.thenThrow(violation("fk_payments_user"));
+
+		mockMvc.perform(post("/api/payments/fine-payment/success")
+						.param("borrowRecordId", "1").param("razorpayPaymentId", "pay_1"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private static DataIntegrityViolationException violation(String constraint) {
+		return new DataIntegrityViolationException("could not execute statement",
+				new ConstraintViolationException("violation", new SQLException("violation"), constraint));
+	}
+}
@@ -0,0 +1,112 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.entity.Member;
+import com.library.lms.librario.entity.MembershipPlan;
+import com.library.lms.librario.entity.Role;
+import com.library.lms.librario.entity.RoleName;
+import com.library.lms.librario.entity.enums.BorrowStatus;
+import com.library.lms.librario.entity.enums.MemberStatus;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest
+class BorrowRecordRepositoryTest {
+
+	@Autowired
+	private BorrowRecordRepository borrowRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void marksOverdueLoansAndFinesThemAtTheirPlanRate() {
+		Role role = roleRepository.findByRoleName(RoleName.MEMBER)
+				.orElseGet(() -> roleRepository.save(Role.builder().roleName(RoleName.MEMBER).build()));
+		User planMember = user(role, "Plan");
+		User noPlan = user(role, "NoPlan");
+		member(planMember, plan(new BigDecimal("2.50")));
+		Book book = book();
+
+		LocalDateTime now = LocalDateTime.now();
+		BorrowRecord late = loan(planMember, book, BorrowStatus.BORROWED, now.minusDays(4), null);
+		BorrowRecord stillLate = loan(noPlan, book, BorrowStatus.OVERDUE, now.minusDays(10), null);
+		BorrowRecord dueToday = loan(noPlan, book, BorrowStatus.BORROWED, now.toLocalDate().atStartOfDay(), null);
+		BorrowRecord notDue = loan(planMember, book, BorrowStatus.BORROWED, now.plusDays(3), null);
+		BorrowRecord returned = loan(planMember, book, BorrowStatus.RETURNED, now.minusDays(6), now.minusDays(1));
+		entityManager.flush();
+
+		int updated = borrowRepository.markOverdueAndFine(
+				List.of(late.getId(), stillLate.getId(), dueToday.getId(), notDue.getId(), returned.getId()),
+				now, now.toLocalDate(), new BigDecimal("1.00"));
+		entityManager.clear();
+
+		assertThat(updated).isEqualTo(3);
+		assertRecord(late.getId(), BorrowStatus.OVERDUE, 4, 10.0);         // plan rate 2.50
+		assertRecord(stillLate.getId(), BorrowStatus.OVERDUE, 10, 10.0);   // library default 1.00
+		assertRecord(dueToday.getId(), BorrowStatus.OVERDUE, 0, 0.0);
+		assertRecord(notDue.getId(), BorrowStatus.BORROWED, 0, 0.0);
+		assertRecord(returned.getId(), BorrowStatus.RETURNED, 0, 0.0);
+	}
+
+	private void assertRecord(Long id, BorrowStatus status, int daysOverdue, double fine) {
+		BorrowRecord record = borrowRepository.findById(id).orElseThrow();
+		assertThat(record.getStatus()).isEqualTo(status);
+		assertThat(record.getDaysOverdue()).isEqualTo(daysOverdue);
+		assertThat(record.getFineAmount()).isEqualTo(fine);
+	}
+
+	private User user(Role role, String name) {
+		return entityManager.persist(User.builder()
+				.name(name).email(name.toLowerCase() + "-" + System.nanoTime() + "@example.com")
+				.password("x").status(true).role(role).build());
+	}
+
+	private MembershipPlan plan(BigDecimal finePerDay) {
+		MembershipPlan plan = new MembershipPlan();
+		plan.setType("Premium");
+		plan.setFees(BigDecimal.TEN);
+		plan.setDurationMonths(12);
+		plan.setFinePerDay(finePerDay);
+		return entityManager.persist(plan);
+	}
+
+	private void member(User user, MembershipPlan plan) {
+		entityManager.persist(Member.builder()
+				.user(user).membershipPlan(plan).status(MemberStatus.ACTIVE)
+				.startDate(LocalDate.now().minusMonths(1)).endDate(LocalDate.now().plusMonths(11))
+				.build());
+	}
+
+	private Book book() {
+		Book book = new Book();
+		book.setTitle("Late");
+		book.setAuthor("Author");
+		book.setIsbn("late-" + System.nanoTime());
+		book.setTotalCopies(10);
+		book.setAvailableCopies(10);
+		return entityManager.persist(book);
+	}
+
+	private BorrowRecord loan(User user, Book book, BorrowStatus status, LocalDateTime due, LocalDateTime returned) {
+		return entityManager.persist(BorrowRecord.builder()
+				.user(user).book(book)
+				.borrowDate(due.minusDays(14)).dueDate(due).returnDate(returned)
+				.status(status).fineAmount(0).daysOverdue(0)
+				.build());
+	}
+}
@@ -0,0 +1,158 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.entity.enums.NotificationType;
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows/sec for inserting 100k notifications: one INSERT round-trip per row (what IDENTITY ids
+ * force Hibernate into) versus {@link NotificationBatchRepository}'s JDBC batches. Both write in
+ * a single transaction and read back generated ids.
+ *
+ * "mem" is in-process H2; "tcp" goes through H2's TCP server on loopback, so every round-trip
+ * pays a real socket hop (closer to MySQL, where the gap is wider still).
+ *
+ * Not a unit test (not picked up by surefire). Run with:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.library.lms.librario.repository.NotificationInsertBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NotificationInsertBenchmark {
+
+	private static final int ROWS = 100_000;
+
+	@Param({"mem", "tcp"})
+	public String transport;
+
+	@Param({"500"})
+	public int batchSize;
+
+	private Server server;
+	private JdbcTemplate jdbc;
+	private TransactionTemplate tx;
+	private NotificationBatchRepository batchRepository;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		String url = "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+		if (transport.equals("tcp")) {
+			server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+			url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+		}
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(url);
+
+		jdbc = new JdbcTemplate(dataSource);
+		tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		batchRepository = new NotificationBatchRepository(new JdbcBatchInserter(jdbc, batchSize));
+
+		jdbc.execute("CREATE TABLE IF NOT EXISTS notifications (" +
+				"id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT, title VARCHAR(150) NOT NULL, " +
+				"message VARCHAR(1000) NOT NULL, target_role VARCHAR(50) NOT NULL, type VARCHAR(50) NOT NULL, " +
+				"created_at TIMESTAMP NOT NULL, `read` BOOLEAN NOT NULL)");
+	}
+
+	@Setup(Level.Invocation)
+	public void truncate() {
+		jdbc.execute("TRUNCATE TABLE notifications");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jdbc.execute("DROP TABLE notifications");
+		if (server != null) server.stop();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<Long> rowByRow() {
+		List<Notification> rows = notifications();
+		return tx.execute(status -> jdbc.execute((ConnectionCallback<List<Long>>) c -> {
+			List<Long> ids = new ArrayList<>(ROWS);
+			try (PreparedStatement ps = c.prepareStatement(NotificationBatchRepository.INSERT_SQL,
+					Statement.RETURN_GENERATED_KEYS)) {
+				for (Notification n : rows) {
+					ps.setLong(1, n.getUserId());
+					ps.setString(2, n.getTitle());
+					ps.setString(3, n.getMessage());
+					ps.setString(4, n.getTargetRole());
+					ps.setString(5, n.getType().name());
+					ps.setTimestamp(6, Timestamp.valueOf(n.getCreatedAt()));
+					ps.setBoolean(7, n.isRead());
+					ps.executeUpdate();
+					try (ResultSet keys = ps.getGeneratedKeys()) {
+						keys.next();
+						ids.add(keys.getLong(1));
+					}
+				}
+			}
+			return ids;
+		}));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<Notification> jdbcBatch() {
+		List<Notification> rows = notifications();
+		return tx.execute(status -> batchRepository.insertAll(rows));
+	}
+
+	private static List<Notification> notifications() {
+		LocalDateTime now = LocalDateTime.now();
+		List<Notification> rows = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			Notification n = new Notification();
+			n.setUserId((long) (i % 5000) + 1);
+			n.setTargetRole("MEMBER");
+			n.setType(NotificationType.GENERAL);
+			n.setTitle(NotificationType.GENERAL.getDefaultTitle());
+			n.setMessage("<p>Reminder: Book '<b>Title " + i + "</b>' is due soon.</p>");
+			n.setCreatedAt(now);
+			rows.add(n);
+		}
+		return rows;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(NotificationInsertBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,143 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.dto.OfflinePaymentDTO;
+import com.library.lms.librario.dto.PaymentLedgerFilter;
+import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.PaymentStatus;
+import com.library.lms.librario.entity.PaymentType;
+import com.library.lms.librario.entity.Role;
+import com.library.lms.librario.entity.RoleName;
+import com.library.lms.librario.entity.enums.BorrowStatus;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@H2JpaTest
+@Import(PaymentLedgerRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the ledger reads through JDBC
+class PaymentLedgerRepositoryTest {
+
+	private static final PaymentLedgerFilter ALL = new PaymentLedgerFilter(null, null, null, null, null);
+
+	@Autowired
+	private PaymentLedgerRepository ledger;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private BorrowRecordRepository borrowRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	private final LocalDateTime base = LocalDateTime.of(2025, 3, 10, 12, 0);
+
+	@BeforeEach
+	void setUp() {
+		borrowRepository.deleteAll();
+		paymentRepository.deleteAll();
+		Role role = roleRepository.findByRoleName(RoleName.MEMBER)
+				.orElseGet(() -> roleRepository.save(Role.builder().roleName(RoleName.MEMBER).build()));
+		User user = userRepository.save(User.builder()
+				.name("Fined Reader").email("fined-" + System.nanoTime() + "@example.com")
+				.password("x").status(true).role(role).build());
+		Book book = new Book();
+		book.setTitle("Late Book");
+		book.setAuthor("Author");
+		book.setIsbn("ledger-" + System.nanoTime());
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		book = bookRepository.save(book);
+
+		membership("Ann", PaymentStatus.SUCCESS, base.minusDays(3), 100);
+		membership("Bob", PaymentStatus.INITIATED, base.minusDays(1), 250);
+		membership("Cy", PaymentStatus.SUCCESS, base.plusDays(5), 50);
+		Payment online = membership("Online", PaymentStatus.SUCCESS, base, 999);
+		online.setType(PaymentType.ONLINE);
+		paymentRepository.save(online);
+
+		borrowRepository.save(BorrowRecord.builder()
+				.user(user).book(book)
+				.borrowDate(base.minusDays(20)).dueDate(base.minusDays(6)).returnDate(base)
+				.status(BorrowStatus.RETURNED).fineAmount(30).finePaid(true).recordedBy("desk")
+				.build());
+		borrowRepository.save(BorrowRecord.builder()
+				.user(user).book(book)
+				.borrowDate(base.minusDays(20)).dueDate(base.minusDays(6))
+				.status(BorrowStatus.OVERDUE).fineAmount(40).finePaid(false)
+				.build());
+	}
+
+	@Test
+	void mergesBothSourcesSortedAndPagedInTheDatabase() {
+		List<OfflinePaymentDTO> first = ledger.findPage(ALL, "createdAt", false, 0, 2);
+		List<OfflinePaymentDTO> second = ledger.findPage(ALL, "createdAt", false, 2, 2);
+
+		assertThat(first).extracting(OfflinePaymentDTO::getMemberName).containsExactly("Cy", "Fined Reader");
+		assertThat(first.get(1).getSource()).isEqualTo("BORROW");
+		assertThat(first.get(1).getBookTitle()).isEqualTo("Late Book");
+		assertThat(first.get(1).getAmount()).isEqualByComparingTo("30");
+		assertThat(second).extracting(OfflinePaymentDTO::getMemberName).containsExactly("Bob", "Ann");
+
+		PaymentLedgerRepository.Totals totals = ledger.totals(ALL);
+		assertThat(totals.count()).isEqualTo(4);
+		assertThat(totals.amount()).isEqualByComparingTo("430");
+
+		assertThat(ledger.findPage(ALL, "amount", true, 0, 10))
+				.extracting(OfflinePaymentDTO::getMemberName).containsExactly("Fined Reader", "Cy", "Ann", "Bob");
+	}
+
+	@Test
+	void filtersBySourceStatusDateRangeAndText() {
+		assertThat(ledger.findPage(new PaymentLedgerFilter("borrow", null, null, null, null), "createdAt", false, 0, 10))
+				.extracting(OfflinePaymentDTO::getSource).containsExactly("BORROW");
+		assertThat(ledger.findPage(new PaymentLedgerFilter(null, "INITIATED", null, null, null), "createdAt", false, 0, 10))
+				.extracting(OfflinePaymentDTO::getMemberName).containsExactly("Bob");
+		assertThat(ledger.findPage(new PaymentLedgerFilter(null, null, base.minusDays(2), base.plusDays(1), null), "createdAt", true, 0, 10))
+				.extracting(OfflinePaymentDTO::getMemberName).containsExactly("Bob", "Fined Reader");
+		assertThat(ledger.findPage(new PaymentLedgerFilter(null, null, null, null, "late"), "createdAt", false, 0, 10))
+				.extracting(OfflinePaymentDTO::getSource).containsExactly("BORROW");
+		assertThat(ledger.totals(new PaymentLedgerFilter("BORROW", "INITIATED", null, null, null)).count()).isZero();
+
+		List<OfflinePaymentDTO> streamed = new ArrayList<>();
+		ledger.forEach(ALL, "createdAt", false, streamed::add);
+		assertThat(streamed).hasSize(4);
+		assertThat(ledger.findAll(ALL, "createdAt", false)).extracting(OfflinePaymentDTO::getSource, OfflinePaymentDTO::getSourceId)
+				.containsExactlyElementsOf(streamed.stream().map(p -> tuple(p.getSource(), p.getSourceId())).toList());
+
+		assertThatThrownBy(() -> ledger.findPage(ALL, "amount; DROP TABLE payments", true, 0, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private Payment membership(String name, PaymentStatus status, LocalDateTime createdAt, long amount) {
+		Payment payment = Payment.builder()
+				.userId(1L).membershipRequestId(1L).amount(BigDecimal.valueOf(amount)).currency("INR")
+				.status(status).type(PaymentType.OFFLINE)
+				.memberName(name).memberEmail(name.toLowerCase() + "@example.com")
+				.createdAt(createdAt).build();
+		return paymentRepository.save(payment);
+	}
+}
@@ -0,0 +1,63 @@
+package com.library.lms.librario.repository;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.PaymentStatus;
+import com.library.lms.librario.entity.PaymentType;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@H2JpaTest
+class PaymentRepositoryTest {
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void onlyTheFirstSuccessCallbackCompletesTheOrder() {
+		paymentRepository.saveAndFlush(payment("order_1", null, PaymentStatus.INITIATED));
+
+		assertThat(paymentRepository.completeByOrderId("order_1", "pay_1", PaymentStatus.SUCCESS, LocalDateTime.now())).isEqualTo(1);
+		assertThat(paymentRepository.completeByOrderId("order_1", "pay_1", PaymentStatus.SUCCESS, LocalDateTime.now())).isZero();
+		assertThat(paymentRepository.completeByOrderId("order_unknown", "pay_2", PaymentStatus.SUCCESS, LocalDateTime.now())).isZero();
+
+		entityManager.clear();
+		Payment completed = paymentRepository.findByPaymentId("pay_1").orElseThrow();
+		assertThat(completed.getOrderId()).isEqualTo("order_1");
+		assertThat(completed.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+	}
+
+	@Test
+	void gatewayIdentifiersAreUniqueButOfflineRowsMayOmitThem() {
+		paymentRepository.saveAndFlush(payment("order_1", "pay_1", PaymentStatus.SUCCESS));
+		paymentRepository.saveAndFlush(payment(null, null, PaymentStatus.SUCCESS));
+		paymentRepository.saveAndFlush(payment(null, null, PaymentStatus.SUCCESS));
+
+		assertThatThrownBy(() -> paymentRepository.saveAndFlush(payment("order_2", "pay_1", PaymentStatus.SUCCESS)))
+				.isInstanceOf(DataIntegrityViolationException.class)
+				// PaymentController tells duplicates from other violations by this name
+				.cause().isInstanceOfSatisfying(ConstraintViolationException.class,
+						e -> assertThat(e.getConstraintName()).containsIgnoringCase(Payment.UK_PAYMENT_ID));
+	}
+
+	private static Payment payment(String orderId, String paymentId, PaymentStatus status) {
+		return Payment.builder()
+				.userId(1L).amount(BigDecimal.TEN).currency("INR")
+				.status(status).type(PaymentType.ONLINE)
+				.orderId(orderId).paymentId(paymentId)
+				.createdAt(LocalDateTime.now())
+				.build();
+	}
+}
@@ -0,0 +1,140 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.dto.BookSummaryDTO;
+import com.library.lms.librario.dto.CursorPage;
+import com.library.lms.librario.entity.enums.BookStatus;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.repository.BookRepository;
+import com.library.lms.librario.service.search.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest(properties = {
+		"app.books.page-size=2",
+		"app.books.max-page-size=3"
+})
+@Import(BookService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // forEachBook runs outside a transaction
+class BookServiceListPageTest {
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@MockitoBean
+	private NotificationService notificationService;
+
+	@MockitoBean
+	private BookSearchIndex searchIndex;
+
+	@AfterEach
+	void tearDown() {
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	void pagesByIdVisitEveryBookOnce() {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) ids.add(newBook("Title " + i, "isbn-" + i).getId());
+
+		CursorPage<BookSummaryDTO> first = bookService.listPage(null, null, null);
+		assertThat(first.items()).extracting(BookSummaryDTO::id).containsExactly(ids.get(0), ids.get(1));
+		assertThat(first.hasMore()).isTrue();
+
+		CursorPage<BookSummaryDTO> second = bookService.listPage(first.nextCursor(), null, "id");
+		assertThat(second.items()).extracting(BookSummaryDTO::id).containsExactly(ids.get(2), ids.get(3));
+
+		CursorPage<BookSummaryDTO> last = bookService.listPage(second.nextCursor(), null, "id");
+		assertThat(last.items()).extracting(BookSummaryDTO::id).containsExactly(ids.get(4));
+		assertThat(last.hasMore()).isFalse();
+		assertThat(last.nextCursor()).isNull();
+	}
+
+	@Test
+	void pagesByTitleBreakTiesOnIdAcrossPageBoundaries() {
+		Long b1 = newBook("Beta", "isbn-b1").getId();
+		Long a1 = newBook("Alpha", "isbn-a1").getId();
+		Long a2 = newBook("Alpha", "isbn-a2").getId();
+		Long c1 = newBook("Gamma", "isbn-c1").getId();
+		Long b2 = newBook("Beta", "isbn-b2").getId();
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CursorPage<BookSummaryDTO> page = bookService.listPage(cursor, 2, "title");
+			page.items().forEach(b -> seen.add(b.id()));
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).containsExactly(a1, a2, b1, b2, c1);
+	}
+
+	@Test
+	void rowsInsertedWhilePagingDoNotShiftLaterPages() {
+		Long first = newBook("Title 1", "isbn-1").getId();
+		Long second = newBook("Title 2", "isbn-2").getId();
+		Long third = newBook("Title 3", "isbn-3").getId();
+
+		CursorPage<BookSummaryDTO> page = bookService.listPage(null, 2, null);
+		assertThat(page.items()).extracting(BookSummaryDTO::id).containsExactly(first, second);
+
+		bookRepository.deleteById(first); // an offset would now skip "Title 3"
+		Long added = newBook("Title 4", "isbn-4").getId();
+
+		CursorPage<BookSummaryDTO> next = bookService.listPage(page.nextCursor(), 2, null);
+		assertThat(next.items()).extracting(BookSummaryDTO::id).containsExactly(third, added);
+	}
+
+	@Test
+	void pageSizeIsClampedAndRowsCarryTheSummaryColumns() {
+		for (int i = 1; i <= 5; i++) newBook("Title " + i, "isbn-" + i);
+
+		assertThat(bookService.listPage(null, 100, null).items()).hasSize(3);
+		assertThat(bookService.listPage(null, 0, null).items()).hasSize(1);
+
+		BookSummaryDTO row = bookService.listPage(null, 1, null).items().get(0);
+		assertThat(row.title()).isEqualTo("Title 1");
+		assertThat(row.author()).isEqualTo("Author");
+		assertThat(row.isbn()).isEqualTo("isbn-1");
+		assertThat(row.totalCopies()).isEqualTo(2);
+		assertThat(row.availableCopies()).isEqualTo(2);
+		assertThat(row.status()).isEqualTo(BookStatus.AVAILABLE);
+	}
+
+	@Test
+	void forEachBookWalksTheWholeCatalogPageByPage() {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 1; i <= 7; i++) ids.add(newBook("Title " + i, "isbn-" + i).getId()); // 3 pages of 3
+
+		List<Long> seen = new ArrayList<>();
+		bookService.forEachBook(book -> seen.add(book.getId()));
+
+		assertThat(seen).containsExactlyElementsOf(ids);
+	}
+
+	private Book newBook(String title, String isbn) {
+		Book book = new Book();
+		book.setTitle(title);
+		book.setAuthor("Author");
+		book.setIsbn(isbn);
+		book.setTotalCopies(2);
+		book.setAvailableCopies(2);
+		return bookRepository.save(book);
+	}
+}
@@ -0,0 +1,22 @@
+package com.library.lms.librario.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRowsTest {
+
+	@Test
+	void quotesValuesAndLeavesNullsEmpty() {
+		assertThat(CsvRows.row("pay_1", null, new BigDecimal("120.50"), "say \"hi\""))
+				.isEqualTo("\"pay_1\",,\"120.50\",\"say \"\"hi\"\"\"\n");
+	}
+
+	@Test
+	void neutralisesFormulasButNotNegativeNumbers() {
+		assertThat(CsvRows.row("=HYPERLINK(\"x\")", "+1", "@SUM(A1)", new BigDecimal("-5")))
+				.isEqualTo("\"'=HYPERLINK(\"\"x\"\")\",\"'+1\",\"'@SUM(A1)\",\"-5\"\n");
+	}
+}
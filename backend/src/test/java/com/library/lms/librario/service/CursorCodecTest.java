@@ -0,0 +1,50 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+	@Test
+	void roundTripsEveryPart() {
+		LocalDateTime createdAt = LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123_000_000);
+		String cursor = CursorCodec.encode("Cien años, de soledad", createdAt, 42L);
+
+		CursorCodec.Key key = CursorCodec.decode(cursor, 3);
+		assertThat(key.text(0)).isEqualTo("Cien años, de soledad");
+		assertThat(key.dateTime(1)).isEqualTo(createdAt);
+		assertThat(key.longValue(2)).isEqualTo(42L);
+		assertThat(cursor).doesNotContain("+", "/", "=");
+	}
+
+	@Test
+	void missingCursorMeansFirstPage() {
+		assertThat(CursorCodec.decode(null, 1)).isNull();
+		assertThat(CursorCodec.decode(" ", 2)).isNull();
+	}
+
+	@Test
+	void malformedCursorsAreRejected() {
+		assertThatThrownBy(() -> CursorCodec.decode("not base64!", 1))
+				.isInstanceOf(InvalidCursorException.class)
+				.hasMessage("Invalid cursor: not base64!");
+		// a title cursor sent to an id-sorted listing
+		assertThatThrownBy(() -> CursorCodec.decode(CursorCodec.encode("Dune", 7L), 1))
+				.isInstanceOf(InvalidCursorException.class);
+
+		CursorCodec.Key key = CursorCodec.decode(raw("abc\u0000xyz"), 2);
+		assertThatThrownBy(() -> key.longValue(0)).isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> key.dateTime(1)).isInstanceOf(InvalidCursorException.class);
+	}
+
+	private static String raw(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,126 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.entity.Role;
+import com.library.lms.librario.entity.RoleName;
+import com.library.lms.librario.entity.enums.BorrowStatus;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.BookRepository;
+import com.library.lms.librario.repository.BorrowRecordRepository;
+import com.library.lms.librario.repository.RoleRepository;
+import com.library.lms.librario.repository.UserRepository;
+import com.library.lms.librario.service.notification.NotificationDraft;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+@H2JpaTest(properties = {
+		"app.due-reminder.chunk-size=2"
+})
+@Import(DueDateReminderService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each chunk commits on its own
+class DueDateReminderServiceTest {
+
+	@Autowired
+	private DueDateReminderService reminders;
+
+	@Autowired
+	private BorrowRecordRepository borrowRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@MockitoBean
+	private NotificationService notificationService;
+
+	private User user;
+	private Book book;
+
+	@BeforeEach
+	void setUp() {
+		borrowRepository.deleteAll();
+		Role role = roleRepository.save(Role.builder().roleName(RoleName.MEMBER).build());
+		user = userRepository.save(User.builder()
+				.name("Reader").email("reader-" + System.nanoTime() + "@example.com")
+				.password("x").status(true).role(role).build());
+		book = new Book();
+		book.setTitle("Due soon");
+		book.setAuthor("Author");
+		book.setIsbn("due-" + System.nanoTime());
+		book.setTotalCopies(10);
+		book.setAvailableCopies(10);
+		book = bookRepository.save(book);
+	}
+
+	@Test
+	void remindsEachActiveLoanOncePerDueDate() {
+		LocalDateTime now = LocalDateTime.now();
+		BorrowRecord dueTomorrow = loan(now.plusDays(1), BorrowStatus.BORROWED);
+		loan(now.plusHours(30), BorrowStatus.BORROWED);
+		loan(now.plusHours(50), BorrowStatus.BORROWED);
+		loan(now.plusDays(10), BorrowStatus.BORROWED);   // outside the window
+		loan(now.plusDays(1), BorrowStatus.RETURNED);    // returned
+		loan(now.minusDays(1), BorrowStatus.OVERDUE);    // already past due
+
+		assertThat(reminders.sendDueSoonReminders()).isEqualTo(3);
+		assertThat(sentDrafts()).hasSize(3).allSatisfy(d -> {
+			assertThat(d.userId()).isEqualTo(user.getId());
+			assertThat(d.email()).isEqualTo(user.getEmail());
+			assertThat(d.type()).isEqualTo(NotificationType.DUE_DATE);
+		});
+
+		// rerun: watermark skips everything already reminded
+		assertThat(reminders.sendDueSoonReminders()).isZero();
+		assertThat(sentDrafts()).isEmpty();
+
+		// renewal moves the due date: the loan is reminded again for the new date
+		BorrowRecord renewed = borrowRepository.findById(dueTomorrow.getId()).orElseThrow();
+		renewed.setDueDate(now.plusDays(2));
+		borrowRepository.save(renewed);
+		assertThat(reminders.sendDueSoonReminders()).isEqualTo(1);
+		assertThat(sentDrafts()).hasSize(1);
+	}
+
+	// every draft handed to NotificationService.createAll since the last clear (one call per chunk)
+	@SuppressWarnings("unchecked")
+	private List<NotificationDraft> sentDrafts() {
+		ArgumentCaptor<List<NotificationDraft>> captor = ArgumentCaptor.forClass(List.class);
+		verify(notificationService, atLeast(0)).createAll(captor.capture());
+		List<NotificationDraft> drafts = captor.getAllValues().stream().flatMap(List::stream).toList();
+		clearInvocations(notificationService);
+		return drafts;
+	}
+
+	private BorrowRecord loan(LocalDateTime dueDate, BorrowStatus status) {
+		return borrowRepository.save(BorrowRecord.builder()
+				.user(user)
+				.book(book)
+				.borrowDate(dueDate.minusDays(14))
+				.dueDate(dueDate)
+				.returnDate(status == BorrowStatus.RETURNED ? LocalDateTime.now() : null)
+				.status(status)
+				.build());
+	}
+}
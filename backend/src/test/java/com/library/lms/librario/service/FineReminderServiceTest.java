@@ -0,0 +1,136 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.dto.FineReminderRunResult;
+import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.entity.Role;
+import com.library.lms.librario.entity.RoleName;
+import com.library.lms.librario.entity.enums.BorrowStatus;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.BookRepository;
+import com.library.lms.librario.repository.BorrowRecordRepository;
+import com.library.lms.librario.repository.RoleRepository;
+import com.library.lms.librario.repository.UserRepository;
+import com.library.lms.librario.service.batch.PartitionedJobRunner;
+import com.library.lms.librario.service.mail.MailService;
+import com.library.lms.librario.service.mail.template.MailTemplateEngine;
+import com.library.lms.librario.service.notification.NotificationDraft;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+
+@H2JpaTest(properties = {
+		"app.fine-reminder.chunk-size=1",
+		"app.batch.partitions=2"
+})
+@Import({FineReminderService.class, PartitionedJobRunner.class, MailTemplateEngine.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each chunk commits on its own
+class FineReminderServiceTest {
+
+	@Autowired
+	private FineReminderService reminders;
+
+	@Autowired
+	private BorrowRecordRepository borrowRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@MockitoBean
+	private NotificationService notificationService;
+
+	@MockitoBean
+	private MailService mailService;
+
+	@Test
+	void sendsOneDigestPerMemberWithFines() {
+		borrowRepository.deleteAll();
+		Role role = roleRepository.save(Role.builder().roleName(RoleName.MEMBER).build());
+		User many = member(role, "Many");
+		User one = member(role, "One");
+		User none = member(role, "None");
+		Book book = book();
+		loan(many, book, BorrowStatus.OVERDUE, 10);
+		loan(many, book, BorrowStatus.OVERDUE, 20);
+		loan(many, book, BorrowStatus.OVERDUE, 5.5);
+		loan(many, book, BorrowStatus.RETURNED, 99); // paid off and returned
+		loan(one, book, BorrowStatus.OVERDUE, 3);
+		loan(none, book, BorrowStatus.OVERDUE, 0);   // overdue today, no fine yet
+
+		FineReminderRunResult result = reminders.sendFineReminders();
+
+		assertThat(result.digests()).isEqualTo(2);
+		assertThat(result.fines()).isEqualTo(4);
+		assertThat(result.failedPartitions()).isZero();
+		assertThat(sentDrafts()).hasSize(2)
+				.allSatisfy(d -> assertThat(d.email()).isNull()) // mail goes out once, as the digest
+				.anySatisfy(d -> {
+					assertThat(d.userId()).isEqualTo(many.getId());
+					assertThat(d.messageHtml()).contains("3 overdue book(s)", "₹35.50");
+				});
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Map<String, ?>> params = ArgumentCaptor.forClass(Map.class);
+		verify(mailService).sendTemplate(eq(many.getEmail()), anyString(), eq("fine-digest"), params.capture());
+		verify(mailService).sendTemplate(eq(one.getEmail()), anyString(), eq("fine-digest"), params.capture());
+		assertThat(params.getAllValues().get(0).get("rows").toString()).contains("₹10.00", "₹20.00", "₹5.50")
+				.doesNotContain("₹99");
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<NotificationDraft> sentDrafts() {
+		ArgumentCaptor<List<NotificationDraft>> captor = ArgumentCaptor.forClass(List.class);
+		verify(notificationService, atLeast(0)).createAll(captor.capture());
+		return captor.getAllValues().stream().flatMap(List::stream).toList();
+	}
+
+	private User member(Role role, String name) {
+		return userRepository.save(User.builder()
+				.name(name).email(name.toLowerCase() + "-" + System.nanoTime() + "@example.com")
+				.password("x").status(true).role(role).build());
+	}
+
+	private Book book() {
+		Book book = new Book();
+		book.setTitle("Fined");
+		book.setAuthor("Author");
+		book.setIsbn("fine-" + System.nanoTime());
+		book.setTotalCopies(10);
+		book.setAvailableCopies(10);
+		return bookRepository.save(book);
+	}
+
+	private void loan(User user, Book book, BorrowStatus status, double fine) {
+		LocalDateTime due = LocalDateTime.now().minusDays(5);
+		borrowRepository.save(BorrowRecord.builder()
+				.user(user)
+				.book(book)
+				.borrowDate(due.minusDays(14))
+				.dueDate(due)
+				.returnDate(status == BorrowStatus.RETURNED ? LocalDateTime.now() : null)
+				.status(status)
+				.fineAmount(fine)
+				.build());
+	}
+}
@@ -0,0 +1,156 @@
+package com.library.lms.librario.service;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.dto.CursorPage;
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.repository.JdbcBatchInserter;
+import com.library.lms.librario.repository.NotificationBatchRepository;
+import com.library.lms.librario.repository.NotificationRepository;
+import com.library.lms.librario.service.mail.MailService;
+import com.library.lms.librario.service.notification.NotificationDraft;
+import com.library.lms.librario.service.notification.AdminMailDigest;
+import com.library.lms.librario.service.notification.UnreadCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest
+@Import({NotificationService.class, UnreadCounter.class, AdminMailDigest.class, NotificationBatchRepository.class, JdbcBatchInserter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // counters move on commit
+class NotificationInboxTest {
+
+	private static final long USER_ID = 4242L;
+
+	@Autowired
+	private NotificationService notifications;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@MockitoBean
+	private MailService mailService;
+
+	@Test
+	void pagesThroughInboxNewestFirstAndTracksUnreadCount() {
+		for (int i = 0; i < 25; i++) {
+			notifications.createForMember(USER_ID, null, "message " + i, NotificationType.GENERAL);
+		}
+		assertThat(notifications.getUnreadCountForUser(USER_ID)).isEqualTo(25);
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CursorPage<Notification> page = notifications.getUserInbox(USER_ID, cursor, 10, false);
+			page.items().forEach(n -> seen.add(n.getId()));
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).hasSize(25).doesNotHaveDuplicates();
+		assertThat(seen).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+
+		// counter follows writes once tracked
+		notifications.markAsRead(seen.get(0));
+		notifications.markAsRead(seen.get(0)); // already read: no double decrement
+		notifications.delete(seen.get(1));
+		notifications.createForMember(USER_ID, null, "one more", NotificationType.GENERAL);
+		assertThat(notifications.getUnreadCountForUser(USER_ID)).isEqualTo(24);
+		assertThat(notificationRepository.countByUserIdAndReadFalse(USER_ID)).isEqualTo(24);
+
+		assertThat(notifications.getUserInbox(USER_ID, null, 100, true).items())
+				.hasSize(24)
+				.noneMatch(Notification::isRead);
+	}
+
+	@Test
+	void streamReplayReturnsOnlyTheSubscribersInboxesInIdOrder() {
+		long mark = notificationRepository.findAll().stream().mapToLong(Notification::getId).max().orElse(0L);
+		Notification mine = notifications.createForMember(7001L, null, "mine", NotificationType.GENERAL);
+		notifications.createForMember(7002L, null, "someone else's", NotificationType.GENERAL);
+		Notification admin = notifications.createForAdmin("admin broadcast");
+
+		List<String> member = List.of("MEMBER");
+		assertThat(notificationRepository.findStreamReplay(mark, 7001L, member, PageRequest.of(0, 10)))
+				.extracting(Notification::getId).containsExactly(mine.getId());
+
+		assertThat(notificationRepository.findStreamReplay(mark, 1L, List.of("ADMIN"), PageRequest.of(0, 10)))
+				.extracting(Notification::getId).containsExactly(admin.getId());
+
+		assertThat(notificationRepository.findStreamReplay(mine.getId(), 7001L, member, PageRequest.of(0, 10)))
+				.isEmpty();
+	}
+
+	@Test
+	void batchCreateInsertsAllRowsWithIdsAndCountsThem() {
+		long userId = 8001L;
+		assertThat(notifications.getUnreadCountForUser(userId)).isZero(); // start tracking
+
+		List<NotificationDraft> drafts = new ArrayList<>();
+		for (int i = 0; i < 1234; i++) {
+			drafts.add(NotificationDraft.forMember(userId, null, "bulk " + i, NotificationType.GENERAL));
+		}
+		List<Notification> created = notifications.createAll(drafts);
+
+		assertThat(created).extracting(Notification::getId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(created.get(0).getId()).isLessThan(created.get(created.size() - 1).getId());
+		assertThat(notificationRepository.countByUserIdAndReadFalse(userId)).isEqualTo(1234);
+		assertThat(notifications.getUnreadCountForUser(userId)).isEqualTo(1234);
+		assertThat(notificationRepository.findById(created.get(5).getId()).orElseThrow().getMessage())
+				.isEqualTo("bulk 5");
+	}
+
+	@Test
+	void bulkReadAndDeleteAreSetBasedAndKeepCountersExact() {
+		long userId = 9001L;
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			ids.add(notifications.createForMember(userId, null, "n" + i, NotificationType.GENERAL).getId());
+		}
+		for (int i = 0; i < 3; i++) notifications.createForLibrarian("staff " + i);
+		assertThat(notifications.getUnreadCountForUser(userId)).isEqualTo(6);
+		long librarianUnread = notifications.getRoleInbox("LIBRARIAN", null, 100, true).items().size();
+		assertThat(librarianUnread).isEqualTo(3);
+
+		// up to the 4th id only: the two newest stay unread
+		assertThat(notifications.markAllReadForUser(userId, ids.get(3), null)).isEqualTo(4);
+		assertThat(notifications.markAllReadForUser(userId, ids.get(3), null)).isZero();
+		assertThat(notifications.getUnreadCountForUser(userId)).isEqualTo(2);
+
+		// one read and one unread row deleted: only the unread one leaves the count
+		assertThat(notifications.deleteAll(List.of(ids.get(0), ids.get(5), -1L))).isEqualTo(2);
+		assertThat(notifications.getUnreadCountForUser(userId)).isEqualTo(1);
+		assertThat(notificationRepository.countByUserIdAndReadFalse(userId)).isEqualTo(1);
+
+		assertThat(notifications.markAllReadForRole("LIBRARIAN", null, null)).isEqualTo(3);
+		assertThat(notifications.getRoleInbox("LIBRARIAN", null, 100, true).items()).isEmpty();
+	}
+
+	@Test
+	void ownedDeleteSkipsOtherUsersAndOtherRolesNotifications() {
+		long userId = 9101L;
+		Long own = notifications.createForMember(userId, null, "mine", NotificationType.GENERAL).getId();
+		Long othersMember = notifications.createForMember(9102L, null, "theirs", NotificationType.GENERAL).getId();
+		Long librarians = notifications.createForLibrarian("staff only").getId();
+		assertThat(notifications.getUnreadCountForUser(userId)).isEqualTo(1);
+
+		assertThat(notifications.deleteAllOwnedBy(List.of(own, othersMember, librarians), userId, List.of("MEMBER")))
+				.isEqualTo(1);
+		assertThat(notificationRepository.findAllById(List.of(own, othersMember, librarians)))
+				.extracting(Notification::getId).containsExactlyInAnyOrder(othersMember, librarians);
+		assertThat(notifications.getUnreadCountForUser(userId)).isZero();
+
+		assertThat(notifications.deleteAllOwnedBy(List.of(librarians), 9103L, List.of("LIBRARIAN"))).isEqualTo(1);
+	}
+}
@@ -0,0 +1,52 @@
+package com.library.lms.librario.service.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionedJobRunnerTest {
+
+	@Test
+	void splitCoversRangeWithoutGapsOrOverlap() {
+		List<IdRange> ranges = PartitionedJobRunner.split(new IdRange(7L, 1_006L), 16);
+
+		assertThat(ranges).hasSize(16);
+		assertThat(ranges.get(0).from()).isEqualTo(7L);
+		assertThat(ranges.get(15).to()).isEqualTo(1_006L);
+		for (int i = 1; i < ranges.size(); i++) {
+			assertThat(ranges.get(i).from()).isEqualTo(ranges.get(i - 1).to() + 1);
+		}
+		assertThat(PartitionedJobRunner.split(new IdRange(5L, 7L), 16)).hasSize(3);
+	}
+
+	@Test
+	void failingPartitionDoesNotStopTheOthers() {
+		PartitionedJobRunner runner = new PartitionedJobRunner(true, 4, 8);
+		Set<Long> processed = ConcurrentHashMap.newKeySet();
+		try {
+			List<PartitionResult> results = runner.run("test", new IdRange(1L, 80L), (range, progress) -> {
+				for (long id = range.from(); id <= range.to(); id++) {
+					if (id == 35L) throw new IllegalStateException("boom at " + id);
+					processed.add(id);
+					progress.chunkCommitted(1, 0);
+				}
+			});
+
+			assertThat(results).hasSize(8);
+			assertThat(results).filteredOn(PartitionResult::failed).singleElement()
+					.satisfies(r -> {
+						assertThat(r.userFrom()).isEqualTo(31L);
+						assertThat(r.rows()).isEqualTo(4); // 31..34 committed before the failure
+						assertThat(r.error()).contains("boom at 35");
+					});
+			assertThat(processed).hasSize(80 - 6); // 35..40 never ran
+			assertThat(results).allSatisfy(r -> assertThat(r.elapsedMs()).isGreaterThanOrEqualTo(0));
+		} finally {
+			runner.shutdown();
+		}
+	}
+}
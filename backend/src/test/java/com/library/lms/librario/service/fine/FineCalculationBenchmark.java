@@ -0,0 +1,181 @@
+package com.library.lms.librario.service.fine;
+
+import com.library.lms.librario.entity.Config;
+import com.library.lms.librario.entity.Member;
+import com.library.lms.librario.entity.MembershipPlan;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.ConfigRepository;
+import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.repository.MembershipPlanRepository;
+import com.library.lms.librario.service.ConfigService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-record cost of the fine calculation: the old member + config lookup per record versus
+ * FineRateResolver's cached path. Repositories are stubs that park for {@code roundTripMicros}
+ * per call to stand in for a DB round-trip.
+ *
+ * Not a unit test (not picked up by surefire). Run with:
+ * <pre>
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.library.lms.librario.service.fine.FineCalculationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FineCalculationBenchmark {
+
+	private static final int RECORDS = 1000;
+	private static final int MEMBERS = 200;
+
+	@Param({"0", "200"})
+	public int roundTripMicros;
+
+	private MemberRepository memberRepository;
+	private ConfigRepository configRepository;
+	private FineRateResolver resolver;
+	private final List<Long> userIds = new ArrayList<>();
+	private final List<LocalDateTime> dueDates = new ArrayList<>();
+	private final LocalDate today = LocalDate.now();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		MembershipPlan basic = plan(1L, "5");
+		MembershipPlan premium = plan(2L, "2");
+
+		memberRepository = stub(MemberRepository.class, (method, args) -> switch (method) {
+			case "findByUser_Id" -> Optional.of(member((Long) args[0], (Long) args[0] % 3 == 0 ? null : basic));
+			case "findPlanRefsByUserIds" -> {
+				List<MemberPlanRef> refs = new ArrayList<>();
+				for (Object id : (Collection<?>) args[0]) {
+					long userId = (Long) id;
+					refs.add(new MemberPlanRef(userId, userId % 3 == 0 ? null : userId % 3 == 1 ? 1L : 2L));
+				}
+				yield refs;
+			}
+			default -> throw new UnsupportedOperationException(method);
+		});
+		MembershipPlanRepository planRepository = stub(MembershipPlanRepository.class, (method, args) -> {
+			if (method.equals("findAll")) return List.of(basic, premium);
+			throw new UnsupportedOperationException(method);
+		});
+		configRepository = stub(ConfigRepository.class, (method, args) -> {
+			if (method.equals("findById")) return Optional.of(new Config("finePerDay", "10"));
+			throw new UnsupportedOperationException(method);
+		});
+
+		resolver = new FineRateResolver(memberRepository, planRepository,
+				new ConfigService(configRepository, Duration.ofMinutes(5)), Duration.ofMinutes(10));
+
+		for (int i = 0; i < RECORDS; i++) {
+			userIds.add((long) (i % MEMBERS) + 1);
+			dueDates.add(LocalDateTime.now().minusDays(1 + i % 30));
+		}
+		resolver.preload(userIds);
+	}
+
+	/** Previous behaviour: member lookup + config read for every record. */
+	@Benchmark
+	@OperationsPerInvocation(RECORDS)
+	public void lookupPerRecord(Blackhole bh) {
+		for (int i = 0; i < RECORDS; i++) {
+			long days = ChronoUnit.DAYS.between(dueDates.get(i).toLocalDate(), today);
+			Member member = memberRepository.findByUser_Id(userIds.get(i)).orElse(null);
+			BigDecimal rate = member != null && member.getMembershipPlan() != null
+					? member.getMembershipPlan().getFinePerDay()
+					: new BigDecimal(configRepository.findById("finePerDay").map(Config::getValue).orElse("10"));
+			bh.consume(rate.multiply(BigDecimal.valueOf(days)));
+		}
+	}
+
+	/** Warm resolver: no repository calls on the hot path. */
+	@Benchmark
+	@OperationsPerInvocation(RECORDS)
+	public void cachedResolver(Blackhole bh) {
+		for (int i = 0; i < RECORDS; i++) {
+			bh.consume(resolver.calculate(dueDates.get(i), null, userIds.get(i), today));
+		}
+	}
+
+	/** Cold resolver per batch: one bulk preload + one plan load, amortised over the batch. */
+	@Benchmark
+	@OperationsPerInvocation(RECORDS)
+	public void coldResolverWithPreload(Blackhole bh) {
+		resolver.invalidateAll();
+		resolver.preload(userIds);
+		for (int i = 0; i < RECORDS; i++) {
+			bh.consume(resolver.calculate(dueDates.get(i), null, userIds.get(i), today));
+		}
+	}
+
+	// ----------------------------
+	// Stubs
+	// ----------------------------
+
+	private interface Answer {
+		Object answer(String method, Object[] args);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T stub(Class<T> type, Answer answer) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			if (method.getDeclaringClass() == Object.class) {
+				return method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+						: method.getName().equals("equals") ? proxy == args[0] : type.getSimpleName();
+			}
+			if (roundTripMicros > 0) LockSupport.parkNanos(roundTripMicros * 1000L);
+			return answer.answer(method.getName(), args);
+		});
+	}
+
+	private static MembershipPlan plan(Long id, String finePerDay) {
+		MembershipPlan plan = new MembershipPlan();
+		plan.setId(id);
+		plan.setFinePerDay(new BigDecimal(finePerDay));
+		return plan;
+	}
+
+	private static Member member(Long userId, MembershipPlan plan) {
+		User user = new User();
+		user.setId(userId);
+		return Member.builder().user(user).membershipPlan(plan).build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(FineCalculationBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,87 @@
+package com.library.lms.librario.service.fine;
+
+import com.library.lms.librario.entity.Config;
+import com.library.lms.librario.entity.MembershipPlan;
+import com.library.lms.librario.repository.ConfigRepository;
+import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.repository.MembershipPlanRepository;
+import com.library.lms.librario.service.ConfigService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FineRateResolverTest {
+
+	private MemberRepository members;
+	private MembershipPlanRepository plans;
+	private ConfigRepository configs;
+	private ConfigService configService;
+	private FineRateResolver resolver;
+	private MembershipPlan basic;
+
+	@BeforeEach
+	void setUp() {
+		members = mock(MemberRepository.class);
+		plans = mock(MembershipPlanRepository.class);
+		configs = mock(ConfigRepository.class);
+
+		basic = new MembershipPlan();
+		basic.setId(1L);
+		basic.setFinePerDay(new BigDecimal("5"));
+		when(plans.findAll()).thenReturn(List.of(basic));
+		when(members.findPlanRefsByUserIds(anyCollection()))
+				.thenReturn(List.of(new MemberPlanRef(7L, 1L), new MemberPlanRef(8L, null)));
+		when(configs.findById(any())).thenReturn(Optional.of(new Config("finePerDay", "10")));
+
+		configService = new ConfigService(configs, Duration.ofMinutes(5));
+		resolver = new FineRateResolver(members, plans, configService, Duration.ofMinutes(10));
+	}
+
+	@Test
+	void preloadedLookupsDoNotHitTheDatabase() {
+		resolver.preload(List.of(7L, 8L, 9L));
+
+		LocalDateTime due = LocalDate.now().minusDays(3).atStartOfDay();
+		for (int i = 0; i < 100; i++) {
+			assertThat(resolver.calculate(due, null, 7L, LocalDate.now())).isEqualByComparingTo("15");
+			assertThat(resolver.calculate(due, null, 8L, LocalDate.now())).isEqualByComparingTo("30"); // no plan
+			assertThat(resolver.calculate(due, null, 9L, LocalDate.now())).isEqualByComparingTo("30"); // not a member
+		}
+
+		verify(members, times(1)).findPlanRefsByUserIds(anyCollection());
+		verify(plans, times(1)).findAll();
+		verify(configs, times(1)).findById("finePerDay");
+	}
+
+	@Test
+	void planAndConfigChangesAreVisibleAfterInvalidation() {
+		resolver.preload(List.of(7L, 8L));
+		assertThat(resolver.finePerDay(7L)).isEqualByComparingTo("5");
+
+		basic.setFinePerDay(new BigDecimal("6"));
+		resolver.onFineRatesChanged(new FineRatesChangedEvent(1L));
+		assertThat(resolver.finePerDay(7L)).isEqualByComparingTo("6");
+
+		when(configs.findById("finePerDay")).thenReturn(Optional.of(new Config("finePerDay", "12")));
+		configService.setFinePerDay(new BigDecimal("12"));
+		assertThat(resolver.finePerDay(8L)).isEqualByComparingTo("12");
+
+		when(members.findPlanRefsByUserIds(anyCollection())).thenReturn(List.of(new MemberPlanRef(8L, 1L)));
+		resolver.onMemberPlanChanged(new MemberPlanChangedEvent(8L));
+		assertThat(resolver.finePerDay(8L)).isEqualByComparingTo("6");
+	}
+}
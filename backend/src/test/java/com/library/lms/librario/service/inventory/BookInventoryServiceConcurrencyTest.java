@@ -0,0 +1,109 @@
+package com.library.lms.librario.service.inventory;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.enums.BookStatus;
+import com.library.lms.librario.exception.BookUnavailableException;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest(properties = {
+		"spring.datasource.hikari.maximum-pool-size=20"
+})
+@Import(BookInventoryService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every thread commits its own transaction
+class BookInventoryServiceConcurrencyTest {
+
+	private static final int THREADS = 200;
+	private static final int COPIES = 50;
+
+	@Autowired
+	private BookInventoryService inventory;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void twoHundredConcurrentAllocationsNeverOversubscribe() throws Exception {
+		Long bookId = newBook("concurrency-1", COPIES).getId();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		AtomicInteger allocated = new AtomicInteger();
+		AtomicInteger unavailable = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				try {
+					inventory.withRetry(() -> tx.execute(status -> inventory.allocate(bookId)));
+					allocated.incrementAndGet();
+				} catch (BookUnavailableException e) {
+					unavailable.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS); // rethrows anything other than "no copies left"
+		}
+		pool.shutdown();
+
+		Book book = bookRepository.findById(bookId).orElseThrow();
+		assertThat(allocated.get()).isEqualTo(COPIES);
+		assertThat(unavailable.get()).isEqualTo(THREADS - COPIES);
+		assertThat(book.getAvailableCopies()).isZero();
+		assertThat(book.getStatus()).isEqualTo(BookStatus.UNAVAILABLE);
+		assertThat(book.getVersion()).isEqualTo(COPIES);
+	}
+
+	@Test
+	void releaseNeverExceedsTotalCopies() {
+		Long bookId = newBook("concurrency-2", 2).getId();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		tx.execute(status -> inventory.allocate(bookId));
+		Boolean released = tx.execute(status -> inventory.release(bookId));
+		Boolean releasedBeyondTotal = tx.execute(status -> inventory.release(bookId));
+
+		assertThat(released).isTrue();
+		assertThat(releasedBeyondTotal).isFalse();
+
+		Book book = bookRepository.findById(bookId).orElseThrow();
+		assertThat(book.getAvailableCopies()).isEqualTo(2);
+		assertThat(book.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+	}
+
+	private Book newBook(String isbn, int copies) {
+		Book book = new Book();
+		book.setTitle("Popular title " + isbn);
+		book.setAuthor("Author");
+		book.setIsbn(isbn);
+		book.setTotalCopies(copies);
+		book.setAvailableCopies(copies);
+		return bookRepository.save(book);
+	}
+}
@@ -0,0 +1,79 @@
+package com.library.lms.librario.service.inventory;
+
+import com.library.lms.librario.controller.InventoryController;
+import com.library.lms.librario.dto.InventoryChangeEvent;
+import com.library.lms.librario.entity.enums.BookStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class InventoryStreamServiceTest {
+
+	private final InventoryStreamService streamService = new InventoryStreamService(60_000, 2, 16, 1_000);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new InventoryController(streamService)).build();
+
+	@AfterEach
+	void tearDown() {
+		streamService.shutdown();
+	}
+
+	@Test
+	void pushesCommittedInventoryChangesToOpenStreams() throws Exception {
+		MockHttpServletResponse first = mockMvc.perform(get("/api/inventory/stream"))
+				.andExpect(request().asyncStarted()).andReturn().getResponse();
+		MockHttpServletResponse second = mockMvc.perform(get("/api/inventory/stream"))
+				.andExpect(request().asyncStarted()).andReturn().getResponse();
+		await(() -> streamService.subscriberCount() == 2);
+		mockMvc.perform(get("/api/inventory/stream/subscribers")).andExpect(jsonPath("$.subscribers").value(2));
+
+		streamService.onInventoryChange(new InventoryChangeEvent(7L, 0, 3, BookStatus.UNAVAILABLE, LocalDateTime.now()));
+		streamService.onInventoryChange(new InventoryChangeEvent(7L, 1, 3, BookStatus.AVAILABLE, LocalDateTime.now()));
+
+		for (MockHttpServletResponse response : new MockHttpServletResponse[]{first, second}) {
+			await(() -> content(response).contains("id:2"));
+			String body = content(response);
+			assertThat(body).startsWith(":connected");
+			assertThat(body).contains("event:inventory");
+			assertThat(body.indexOf("\"availableCopies\":0")).isLessThan(body.indexOf("\"availableCopies\":1"));
+			assertThat(body).contains("\"bookId\":7", "\"status\":\"AVAILABLE\"");
+		}
+	}
+
+	@Test
+	void heartbeatKeepsIdleStreamsOpen() throws Exception {
+		MockHttpServletResponse response = mockMvc.perform(get("/api/inventory/stream"))
+				.andExpect(request().asyncStarted()).andReturn().getResponse();
+		await(() -> streamService.subscriberCount() == 1);
+
+		streamService.heartbeat();
+
+		await(() -> content(response).contains(":hb"));
+		assertThat(streamService.subscriberCount()).isEqualTo(1);
+	}
+
+	private static String content(MockHttpServletResponse response) {
+		try {
+			return response.getContentAsString();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			if (condition.getAsBoolean()) return;
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Condition not met in time");
+	}
+}
@@ -0,0 +1,128 @@
+package com.library.lms.librario.service.mail;
+
+import com.library.lms.librario.service.mail.template.MailTemplateEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailPipelineThroughputTest {
+
+	private static final int MESSAGES = 500;
+
+	private MailPipeline pipeline;
+
+	@AfterEach
+	void tearDown() {
+		if (pipeline != null) pipeline.stop();
+	}
+
+	@Test
+	void batchesMessagesOverSharedConnections() throws Exception {
+		// 20ms per connection: one connection per message would need ~5s on two workers
+		SinkMailSender sink = new SinkMailSender(20_000, 0);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		pipeline = new MailPipeline(sink, new MailService(sink, null, new MailTemplateEngine(MailTemplateEngine.DEFAULT_LOCATION)), registry, 1000, 2, 50, 0, 20);
+		pipeline.start();
+
+		CountDownLatch done = new CountDownLatch(MESSAGES);
+		ConcurrentHashMap<Long, Boolean> sent = new ConcurrentHashMap<>();
+		MailPipeline.Callback callback = new MailPipeline.Callback() {
+			@Override
+			public void sent(List<Long> ids) {
+				ids.forEach(id -> {
+					sent.put(id, true);
+					done.countDown();
+				});
+			}
+
+			@Override
+			public void failed(Long id, Exception error) {
+				done.countDown();
+			}
+		};
+
+		long start = System.nanoTime();
+		for (long i = 0; i < MESSAGES; i++) {
+			assertThat(pipeline.offer(new MailPipeline.MailJob(i, "member" + i + "@example.com",
+					"Overdue notice", "<p>Book is overdue</p>"), callback)).isTrue();
+		}
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(sent).hasSize(MESSAGES);
+		assertThat(sink.getMessages()).isEqualTo(MESSAGES);
+		assertThat(sink.getConnections()).isLessThanOrEqualTo(MESSAGES / 10);
+		assertThat(elapsedMs).isLessThan(2_500);
+		assertThat(registry.get("mail.pipeline.messages").tag("result", "sent").counter().count())
+				.isEqualTo(MESSAGES);
+		assertThat(registry.get("mail.pipeline.send.latency").timer().count())
+				.isEqualTo(sink.getConnections());
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() {
+		SinkMailSender sink = new SinkMailSender(0, 0);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		pipeline = new MailPipeline(sink, new MailService(sink, null, new MailTemplateEngine(MailTemplateEngine.DEFAULT_LOCATION)), registry, 10, 0, 50, 0, 20); // no workers draining
+		pipeline.start();
+
+		MailPipeline.Callback ignore = new MailPipeline.Callback() {
+			@Override
+			public void sent(List<Long> ids) {
+			}
+
+			@Override
+			public void failed(Long id, Exception error) {
+			}
+		};
+		int accepted = 0;
+		for (long i = 0; i < 25; i++) {
+			if (pipeline.offer(new MailPipeline.MailJob(i, "a@example.com", "s", "b"), ignore)) accepted++;
+		}
+
+		assertThat(accepted).isEqualTo(10);
+		assertThat(pipeline.remainingCapacity()).isZero();
+		assertThat(registry.get("mail.pipeline.queue.depth").gauge().value()).isEqualTo(10);
+		assertThat(registry.get("mail.pipeline.rejected").counter().count()).isEqualTo(15);
+	}
+
+	@Test
+	void rateLimitSpreadsBurstOverTime() throws Exception {
+		SinkMailSender sink = new SinkMailSender(0, 0);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		// 100/s with a burst of 10: the first 10 go at once, the other 40 need ~400ms
+		pipeline = new MailPipeline(sink, new MailService(sink, null, new MailTemplateEngine(MailTemplateEngine.DEFAULT_LOCATION)), registry, 100, 2, 10, 100, 10);
+		pipeline.start();
+
+		CountDownLatch done = new CountDownLatch(50);
+		MailPipeline.Callback callback = new MailPipeline.Callback() {
+			@Override
+			public void sent(List<Long> ids) {
+				ids.forEach(id -> done.countDown());
+			}
+
+			@Override
+			public void failed(Long id, Exception error) {
+				done.countDown();
+			}
+		};
+
+		long start = System.nanoTime();
+		for (long i = 0; i < 50; i++) {
+			pipeline.offer(new MailPipeline.MailJob(i, "a@example.com", "s", "b"), callback);
+		}
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(sink.getMessages()).isEqualTo(50);
+		assertThat(elapsedMs).isGreaterThanOrEqualTo(350);
+		assertThat(registry.get("mail.pipeline.throttle.wait").timer().count()).isPositive();
+	}
+}
@@ -0,0 +1,58 @@
+package com.library.lms.librario.service.mail.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.library.lms.librario.service.mail.template.MailTemplateEngine.params;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailTemplateEngineTest {
+
+	private final MailTemplateEngine engine = new MailTemplateEngine(MailTemplateEngine.DEFAULT_LOCATION);
+
+	@Test
+	void rendersNamedTemplatesWithEscapedParameters() {
+		String row = engine.render("fine-digest-row", params(
+				"bookTitle", "Tom & Jerry's \"Best\"",
+				"fineAmount", 12.5));
+		String body = engine.render("fine-digest", params(
+				"userName", "Ann <script>alert(1)</script>",
+				"fineCount", 1,
+				"totalFine", 12.5,
+				"rows", row));
+
+		assertThat(body)
+				.contains("<p>Hi Ann &lt;script&gt;alert(1)&lt;/script&gt;,</p>")
+				.contains("<b>Tom &amp; Jerry&#39;s &quot;Best&quot;</b>")
+				.contains("₹12.5</td>")
+				.doesNotContain("{{");
+		assertThat(engine.names()).contains("layout", "fine-digest", "fine-digest-row", "reservation-confirmed",
+				"membership-request-submitted", "membership-request-rejected");
+	}
+
+	@Test
+	void layoutWrapsRawContentAndBuffersAreReused() {
+		String first = engine.wrap("<p>Hello</p>");
+		String second = engine.wrap("<p>Bye</p>");
+
+		assertThat(first).startsWith("<!DOCTYPE html>").contains("<div class='content'><p>Hello</p></div>").endsWith("</html>");
+		assertThat(second).contains("<p>Bye</p>").doesNotContain("Hello");
+	}
+
+	@Test
+	void nullRendersEmptyAndMissingParameterFails() {
+		assertThat(MailTemplate.parse("t", "Reason: {{reason}}.").parameters()).containsExactly("reason");
+		assertThat(engine.render("membership-request-rejected", params("userName", "A", "planType", "Basic", "reason", null)))
+				.contains("<p>Reason: </p>");
+
+		assertThatThrownBy(() -> engine.render("membership-activated", Map.of()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("planType");
+		assertThatThrownBy(() -> engine.render("no-such-template", Map.of()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> MailTemplate.parse("bad", "Hi {{name"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+}
@@ -0,0 +1,55 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.service.mail.MailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class AdminMailDigestTest {
+
+	private MailService mailService;
+	private AdminMailDigest digest;
+
+	@BeforeEach
+	void setUp() {
+		mailService = mock(MailService.class);
+		digest = new AdminMailDigest(mailService, true, 2);
+	}
+
+	@Test
+	void staffMailIsHeldAndSentAsOneSummary() {
+		assertThat(digest.add("ADMIN", "admin@library.com", "Borrow Request", "<p>New borrow request</p>")).isTrue();
+		assertThat(digest.add("ADMIN", "admin@library.com", "Borrow Request", "<p>Another request</p>")).isTrue();
+		assertThat(digest.add("LIBRARIAN", "admin@library.com", "General Notification", "Book returned DAMAGED")).isTrue();
+		assertThat(digest.add("MEMBER", "m@x.com", "General Notification", "not staff")).isFalse();
+
+		verify(mailService, never()).send(anyString(), anyString(), anyString());
+		assertThat(digest.pendingCount()).isEqualTo(3);
+
+		assertThat(digest.flush()).isEqualTo(1);
+
+		ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+		verify(mailService).send(eq("admin@library.com"), eq("Librario digest: 3 notifications"), body.capture());
+		assertThat(body.getValue())
+				.contains("Borrow Request: <b>2</b>", "General Notification: <b>1</b>")
+				.contains("New borrow request", "Another request")
+				.doesNotContain("Book returned DAMAGED") // over max-items: counted, not listed
+				.contains("and 1 more");
+		assertThat(digest.pendingCount()).isZero();
+		assertThat(digest.flush()).isZero();
+	}
+
+	@Test
+	void disabledDigestLeavesMailToTheCaller() {
+		AdminMailDigest off = new AdminMailDigest(mailService, false, 2);
+		assertThat(off.add("ADMIN", "admin@library.com", "Borrow Request", "x")).isFalse();
+		assertThat(off.pendingCount()).isZero();
+	}
+}
@@ -0,0 +1,182 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.entity.PendingNotification;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.repository.PendingNotificationRepository;
+import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.mail.MailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@H2JpaTest(properties = {
+		"app.notifications.coalesce-window=PT1M",
+		"app.notifications.coalesce-max-attempts=2"
+})
+@Import(NotificationDispatcher.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each flush commits on its own
+class NotificationDispatcherTest {
+
+	@Autowired
+	private NotificationDispatcher dispatcher;
+
+	@Autowired
+	private PendingNotificationRepository pendingRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@MockitoBean
+	private NotificationService notificationService;
+
+	@MockitoBean
+	private MailService mailService;
+
+	@MockitoBean
+	private AdminMailDigest adminDigest; // add() answers false: everything is mailed directly
+
+	@BeforeEach
+	void setUp() {
+		pendingRepository.deleteAll();
+		reset(notificationService, mailService);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void oneReturnSendsOneNotificationAndOneMailPerRecipient() {
+		String key = "return:42";
+		dispatcher.toMember(key, 7L, "m@x.com", "You have returned 'Dune'.", NotificationType.GENERAL, "Book Returned");
+		dispatcher.toMember(key, 7L, "m@x.com", "<p>Book '<b>Dune</b>' returned successfully.</p>", NotificationType.GENERAL, null);
+		dispatcher.toMember(key, 7L, "m@x.com", "You have returned 'Dune'.", NotificationType.GENERAL, null);
+		dispatcher.toAdmin(key, "Book 'Dune' returned in condition DAMAGED", NotificationType.GENERAL);
+		dispatcher.toAdmin(key, "Book 'Dune' returned in condition DAMAGED", NotificationType.GENERAL);
+		// another member's auto-assignment from the same return stays separate
+		dispatcher.toMember(key, 8L, "r@x.com", "'Dune' has been assigned to you.", NotificationType.GENERAL, "Book Auto-Assigned");
+
+		dispatcher.flushDue(); // still inside the window
+		verify(notificationService, never()).createAll(anyList());
+		assertThat(dispatcher.pendingCount()).isEqualTo(3);
+
+		dispatcher.flushAll();
+
+		ArgumentCaptor<List<NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+		verify(notificationService).createAll(drafts.capture());
+		List<NotificationDraft> sent = drafts.getValue();
+		assertThat(sent).hasSize(3);
+		assertThat(sent).allSatisfy(d -> assertThat(d.email()).isNull()); // mailed here, not by createAll
+
+		NotificationDraft member = sent.stream().filter(d -> Long.valueOf(7L).equals(d.userId())).findFirst().orElseThrow();
+		assertThat(member.messageHtml())
+				.isEqualTo("<p>You have returned 'Dune'.</p><p>Book '<b>Dune</b>' returned successfully.</p>");
+
+		verify(mailService, times(3)).send(anyString(), anyString(), anyString());
+		verify(mailService).send("m@x.com", "Book Returned", member.messageHtml());
+		verify(mailService).send("admin@library.com", "General Notification", "Book 'Dune' returned in condition DAMAGED");
+		assertThat(dispatcher.pendingCount()).isZero();
+	}
+
+	@Test
+	void differentEventsAreNotMerged() {
+		dispatcher.toMember("renew:5:1", 7L, "m@x.com", "Renewed", NotificationType.GENERAL, null);
+		dispatcher.toMember("renew:5:2", 7L, "m@x.com", "Renewed", NotificationType.GENERAL, null);
+		dispatcher.flushAll();
+
+		verify(mailService, times(2)).send("m@x.com", NotificationType.GENERAL.getDefaultTitle(), "Renewed");
+	}
+
+	@Test
+	void failedSendStaysBufferedAndSurvivesARestart() {
+		dispatcher.toMember("return:43", 7L, "m@x.com", "You have returned 'Emma'.", NotificationType.GENERAL, null);
+		doThrow(new IllegalStateException("database unavailable")).when(notificationService).createAll(anyList());
+
+		dispatcher.flushAll();
+		assertThat(dispatcher.pendingCount()).isEqualTo(1);
+
+		// a new instance (after a restart) sends what the failed flush left behind
+		reset(notificationService, mailService);
+		NotificationDispatcher restarted = new NotificationDispatcher(notificationService, mailService, adminDigest,
+				pendingRepository, transactionTemplate, Duration.ZERO, 500, 2);
+		restarted.flushDue();
+
+		verify(notificationService).createAll(anyList());
+		verify(mailService).send("m@x.com", NotificationType.GENERAL.getDefaultTitle(), "You have returned 'Emma'.");
+		assertThat(restarted.pendingCount()).isZero();
+	}
+
+	@Test
+	void rolledBackWorkBuffersNothing() {
+		transactionTemplate.executeWithoutResult(status -> {
+			dispatcher.toMember("return:44", 7L, "m@x.com", "Returned", NotificationType.GENERAL, null);
+			status.setRollbackOnly();
+		});
+
+		assertThat(dispatcher.pendingCount()).isZero();
+	}
+
+	@Test
+	void aGroupThatKeepsFailingIsParkedWithoutHoldingBackTheRest() {
+		dispatcher.toMember("return:45", 7L, "a@x.com", "Returned 'Dune'", NotificationType.GENERAL, null);
+		dispatcher.toMember("return:46", 9L, "b@x.com", "Returned 'Emma'", NotificationType.GENERAL, null);
+		dispatcher.toMember("return:47", 8L, "c@x.com", "Returned 'Ulysses'", NotificationType.GENERAL, null);
+		doThrow(new IllegalStateException("Data too long for column 'message'"))
+				.when(notificationService).createAll(argThat(drafts -> drafts.stream().anyMatch(d -> d.userId() == 9L)));
+
+		dispatcher.flushAll();
+
+		// the batch rolled back, then the healthy groups went out in their own transactions
+		verify(notificationService).createAll(argThat(drafts -> drafts.size() == 1 && drafts.get(0).userId() == 7L));
+		verify(notificationService).createAll(argThat(drafts -> drafts.size() == 1 && drafts.get(0).userId() == 8L));
+		assertThat(pendingRepository.findAll()).extracting(PendingNotification::getGroupKey).containsExactly("return:46|user:9");
+		assertThat(pendingRepository.countParkedGroups(2)).isZero();
+
+		dispatcher.flushAll(); // second failure parks it
+		assertThat(pendingRepository.countParkedGroups(2)).isEqualTo(1);
+
+		reset(notificationService);
+		dispatcher.flushAll();
+		verify(notificationService, never()).createAll(anyList());
+		assertThat(dispatcher.pendingCount()).isEqualTo(1); // kept for inspection, not dropped
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void mergedBodyIsCappedToTheNotificationColumnButMailedInFull() {
+		for (int i = 1; i <= 40; i++) {
+			dispatcher.toMember("overdue:7", 7L, "m@x.com", "Book #" + i + " is overdue, please return it as soon as you can.",
+					NotificationType.GENERAL, "Overdue");
+		}
+		dispatcher.flushAll();
+
+		ArgumentCaptor<List<NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+		verify(notificationService).createAll(drafts.capture());
+		String inApp = drafts.getValue().get(0).messageHtml();
+		assertThat(inApp).hasSizeLessThanOrEqualTo(Notification.MESSAGE_MAX_LENGTH)
+				.startsWith("<p>Book #1 is overdue").matches(".*<p>\\(\\+\\d+ more\\)</p>$");
+
+		ArgumentCaptor<String> mailed = ArgumentCaptor.forClass(String.class);
+		verify(mailService).send(anyString(), anyString(), mailed.capture());
+		assertThat(mailed.getValue()).contains("Book #40 is overdue").hasSizeGreaterThan(Notification.MESSAGE_MAX_LENGTH);
+		assertThat(dispatcher.pendingCount()).isZero();
+	}
+}
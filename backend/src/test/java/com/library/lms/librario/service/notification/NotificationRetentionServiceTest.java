@@ -0,0 +1,85 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.dto.RetentionRunResult;
+import com.library.lms.librario.entity.ArchivedNotification;
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.repository.ArchivedNotificationRepository;
+import com.library.lms.librario.repository.NotificationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest(properties = {
+		"app.notifications.retention.batch-size=2",
+		"app.notifications.retention.max-batches=2"
+})
+@Import({NotificationRetentionService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each batch commits on its own
+class NotificationRetentionServiceTest {
+
+	@Autowired
+	private NotificationRetentionService retention;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private ArchivedNotificationRepository archiveRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void movesOldReadNotificationsInBoundedBatchesAndPurgesOldMonths() {
+		LocalDateTime old = LocalDateTime.now().minusDays(200);
+		for (int i = 0; i < 5; i++) save(old.plusMinutes(i), true);
+		Notification unread = save(old, false);
+		Notification recent = save(LocalDateTime.now().minusDays(1), true);
+		archiveRepository.save(ArchivedNotification.builder()
+				.id(999_999L).title("t").message("ancient").targetRole("ADMIN").type(NotificationType.GENERAL)
+				.createdAt(LocalDateTime.of(2019, 1, 5, 10, 0)).read(true)
+				.archivedAt(LocalDateTime.of(2019, 6, 1, 0, 0)).archiveMonth(201901)
+				.build());
+
+		RetentionRunResult first = retention.run();
+		assertThat(first.archived()).isEqualTo(4); // 2 batches of 2, then the run stops
+		assertThat(first.purged()).isEqualTo(1);
+		assertThat(first.complete()).isFalse();
+
+		RetentionRunResult second = retention.run();
+		assertThat(second.archived()).isEqualTo(1);
+		assertThat(second.complete()).isTrue();
+
+		assertThat(notificationRepository.findAll())
+				.extracting(Notification::getId)
+				.containsExactlyInAnyOrder(unread.getId(), recent.getId());
+		assertThat(archiveRepository.findAll()).hasSize(5)
+				.allSatisfy(a -> {
+					assertThat(a.isRead()).isTrue();
+					assertThat(a.getArchiveMonth()).isEqualTo(old.getYear() * 100 + old.getMonthValue());
+				});
+		assertThat(meterRegistry.counter("notifications.retention.archived").count()).isEqualTo(5.0);
+	}
+
+	private Notification save(LocalDateTime createdAt, boolean read) {
+		Notification n = new Notification();
+		n.setUserId(7L);
+		n.setTargetRole("MEMBER");
+		n.setType(NotificationType.GENERAL);
+		n.setTitle("t");
+		n.setMessage("m");
+		n.setCreatedAt(createdAt);
+		n.setRead(read);
+		return notificationRepository.save(n);
+	}
+}
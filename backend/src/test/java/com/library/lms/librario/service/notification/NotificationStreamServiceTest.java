@@ -0,0 +1,64 @@
+package com.library.lms.librario.service.notification;
+
+import com.library.lms.librario.entity.Notification;
+import com.library.lms.librario.repository.NotificationRepository;
+import com.library.lms.librario.service.sse.SseHub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NotificationStreamServiceTest {
+
+	private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+	private final NotificationStreamService streamService =
+			new NotificationStreamService(notificationRepository, 60_000, 1, 16, 1_000, 2);
+
+	@AfterEach
+	void tearDown() {
+		streamService.shutdown();
+	}
+
+	@Test
+	void replaysMissedNotificationsAsEvents() {
+		when(notificationRepository.findStreamReplay(eq(10L), eq(5L), anyCollection(), any(Pageable.class)))
+				.thenReturn(List.of(notification(11L), notification(12L)));
+
+		List<SseHub.Event> events = streamService.replay(5L, List.of("MEMBER"), 10L);
+
+		assertThat(events).extracting(SseHub.Event::name).containsOnly(NotificationStreamService.EVENT_NOTIFICATION);
+		assertThat(events).extracting(SseHub.Event::id).containsExactly("11", "12");
+	}
+
+	@Test
+	void asksForResyncWhenTooFarBehind() {
+		when(notificationRepository.findStreamReplay(anyLong(), any(), anyCollection(), any(Pageable.class)))
+				.thenReturn(List.of(notification(11L), notification(12L), notification(13L)));
+
+		List<SseHub.Event> events = streamService.replay(5L, List.of("MEMBER"), 10L);
+
+		assertThat(events).containsExactly(new SseHub.Event(NotificationStreamService.EVENT_RESYNC, null, 10L));
+	}
+
+	@Test
+	void subscriberWithoutLastEventIdIsLiveAtOnce() {
+		streamService.subscribe(5L, List.of("MEMBER"), null);
+
+		assertThat(streamService.subscriberCount()).isEqualTo(2); // user:5 and role:MEMBER
+		verifyNoInteractions(notificationRepository);
+	}
+
+	private static Notification notification(long id) {
+		return Notification.builder().id(id).userId(5L).title("t").message("m").build();
+	}
+}
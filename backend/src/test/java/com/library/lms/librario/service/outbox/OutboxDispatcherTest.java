@@ -0,0 +1,174 @@
+package com.library.lms.librario.service.outbox;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.OutboxMessage;
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import com.library.lms.librario.entity.enums.OutboxType;
+import com.library.lms.librario.repository.OutboxMessageRepository;
+import com.library.lms.librario.service.mail.MailPipeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@H2JpaTest(properties = {
+		"app.outbox.max-attempts=2",
+		"app.outbox.backoff-initial=PT30S",
+		"app.outbox.lease=PT5M"
+})
+@Import({OutboxService.class, OutboxDispatcher.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // claims and results commit on their own
+class OutboxDispatcherTest {
+
+	@Autowired
+	private OutboxService outboxService;
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private OutboxMessageRepository outboxRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@MockitoBean
+	private MailPipeline mailPipeline; // remainingCapacity() answers 0 until a test opens it up
+
+	@BeforeEach
+	void setUp() {
+		outboxRepository.deleteAll();
+		reset(mailPipeline);
+	}
+
+	@Test
+	void enqueuedMailOnlyExistsIfTheCallerCommits() {
+		transactionTemplate.executeWithoutResult(status -> {
+			outboxService.enqueueEmail("rolled@x.com", "s", "b");
+			status.setRollbackOnly();
+		});
+		transactionTemplate.executeWithoutResult(status -> outboxService.enqueueEmail("kept@x.com", "s", "b"));
+
+		List<OutboxMessage> messages = outboxRepository.findAll();
+		assertThat(messages).extracting(OutboxMessage::getRecipient).containsExactly("kept@x.com");
+		OutboxMessage kept = messages.get(0);
+		assertThat(kept.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(kept.getType()).isEqualTo(OutboxType.EMAIL);
+		assertThat(kept.getNextAttemptAt()).isEqualTo(kept.getCreatedAt());
+	}
+
+	@Test
+	void dispatchLeasesDueMessagesAndMarksThemSent() {
+		OutboxMessage due = message(LocalDateTime.now().minusSeconds(1));
+		OutboxMessage later = message(LocalDateTime.now().plusMinutes(10));
+		openPipeline(10);
+
+		assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+		OutboxMessage leased = reload(due);
+		assertThat(leased.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(leased.getLeasedUntil()).isCloseTo(LocalDateTime.now().plusMinutes(5), within(5, SECONDS));
+		assertThat(leased.getNextAttemptAt()).isEqualTo(leased.getLeasedUntil());
+		assertThat(reload(later).getLeasedUntil()).isNull();
+		assertThat(dispatcher.dispatch()).isZero(); // the lease keeps it from being claimed twice
+
+		callback().sent(List.of(due.getId()));
+
+		OutboxMessage sent = reload(due);
+		assertThat(sent.getStatus()).isEqualTo(OutboxStatus.SENT);
+		assertThat(sent.getAttempts()).isEqualTo(1);
+		assertThat(sent.getSentAt()).isNotNull();
+		assertThat(sent.getLeasedUntil()).isNull();
+	}
+
+	@Test
+	void failuresBackOffAndGoDeadAfterMaxAttempts() {
+		OutboxMessage message = message(LocalDateTime.now().minusSeconds(1));
+		openPipeline(10);
+
+		dispatcher.dispatch();
+		callback().failed(message.getId(), new MailSendException("550 mailbox unavailable"));
+
+		OutboxMessage failed = reload(message);
+		assertThat(failed.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(failed.getAttempts()).isEqualTo(1);
+		assertThat(failed.getLeasedUntil()).isNull();
+		assertThat(failed.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusSeconds(30), within(5, SECONDS));
+		assertThat(failed.getLastError()).contains("550 mailbox unavailable");
+
+		callback().failed(message.getId(), new MailSendException("550 mailbox unavailable"));
+
+		OutboxMessage dead = reload(message);
+		assertThat(dead.getStatus()).isEqualTo(OutboxStatus.DEAD);
+		assertThat(dead.getAttempts()).isEqualTo(2);
+	}
+
+	@Test
+	void claimsNoMoreThanThePipelineHasRoomFor() {
+		OutboxMessage first = message(LocalDateTime.now().minusSeconds(3));
+		OutboxMessage second = message(LocalDateTime.now().minusSeconds(2));
+		OutboxMessage third = message(LocalDateTime.now().minusSeconds(1));
+		when(mailPipeline.remainingCapacity()).thenReturn(2, 0);
+		when(mailPipeline.offer(any(), any())).thenReturn(true);
+
+		assertThat(dispatcher.dispatch()).isEqualTo(2);
+
+		assertThat(reload(first).getLeasedUntil()).isNotNull();
+		assertThat(reload(second).getLeasedUntil()).isNotNull();
+		assertThat(reload(third).getLeasedUntil()).isNull();
+	}
+
+	@Test
+	void rejectedHandOffGivesTheLeaseBackWithoutCountingAnAttempt() {
+		OutboxMessage message = message(LocalDateTime.now().minusSeconds(1));
+		when(mailPipeline.remainingCapacity()).thenReturn(10);
+		when(mailPipeline.offer(any(), any())).thenReturn(false); // filled up between check and offer
+
+		assertThat(dispatcher.dispatch()).isZero();
+
+		OutboxMessage released = reload(message);
+		assertThat(released.getLeasedUntil()).isNull();
+		assertThat(released.getAttempts()).isZero();
+		assertThat(released.getNextAttemptAt()).isBeforeOrEqualTo(LocalDateTime.now());
+	}
+
+	private void openPipeline(int capacity) {
+		when(mailPipeline.remainingCapacity()).thenReturn(capacity);
+		when(mailPipeline.offer(any(), any())).thenReturn(true);
+	}
+
+	private MailPipeline.Callback callback() {
+		ArgumentCaptor<MailPipeline.Callback> callback = ArgumentCaptor.forClass(MailPipeline.Callback.class);
+		verify(mailPipeline, times(1)).offer(any(), callback.capture());
+		return callback.getValue();
+	}
+
+	private OutboxMessage message(LocalDateTime nextAttemptAt) {
+		return outboxRepository.saveAndFlush(OutboxMessage.builder()
+				.type(OutboxType.EMAIL).recipient("m@x.com").subject("s").body("b")
+				.nextAttemptAt(nextAttemptAt)
+				.build());
+	}
+
+	private OutboxMessage reload(OutboxMessage message) {
+		return outboxRepository.findById(message.getId()).orElseThrow();
+	}
+}
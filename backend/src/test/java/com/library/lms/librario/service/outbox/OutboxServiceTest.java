@@ -0,0 +1,93 @@
+package com.library.lms.librario.service.outbox;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.OutboxMessage;
+import com.library.lms.librario.entity.enums.OutboxStatus;
+import com.library.lms.librario.entity.enums.OutboxType;
+import com.library.lms.librario.exception.OutboxRetryConflictException;
+import com.library.lms.librario.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static java.time.temporal.ChronoUnit.SECONDS;
+
+@H2JpaTest
+@Import(OutboxService.class)
+class OutboxServiceTest {
+
+	@Autowired
+	private OutboxService outboxService;
+
+	@Autowired
+	private OutboxMessageRepository outboxRepository;
+
+	@Test
+	void retryOfALeasedMessageIsAConflictAndLeavesTheLeaseAlone() {
+		LocalDateTime leasedUntil = LocalDateTime.now().plusMinutes(5);
+		OutboxMessage leased = message(OutboxStatus.PENDING, 0, leasedUntil, leasedUntil);
+
+		assertThatThrownBy(() -> outboxService.retry(leased.getId()))
+				.isInstanceOf(OutboxRetryConflictException.class)
+				.hasMessageContaining("being sent");
+
+		OutboxMessage unchanged = outboxRepository.findById(leased.getId()).orElseThrow();
+		assertThat(unchanged.getNextAttemptAt()).isCloseTo(leasedUntil, within(1, SECONDS));
+		assertThat(unchanged.getLeasedUntil()).isNotNull();
+	}
+
+	@Test
+	void retryAfterTheLeaseExpiredSendsNow() {
+		LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+		OutboxMessage stale = message(OutboxStatus.PENDING, 1, expired, expired);
+
+		OutboxMessage retried = outboxService.retry(stale.getId());
+
+		assertThat(retried.getLeasedUntil()).isNull();
+		assertThat(retried.getNextAttemptAt()).isCloseTo(LocalDateTime.now(), within(5, SECONDS));
+		assertThat(retried.getAttempts()).isEqualTo(1);
+	}
+
+	@Test
+	void retryOfAFailedMessageSkipsItsBackoff() {
+		OutboxMessage backingOff = message(OutboxStatus.PENDING, 2, LocalDateTime.now().plusMinutes(4), null);
+
+		OutboxMessage retried = outboxService.retry(backingOff.getId());
+
+		assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(retried.getNextAttemptAt()).isBefore(LocalDateTime.now().plusSeconds(1));
+		assertThat(retried.getAttempts()).isEqualTo(2);
+	}
+
+	@Test
+	void retryOfADeadMessageRequeuesItWithAFreshBudget() {
+		OutboxMessage dead = message(OutboxStatus.DEAD, 8, LocalDateTime.now().plusHours(1), null);
+
+		OutboxMessage retried = outboxService.retry(dead.getId());
+
+		assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(retried.getAttempts()).isZero();
+	}
+
+	@Test
+	void retryOfASentMessageIsAConflict() {
+		OutboxMessage sent = message(OutboxStatus.SENT, 1, LocalDateTime.now(), null);
+
+		assertThatThrownBy(() -> outboxService.retry(sent.getId()))
+				.isInstanceOf(OutboxRetryConflictException.class)
+				.hasMessageContaining("already sent");
+	}
+
+	private OutboxMessage message(OutboxStatus status, int attempts, LocalDateTime nextAttemptAt, LocalDateTime leasedUntil) {
+		return outboxRepository.saveAndFlush(OutboxMessage.builder()
+				.type(OutboxType.EMAIL).recipient("m@x.com").subject("s").body("b")
+				.status(status).attempts(attempts)
+				.nextAttemptAt(nextAttemptAt).leasedUntil(leasedUntil)
+				.build());
+	}
+}
@@ -0,0 +1,71 @@
+package com.library.lms.librario.service.payment;
+
+import com.library.lms.librario.entity.Member;
+import com.library.lms.librario.entity.MembershipPlan;
+import com.library.lms.librario.entity.MembershipRequest;
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.enums.MemberStatus;
+import com.library.lms.librario.entity.enums.NotificationType;
+import com.library.lms.librario.entity.enums.RequestStatus;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.MemberRepository;
+import com.library.lms.librario.repository.MembershipRequestRepository;
+import com.library.lms.librario.service.NotificationService;
+import com.library.lms.librario.service.mail.MailService;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MembershipActivationServiceTest {
+
+	private final MembershipRequestRepository requestRepo = mock(MembershipRequestRepository.class);
+	private final MemberRepository memberRepository = mock(MemberRepository.class);
+	private final MailService mailService = mock(MailService.class);
+	private final NotificationService notificationService = mock(NotificationService.class);
+	private final MembershipActivationService activationService =
+			new MembershipActivationService(requestRepo, memberRepository, mailService, notificationService);
+
+	@Test
+	void activatesAndNotifiesOnceWhicheverPathCallsFirst() {
+		User user = User.builder().id(5L).name("Asha").email("asha@example.com").build();
+		MembershipPlan plan = new MembershipPlan();
+		plan.setType("Premium");
+		plan.setDurationMonths(6);
+		MembershipRequest req = MembershipRequest.builder()
+				.id(9L).user(user).plan(plan).paid(false).status(RequestStatus.PENDING).build();
+		Member member = Member.builder().status(MemberStatus.EXPIRED).build();
+		when(requestRepo.findById(9L)).thenReturn(Optional.of(req));
+		when(memberRepository.findTopByUser_IdOrderByEndDateDesc(5L)).thenReturn(Optional.of(member));
+		Payment payment = Payment.builder().membershipRequestId(9L).build();
+
+		assertThat(activationService.activate(payment)).isSameAs(req);
+		// the other path (webhook after callback, or the reverse) finds the request paid
+		assertThat(activationService.activate(payment)).isNull();
+
+		assertThat(req.isPaid()).isTrue();
+		assertThat(req.getStatus()).isEqualTo(RequestStatus.COMPLETED);
+		assertThat(member.getStatus()).isEqualTo(MemberStatus.ACTIVE);
+		assertThat(member.getEndDate()).isEqualTo(LocalDate.now().plusMonths(6));
+		verify(mailService, times(1)).send(eq("asha@example.com"), eq("Membership Activated"), anyString());
+		verify(notificationService, times(1)).create(eq(user), anyString(), anyString(), eq(NotificationType.GENERAL));
+	}
+
+	@Test
+	void ignoresPaymentsThatAreNotForAMembership() {
+		assertThat(activationService.activate(Payment.builder().borrowRecordId(3L).build())).isNull();
+
+		verify(mailService, never()).send(anyString(), anyString(), anyString());
+		verify(notificationService, never()).create(any(), anyString(), anyString(), any());
+	}
+}
@@ -0,0 +1,161 @@
+package com.library.lms.librario.service.payment;
+
+import com.library.lms.librario.exception.GlobalExceptionHandler;
+import com.library.lms.librario.exception.PaymentGatewayUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class ResilientPaymentGatewayTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final FakePaymentGateway fake = new FakePaymentGateway(0, 0);
+	private ResilientPaymentGateway gateway;
+
+	@AfterEach
+	void tearDown() {
+		if (gateway != null) gateway.shutdown();
+	}
+
+	@Test
+	void slowGatewayTimesOutOpensCircuitAndRecoversThroughProbe() throws Exception {
+		gateway = new ResilientPaymentGateway(fake, 4, 0, Duration.ofMillis(100),
+				new CircuitBreaker(2, Duration.ofMillis(300)), registry);
+
+		assertThat(gateway.createOrder(1000, "INR", null).id()).startsWith("order_fake_");
+
+		fake.setLatencyMillis(2_000);
+		for (int i = 0; i < 2; i++) {
+			long started = System.nanoTime();
+			assertThatThrownBy(() -> gateway.createOrder(1000, "INR", null))
+					.isInstanceOf(PaymentGatewayUnavailableException.class).hasMessageContaining("timed out");
+			assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+		}
+		assertThat(gateway.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		// open: fails fast without reaching the gateway
+		long callsBefore = fake.getCalls();
+		assertThatThrownBy(() -> gateway.createOrder(1000, "INR", null))
+				.isInstanceOf(PaymentGatewayUnavailableException.class).hasMessageContaining("unavailable");
+		assertThat(fake.getCalls()).isEqualTo(callsBefore);
+
+		// after the open period one probe goes through and closes the circuit
+		fake.setLatencyMillis(0);
+		Thread.sleep(350);
+		assertThat(gateway.createOrder(1000, "INR", "fine_1").amount()).isEqualTo(1000);
+		assertThat(gateway.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		assertThat(registry.get("payments.gateway.call").tag("outcome", "timeout").timer().count()).isEqualTo(2);
+		assertThat(registry.get("payments.gateway.call").tag("outcome", "open").timer().count()).isEqualTo(1);
+		assertThat(registry.get("payments.gateway.call").tag("outcome", "success").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void fullBulkheadRejectsWithoutTrippingTheCircuit() throws Exception {
+		gateway = new ResilientPaymentGateway(fake, 1, 0, Duration.ofSeconds(5),
+				new CircuitBreaker(1, Duration.ofSeconds(30)), registry);
+		fake.setLatencyMillis(300);
+
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+		CountDownLatch started = new CountDownLatch(1);
+		try {
+			caller.submit(() -> {
+				started.countDown();
+				return gateway.createOrder(1000, "INR", null);
+			});
+			started.await();
+			Thread.sleep(50); // the only slot is now busy
+
+			assertThatThrownBy(() -> gateway.createOrder(1000, "INR", null))
+					.isInstanceOf(PaymentGatewayUnavailableException.class).hasMessageContaining("busy");
+			assertThat(gateway.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		} finally {
+			caller.shutdown();
+			caller.awaitTermination(2, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void retryAfterIsWhatIsLeftOfTheOpenDuration() {
+		gateway = new ResilientPaymentGateway(fake, 2, 0, Duration.ofMillis(50),
+				new CircuitBreaker(1, Duration.ofSeconds(30)), registry);
+		fake.setLatencyMillis(1_000);
+
+		PaymentGatewayUnavailableException timedOut = catchThrowableOfType(PaymentGatewayUnavailableException.class,
+				() -> gateway.createOrder(1000, "INR", null));
+		assertThat(timedOut.getRetryAfterSeconds()).isEqualTo(30); // this timeout just opened the circuit
+
+		PaymentGatewayUnavailableException open = catchThrowableOfType(PaymentGatewayUnavailableException.class,
+				() -> gateway.createOrder(1000, "INR", null));
+		assertThat(open.getRetryAfter()).isLessThanOrEqualTo(Duration.ofSeconds(30)).isGreaterThan(Duration.ofSeconds(29));
+
+		ResponseEntity<?> response = new GlobalExceptionHandler().handleGatewayUnavailable(open);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+	}
+
+	@Test
+	void breakerCountsDownItsOpenPeriod() {
+		AtomicLong now = new AtomicLong();
+		CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(30), now::get);
+		assertThat(breaker.retryAfter()).isZero();
+
+		breaker.onFailure(breaker.tryAcquire());
+		now.addAndGet(Duration.ofSeconds(12).toNanos());
+		assertThat(breaker.retryAfter()).isEqualTo(Duration.ofSeconds(18));
+
+		now.addAndGet(Duration.ofSeconds(20).toNanos());
+		assertThat(breaker.tryAcquire()).isNotNull(); // half-open probe
+		assertThat(breaker.retryAfter()).isEqualTo(Duration.ofSeconds(30));
+		assertThat(new PaymentGatewayUnavailableException("busy", Duration.ofMillis(1_200)).getRetryAfterSeconds())
+				.isEqualTo(2);
+	}
+
+	@Test
+	void resultsOfCallsAdmittedBeforeAStateChangeAreIgnored() {
+		AtomicLong now = new AtomicLong();
+		CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(30), now::get);
+
+		CircuitBreaker.Permit slowSuccess = breaker.tryAcquire();
+		CircuitBreaker.Permit slowFailure = breaker.tryAcquire();
+		breaker.onFailure(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		breaker.onSuccess(slowSuccess); // admitted while closed: cannot close an open circuit
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isNull();
+
+		now.addAndGet(Duration.ofSeconds(30).toNanos());
+		CircuitBreaker.Permit probe = breaker.tryAcquire();
+		assertThat(probe.probe()).isTrue();
+		breaker.onSuccess(slowSuccess);
+		breaker.release(slowSuccess); // nor free the probe slot
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isNull();
+
+		breaker.onSuccess(probe);
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		// a stale failure neither reopens the circuit nor counts towards the threshold
+		breaker.onFailure(slowFailure);
+		breaker.onFailure(breaker.tryAcquire());
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+		breaker.onFailure(breaker.tryAcquire());
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+}
@@ -0,0 +1,181 @@
+package com.library.lms.librario.service.reconciliation;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.dto.ReconciliationMismatch;
+import com.library.lms.librario.dto.ReconciliationMismatch.Kind;
+import com.library.lms.librario.dto.ReconciliationReport;
+import com.library.lms.librario.entity.BorrowRecord;
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.PaymentStatus;
+import com.library.lms.librario.entity.PaymentType;
+import com.library.lms.librario.entity.Role;
+import com.library.lms.librario.entity.RoleName;
+import com.library.lms.librario.entity.enums.BorrowStatus;
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.model.User;
+import com.library.lms.librario.repository.BookRepository;
+import com.library.lms.librario.repository.BorrowRecordRepository;
+import com.library.lms.librario.repository.PaymentReconciliationRepository;
+import com.library.lms.librario.repository.PaymentRepository;
+import com.library.lms.librario.repository.RoleRepository;
+import com.library.lms.librario.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@H2JpaTest(properties = {
+		"app.payments.reconciliation.run-size=2" // force the on-disk merge
+})
+@Import({PaymentReconciliationService.class, PaymentReconciliationRepository.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // rows are read through JDBC
+class PaymentReconciliationServiceTest {
+
+	private static final LocalDateTime PAID = LocalDateTime.of(2025, 3, 10, 12, 0);
+
+	@Autowired
+	private PaymentReconciliationService service;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private BorrowRecordRepository borrowRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@TempDir
+	Path dir;
+
+	private Path settlement;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		paymentRepository.deleteAll();
+		borrowRepository.deleteAll();
+		Role role = roleRepository.findByRoleName(RoleName.MEMBER)
+				.orElseGet(() -> roleRepository.save(Role.builder().roleName(RoleName.MEMBER).build()));
+		User user = userRepository.save(User.builder()
+				.name("Reader").email("reader-" + System.nanoTime() + "@example.com")
+				.password("x").status(true).role(role).build());
+		Book book = new Book();
+		book.setTitle("Book");
+		book.setAuthor("Author");
+		book.setIsbn("rec-" + System.nanoTime());
+		book.setTotalCopies(1);
+		book.setAvailableCopies(1);
+		book = bookRepository.save(book);
+
+		BorrowRecord unmarked = borrowRepository.save(fine(user, book, false, null));
+		borrowRepository.save(fine(user, book, true, "pay_lost"));
+		borrowRepository.save(fine(user, book, true, "WAIVED-1"));
+
+		payment("pay_a", "order_a", "100", PaymentStatus.SUCCESS, null);
+		payment("pay_b", "order_b", "50", PaymentStatus.SUCCESS, null);
+		payment("pay_c", "order_c", "30", PaymentStatus.INITIATED, null);
+		payment("pay_d", "order_d", "20", PaymentStatus.SUCCESS, null);
+		payment("pay_e", "order_e", "10", PaymentStatus.SUCCESS, unmarked.getId());
+
+		settlement = dir.resolve("settlement.csv");
+		Files.writeString(settlement, String.join("\n",
+				"entity_id,type,amount,order_id,description",
+				"pay_x,payment,100.00,order_a,\"second capture, same order\"",
+				"pay_b,payment,55.00,order_b,",
+				"pay_a,payment,100.00,order_a,\"first \"\"real\"\" one\"",
+				"rfnd_1,refund,10.00,,",
+				"pay_e,payment,10,order_e,",
+				"pay_c,payment,30.00,order_c,",
+				"pay_a,payment,100.00,order_a,repeated line",
+				"pay_0,payment,5.00,order_z,",
+				""));
+	}
+
+	@Test
+	void mergeJoinReportsEveryKindOfMismatch() {
+		ReconciliationReport report = service.reconcile(settlement, new PaymentReconciliationService.Options(null, null, false));
+
+		assertThat(report.settlementRows()).isEqualTo(7);
+		assertThat(report.skippedRows()).isEqualTo(1);
+		assertThat(report.ledgerRows()).isEqualTo(5);
+		assertThat(report.matched()).isEqualTo(2); // pay_a, pay_e
+		assertThat(report.settledAmount()).isEqualByComparingTo("400");
+		assertThat(report.sortRuns()).isGreaterThan(1);
+		assertThat(report.mismatches())
+				.containsEntry(Kind.MISSING_IN_LEDGER, 2L)
+				.containsEntry(Kind.MISSING_IN_SETTLEMENT, 1L)
+				.containsEntry(Kind.AMOUNT_MISMATCH, 1L)
+				.containsEntry(Kind.STATUS_MISMATCH, 1L)
+				.containsEntry(Kind.DUPLICATE_SETTLEMENT, 1L)
+				.containsEntry(Kind.DUPLICATE_CAPTURE, 1L)
+				.containsEntry(Kind.FINE_NOT_MARKED_PAID, 1L)
+				.containsEntry(Kind.FINE_PAYMENT_MISSING, 1L);
+
+		assertThat(report.samples())
+				.filteredOn(m -> m.kind() == Kind.MISSING_IN_LEDGER)
+				.extracting(ReconciliationMismatch::paymentId).containsExactly("pay_0", "pay_x");
+		assertThat(report.samples())
+				.filteredOn(m -> m.kind() == Kind.AMOUNT_MISMATCH).singleElement()
+				.satisfies(m -> {
+					assertThat(m.paymentId()).isEqualTo("pay_b");
+					assertThat(m.settledAmount()).isEqualByComparingTo("55");
+					assertThat(m.ledgerAmount()).isEqualByComparingTo("50");
+				});
+		assertThat(report.samples())
+				.filteredOn(m -> m.kind() == Kind.DUPLICATE_CAPTURE).singleElement()
+				.satisfies(m -> assertThat(m.orderId()).isEqualTo("order_a"));
+		assertThat(report.samples())
+				.filteredOn(m -> m.kind() == Kind.FINE_PAYMENT_MISSING).singleElement()
+				.satisfies(m -> assertThat(m.paymentId()).isEqualTo("pay_lost"));
+	}
+
+	@Test
+	void windowLimitsMissingInSettlementAndCsvListsEveryMismatch() throws IOException {
+		StringWriter out = new StringWriter();
+		ReconciliationReport report = service.writeMismatchesCsv(settlement,
+				new PaymentReconciliationService.Options(LocalDate.of(2025, 4, 1), null, false), out);
+
+		assertThat(report.mismatches()).containsEntry(Kind.MISSING_IN_SETTLEMENT, 0L);
+		String[] lines = out.toString().split("\n");
+		assertThat(lines[0]).startsWith("Kind,Payment ID");
+		assertThat(lines).hasSize(1 + (int) report.mismatchTotal());
+		assertThat(out.toString()).contains("\"AMOUNT_MISMATCH\",\"pay_b\",\"order_b\",\"55.00\",\"50.00\"");
+	}
+
+	private void payment(String paymentId, String orderId, String amount, PaymentStatus status, Long borrowRecordId) {
+		paymentRepository.save(Payment.builder()
+				.userId(1L).borrowRecordId(borrowRecordId).amount(new BigDecimal(amount)).currency("INR")
+				.status(status).type(PaymentType.ONLINE)
+				.orderId(orderId).paymentId(paymentId)
+				.paymentDate(PAID).createdAt(PAID)
+				.build());
+	}
+
+	private static BorrowRecord fine(User user, Book book, boolean paid, String paymentId) {
+		return BorrowRecord.builder()
+				.user(user).book(book)
+				.borrowDate(PAID.minusDays(20)).dueDate(PAID.minusDays(6)).returnDate(PAID)
+				.status(BorrowStatus.RETURNED).fineAmount(paid ? 0 : 10).finePaid(paid).paymentId(paymentId)
+				.build();
+	}
+}
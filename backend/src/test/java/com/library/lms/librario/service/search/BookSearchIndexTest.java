@@ -0,0 +1,185 @@
+package com.library.lms.librario.service.search;
+
+import com.library.lms.librario.model.Book;
+import com.library.lms.librario.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+	private BookRepository books;
+	private BookSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		books = mock(BookRepository.class);
+		index = new BookSearchIndex(books);
+	}
+
+	// 🔹 Tokenization
+
+	@Test
+	void tokenizeLowerCasesStripsAccentsAndSplitsOnPunctuation() {
+		assertThat(BookSearchIndex.tokenize("Cien Años de Soledad — García Márquez"))
+				.containsExactly("cien", "anos", "de", "soledad", "garcia", "marquez");
+		assertThat(BookSearchIndex.tokenize("C++ & Java: 2nd-ed.")).containsExactly("c", "java", "2nd", "ed");
+	}
+
+	@Test
+	void tokenizeDropsDuplicatesAndBlankInput() {
+		assertThat(BookSearchIndex.tokenize("The the THE end")).containsExactly("the", "end");
+		assertThat(BookSearchIndex.tokenize(null)).isEmpty();
+		assertThat(BookSearchIndex.tokenize("  -- ")).isEmpty();
+	}
+
+	// 🔹 Ranking
+
+	@Test
+	void titleHitOutranksGenreHit() {
+		index.index(doc(1L, "Sands of Arrakis", "Someone Else", "Dune", "Ace", null));
+		index.index(doc(2L, "Dune", "Frank Herbert", "Science Fiction", "Ace", null));
+
+		assertThat(index.search("dune", 10)).containsExactly(2L, 1L);
+	}
+
+	@Test
+	void everyTokenMustMatch() {
+		index.index(doc(1L, "Dune", "Frank Herbert", "Science Fiction", null, null));
+		index.index(doc(2L, "Dune Messiah", "Frank Herbert", "Science Fiction", null, null));
+
+		assertThat(index.search("dune messiah", 10)).containsExactly(2L);
+		assertThat(index.search("dune tolkien", 10)).isEmpty();
+	}
+
+	@Test
+	void lastTokenAlsoMatchesAsPrefix() {
+		index.index(doc(1L, "Dune", "Frank Herbert", null, null, null));
+		index.index(doc(2L, "Her Story", "Jane Doe", null, null, null));
+
+		assertThat(index.search("frank herb", 10)).containsExactly(1L);
+		assertThat(index.search("her", 10)).containsExactly(2L, 1L); // exact beats prefix
+		assertThat(index.search("her frank", 10)).isEmpty();          // only the last token expands
+	}
+
+	@Test
+	void isbnIsSearchableWithoutSeparators() {
+		index.index(doc(1L, "Dune", null, null, null, "978-0-441-17271-9"));
+
+		assertThat(index.search("9780441172719", 10)).containsExactly(1L);
+		assertThat(index.search("978044117", 10)).containsExactly(1L);
+	}
+
+	@Test
+	void limitKeepsTheBestAndTiesGoToTheLowerId() {
+		index.index(doc(5L, "Dune", null, null, null, null));
+		index.index(doc(3L, "Dune", null, null, null, null));
+		index.index(doc(4L, "Other", null, "Dune", null, null));
+
+		assertThat(index.search("dune", 2)).containsExactly(3L, 5L);
+		assertThat(index.search("dune", 0)).isEmpty();
+		assertThat(index.search("   ", 10)).isEmpty();
+	}
+
+	// 🔹 Updates
+
+	@Test
+	void reindexingReplacesTheOldTerms() {
+		index.index(doc(1L, "Dune", "Frank Herbert", null, null, null));
+		index.index(doc(1L, "Children of Dune", "Frank Herbert", null, null, null));
+		index.index(doc(1L, "Chapterhouse", "Frank Herbert", null, null, null));
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.search("dune", 10)).isEmpty();
+		assertThat(index.search("chapterhouse", 10)).containsExactly(1L);
+	}
+
+	@Test
+	void removedBooksDisappear() {
+		index.index(doc(1L, "Dune", null, null, null, null));
+		index.index(doc(2L, "Dune Messiah", null, null, null, null));
+
+		index.remove(1L);
+		index.remove(99L); // unknown ids are ignored
+
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.search("dune", 10)).containsExactly(2L);
+		index.remove(2L);
+		assertThat(index.search("dune", 10)).isEmpty();
+	}
+
+	@Test
+	void compactionAfterManyDeletesKeepsResults() {
+		for (long id = 1; id <= 2_000; id++) index.index(doc(id, "Common Title " + id, null, null, null, null));
+		for (long id = 1; id <= 1_500; id++) index.remove(id);
+
+		assertThat(index.size()).isEqualTo(500);
+		List<Long> hits = index.search("common", 1_000);
+		assertThat(hits).hasSize(500).allMatch(id -> id > 1_500);
+		assertThat(index.search("title 1999", 10)).containsExactly(1_999L);
+		assertThat(index.search("title 42", 10)).isEmpty();
+	}
+
+	@Test
+	void indexAfterCommitWaitsForTheTransaction() {
+		Book book = new Book();
+		book.setId(7L);
+		book.setTitle("Dune");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			index.indexAfterCommit(book);
+			assertThat(index.search("dune", 10)).isEmpty();
+
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThat(index.search("dune", 10)).containsExactly(7L);
+	}
+
+	@Test
+	void rebuildLoadsEveryPage() {
+		when(books.findSearchDocumentsAfter(eq(0L), any(Pageable.class)))
+				.thenReturn(List.of(doc(1L, "Dune", null, null, null, null), doc(2L, "Emma", null, null, null, null)));
+		when(books.findSearchDocumentsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of());
+
+		index.rebuild();
+
+		assertThat(index.isReady()).isTrue();
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(index.search("emma", 10)).containsExactly(2L);
+	}
+
+	// 🔹 Scratch buffers
+
+	@Test
+	void scratchBuffersAreReusedAndShrinkWithTheIndex() {
+		for (long id = 1; id <= 2_000; id++) index.index(doc(id, "Common " + id, null, null, null, null));
+		index.search("common", 10);
+		index.search("common", 10);
+
+		List<Integer> grown = index.pooledScratchCapacities();
+		assertThat(grown).hasSize(1);
+		assertThat(grown.get(0)).isGreaterThanOrEqualTo(2_000);
+
+		for (long id = 1; id <= 1_900; id++) index.remove(id); // compacts the docNo range
+		index.search("common", 10);
+
+		assertThat(index.pooledScratchCapacities()).hasSize(1).allMatch(capacity -> capacity < 2_000);
+	}
+
+	private static BookSearchDocument doc(Long id, String title, String author, String genre, String publisher, String isbn) {
+		return new BookSearchDocument(id, title, author, genre, publisher, isbn);
+	}
+}
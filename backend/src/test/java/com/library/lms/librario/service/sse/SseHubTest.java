@@ -0,0 +1,157 @@
+package com.library.lms.librario.service.sse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseHubTest {
+
+	private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+
+	// 2 sender threads, 4 queued events per subscriber, 100 ms send timeout
+	private final SseHub hub = new SseHub("test", 60_000, 2, 4, 100) {
+		@Override
+		protected SseEmitter newEmitter(long timeoutMs) {
+			RecordingEmitter emitter = new RecordingEmitter();
+			emitters.add(emitter);
+			return emitter;
+		}
+	};
+
+	@AfterEach
+	void tearDown() {
+		emitters.forEach(e -> e.release());
+		hub.shutdown();
+	}
+
+	@Test
+	void slowSubscriberDoesNotDelayOthersAndIsEvictedWhenItFallsBehind() throws Exception {
+		hub.subscribe("t");
+		hub.subscribe("t");
+		await(() -> hub.subscriberCount() == 2);
+		RecordingEmitter slow = emitters.get(0);
+		RecordingEmitter fast = emitters.get(1);
+		slow.block();
+
+		for (int i = 1; i <= 3; i++) hub.publish("t", "e", String.valueOf(i), "event-" + i);
+		await(() -> fast.sent.size() == 4); // connected + 3
+		assertThat(fast.sent).containsExactly("connected", "event-1", "event-2", "event-3");
+
+		// slow is stuck writing event-1 with 2 queued; 3 more overflow its queue of 4
+		for (int i = 4; i <= 6; i++) hub.publish("t", "e", String.valueOf(i), "event-" + i);
+		await(() -> hub.subscriberCount() == 1);
+		await(() -> fast.sent.size() == 7);
+		assertThat(slow.completed).isFalse(); // its write is still in flight
+
+		slow.release();
+		await(() -> slow.completed);
+		assertThat(slow.sent).containsExactly("connected", "event-1");
+	}
+
+	@Test
+	void heartbeatEvictsSubscriberWhoseWriteIsStuck() throws Exception {
+		hub.subscribe("t");
+		hub.subscribe("t");
+		await(() -> hub.subscriberCount() == 2);
+		RecordingEmitter stuck = emitters.get(0);
+		stuck.block();
+
+		hub.publish("t", "e", "1", "event-1");
+		await(() -> emitters.get(1).sent.size() == 2);
+		Thread.sleep(150); // past the 100 ms send timeout
+
+		hub.heartbeat();
+		assertThat(hub.subscriberCount()).isEqualTo(1);
+		await(() -> emitters.get(1).sent.contains("hb"));
+	}
+
+	@Test
+	void eventPublishedRightAfterSubscribeIsDelivered() throws Exception {
+		hub.subscribe("t");
+		hub.publish("t", "e", "1", "event-1");
+
+		RecordingEmitter emitter = emitters.get(0);
+		await(() -> emitter.sent.size() == 2);
+		assertThat(emitter.sent).containsExactly("connected", "event-1");
+	}
+
+	@Test
+	void liveEventsDuringReplayFollowItWithoutDuplicates() throws Exception {
+		Thread caller = Thread.currentThread();
+		hub.subscribe(List.of("t"), () -> {
+			assertThat(Thread.currentThread()).isSameAs(caller);
+			// committed while the replay query ran: 2 is in the replay, 3 is not
+			hub.publish("t", "e", "2", "event-2");
+			hub.publish("t", "e", "3", "event-3");
+			return List.of(new SseHub.Event("e", "1", "event-1"), new SseHub.Event("e", "2", "event-2"));
+		});
+
+		RecordingEmitter emitter = emitters.get(0);
+		await(() -> emitter.sent.size() == 4);
+		Thread.sleep(50);
+		assertThat(emitter.sent).containsExactly("connected", "event-1", "event-2", "event-3");
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			if (condition.getAsBoolean()) return;
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Condition not met in time");
+	}
+
+	static class RecordingEmitter extends SseEmitter {
+		final List<String> sent = new CopyOnWriteArrayList<>();
+		volatile CountDownLatch gate;
+		volatile boolean completed;
+
+		void block() {
+			gate = new CountDownLatch(1);
+		}
+
+		void release() {
+			CountDownLatch g = gate;
+			if (g != null) g.countDown();
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			CountDownLatch g = gate;
+			try {
+				if (g != null && !g.await(5, TimeUnit.SECONDS)) throw new IOException("still blocked");
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			sent.add(render(builder));
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		@Override
+		public void completeWithError(Throwable ex) {
+			completed = true;
+		}
+
+		// the comment text, or the data of a named event
+		private static String render(SseEventBuilder builder) {
+			String raw = builder.build().stream().map(d -> String.valueOf(d.getData())).reduce("", String::concat);
+			for (String line : raw.split("\n")) {
+				if (line.startsWith(":")) return line.substring(1);
+				if (line.startsWith("data:")) return line.substring(5);
+			}
+			return raw;
+		}
+	}
+}
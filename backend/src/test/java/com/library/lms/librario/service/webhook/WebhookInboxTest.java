@@ -0,0 +1,128 @@
+package com.library.lms.librario.service.webhook;
+
+import com.library.lms.librario.H2JpaTest;
+import com.library.lms.librario.entity.Payment;
+import com.library.lms.librario.entity.PaymentStatus;
+import com.library.lms.librario.entity.WebhookEvent;
+import com.library.lms.librario.entity.enums.WebhookEventStatus;
+import com.library.lms.librario.repository.PaymentRepository;
+import com.library.lms.librario.repository.WebhookEventRepository;
+import com.library.lms.librario.service.payment.MembershipActivationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@H2JpaTest(properties = {
+		"app.webhooks.workers=2"
+})
+@Import({WebhookInbox.class, WebhookWorker.class, RazorpayWebhookHandler.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // events are applied on worker threads
+class WebhookInboxTest {
+
+	@Autowired
+	private WebhookInbox inbox;
+
+	@Autowired
+	private WebhookEventRepository eventRepository;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private RazorpayWebhookHandler handler;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@MockitoBean
+	private MembershipActivationService membershipActivationService;
+
+	@Test
+	void storesOnceAndAppliesIdempotently() throws Exception {
+		Payment payment = paymentRepository.save(Payment.builder()
+				.userId(1L).amount(BigDecimal.TEN).currency("INR")
+				.status(PaymentStatus.INITIATED).orderId("order_1").build());
+
+		WebhookInbox.Receipt first = inbox.receive("evt_1", event("order_1", "pay_1", "captured"));
+		WebhookInbox.Receipt retry = inbox.receive("evt_1", event("order_1", "pay_1", "captured"));
+		assertThat(first.duplicate()).isFalse();
+		assertThat(retry.duplicate()).isTrue();
+		assertThat(retry.id()).isEqualTo(first.id());
+		assertThat(eventRepository.count()).isEqualTo(1);
+
+		assertThat(awaitApplied(first.id()).getStatus()).isEqualTo(WebhookEventStatus.PROCESSED);
+		assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+		verify(membershipActivationService, times(1)).activate(any());
+
+		// a failed earlier attempt arriving late never downgrades a captured payment
+		WebhookInbox.Receipt late = inbox.receive("evt_2", event("order_1", "pay_0", "failed"));
+		assertThat(awaitApplied(late.id()).getStatus()).isEqualTo(WebhookEventStatus.IGNORED);
+		assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getPaymentId()).isEqualTo("pay_1");
+
+		// no event id header: the payload hash deduplicates; unknown orders are ignored, not retried
+		WebhookInbox.Receipt unknown = inbox.receive(null, event("order_x", "pay_x", "captured"));
+		assertThat(inbox.receive("", event("order_x", "pay_x", "captured")).duplicate()).isTrue();
+		assertThat(awaitApplied(unknown.id()).getLastError()).contains("order_x");
+
+		// replay applies again without changing the outcome
+		inbox.replay(first.id());
+		WebhookEvent replayed = awaitApplied(first.id());
+		assertThat(replayed.getStatus()).isEqualTo(WebhookEventStatus.PROCESSED);
+		assertThat(replayed.getAttempts()).isEqualTo(1);
+		assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+		verify(membershipActivationService, times(1)).activate(any()); // the replay did not activate twice
+	}
+
+	@Test
+	void failedEventDoesNotOverwriteASuccessCommittedAfterItReadThePayment() {
+		Payment payment = paymentRepository.save(Payment.builder()
+				.userId(1L).amount(BigDecimal.TEN).currency("INR")
+				.status(PaymentStatus.INITIATED).orderId("order_2").build());
+		TransactionTemplate concurrent = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		concurrent.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+
+		RazorpayWebhookHandler.Result result = transactionTemplate.execute(status -> {
+			// the worker has read the row (still INITIATED) when /success commits on another connection
+			assertThat(paymentRepository.findByOrderId("order_2").orElseThrow().getStatus()).isEqualTo(PaymentStatus.INITIATED);
+			concurrent.executeWithoutResult(s -> paymentRepository.completeByOrderId(
+					"order_2", "pay_ok", PaymentStatus.SUCCESS, LocalDateTime.now()));
+
+			return handler.apply(WebhookEvent.builder()
+					.eventType("payment.failed").orderId("order_2").paymentId("pay_failed")
+					.payload(event("order_2", "pay_failed", "failed"))
+					.build());
+		});
+
+		assertThat(result.applied()).isFalse();
+		Payment stored = paymentRepository.findById(payment.getId()).orElseThrow();
+		assertThat(stored.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+		assertThat(stored.getPaymentId()).isEqualTo("pay_ok");
+	}
+
+	private WebhookEvent awaitApplied(Long id) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			WebhookEvent event = eventRepository.findById(id).orElseThrow();
+			if (event.getStatus() != WebhookEventStatus.RECEIVED) return event;
+			Thread.sleep(50);
+		}
+		throw new AssertionError("Webhook event " + id + " was not applied");
+	}
+
+	private static String event(String orderId, String paymentId, String status) {
+		return "{\"event\":\"payment." + status + "\",\"payload\":{\"payment\":{\"entity\":"
+				+ "{\"id\":\"" + paymentId + "\",\"order_id\":\"" + orderId + "\",\"status\":\"" + status + "\"}}}}";
+	}
+}
@@ -12,31 +12,58 @@ import {
   Clock,
 } from "lucide-react";
 import notificationService from "../services/notificationService";
+import { subscribeNotifications } from "../services/notificationStream";
+
+// Unread admin notifications kept in the dropdown
+const PAGE_SIZE = 20;
 
 export default function AdminNotificationBell() {
   const [count, setCount] = useState(0);
   const [notifications, setNotifications] = useState([]);
   const [open, setOpen] = useState(false);
   const dropdownRef = useRef(null);
+  const shownIds = useRef(new Set());
 
-  // fetch admin notifications
+  // fetch the first page of unread admin notifications
   const fetchNotifications = async () => {
     try {
-      const data = await notificationService.getAdmin();
-      setNotifications(data || []);
-      const unread = (data || []).filter((n) => !n.read).length;
+      const [page, unread] = await Promise.all([
+        notificationService.getAdminInboxPage({ size: PAGE_SIZE, unreadOnly: true }),
+        notificationService.getAdminUnreadCount(),
+      ]);
+      setNotifications(page.items);
+      shownIds.current = new Set(page.items.map((n) => n.id));
       setCount(unread);
     } catch (err) {
       console.error("Failed to fetch admin notifications:", err);
     }
   };
 
+  // ✅ A pushed notification goes straight into the list; no reload.
+  // Ids already shown (e.g. replayed after a reconnect) are not counted twice.
+  const addPushed = (n) => {
+    if (n.targetRole !== "ADMIN" || n.read || shownIds.current.has(n.id)) return;
+    shownIds.current.add(n.id);
+    setNotifications((prev) => [n, ...prev].slice(0, PAGE_SIZE));
+    setCount((c) => c + 1);
+  };
+
   useEffect(() => {
+    // Reload only on first load, on resync (events were missed) and on the slow fallback poll
     fetchNotifications();
-    const interval = setInterval(fetchNotifications, 10000);
-    return () => clearInterval(interval);
+    const unsubscribe = subscribeNotifications(addPushed, { onResync: fetchNotifications });
+    const interval = setInterval(fetchNotifications, 60000);
+    return () => {
+      unsubscribe();
+      clearInterval(interval);
+    };
   }, []);
 
+  const removeLocally = (id) => {
+    setNotifications((prev) => prev.filter((n) => n.id !== id));
+    setCount((c) => Math.max(0, c - 1)); // the list holds unread notifications only
+  };
+
   // close dropdown when clicking outside
   useEffect(() => {
     const handleClickOutside = (e) => {
@@ -52,7 +79,7 @@ export default function AdminNotificationBell() {
   const handleMarkAsRead = async (id) => {
     try {
       await notificationService.markAsRead(id);
-      fetchNotifications();
+      removeLocally(id);
     } catch (err) {
       console.error("Failed to mark as read:", err);
     }
@@ -62,7 +89,7 @@ export default function AdminNotificationBell() {
   const handleDelete = async (id) => {
     try {
       await notificationService.delete(id);
-      fetchNotifications();
+      removeLocally(id);
     } catch (err) {
       console.error("Failed to delete notification:", err);
     }
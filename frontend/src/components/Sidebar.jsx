@@ -27,6 +27,7 @@ import {
   X,
 } from "lucide-react";
 import notificationService from "../services/notificationService";
+import { subscribeNotifications } from "../services/notificationStream";
 
 export default function Sidebar({ role }) {
   const [unreadCount, setUnreadCount] = useState(0);
@@ -43,8 +44,7 @@ export default function Sidebar({ role }) {
         let count = 0;
 
         if (role === "ADMIN") {
-          const adminNotifications = await notificationService.getAdmin();
-          count = adminNotifications.length;
+          count = await notificationService.getAdminUnreadCount();
         } else if (userId) {
           count = await notificationService.getUnreadCount(userId);
         }
@@ -55,9 +55,15 @@ export default function Sidebar({ role }) {
       }
     };
 
+    // ✅ Pushed notifications refresh the badge (count is served from memory);
+    // the slow poll is only a fallback for dropped streams.
     fetchCount();
-    const interval = setInterval(fetchCount, 10000);
-    return () => clearInterval(interval);
+    const unsubscribe = subscribeNotifications(fetchCount, { onResync: fetchCount });
+    const interval = setInterval(fetchCount, 60000);
+    return () => {
+      unsubscribe();
+      clearInterval(interval);
+    };
   }, [role, userId]);
 
   // Keyboard navigation
@@ -4,6 +4,7 @@ import { borrowService } from "../services/borrowService";
 import overdueService from "../services/overdueService";
 import FinePaymentPage from "../components/FinePaymentPage";
 import api from "../services/api";
+import { subscribeInventory } from "../services/inventoryStream";
 import {
   BookOpen,
   CalendarClock,
@@ -102,8 +103,20 @@ export default function BorrowedBooksPage() {
     };
 
     fetchBooks();
-    const interval = setInterval(fetchBooks, 15000);
-    return () => clearInterval(interval);
+
+    // ✅ Refresh when inventory changes (borrow approved, return, reservation);
+    // bursts of events collapse into one reload. Slow poll stays as a fallback.
+    let pending = null;
+    const unsubscribe = subscribeInventory(() => {
+      clearTimeout(pending);
+      pending = setTimeout(fetchBooks, 500);
+    });
+    const interval = setInterval(fetchBooks, 60000);
+    return () => {
+      unsubscribe();
+      clearTimeout(pending);
+      clearInterval(interval);
+    };
   }, [navigate, userId]);
 
   useEffect(() => {
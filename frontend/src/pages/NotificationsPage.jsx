@@ -43,10 +43,15 @@ export default function NotificationsPage() {
 
   const markAllAsRead = async () => {
     const unread = notifications.filter((n) => !n.read);
+    if (unread.length === 0) return;
+    // one request; bounded by the newest one shown so unseen arrivals stay unread
+    const upToId = Math.max(...unread.map((n) => n.id));
     try {
-      await Promise.all(
-        unread.map((n) => notificationService.markAsRead(n.id)),
-      );
+      if (role === "ADMIN") {
+        await notificationService.markAllReadForRole("ADMIN", { upToId });
+      } else {
+        await notificationService.markAllReadForUser(userId, { upToId });
+      }
       setNotifications((prev) => prev.map((n) => ({ ...n, read: true })));
     } catch (e) {
       console.error(e);
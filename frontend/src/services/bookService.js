@@ -6,6 +6,12 @@ export const bookService = {
     return res.data;
   },
 
+  // Keyset-paginated listing: returns { items, nextCursor, hasMore }
+  getPage: async ({ cursor, size, sort = "id" } = {}) => {
+    const res = await api.get("/books/page", { params: { cursor, size, sort } });
+    return res.data;
+  },
+
   search: async (query) => {
     if (!query || query.trim() === "") {
       return bookService.getAll();
@@ -0,0 +1,26 @@
+// src/services/inventoryStream.js
+import api from "./api";
+
+/**
+ * Subscribes to live inventory changes (Server-Sent Events).
+ * `onChange` receives { bookId, availableCopies, totalCopies, status, changedAt }.
+ * Returns an unsubscribe function. EventSource reconnects on its own after network errors.
+ */
+export const subscribeInventory = (onChange, onError) => {
+  const source = new EventSource(`${api.defaults.baseURL}/inventory/stream`, {
+    withCredentials: true,
+  });
+
+  source.addEventListener("inventory", (e) => {
+    try {
+      onChange(JSON.parse(e.data));
+    } catch (err) {
+      console.error("Bad inventory event", err);
+    }
+  });
+  if (onError) source.onerror = onError;
+
+  return () => source.close();
+};
+
+export default { subscribeInventory };
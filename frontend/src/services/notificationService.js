@@ -3,24 +3,42 @@ import api from "./api";
 
 const base = "/notifications";
 
+// First page of a keyset-paginated inbox: { items, nextCursor, hasMore }
+const page = (res) =>
+  res.data && Array.isArray(res.data.items)
+    ? res.data
+    : { items: [], nextCursor: null, hasMore: false };
+
 const notificationService = {
-  // 🔹 Get all notifications for a user
+  // 🔹 One inbox page for a user (newest first); pass nextCursor back to load more
+  getInboxPage: async (userId, { cursor, size, unreadOnly = false } = {}) => {
+    const res = await api.get(`${base}/user/${userId}/inbox`, {
+      params: { cursor, size, unreadOnly },
+    });
+    return page(res);
+  },
+
+  // 🔹 One admin inbox page (newest first)
+  getAdminInboxPage: async ({ cursor, size, unreadOnly = false } = {}) => {
+    const res = await api.get(`${base}/admin/inbox`, {
+      params: { cursor, size, unreadOnly },
+    });
+    return page(res);
+  },
+
+  // 🔹 Latest notifications for a user (first inbox page)
   getByUser: async (userId) => {
-    const res = await api.get(`${base}/user/${userId}`);
-    return Array.isArray(res.data) ? res.data : [];
+    return (await notificationService.getInboxPage(userId)).items;
   },
 
-  // 🔹 Get only unread notifications for a user
+  // 🔹 Latest unread notifications for a user (first inbox page)
   getUnread: async (userId) => {
-    const res = await api.get(`${base}/unread/${userId}`);
-    return Array.isArray(res.data) ? res.data : [];
+    return (await notificationService.getInboxPage(userId, { unreadOnly: true })).items;
   },
 
-  // 🔹 Get admin unread notifications (UPDATED)
+  // 🔹 Latest unread admin notifications (first inbox page)
   getAdmin: async () => {
-    // call the new backend endpoint for admin notifications
-    const res = await api.get(`${base}/admin/unread`);
-    return Array.isArray(res.data) ? res.data : [];
+    return (await notificationService.getAdminInboxPage({ unreadOnly: true })).items;
   },
 
   // 🔹 Mark notification as read
@@ -35,10 +53,38 @@ const notificationService = {
     return res.data;
   },
 
-  // 🔹 Get unread count (frontend helper)
+  // 🔹 Mark all of a user's notifications read in one call (upToId: leave newer ones unread)
+  markAllReadForUser: async (userId, { upToId, before } = {}) => {
+    const res = await api.put(`${base}/user/${userId}/read-all`, null, {
+      params: { upToId, before },
+    });
+    return res.data;
+  },
+
+  // 🔹 Mark a whole role inbox (e.g. "ADMIN") read in one call
+  markAllReadForRole: async (role, { upToId, before } = {}) => {
+    const res = await api.put(`${base}/role/${role}/read-all`, null, {
+      params: { upToId, before },
+    });
+    return res.data;
+  },
+
+  // 🔹 Delete several notifications in one call
+  deleteMany: async (ids) => {
+    const res = await api.post(`${base}/bulk-delete`, ids);
+    return res.data;
+  },
+
+  // 🔹 Unread count for the badge (served from the backend's in-memory counter)
   getUnreadCount: async (userId) => {
-    const res = await api.get(`${base}/unread/${userId}`);
-    return Array.isArray(res.data) ? res.data.length : 0; // return count instead of array
+    const res = await api.get(`${base}/unread/${userId}/count`);
+    return Number(res.data) || 0;
+  },
+
+  // 🔹 Admin unread count for the badge
+  getAdminUnreadCount: async () => {
+    const res = await api.get(`${base}/admin/unread/count`);
+    return Number(res.data) || 0;
   },
 };
 
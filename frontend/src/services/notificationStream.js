@@ -0,0 +1,29 @@
+// src/services/notificationStream.js
+import api from "./api";
+
+/**
+ * Subscribes to live notifications for the logged-in user and role (Server-Sent Events).
+ * `onNotification` receives the notification ({ id, title, message, type, read, createdAt, ... }).
+ * `onResync` fires when the server could not replay everything missed while disconnected;
+ * reload the inbox then. EventSource reconnects on its own and resumes from the last event id.
+ * Returns an unsubscribe function.
+ */
+export const subscribeNotifications = (onNotification, { onResync, onError } = {}) => {
+  const source = new EventSource(`${api.defaults.baseURL}/notifications/stream`, {
+    withCredentials: true,
+  });
+
+  source.addEventListener("notification", (e) => {
+    try {
+      onNotification(JSON.parse(e.data));
+    } catch (err) {
+      console.error("Bad notification event", err);
+    }
+  });
+  if (onResync) source.addEventListener("resync", () => onResync());
+  if (onError) source.onerror = onError;
+
+  return () => source.close();
+};
+
+export default { subscribeNotifications };